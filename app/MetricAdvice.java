@@ -1,8 +1,8 @@
 
 package org.ihtsdo.refsetservice.app;
 
-import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
@@ -11,7 +11,6 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.ihtsdo.refsetservice.model.Metric;
-import org.ihtsdo.refsetservice.service.ElasticOperationsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,9 +34,9 @@ public class MetricAdvice {
     // @Autowired
     // private ElasticServerProperties elasticServerProperties;
 
-    /** The operations service. */
+    /** The metric shipper. */
     @Autowired
-    private ElasticOperationsService operationsService;
+    private MetricShipper metricShipper;
 
     /**
      * Record metric.
@@ -90,13 +89,15 @@ public class MetricAdvice {
         final String url = request.getRequestURL().toString();
         metric.setEndPoint(url);
 
-        metric.setQueryParams(params);
+        // the request is recycled once the response is sent, before the metric is shipped, so keep a copy of its parameters
+        final Map<String, String[]> queryParams = new HashMap<>();
+        params.forEach((name, values) -> queryParams.put(name, (values == null) ? null : values.clone()));
+        metric.setQueryParams(queryParams);
         metric.setStartTime(startDate);
         metric.setEndTime(endDate);
 
-        // get the parameters
-        operationsService.loadMetric(metric,
-            "metrics-" + String.valueOf(Calendar.getInstance().get(Calendar.YEAR)) + "-" + String.valueOf(Calendar.getInstance().get(Calendar.MONTH)));
+        // ship asynchronously so a slow metrics backend never adds to the request time
+        metricShipper.ship(metric);
 
         LOG.debug("metric = " + metric);
         return retval;
@@ -0,0 +1,254 @@
+package org.ihtsdo.refsetservice.app;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.ihtsdo.refsetservice.model.Metric;
+import org.ihtsdo.refsetservice.service.ElasticOperationsService;
+import org.ihtsdo.refsetservice.util.PropertyUtility;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ships recorded metrics to Elasticsearch off the request thread.
+ *
+ * Metrics go into a bounded buffer and a background flusher sends them with the bulk API, one call per index. When the buffer is full new
+ * metrics are dropped and counted rather than slowing the request down. On shutdown the buffer is drained before the flusher stops.
+ */
+@Component
+@DependsOn("propertyUtility")
+@ConditionalOnProperty(name = "app.metrics.enabled")
+public class MetricShipper {
+
+    /** The Constant LOG. */
+    private static final Logger LOG = LoggerFactory.getLogger(MetricShipper.class);
+
+    /** The document type used for metrics. */
+    private static final String METRIC_TYPE = "_doc";
+
+    /** The operations service. */
+    @Autowired
+    private ElasticOperationsService operationsService;
+
+    /** The buffer of metrics waiting to be shipped. */
+    private BlockingQueue<QueuedMetric> buffer;
+
+    /** The maximum number of metrics per bulk call. */
+    private int batchSize;
+
+    /** The maximum time in milliseconds a metric waits for a batch to fill. */
+    private long flushInterval;
+
+    /** The maximum time in milliseconds to drain the buffer on shutdown. */
+    private long shutdownTimeout;
+
+    /** The flusher thread. */
+    private Thread flusher;
+
+    /** Whether the shipper is accepting and shipping metrics. */
+    private volatile boolean running;
+
+    /** The number of metrics accepted into the buffer. */
+    private final AtomicLong accepted = new AtomicLong();
+
+    /** The number of metrics dropped because the buffer was full. */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /** The number of metrics shipped. */
+    private final AtomicLong shipped = new AtomicLong();
+
+    /** The number of metrics lost to failed bulk calls. */
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * Starts the flusher.
+     */
+    @PostConstruct
+    public void start() {
+
+        buffer = new ArrayBlockingQueue<>(getIntProperty("app.metrics.buffer.size", 10000));
+        batchSize = getIntProperty("app.metrics.batch.size", 500);
+        flushInterval = getIntProperty("app.metrics.flush.interval", 1000);
+        shutdownTimeout = getIntProperty("app.metrics.shutdown.timeout", 10000);
+
+        running = true;
+        flusher = new Thread(this::flushLoop, "metric-shipper");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Stops accepting metrics and drains the buffer.
+     *
+     * @throws InterruptedException the interrupted exception
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+
+        // the flusher sees the flag within one flush interval; it is not interrupted so a bulk call in flight completes
+        running = false;
+        flusher.join(shutdownTimeout);
+
+        if (flusher.isAlive() || !buffer.isEmpty()) {
+            LOG.warn("Metric shipper stopped with {} metrics not shipped", buffer.size());
+        }
+    }
+
+    /**
+     * Queues a metric for shipping without blocking. The index name is derived from the metric start time.
+     *
+     * @param metric the metric
+     * @return true, if the metric was accepted
+     */
+    public boolean ship(final Metric metric) {
+
+        if (!running || !buffer.offer(new QueuedMetric(getIndexName(metric), metric))) {
+
+            dropped.incrementAndGet();
+            return false;
+        }
+
+        accepted.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Returns the shipping statistics.
+     *
+     * @return the statistics
+     */
+    public Map<String, Object> getStatistics() {
+
+        final Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("buffered", buffer.size());
+        statistics.put("accepted", accepted.get());
+        statistics.put("dropped", dropped.get());
+        statistics.put("shipped", shipped.get());
+        statistics.put("failed", failed.get());
+        return statistics;
+    }
+
+    /**
+     * Returns the monthly index name of a metric, e.g. metrics-2024-0 for January 2024 (months are zero based, as they always have been).
+     *
+     * @param metric the metric
+     * @return the index name
+     */
+    private static String getIndexName(final Metric metric) {
+
+        final LocalDate date = metric.getStartTime().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        return "metrics-" + date.getYear() + "-" + (date.getMonthValue() - 1);
+    }
+
+    /**
+     * Ships batches until stopped, then drains what is left.
+     */
+    private void flushLoop() {
+
+        final List<QueuedMetric> batch = new ArrayList<>(batchSize);
+
+        while (running || !buffer.isEmpty()) {
+
+            try {
+
+                // wait for the first metric, then take whatever else is ready
+                final QueuedMetric first = running ? buffer.poll(flushInterval, TimeUnit.MILLISECONDS) : buffer.poll();
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                flush(batch);
+
+            } catch (final InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+                return;
+
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Sends a batch with one bulk call per index.
+     *
+     * @param batch the batch
+     */
+    private void flush(final List<QueuedMetric> batch) {
+
+        final Map<String, List<Metric>> metricsByIndex = new LinkedHashMap<>();
+
+        for (final QueuedMetric queued : batch) {
+            metricsByIndex.computeIfAbsent(queued.index, k -> new ArrayList<>()).add(queued.metric);
+        }
+
+        for (final Map.Entry<String, List<Metric>> entry : metricsByIndex.entrySet()) {
+
+            try {
+
+                operationsService.bulkIndex(entry.getValue(), entry.getKey(), METRIC_TYPE, Metric.class);
+                shipped.addAndGet(entry.getValue().size());
+
+            } catch (final Exception e) {
+
+                failed.addAndGet(entry.getValue().size());
+                LOG.warn("Unable to ship {} metrics to index {}: {}", entry.getValue().size(), entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns an integer property.
+     *
+     * @param key the key
+     * @param defaultValue the default value
+     * @return the property value
+     */
+    private static int getIntProperty(final String key, final int defaultValue) {
+
+        return NumberUtils.toInt(PropertyUtility.getProperty(key), defaultValue);
+    }
+
+    /**
+     * A metric waiting to be shipped, with its index name.
+     */
+    private static final class QueuedMetric {
+
+        /** The index name. */
+        private final String index;
+
+        /** The metric. */
+        private final Metric metric;
+
+        /**
+         * Instantiates a {@link QueuedMetric} from the specified parameters.
+         *
+         * @param index the index name
+         * @param metric the metric
+         */
+        QueuedMetric(final String index, final Metric metric) {
+
+            this.index = index;
+            this.metric = metric;
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.ihtsdo.refsetservice.model.RestException;
 import org.ihtsdo.refsetservice.model.User;
 import org.ihtsdo.refsetservice.service.SecurityService;
 import org.ihtsdo.refsetservice.util.CrowdGroupNameAlgorithm;
+import org.ihtsdo.refsetservice.util.JsonUtility;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -38,7 +39,6 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Integration to Atlassian's Crowd API.
@@ -107,8 +107,7 @@ public class CrowdAPIClient extends CrowdClientAbstract {
         if (response.statusCode() == 200) {
 
             final String jsonString = response.body();
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode root = mapper.readTree(jsonString);
+            final JsonNode root = JsonUtility.readTree(jsonString);
 
             final User user = new User();
             user.setName(root.get("display-name").asText());
@@ -492,8 +491,7 @@ public class CrowdAPIClient extends CrowdClientAbstract {
         // 404 the user could not be found or the user is not a direct member of the
         // specified group.
 
-        final ObjectMapper mapper = new ObjectMapper();
-        final JsonNode root = mapper.readTree(jsonString);
+        final JsonNode root = JsonUtility.readTree(jsonString);
         final JsonNode groups = root.get("groups");
         if (groups != null && !groups.isEmpty()) {
             groups.forEach(groupName -> {
@@ -629,8 +627,7 @@ public class CrowdAPIClient extends CrowdClientAbstract {
         }
 
         final String jsonString = get(getBaseUrl() + FIND_USER + urlEncode(email));
-        final ObjectMapper mapper = new ObjectMapper();
-        final JsonNode root = mapper.readTree(jsonString);
+        final JsonNode root = JsonUtility.readTree(jsonString);
         final JsonNode users = root.get("users");
 
         if (users == null || (users.isArray() && users.isEmpty())) {
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2023 SNOMED International - All Rights Reserved.
+ *
+ * NOTICE:  All information contained herein is, and remains the property of SNOMED International
+ * The intellectual and technical concepts contained herein are proprietary to
+ * SNOMED International and may be covered by U.S. and Foreign Patents, patents in process,
+ * and are protected by trade secret or copyright law.  Dissemination of this information
+ * or reproduction of this material is strictly forbidden.
+ */
+package org.ihtsdo.refsetservice.configuration;
+
+import org.hibernate.search.engine.reporting.EntityIndexingFailureContext;
+import org.hibernate.search.engine.reporting.FailureContext;
+import org.hibernate.search.engine.reporting.FailureHandler;
+import org.hibernate.search.mapper.orm.common.EntityReference;
+import org.ihtsdo.refsetservice.service.ReindexQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Handles indexing failures that happen in the background, queuing the entities that failed to be indexed so they are reindexed instead of
+ * left out of date in the index.
+ */
+public class IndexingFailureHandler implements FailureHandler {
+
+    /** The Constant LOG. */
+    private static final Logger LOG = LoggerFactory.getLogger(IndexingFailureHandler.class);
+
+    /* see superclass */
+    @Override
+    public void handle(final FailureContext context) {
+
+        LOG.error("Background indexing failure in {}", context.getFailingOperation(), context.getThrowable());
+    }
+
+    /* see superclass */
+    @Override
+    public void handle(final EntityIndexingFailureContext context) {
+
+        LOG.error("Background indexing failure in {} for {}", context.getFailingOperation(), context.getEntityReferences(), context.getThrowable());
+
+        for (final Object reference : context.getEntityReferences()) {
+
+            if (reference instanceof EntityReference) {
+                ReindexQueue.reindex(((EntityReference) reference).getType(), ((EntityReference) reference).getId());
+            }
+        }
+    }
+}
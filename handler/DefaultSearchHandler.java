@@ -128,9 +128,14 @@ public class DefaultSearchHandler implements SearchHandler {
     public <T extends HasId> int countQueryResults(final String query, final Map<String, String> fieldedClauses, final Set<String> additionalClauses,
         final Class<T> clazz, final PfsParameter pfs, final EntityManager manager) throws Exception {
 
-        final SearchResult<T> searchResult = helper(query, fieldedClauses, additionalClauses, clazz, pfs, manager, new ArrayList<String>());
+        final String finalQuery = composeQuery(query, fieldedClauses, additionalClauses);
 
-        return Math.toIntExact(searchResult.total().hitCount());
+        try {
+            return Math.toIntExact(IndexUtility.countLuceneQuery(clazz, finalQuery, pfs, manager));
+        } catch (ParseException | IllegalArgumentException | LocalException e) {
+            // If there's a parse exception, try the literal query
+            return Math.toIntExact(IndexUtility.countLuceneQuery(clazz, escapeQuery(query), pfs, manager));
+        }
 
     }
 
@@ -167,6 +172,36 @@ public class DefaultSearchHandler implements SearchHandler {
         return ids;
     }
 
+    /**
+     * Streams every result of a query in chunks.
+     *
+     * @param <T> the
+     * @param query the query
+     * @param fieldedClauses the fielded clauses
+     * @param additionalClauses the additional clauses
+     * @param clazz the clazz
+     * @param pfs the pfs, for the sort
+     * @param chunkSize the maximum number of results per chunk
+     * @param handler the handler of each chunk of results
+     * @param manager the manager
+     * @return the number of results streamed
+     * @throws Exception the exception
+     */
+    @Override
+    public <T extends HasId> long scrollQueryResults(final String query, final Map<String, String> fieldedClauses, final Set<String> additionalClauses,
+        final Class<T> clazz, final PfsParameter pfs, final int chunkSize, final IndexUtility.HitsHandler<T> handler, final EntityManager manager)
+        throws Exception {
+
+        final String finalQuery = composeQuery(query, fieldedClauses, additionalClauses);
+
+        try {
+            return IndexUtility.scrollLuceneQuery(clazz, finalQuery, pfs, manager, chunkSize, handler);
+        } catch (ParseException | IllegalArgumentException | LocalException e) {
+            // If there's a parse exception, try the literal query
+            return IndexUtility.scrollLuceneQuery(clazz, escapeQuery(query), pfs, manager, chunkSize, handler);
+        }
+    }
+
     /**
      * Helper.
      *
@@ -185,15 +220,34 @@ public class DefaultSearchHandler implements SearchHandler {
         final PfsParameter pfs, final EntityManager manager, final List<String> projections) throws Exception {
         // Default Search Handler algorithm: run the query "as-is"
         // with fielded or additional clauses
+        final String finalQuery = composeQuery(query, fieldedClauses, additionalClauses);
+        final String escapedQuery = escapeQuery(query);
 
-        String escapedQuery = query;
-        if (query != null && query.startsWith("\"") && query.endsWith("\"")) {
-            escapedQuery = escapedQuery.substring(1);
-            escapedQuery = escapedQuery.substring(0, query.length() - 2);
-        } else {
-            escapedQuery = query == null ? "" : escapedQuery;
+        SearchResult<T> searchResult = null;
+        try {
+            searchResult = IndexUtility.applyPfsToLuceneQuery(clazz, finalQuery.toString(), pfs, manager, projections);
+        } catch (ParseException | IllegalArgumentException | LocalException e) {
+            // If a "local parse exception", just try again
+            if (!(e instanceof LocalException) || !(e.getCause() instanceof ParseException)) {
+                e.printStackTrace();
+            }
+            // If there's a parse exception, try the literal query
+            searchResult = IndexUtility.applyPfsToLuceneQuery(clazz, escapedQuery, pfs, manager, projections);
         }
-        escapedQuery = "\"" + QueryParserBase.escape(escapedQuery) + "\"";
+
+        return searchResult;
+
+    }
+
+    /**
+     * Composes the query with its fielded and additional clauses.
+     *
+     * @param query the query
+     * @param fieldedClauses the fielded clauses
+     * @param additionalClauses the additional clauses
+     * @return the composed query
+     */
+    private String composeQuery(final String query, final Map<String, String> fieldedClauses, final Set<String> additionalClauses) {
 
         // 1. fielded clauses
         final String part1 = fieldedClauses == null ? null : StringUtility.composeQuery("AND",
@@ -211,22 +265,25 @@ public class DefaultSearchHandler implements SearchHandler {
         // LOG.debug(" part3 = " + part3);
 
         // Assemble query - text, then fields, then additional
-        final String finalQuery = StringUtility.composeQuery("AND", part3, part1, part2);
-
-        SearchResult<T> searchResult = null;
-        try {
-            searchResult = IndexUtility.applyPfsToLuceneQuery(clazz, finalQuery.toString(), pfs, manager, projections);
-        } catch (ParseException | IllegalArgumentException | LocalException e) {
-            // If a "local parse exception", just try again
-            if (!(e instanceof LocalException) || !(e.getCause() instanceof ParseException)) {
-                e.printStackTrace();
-            }
-            // If there's a parse exception, try the literal query
-            searchResult = IndexUtility.applyPfsToLuceneQuery(clazz, escapedQuery, pfs, manager, projections);
-        }
+        return StringUtility.composeQuery("AND", part3, part1, part2);
+    }
 
-        return searchResult;
+    /**
+     * Returns the literal form of a query, used when the query does not parse.
+     *
+     * @param query the query
+     * @return the escaped query
+     */
+    private String escapeQuery(final String query) {
 
+        String escapedQuery = query;
+        if (query != null && query.startsWith("\"") && query.endsWith("\"")) {
+            escapedQuery = escapedQuery.substring(1);
+            escapedQuery = escapedQuery.substring(0, query.length() - 2);
+        } else {
+            escapedQuery = query == null ? "" : escapedQuery;
+        }
+        return "\"" + QueryParserBase.escape(escapedQuery) + "\"";
     }
 
     /**
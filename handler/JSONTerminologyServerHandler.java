@@ -29,9 +29,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -42,6 +39,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.lucene.queryparser.classic.QueryParserBase;
 import org.ihtsdo.refsetservice.handler.snowstorm.SnowstormMapping;
 import org.ihtsdo.refsetservice.model.Concept;
+import org.ihtsdo.refsetservice.model.ConceptDescription;
 import org.ihtsdo.refsetservice.model.DefinitionClause;
 import org.ihtsdo.refsetservice.model.Edition;
 import org.ihtsdo.refsetservice.model.MapEntry;
@@ -64,11 +62,14 @@ import org.ihtsdo.refsetservice.sync.util.SyncUtilities;
 import org.ihtsdo.refsetservice.terminologyservice.RefsetMemberService;
 import org.ihtsdo.refsetservice.terminologyservice.RefsetService;
 import org.ihtsdo.refsetservice.terminologyservice.SnowstormConnection;
+import org.ihtsdo.refsetservice.terminologyservice.SnowstormWorkerPool;
 import org.ihtsdo.refsetservice.terminologyservice.WorkflowService;
 import org.ihtsdo.refsetservice.util.ConceptLookupParameters;
 import org.ihtsdo.refsetservice.util.DateUtility;
+import org.ihtsdo.refsetservice.util.JsonUtility;
 import org.ihtsdo.refsetservice.util.ModelUtility;
 import org.ihtsdo.refsetservice.util.ResultList;
+import org.ihtsdo.refsetservice.util.SctidSet;
 import org.ihtsdo.refsetservice.util.SearchParameters;
 import org.ihtsdo.refsetservice.util.StringUtility;
 import org.slf4j.Logger;
@@ -78,7 +79,6 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
@@ -106,8 +106,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
         final long start = System.currentTimeMillis();
         String refsetBranchPath = null;
         final String url = SnowstormConnection.getBaseUrl() + "branches";
-        final ObjectMapper mapper = new ObjectMapper();
-        final ObjectNode body = mapper.createObjectNode().put("name", branchName).put("parent", parentBranchPath);
+        final ObjectNode body = JsonUtility.createObjectNode().put("name", branchName).put("parent", parentBranchPath);
 
         LOG.debug("createBranch URL: " + url + " ; body: " + body.toString());
 
@@ -123,7 +122,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
 
             final String resultString = response.readEntity(String.class);
 
-            final JsonNode root = mapper.readTree(resultString.toString());
+            final JsonNode root = JsonUtility.readTree(resultString.toString());
             final JsonNode rootNode = root;
 
             if (rootNode.has("path")) {
@@ -211,8 +210,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                 throw new Exception(Integer.toString(response.getStatus()));
             }
 
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode root = mapper.readTree(resultString.toString());
+            final JsonNode root = JsonUtility.readTree(resultString.toString());
             final Iterator<JsonNode> iterator = root.iterator();
 
             if (iterator.hasNext()) {
@@ -231,8 +229,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
 
         final long start = System.currentTimeMillis();
         final String mergeUrl = SnowstormConnection.getBaseUrl() + "merges";
-        final ObjectMapper mapper = new ObjectMapper();
-        final ObjectNode body = mapper.createObjectNode().put("source", sourceBranchPath).put("target", targetBranchPath);
+        final ObjectNode body = JsonUtility.createObjectNode().put("source", sourceBranchPath).put("target", targetBranchPath);
         boolean jobDone = false;
 
         if (comment != null) {
@@ -269,7 +266,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                 try (final Response mergeInfoResponse = SnowstormConnection.getResponse(jobStatusUrl)) {
 
                     final String resultString = mergeInfoResponse.readEntity(String.class);
-                    final JsonNode root = mapper.readTree(resultString.toString());
+                    final JsonNode root = JsonUtility.readTree(resultString.toString());
                     final String status = root.get("status").asText();
 
                     LOG.info("Merge status is: " + status);
@@ -329,7 +326,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                                 try (final Response stateResponse = SnowstormConnection.getResponse(stateUrl)) {
 
                                     final String stateResultString = stateResponse.readEntity(String.class);
-                                    final JsonNode stateRoot = mapper.readTree(stateResultString.toString());
+                                    final JsonNode stateRoot = JsonUtility.readTree(stateResultString.toString());
                                     final String state = stateRoot.get("state").asText();
 
                                     LOG.info("Promoted branch state is: " + state);
@@ -362,8 +359,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
     @Override
     public String mergeRebaseReview(final String sourceBranchPath, final String targetBranchPath) throws Exception {
 
-        final ObjectMapper mapper = new ObjectMapper();
-        final ObjectNode body = mapper.createObjectNode().put("source", sourceBranchPath).put("target", targetBranchPath);
+        final ObjectNode body = JsonUtility.createObjectNode().put("source", sourceBranchPath).put("target", targetBranchPath);
         final String reviewUrl = SnowstormConnection.getBaseUrl() + "merge-reviews";
         String jobStatusUrl = null;
         boolean jobDone = false;
@@ -399,7 +395,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                 }
 
                 final String resultString = response.readEntity(String.class);
-                final JsonNode root = mapper.readTree(resultString.toString());
+                final JsonNode root = JsonUtility.readTree(resultString.toString());
                 final String status = root.get("status").asText();
                 LOG.debug("merge review status: " + status);
 
@@ -438,8 +434,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
     public String getNewRefsetId(final String editionBranchPath) throws Exception {
 
         String refsetConceptId = null;
-        final ObjectMapper mapper = new ObjectMapper();
-        final ObjectNode body = mapper.createObjectNode();
+        final ObjectNode body = JsonUtility.createObjectNode();
         final String projectBranchPath = WorkflowService.getProjectBranchPath(editionBranchPath);
         String tempBranchPath = null;
 
@@ -474,7 +469,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
 
             final String resultString = response.readEntity(String.class);
 
-            final JsonNode root = mapper.readTree(resultString.toString());
+            final JsonNode root = JsonUtility.readTree(resultString.toString());
             final JsonNode conceptNode = root;
 
             if (conceptNode.has("conceptId")) {
@@ -515,8 +510,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
             }
 
             final String resultString = response.readEntity(String.class);
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode root = mapper.readTree(resultString.toString());
+            final JsonNode root = JsonUtility.readTree(resultString.toString());
             final Iterator<JsonNode> branchIterator = root.iterator();
 
             // get versions from edition as long as active & within edition's module
@@ -627,7 +621,6 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
         final String conceptSearchUrl = SnowstormConnection.getBaseUrl() + edition.getBranch() + "/concepts/search";
         final String bodyBase = "{\"limit\": 1000, ";
         String bodyConceptIds = "\"conceptIds\":[";
-        final ObjectMapper mapper = new ObjectMapper();
         final Map<String, String> moduleNames = new HashMap<>();
 
         for (final String moduleId : edition.getModules()) {
@@ -651,7 +644,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                     + " Message: " + response.getStatusInfo().getReasonPhrase());
             }
 
-            final JsonNode root = mapper.readTree(resultString.toString());
+            final JsonNode root = JsonUtility.readTree(resultString.toString());
             final Iterator<JsonNode> iterator = root.get("items").iterator();
 
             while (iterator != null && iterator.hasNext()) {
@@ -683,8 +676,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
 
             final String resultString = response.readEntity(String.class);
 
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode organizationJsonRootNode = mapper.readTree(resultString.toString());
+            final JsonNode organizationJsonRootNode = JsonUtility.readTree(resultString.toString());
             final Iterator<JsonNode> organizationIterator = organizationJsonRootNode.iterator();
             final SyncUtilities syncUtilities = new SyncUtilities(new SyncDatabaseHandler(null, new SyncStatistics()));
 
@@ -803,31 +795,29 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                 parentConceptId = RefsetService.SIMPLE_TYPE_REFERENCE_SET;
             }
 
-            final ObjectMapper mapper = new ObjectMapper();
-
-            final ObjectNode descriptions = mapper.createObjectNode().set("descriptions",
-                mapper.createArrayNode()
-                    .add(mapper.createObjectNode().put("moduleId", moduleId).put("term", refsetEditParameters.getName()).put("typeId", "900000000000013009")
+            final ObjectNode descriptions = JsonUtility.createObjectNode().set("descriptions",
+                JsonUtility.createArrayNode()
+                    .add(JsonUtility.createObjectNode().put("moduleId", moduleId).put("term", refsetEditParameters.getName()).put("typeId", "900000000000013009")
                         .put("caseSignificance", "CASE_INSENSITIVE").put("lang", "en")
-                        .set("acceptabilityMap", mapper.createObjectNode().put("900000000000509007", "PREFERRED").put("900000000000508004", "PREFERRED")))
-                    .add(mapper.createObjectNode().put("moduleId", moduleId).put("term", refsetEditParameters.getName() + " (foundation metadata concept)")
+                        .set("acceptabilityMap", JsonUtility.createObjectNode().put("900000000000509007", "PREFERRED").put("900000000000508004", "PREFERRED")))
+                    .add(JsonUtility.createObjectNode().put("moduleId", moduleId).put("term", refsetEditParameters.getName() + " (foundation metadata concept)")
                         .put("typeId", "900000000000003001").put("caseSignificance", "CASE_INSENSITIVE").put("lang", "en")
-                        .set("acceptabilityMap", mapper.createObjectNode().put("900000000000509007", "PREFERRED").put("900000000000508004", "PREFERRED"))));
+                        .set("acceptabilityMap", JsonUtility.createObjectNode().put("900000000000509007", "PREFERRED").put("900000000000508004", "PREFERRED"))));
 
-            final ObjectNode relationships = mapper.createObjectNode().set("relationships",
-                mapper.createArrayNode()
-                    .add(mapper.createObjectNode().put("moduleId", moduleId).put("destinationId", parentConceptId).put("typeId", "116680003").put("groupId", 0)
+            final ObjectNode relationships = JsonUtility.createObjectNode().set("relationships",
+                JsonUtility.createArrayNode()
+                    .add(JsonUtility.createObjectNode().put("moduleId", moduleId).put("destinationId", parentConceptId).put("typeId", "116680003").put("groupId", 0)
                         .put("lang", "en")
-                        .set("acceptabilityMap", mapper.createObjectNode().put("900000000000509007", "PREFERRED").put("900000000000508004", "PREFERRED")))
-                    .add(mapper.createObjectNode().put("destinationId", "446609009").put("typeId", "116680003").put("groupId", 0)));
+                        .set("acceptabilityMap", JsonUtility.createObjectNode().put("900000000000509007", "PREFERRED").put("900000000000508004", "PREFERRED")))
+                    .add(JsonUtility.createObjectNode().put("destinationId", "446609009").put("typeId", "116680003").put("groupId", 0)));
 
-            final ObjectNode classAxioms = mapper.createObjectNode().set("classAxioms",
-                mapper.createArrayNode().add(mapper.createObjectNode().put("moduleId", moduleId).put("definitionStatusId", "900000000000074008")
-                    .set("relationships", mapper.createArrayNode().add(
-                        mapper.createObjectNode().put("moduleId", moduleId).put("destinationId", "446609009").put("typeId", "116680003").put("groupId", 0)))));
+            final ObjectNode classAxioms = JsonUtility.createObjectNode().set("classAxioms",
+                JsonUtility.createArrayNode().add(JsonUtility.createObjectNode().put("moduleId", moduleId).put("definitionStatusId", "900000000000074008")
+                    .set("relationships", JsonUtility.createArrayNode().add(
+                        JsonUtility.createObjectNode().put("moduleId", moduleId).put("destinationId", "446609009").put("typeId", "116680003").put("groupId", 0)))));
 
             final long start = System.currentTimeMillis();
-            final ObjectNode body = mapper.createObjectNode().put("conceptId", refsetConceptId).put("moduleId", moduleId);
+            final ObjectNode body = JsonUtility.createObjectNode().put("conceptId", refsetConceptId).put("moduleId", moduleId);
             body.setAll(relationships);
             body.setAll(classAxioms);
             body.setAll(descriptions);
@@ -853,7 +843,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
 
                 final String resultString = response.readEntity(String.class);
 
-                final JsonNode root = mapper.readTree(resultString.toString());
+                final JsonNode root = JsonUtility.readTree(resultString.toString());
                 final JsonNode conceptNode = root;
 
                 if (conceptNode.has("conceptId")) {
@@ -1013,9 +1003,8 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                     + response.getStatusInfo().getReasonPhrase());
             }
 
-            final ObjectMapper mapper = new ObjectMapper();
             final String resultString = response.readEntity(String.class);
-            final JsonNode root = mapper.readTree(resultString.toString());
+            final JsonNode root = JsonUtility.readTree(resultString.toString());
             final Iterator<JsonNode> iterator = root.get("items").iterator();
 
             // loop thru the returned member details and inactivate it or add it to
@@ -1056,7 +1045,6 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
         final String refsetId = refset.getRefsetId();
         final String branch = refset.getBranchPath();
         final String url = SnowstormConnection.getBaseUrl() + "browser/" + branch + "/" + "concepts/" + refsetId;
-        final ObjectMapper mapper = new ObjectMapper();
         ObjectNode memberBody = null;
 
         LOG.debug("updateRefsetConcept URL: " + url);
@@ -1072,7 +1060,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
 
             // create the body entity for the update call from the retrieved concept
             final String resultString = response.readEntity(String.class);
-            memberBody = (ObjectNode) mapper.readTree(resultString.toString()).deepCopy();
+            memberBody = (ObjectNode) JsonUtility.readTree(resultString.toString()).deepCopy();
         }
 
         if (active != refset.isActive()) {
@@ -1196,8 +1184,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
 
             final String resultString = response.readEntity(String.class);
 
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode root = mapper.readTree(resultString.toString());
+            final JsonNode root = JsonUtility.readTree(resultString.toString());
 
             final ResultListConcept conceptList = RefsetMemberService.populateConcepts(root, refset, lookupParameters);
             concepts.addAll(conceptList.getItems());
@@ -1244,8 +1231,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
 
             final String resultString = response.readEntity(String.class);
 
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode root = mapper.readTree(resultString.toString());
+            final JsonNode root = JsonUtility.readTree(resultString.toString());
 
             if (root.get("buckets") != null) {
 
@@ -1277,9 +1263,8 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
             Arrays.asList("id", "refsetId", "name", "editionName", "organizationName", "versionStatus", "versionDate", "modified", "privateRefset");
         String snowstormQuery = "";
         final String[] queryParts = query.split(" AND ");
-        final ObjectMapper mapper = new ObjectMapper();
-        final ObjectNode body = mapper.createObjectNode();
-        final ArrayNode bodyPaths = mapper.createArrayNode();
+        final ObjectNode body = JsonUtility.createObjectNode();
+        final ArrayNode bodyPaths = JsonUtility.createArrayNode();
 
         for (final String queryPart : queryParts) {
 
@@ -1314,7 +1299,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
             }
 
             final String resultString = response.readEntity(String.class);
-            final JsonNode root = mapper.readTree(resultString.toString());
+            final JsonNode root = JsonUtility.readTree(resultString.toString());
 
             final Set<String> conceptIds = new HashSet<>();
 
@@ -1386,8 +1371,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
             }
 
             final String resultString = response.readEntity(String.class);
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode root = mapper.readTree(resultString.toString());
+            final JsonNode root = JsonUtility.readTree(resultString.toString());
 
             final JsonNode allDescriptionNodes = root.get("items");
             final Iterator<JsonNode> descriptionIterator = allDescriptionNodes.iterator();
@@ -1420,9 +1404,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
             for (final String conceptId : conceptDescriptionNodes.keySet()) {
 
                 final Set<JsonNode> descriptionNodes = conceptDescriptionNodes.get(conceptId);
-                Set<Map<String, String>> descriptions = new HashSet<>();
-
-                descriptions =
+                final Set<ConceptDescription> descriptions =
                     RefsetMemberService.processDescriptionNodes(descriptionNodes, refset.getEdition().getDefaultLanguageRefsets(), nonDefaultPreferredTerms);
 
                 final List<Map<String, String>> sortedDescriptions =
@@ -1512,8 +1494,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
             }
 
             final String resultString = response.readEntity(String.class);
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode root = mapper.readTree(resultString.toString());
+            final JsonNode root = JsonUtility.readTree(resultString.toString());
 
             final JsonNode allConceptNodes = root.get("items");
             final Iterator<JsonNode> conceptIterator = allConceptNodes.iterator();
@@ -1567,10 +1548,12 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
         concept.setCode(conceptId);
 
         // check if the members call has been cached
-        if (branchCache.containsKey(cacheString)) {
+        final Concept cached = branchCache.get(cacheString);
+
+        if (cached != null) {
 
             LOG.debug("getConceptAncestors USING CACHE");
-            return branchCache.get(cacheString);
+            return cached;
         }
 
         // Create Snowstorm URL
@@ -1589,8 +1572,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
 
             // read the results of the call for ancestors for many concepts
             final String resultString = response.readEntity(String.class);
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode root = mapper.readTree(resultString.toString());
+            final JsonNode root = JsonUtility.readTree(resultString.toString());
             final Iterator<JsonNode> iterator = root.iterator();
 
             // loop thru each concept to get the ancestor path for it
@@ -1622,7 +1604,6 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
         final int limitReturnNumber) throws Exception {
 
         final ResultListConcept returnConcepts = new ResultListConcept();
-        final ObjectMapper mapper = new ObjectMapper();
         final String encodedCaret = "%5E";
         final String encodedSpace = "%20";
         // final String encodedLeftBrace = "%7B";
@@ -1659,21 +1640,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
         // if the query is not an ID then see if it passes ECL syntax
         if (!limitToNonMembers && searchParameters.getQuery() != null && !searchParameters.getQuery().matches("\\d*")) {
 
-            final String eclUrl = SnowstormConnection.getBaseUrl() + "util/ecl-string-to-model";
-            final String body = StringUtility.encodeValue(searchParameters.getQuery());
-
-            LOG.debug("searchConcepts ECL Parse URL: " + eclUrl + "; body: " + body);
-
-            try (final Response response = SnowstormConnection.postResponse(eclUrl, body)) {
-
-                // if the query parses as ECL then search by ecl
-                if (response.getStatusInfo().getFamily() == Family.SUCCESSFUL) {
-
-                    searchEcl = true;
-                }
-
-            }
-
+            searchEcl = SnowstormConnection.isEclQuery(searchParameters.getQuery());
         }
 
         final String membersEcl = encodedCaret + refset.getRefsetId();
@@ -1734,7 +1701,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                 }
 
                 final String resultString = response.readEntity(String.class);
-                final JsonNode root = mapper.readTree(resultString.toString());
+                final JsonNode root = JsonUtility.readTree(resultString.toString());
                 final JsonNode conceptNodeBatch = root.get("items");
 
                 if (limitReturnNumber < 0 && root.get("searchAfter") != null) {
@@ -1878,8 +1845,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                 throw new Exception(Integer.toString(response.getStatus()));
             }
 
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode root = mapper.readTree(resultString.toString());
+            final JsonNode root = JsonUtility.readTree(resultString.toString());
             count = root.get("total").asInt();
         }
 
@@ -1899,10 +1865,12 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
         final String refsetId = refset.getRefsetId();
 
         // check if the members call has been cached
-        if (branchCache.containsKey(cacheString)) {
+        final ResultListConcept cached = branchCache.get(cacheString);
+
+        if (cached != null) {
 
             LOG.debug("getMemberList USING CACHE");
-            return branchCache.get(cacheString);
+            return cached;
         }
 
         try {
@@ -1960,8 +1928,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                             throw new Exception(Integer.toString(response.getStatus()));
                         }
 
-                        final ObjectMapper mapper = new ObjectMapper();
-                        final JsonNode root = mapper.readTree(resultString.toString());
+                        final JsonNode root = JsonUtility.readTree(resultString.toString());
                         final JsonNode conceptNodeBatch = root.get("items");
 
                         // if the search returned results set the total
@@ -1997,9 +1964,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
             int snowstormCallCount = 0;
             final boolean doNotSearch = notSearching;
 
-            // Change the numbers to '1's to avoid threading
-            final ExecutorService executor =
-                new ThreadPoolExecutor(30, 30, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(30), new ThreadPoolExecutor.CallerRunsPolicy());
+            final SnowstormWorkerPool.Batch batch = SnowstormWorkerPool.newBatch(branchPath, 600, TimeUnit.SECONDS);
 
             // add the descriptions to the children concepts in batches
             for (int i = 0; i < currentList.getItems().size(); i++) {
@@ -2013,7 +1978,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                     final List<Concept> threadConcepts = new ArrayList<Concept>();
                     threadConcepts.addAll(conceptsToProcess);
 
-                    executor.submit(new Runnable() {
+                    batch.submit(new Runnable() {
 
                         /* see superclass */
                         @Override
@@ -2046,8 +2011,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
 
             }
 
-            executor.shutdown();
-            executor.awaitTermination(600, TimeUnit.SECONDS);
+            batch.await();
 
             LOG.debug("getMemberList snowstormCallCount: " + snowstormCallCount);
 
@@ -2075,10 +2039,12 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
         final Map<String, Concept> branchCache = RefsetMemberService.getCacheForConceptDetails(branchPath);
 
         // check if the members call has been cached
-        if (branchCache.containsKey(cacheString)) {
+        final Concept cached = branchCache.get(cacheString);
+
+        if (cached != null) {
 
             LOG.debug("getConceptDetails USING CACHE");
-            return branchCache.get(cacheString);
+            return cached;
         }
 
         // 3 Snowstorm calls: 1) on concept, 2) parents, and 3) children
@@ -2206,8 +2172,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                 throw new Exception(Integer.toString(response.getStatus()));
             }
 
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode root = mapper.readTree(resultString.toString());
+            final JsonNode root = JsonUtility.readTree(resultString.toString());
 
             return RefsetMemberService.populateConcepts(root, refset, lookupParameters);
         }
@@ -2223,9 +2188,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
         String conceptIds = "";
         int snowstormCallCount = 0;
 
-        // Change the '30's to '1's to avoid threading
-        final ExecutorService executor =
-            new ThreadPoolExecutor(30, 30, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(30), new ThreadPoolExecutor.CallerRunsPolicy());
+        final SnowstormWorkerPool.Batch batch = SnowstormWorkerPool.newBatch(RefsetMemberService.getBranchPath(refset), 600, TimeUnit.SECONDS);
 
         // add the descriptions to the children concepts in batches
         for (int i = 0; i < concepts.size(); i++) {
@@ -2242,7 +2205,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                 final List<Concept> threadConcepts = new ArrayList<Concept>();
                 threadConcepts.addAll(conceptsToProcess);
 
-                executor.submit(new Runnable() {
+                batch.submit(new Runnable() {
 
                     /* see superclass */
                     @Override
@@ -2288,8 +2251,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
 
         }
 
-        executor.shutdown();
-        executor.awaitTermination(600, TimeUnit.SECONDS);
+        batch.await();
 
         LOG.debug("populateMembershipInformation snowstormCallCount: " + snowstormCallCount);
     }
@@ -2334,8 +2296,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                     throw new Exception(Integer.toString(response.getStatus()));
                 }
 
-                final ObjectMapper mapper = new ObjectMapper();
-                final JsonNode root = mapper.readTree(resultString.toString());
+                final JsonNode root = JsonUtility.readTree(resultString.toString());
                 final JsonNode conceptNodeBatch = root.get("items");
 
                 searchAfter = (root.get("searchAfter") != null ? "&searchAfter=" + root.get("searchAfter").asText() : "");
@@ -2439,8 +2400,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                 throw new Exception(Integer.toString(response.getStatus()));
             }
 
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode conceptNode = mapper.readTree(resultString.toString());
+            final JsonNode conceptNode = JsonUtility.readTree(resultString.toString());
 
             if (conceptNode.has("releasedEffectiveTime")) {
 
@@ -2494,8 +2454,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                 }
 
                 final String resultString = response.readEntity(String.class);
-                final ObjectMapper mapper = new ObjectMapper();
-                final JsonNode root = mapper.readTree(resultString.toString());
+                final JsonNode root = JsonUtility.readTree(resultString.toString());
                 final JsonNode node = root.get("items");
                 String currentVersionDate = null;
                 final Iterator<JsonNode> iterator = node.iterator();
@@ -2590,10 +2549,10 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
         final long start = System.currentTimeMillis();
         final String branchPath = refset.getBranchPath();
         final String cacheString = refset.getRefsetId();
-        final Map<String, Set<String>> branchCache = RefsetMemberService.getCacheForMemberAncestors(branchPath);
+        final Map<String, SctidSet> branchCache = RefsetMemberService.getCacheForMemberAncestors(branchPath);
 
         // check if the members call has been cached
-        if (branchCache.containsKey(cacheString)) {
+        if (branchCache.get(cacheString) != null) {
 
             LOG.debug("cacheMemberAncestors USING CACHE");
             return true;
@@ -2614,14 +2573,13 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
 
             final String resultString = response.readEntity(String.class);
 
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode root = mapper.readTree(resultString.toString());
+            final JsonNode root = JsonUtility.readTree(resultString.toString());
             final int memberTotal = root.get("total").asInt();
 
             if (memberTotal > 100000) {
 
                 LOG.warn("Could not cache the ancestors of Reference Set " + refset.getRefsetId() + " because it has too many members: " + memberTotal);
-                branchCache.put(cacheString, new HashSet<String>());
+                branchCache.put(cacheString, SctidSet.EMPTY);
                 RefsetMemberService.ANCESTORS_CACHE.put(branchPath, branchCache);
                 return true;
             }
@@ -2634,20 +2592,17 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
         // Get ancestors of all members via ecl e.g. >(^723264001)
         final String url = SnowstormConnection.getBaseUrl() + RefsetMemberService.getBranchPath(refset) + "/concepts?ecl=%3E(%5E" + refset.getRefsetId()
             + ")&limit=1000&offset=";
-        final List<Set<String>> ancestorsSetBatches = new ArrayList<>(Collections.nCopies(10, new HashSet<>()));
+        final SctidSet.Builder ancestors = new SctidSet.Builder();
 
-        // Change the '10's to '1's to avoid threading
-        final ExecutorService executor =
-            new ThreadPoolExecutor(10, 10, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(10), new ThreadPoolExecutor.CallerRunsPolicy());
+        final SnowstormWorkerPool.Batch batch = SnowstormWorkerPool.newBatch(RefsetMemberService.getBranchPath(refset), 120, TimeUnit.SECONDS);
 
         // add the descriptions to the children concepts in batches
-        for (int i = 0; i < ancestorsSetBatches.size(); i++) {
+        for (int i = 0; i < 10; i++) {
 
-            final Set<String> ancestorsSet = ancestorsSetBatches.get(i);
             final int offset = 1000 * i;
             LOG.debug("cacheMemberAncestors URL: " + url + offset);
 
-            executor.submit(new Runnable() {
+            batch.submit(new Runnable() {
 
                 /* see superclass */
                 @Override
@@ -2664,8 +2619,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
 
                         final String resultString = response.readEntity(String.class);
 
-                        final ObjectMapper mapper = new ObjectMapper();
-                        final JsonNode root = mapper.readTree(resultString.toString());
+                        final JsonNode root = JsonUtility.readTree(resultString.toString());
                         final JsonNode allResultNodes = root.get("items");
                         final Iterator<JsonNode> resultsIterator = allResultNodes.iterator();
 
@@ -2678,7 +2632,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                                 throw new Exception("Result wasn't as expected with resultNode: " + resultNode);
                             }
 
-                            ancestorsSet.add(resultNode.get("conceptId").asText());
+                            ancestors.add(resultNode.get("conceptId").asText());
                         }
 
                     } catch (final Exception e) {
@@ -2691,16 +2645,9 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
             });
         }
 
-        executor.shutdown();
-        executor.awaitTermination(120, TimeUnit.SECONDS);
-
-        final Set<String> ancestorsSet = new HashSet<>();
-
-        for (final Set<String> ancestorsBatch : ancestorsSetBatches) {
-
-            ancestorsSet.addAll(ancestorsBatch);
-        }
+        batch.await();
 
+        final SctidSet ancestorsSet = ancestors.build();
         branchCache.put(cacheString, ancestorsSet);
         RefsetMemberService.ANCESTORS_CACHE.put(branchPath, branchCache);
 
@@ -2720,7 +2667,6 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
         }
 
         final List<String> unaddedConcepts = new ArrayList<>();
-        final ObjectMapper mapper = new ObjectMapper();
 
         final String branchPath = RefsetService.getBranchPath(refset);
         final String url = SnowstormConnection.getBaseUrl() + branchPath + "/" + "members";
@@ -2743,7 +2689,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
         final List<String> permanentFullConceptList = new ArrayList<>(conceptIds);
         final Map<String, Map<String, String>> conceptsStatus = RefsetMemberService.REFSETS_UPDATED_MEMBERS.get(refset.getId());
         final List<String> validatedConcepts = new ArrayList<>();
-        final ArrayNode memberUpdateArray = mapper.createArrayNode();
+        final ArrayNode memberUpdateArray = JsonUtility.createArrayNode();
         boolean searchAgain = true;
         int searchIndex = 0;
         int loopNumber = 1;
@@ -2803,7 +2749,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                             + " Message: " + response.getStatusInfo().getReasonPhrase());
                     }
 
-                    final JsonNode root = mapper.readTree(resultString.toString());
+                    final JsonNode root = JsonUtility.readTree(resultString.toString());
                     iterator = root.get("items").iterator();
 
                     while (iterator != null && iterator.hasNext()) {
@@ -2879,7 +2825,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                             + " Message: " + response.getStatusInfo().getReasonPhrase());
                     }
 
-                    final JsonNode root = mapper.readTree(resultString.toString());
+                    final JsonNode root = JsonUtility.readTree(resultString.toString());
                     iterator = root.get("items").iterator();
 
                     // loop thru the returned member details
@@ -2906,7 +2852,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
 
                             conceptIds.remove(conceptId);
 
-                            final ObjectNode memberBody = mapper.createObjectNode().put("active", true).put("memberId", conceptNode.get("memberId").asText())
+                            final ObjectNode memberBody = JsonUtility.createObjectNode().put("active", true).put("memberId", conceptNode.get("memberId").asText())
                                 .put("moduleId", conceptNode.get("moduleId").asText())
                                 .put("referencedComponentId", conceptNode.get("referencedComponentId").asText())
                                 .put("refsetId", conceptNode.get("refsetId").asText()).put("released", conceptNode.get("released").asBoolean())
@@ -2945,14 +2891,14 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
         // clear the caches for this refset
         RefsetMemberService.clearAllMemberCaches(branchPath);
 
-        // update the member count and save the refset
-        if (refset.getMemberCount() == -1) {
+        // estimate the member count for the edit, and have the refresher correct it
+        if (refset.getMemberCount() != -1) {
 
-            refset.setMemberCount(0);
+            refset.setMemberCount(refset.getMemberCount() + conceptIds.size() + memberUpdateArray.size());
+            service.update(refset);
         }
 
-        refset.setMemberCount(refset.getMemberCount() + conceptIds.size() + memberUpdateArray.size());
-        service.update(refset);
+        RefsetService.refreshRefsetMemberCount(refset, true);
 
         for (final String conceptId : unaddedConcepts) {
 
@@ -2971,8 +2917,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
 
         final List<String> unaddedConcepts = new ArrayList<>();
 
-        final ObjectMapper mapper = new ObjectMapper();
-        final ObjectNode body = mapper.createObjectNode().put("refsetId", refsetId).put("moduleId", moduleId).put("referencedComponentId", conceptId);
+        final ObjectNode body = JsonUtility.createObjectNode().put("refsetId", refsetId).put("moduleId", moduleId).put("referencedComponentId", conceptId);
 
         LOG.debug("callAddMemberSingle URL: " + url);
         // LOG.debug("callAddMemberSingle URL body: " + body.toString());
@@ -2998,12 +2943,11 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
 
         final List<String> unaddedConcepts = new ArrayList<>();
         final String bulkUrl = url + "/bulk";
-        final ObjectMapper mapper = new ObjectMapper();
-        final ArrayNode body = mapper.createArrayNode();
+        final ArrayNode body = JsonUtility.createArrayNode();
 
         for (final String conceptId : conceptIds) {
 
-            final ObjectNode memberBody = mapper.createObjectNode().put("refsetId", refsetId).put("moduleId", moduleId).put("referencedComponentId", conceptId);
+            final ObjectNode memberBody = JsonUtility.createObjectNode().put("refsetId", refsetId).put("moduleId", moduleId).put("referencedComponentId", conceptId);
 
             body.add(memberBody);
         }
@@ -3056,7 +3000,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                     }
 
                     final String resultString = response.readEntity(String.class);
-                    final JsonNode root = mapper.readTree(resultString.toString());
+                    final JsonNode root = JsonUtility.readTree(resultString.toString());
 
                     // LOG.debug("addRefsetMembers job status response: " + root);
                     final String status = root.get("status").asText();
@@ -3098,7 +3042,6 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
     public List<String> removeRefsetMembers(final TerminologyService service, final User user, final Refset refset, final String conceptIds) throws Exception {
 
         List<String> unremovedConcepts = new ArrayList<>();
-        final ObjectMapper mapper = new ObjectMapper();
         final Map<String, Map<String, String>> conceptsStatus = RefsetMemberService.REFSETS_UPDATED_MEMBERS.get(refset.getId());
 
         if (conceptIds.isEmpty()) {
@@ -3115,8 +3058,8 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
         // (though the concept itself can be inactive)
         final String memberSearchUrlBase = SnowstormConnection.getBaseUrl() + branchPath + "/members?referenceSet=" + refset.getRefsetId()
             + "&offset=0&active=true" + "&limit=" + RefsetMemberService.URL_MAX_CHAR_LENGTH + "&referencedComponentId=";
-        final ArrayNode memberDeleteArray = mapper.createArrayNode();
-        final ArrayNode memberUpdateArray = mapper.createArrayNode();
+        final ArrayNode memberDeleteArray = JsonUtility.createArrayNode();
+        final ArrayNode memberUpdateArray = JsonUtility.createArrayNode();
         final List<String> permanentFullConceptList = Arrays.asList(conceptIds.split(","));
         final List<String> members = new ArrayList<>();
         boolean searchAgain = true;
@@ -3163,7 +3106,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                         + response.getStatusInfo().getReasonPhrase());
                 }
 
-                final JsonNode root = mapper.readTree(resultString.toString());
+                final JsonNode root = JsonUtility.readTree(resultString.toString());
                 iterator = root.get("items").iterator();
             }
 
@@ -3186,7 +3129,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                 // array
                 else {
 
-                    final ObjectNode memberBody = mapper.createObjectNode().put("active", false).put("effectiveTime", conceptNode.get("effectiveTime").asText())
+                    final ObjectNode memberBody = JsonUtility.createObjectNode().put("active", false).put("effectiveTime", conceptNode.get("effectiveTime").asText())
                         .put("memberId", membershipId).put("moduleId", conceptNode.get("moduleId").asText())
                         .put("referencedComponentId", conceptNode.get("referencedComponentId").asText()).put("refsetId", conceptNode.get("refsetId").asText())
                         .put("released", released).put("releasedEffectiveTime", conceptNode.get("releasedEffectiveTime").asInt())
@@ -3234,7 +3177,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
             // delete any members that haven't been released
             if (memberDeleteArray.size() > 0) {
 
-                final String deleteBody = mapper.createObjectNode().set("memberIds", memberDeleteArray).toString();
+                final String deleteBody = JsonUtility.createObjectNode().set("memberIds", memberDeleteArray).toString();
                 final String deleteUrl = url + "?force";
                 final String errorMessage =
                     "Remove Reference Set Member bulk call to url '" + deleteUrl + "' for Reference Set '" + refsetId + " wasn't successful. ";
@@ -3273,9 +3216,8 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
             RefsetMemberService.clearAllMemberCaches(branchPath);
         }
 
-        // update the member count and save the refset
-        refset.setMemberCount(getMemberCount(refset));
-        service.update(refset);
+        // have the refresher recount the members
+        RefsetService.refreshRefsetMemberCount(refset, true);
 
         for (final String conceptId : unremovedConcepts) {
 
@@ -3321,7 +3263,6 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
     public List<String> callUpdateMembersBulk(final String refsetId, final String url, final ArrayNode memberBodies) throws Exception {
 
         final List<String> unchangedConcepts = new ArrayList<>();
-        final ObjectMapper mapper = new ObjectMapper();
 
         LOG.debug("callUpdateMembersBulk URL: " + url);
         LOG.debug("callUpdateMembersBulk URL body: " + memberBodies.toString());
@@ -3371,7 +3312,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                     }
 
                     final String resultString = response.readEntity(String.class);
-                    final JsonNode root = mapper.readTree(resultString.toString());
+                    final JsonNode root = JsonUtility.readTree(resultString.toString());
 
                     // LOG.debug("addRefsetMembers job status response: " + root);
                     final String status = root.get("status").asText();
@@ -3414,7 +3355,6 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
     public List<String> getConceptIdsFromEcl(final String branch, final String ecl) throws Exception {
 
         final List<String> concepts = new ArrayList<>();
-        final ObjectMapper mapper = new ObjectMapper();
         final String url = SnowstormConnection.getBaseUrl() + branch + "/" + "concepts?ecl=" + StringUtility.encodeValue(ecl) + "&limit="
             + RefsetMemberService.ELASTICSEARCH_MAX_RECORD_LENGTH;
         boolean keepSearching = true;
@@ -3437,7 +3377,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                 }
 
                 final String resultString = response.readEntity(String.class);
-                final JsonNode root = mapper.readTree(resultString.toString());
+                final JsonNode root = JsonUtility.readTree(resultString.toString());
                 final JsonNode items = root.get("items");
                 final Iterator<JsonNode> iterator = items.iterator();
                 totalReturned += items.size();
@@ -3520,7 +3460,6 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
         int memberTotal = 0;
         boolean memberTotalKnown = false;
         String inactiveConceptIds = "";
-        final ObjectMapper mapper = new ObjectMapper();
         final List<String> nonDefaultPreferredTerms = RefsetMemberService.identifyNonDefaultPreferredTerms(upgradeRefset.getEdition());
         @SuppressWarnings("unused")
         int replacementCount = 0;
@@ -3557,7 +3496,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                     throw new Exception(Integer.toString(response.getStatus()));
                 }
 
-                final JsonNode root = mapper.readTree(resultString.toString());
+                final JsonNode root = JsonUtility.readTree(resultString.toString());
                 final JsonNode conceptNodeBatch = root.get("items");
 
                 // if the search returned results set the total
@@ -3607,9 +3546,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
             return status;
         }
 
-        // Change the numbers to '1's to avoid threading
-        final ExecutorService executor =
-            new ThreadPoolExecutor(30, 30, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(30), new ThreadPoolExecutor.CallerRunsPolicy());
+        final SnowstormWorkerPool.Batch batch = SnowstormWorkerPool.newBatch(branchPath, 600, TimeUnit.SECONDS);
 
         // use /browser/MAIN/concepts/bulk-load POST call to get the inactive
         // concept
@@ -3658,7 +3595,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                         + response.getStatusInfo().getReasonPhrase());
                 }
 
-                final JsonNode root = mapper.readTree(resultString.toString());
+                final JsonNode root = JsonUtility.readTree(resultString.toString());
                 iterator = root.get("items").iterator();
 
                 // loop thru the returned member details and process the descriptions
@@ -3720,7 +3657,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                         // process descriptions of any replacement concepts
                         if (replacementConceptsToLookup.size() > 0) {
 
-                            executor.submit(new Runnable() {
+                            batch.submit(new Runnable() {
 
                                 /* see superclass */
                                 @Override
@@ -3747,7 +3684,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                                                     + response.getStatus() + " Message: " + response.getStatusInfo().getReasonPhrase());
                                             }
 
-                                            final JsonNode root = mapper.readTree(resultString.toString());
+                                            final JsonNode root = JsonUtility.readTree(resultString.toString());
                                             final Iterator<JsonNode> iterator = root.get("items").iterator();
 
                                             // loop thru the returned member details to mark
@@ -3824,8 +3761,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
 
         }
 
-        executor.shutdown();
-        executor.awaitTermination(600, TimeUnit.SECONDS);
+        batch.await();
 
         return status;
     }
@@ -3993,7 +3929,6 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                                     + response.getStatusInfo().getReasonPhrase());
                             }
 
-                            final ObjectMapper mapper = new ObjectMapper();
                             final String resultString = response.readEntity(String.class);
 
                             // Only process payload if Rest call is successful
@@ -4002,7 +3937,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
                                 throw new Exception(Integer.toString(response.getStatus()));
                             }
 
-                            final JsonNode root = mapper.readTree(resultString.toString());
+                            final JsonNode root = JsonUtility.readTree(resultString.toString());
                             final Iterator<JsonNode> iterator = root.get("items").iterator();
 
                             if (iterator.hasNext()) {
@@ -4141,9 +4076,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
 
         final ArrayList<MapSet> mapSets = new ArrayList<>();
 
-        final ObjectMapper mapper = new ObjectMapper();
-
-        final JsonNode root = mapper.readTree(f);
+        final JsonNode root = JsonUtility.readTree(f);
         final JsonNode mapSetsBatch = root.get("items");
 
         final Iterator<JsonNode> itemIterator = mapSetsBatch.iterator();
@@ -4191,9 +4124,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
             return null;
         }
 
-        final ObjectMapper mapper = new ObjectMapper();
-
-        final JsonNode root = mapper.readTree(f);
+        final JsonNode root = JsonUtility.readTree(f);
         final JsonNode mapSetsBatch = root.get("items");
 
         final Iterator<JsonNode> itemIterator = mapSetsBatch.iterator();
@@ -4252,9 +4183,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
 
         final Map<String, Mapping> conceptIdToMappingMap = new HashMap<>();
 
-        final ObjectMapper mapper = new ObjectMapper();
-
-        final JsonNode root = mapper.readTree(f);
+        final JsonNode root = JsonUtility.readTree(f);
         final JsonNode mappingsBatch = root.get("items");
 
         final Iterator<JsonNode> itemIterator = mappingsBatch.iterator();
@@ -4349,9 +4278,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
 
         final Mapping mapping = new Mapping();
 
-        final ObjectMapper mapper = new ObjectMapper();
-
-        final JsonNode root = mapper.readTree(f);
+        final JsonNode root = JsonUtility.readTree(f);
         final JsonNode mappingsBatch = root.get("items");
 
         final Iterator<JsonNode> itemIterator = mappingsBatch.iterator();
@@ -4436,9 +4363,7 @@ public class JSONTerminologyServerHandler implements TerminologyServerHandler {
             return null;
         }
 
-        final ObjectMapper mapper = new ObjectMapper();
-
-        final JsonNode root = mapper.readTree(f);
+        final JsonNode root = JsonUtility.readTree(f);
         final JsonNode conceptNodeBatch = root.get("items");
 
         final Iterator<JsonNode> itemIterator = conceptNodeBatch.iterator();
@@ -19,6 +19,7 @@ import javax.persistence.EntityManager;
 import org.ihtsdo.refsetservice.model.Configurable;
 import org.ihtsdo.refsetservice.model.HasId;
 import org.ihtsdo.refsetservice.model.PfsParameter;
+import org.ihtsdo.refsetservice.util.IndexUtility;
 
 /**
  * Generically represents an algorithm for object searching.
@@ -58,6 +59,24 @@ public interface SearchHandler extends Configurable {
     public <T extends HasId> int countQueryResults(String query, Map<String, String> fieldedClauses, Set<String> additionalClauses, Class<T> clazz,
         PfsParameter pfs, EntityManager manager) throws Exception;
 
+    /**
+     * Streams every result of a query in chunks, for callers that need all of them.
+     *
+     * @param <T> the
+     * @param query the query
+     * @param fieldedClauses the fielded clauses
+     * @param additionalClauses the additional clauses
+     * @param clazz the clazz
+     * @param pfs the pfs, for the sort
+     * @param chunkSize the maximum number of results per chunk
+     * @param handler the handler of each chunk of results
+     * @param manager the manager
+     * @return the number of results streamed
+     * @throws Exception the exception
+     */
+    public <T extends HasId> long scrollQueryResults(String query, Map<String, String> fieldedClauses, Set<String> additionalClauses, Class<T> clazz,
+        PfsParameter pfs, int chunkSize, IndexUtility.HitsHandler<T> handler, EntityManager manager) throws Exception;
+
     /**
      * Returns the ids for the query results.
      *
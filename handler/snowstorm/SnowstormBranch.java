@@ -22,11 +22,11 @@ import org.ihtsdo.refsetservice.terminologyservice.RefsetMemberService;
 import org.ihtsdo.refsetservice.terminologyservice.RefsetService;
 import org.ihtsdo.refsetservice.terminologyservice.SnowstormConnection;
 import org.ihtsdo.refsetservice.util.DateUtility;
+import org.ihtsdo.refsetservice.util.JsonUtility;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 /**
@@ -51,9 +51,8 @@ public final class SnowstormBranch extends SnowstormAbstract {
     final long start = System.currentTimeMillis();
     String refsetBranchPath = null;
     final String url = SnowstormConnection.getBaseUrl() + "branches";
-    final ObjectMapper mapper = new ObjectMapper();
     final ObjectNode body =
-        mapper.createObjectNode().put("name", branchName).put("parent", parentBranchPath);
+        JsonUtility.createObjectNode().put("name", branchName).put("parent", parentBranchPath);
 
     LOG.debug("createBranch URL: " + url + " ; body: " + body.toString());
 
@@ -68,7 +67,7 @@ public final class SnowstormBranch extends SnowstormAbstract {
 
       final String resultString = response.readEntity(String.class);
 
-      final JsonNode root = mapper.readTree(resultString.toString());
+      final JsonNode root = JsonUtility.readTree(resultString.toString());
       final JsonNode rootNode = root;
 
       if (rootNode.has("path")) {
@@ -173,8 +172,7 @@ public final class SnowstormBranch extends SnowstormAbstract {
         throw new Exception(Integer.toString(response.getStatus()));
       }
 
-      final ObjectMapper mapper = new ObjectMapper();
-      final JsonNode root = mapper.readTree(resultString.toString());
+      final JsonNode root = JsonUtility.readTree(resultString.toString());
       final Iterator<JsonNode> iterator = root.iterator();
 
       if (iterator.hasNext()) {
@@ -201,9 +199,8 @@ public final class SnowstormBranch extends SnowstormAbstract {
 
     final long start = System.currentTimeMillis();
     final String mergeUrl = SnowstormConnection.getBaseUrl() + "merges";
-    final ObjectMapper mapper = new ObjectMapper();
     final ObjectNode body =
-        mapper.createObjectNode().put("source", sourceBranchPath).put("target", targetBranchPath);
+        JsonUtility.createObjectNode().put("source", sourceBranchPath).put("target", targetBranchPath);
     boolean jobDone = false;
 
     if (comment != null) {
@@ -243,7 +240,7 @@ public final class SnowstormBranch extends SnowstormAbstract {
         try (final Response mergeInfoResponse = SnowstormConnection.getResponse(jobStatusUrl)) {
 
           final String resultString = mergeInfoResponse.readEntity(String.class);
-          final JsonNode root = mapper.readTree(resultString.toString());
+          final JsonNode root = JsonUtility.readTree(resultString.toString());
           final String status = root.get("status").asText();
 
           LOG.info("Merge status is: " + status);
@@ -306,7 +303,7 @@ public final class SnowstormBranch extends SnowstormAbstract {
                 try (final Response stateResponse = SnowstormConnection.getResponse(stateUrl)) {
 
                   final String stateResultString = stateResponse.readEntity(String.class);
-                  final JsonNode stateRoot = mapper.readTree(stateResultString.toString());
+                  final JsonNode stateRoot = JsonUtility.readTree(stateResultString.toString());
                   final String state = stateRoot.get("state").asText();
 
                   LOG.info("Promoted branch state is: " + state);
@@ -348,9 +345,8 @@ public final class SnowstormBranch extends SnowstormAbstract {
   public static String mergeRebaseReview(final String sourceBranchPath,
     final String targetBranchPath) throws Exception {
 
-    final ObjectMapper mapper = new ObjectMapper();
     final ObjectNode body =
-        mapper.createObjectNode().put("source", sourceBranchPath).put("target", targetBranchPath);
+        JsonUtility.createObjectNode().put("source", sourceBranchPath).put("target", targetBranchPath);
     final String reviewUrl = SnowstormConnection.getBaseUrl() + "merge-reviews";
     String jobStatusUrl = null;
     boolean jobDone = false;
@@ -390,7 +386,7 @@ public final class SnowstormBranch extends SnowstormAbstract {
         }
 
         final String resultString = response.readEntity(String.class);
-        final JsonNode root = mapper.readTree(resultString.toString());
+        final JsonNode root = JsonUtility.readTree(resultString.toString());
         final String status = root.get("status").asText();
         LOG.debug("merge review status: " + status);
 
@@ -453,8 +449,7 @@ public final class SnowstormBranch extends SnowstormAbstract {
       }
 
       final String resultString = response.readEntity(String.class);
-      final ObjectMapper mapper = new ObjectMapper();
-      final JsonNode root = mapper.readTree(resultString.toString());
+      final JsonNode root = JsonUtility.readTree(resultString.toString());
       final Iterator<JsonNode> branchIterator = root.iterator();
 
       // get versions from edition as long as active & within edition's module
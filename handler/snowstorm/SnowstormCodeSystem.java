@@ -14,11 +14,11 @@ import org.ihtsdo.refsetservice.sync.util.SyncDatabaseHandler;
 import org.ihtsdo.refsetservice.sync.util.SyncStatistics;
 import org.ihtsdo.refsetservice.sync.util.SyncUtilities;
 import org.ihtsdo.refsetservice.terminologyservice.SnowstormConnection;
+import org.ihtsdo.refsetservice.util.JsonUtility;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class SnowstormCodeSystem extends SnowstormAbstract {
 
@@ -40,8 +40,7 @@ public class SnowstormCodeSystem extends SnowstormAbstract {
     try (final Response response = SnowstormConnection.getResponse(url)) {
 
       final String resultString = response.readEntity(String.class);
-      final ObjectMapper mapper = new ObjectMapper();
-      final JsonNode organizationJsonRootNode = mapper.readTree(resultString.toString());
+      final JsonNode organizationJsonRootNode = JsonUtility.readTree(resultString.toString());
       final SyncUtilities syncUtilities =
           new SyncUtilities(new SyncDatabaseHandler(null, new SyncStatistics()));
 
@@ -18,7 +18,6 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -28,9 +27,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -52,9 +48,12 @@ import org.ihtsdo.refsetservice.service.TerminologyService;
 import org.ihtsdo.refsetservice.terminologyservice.RefsetMemberService;
 import org.ihtsdo.refsetservice.terminologyservice.RefsetService;
 import org.ihtsdo.refsetservice.terminologyservice.SnowstormConnection;
+import org.ihtsdo.refsetservice.terminologyservice.SnowstormWorkerPool;
 import org.ihtsdo.refsetservice.terminologyservice.WorkflowService;
 import org.ihtsdo.refsetservice.util.CachingUtility;
 import org.ihtsdo.refsetservice.util.ConceptLookupParameters;
+import org.ihtsdo.refsetservice.util.ConceptSearchIndex;
+import org.ihtsdo.refsetservice.util.JsonUtility;
 import org.ihtsdo.refsetservice.util.ModelUtility;
 import org.ihtsdo.refsetservice.util.PropertyUtility;
 import org.ihtsdo.refsetservice.util.ResultList;
@@ -66,7 +65,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 /**
@@ -93,6 +91,27 @@ public class SnowstormConcept extends SnowstormAbstract {
     /** The Constant SNOWSTORM_TERMINOLOGY_CACHE. */
     private static final String SNOWSTORM_TERMINOLOGY_CACHE = "snowstorm_terminology";
 
+    /** The maximum number of concept search indexes kept. */
+    private static final int MAX_CONCEPT_SEARCH_INDEXES = 10;
+
+    /**
+     * The search indexes of the cached terminology lists, by terminology cache key, least recently used first. An index holds the concepts of its
+     * list, so the number kept is bounded rather than left to the eviction of the lists.
+     */
+    private static final Map<String, ConceptSearchIndex> CONCEPT_SEARCH_INDEXES =
+        Collections.synchronizedMap(new LinkedHashMap<String, ConceptSearchIndex>(16, 0.75f, true) {
+
+            /** The serial version UID. */
+            private static final long serialVersionUID = 1L;
+
+            /* see superclass */
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, ConceptSearchIndex> eldest) {
+
+                return size() > MAX_CONCEPT_SEARCH_INDEXES;
+            }
+        });
+
     /**
      * Gets the concept.
      *
@@ -220,11 +239,10 @@ public class SnowstormConcept extends SnowstormAbstract {
                         "Call to URL '" + targetUri + "' wasn't successful. Status: " + response.getStatus() + " Message: " + formatErrorMessage(response));
                 }
 
-                final ObjectMapper mapper = new ObjectMapper();
                 final String resultString = response.readEntity(String.class);
                 response.close();
 
-                final JsonNode doc = mapper.readTree(resultString);
+                final JsonNode doc = JsonUtility.readTree(resultString);
                 final JsonNode conceptNodeBatch = doc.get("items");
                 final Iterator<JsonNode> conceptIterator = conceptNodeBatch.iterator();
 
@@ -292,11 +310,10 @@ public class SnowstormConcept extends SnowstormAbstract {
                     "Call to URL '" + targetUri + "' wasn't successful. Status: " + response.getStatus() + " Message: " + formatErrorMessage(response));
             }
 
-            final ObjectMapper mapper = new ObjectMapper();
             final String resultString = response.readEntity(String.class);
             response.close();
 
-            final JsonNode doc = mapper.readTree(resultString);
+            final JsonNode doc = JsonUtility.readTree(resultString);
             final JsonNode conceptNodeBatch = doc.get("items");
             final Iterator<JsonNode> itemIterator = conceptNodeBatch.iterator();
 
@@ -349,11 +366,10 @@ public class SnowstormConcept extends SnowstormAbstract {
                     + " Message: " + response.getStatusInfo().getReasonPhrase());
             }
 
-            final ObjectMapper mapper = new ObjectMapper();
             final String resultString = response.readEntity(String.class);
             response.close();
 
-            final JsonNode root = mapper.readTree(resultString.toString());
+            final JsonNode root = JsonUtility.readTree(resultString.toString());
             final Iterator<JsonNode> iterator = root.get("items").iterator();
 
             while (iterator != null && iterator.hasNext()) {
@@ -455,10 +471,9 @@ public class SnowstormConcept extends SnowstormAbstract {
                     + response.getStatusInfo().getReasonPhrase());
             }
 
-            final ObjectMapper mapper = new ObjectMapper();
             final String resultString = response.readEntity(String.class);
             response.close();
-            final JsonNode root = mapper.readTree(resultString.toString());
+            final JsonNode root = JsonUtility.readTree(resultString.toString());
             final Iterator<JsonNode> iterator = root.get("items").iterator();
 
             // loop thru the returned member details and inactivate it or add it to
@@ -503,7 +518,6 @@ public class SnowstormConcept extends SnowstormAbstract {
         final String refsetId = refset.getRefsetId();
         final String branch = refset.getBranchPath();
         final String url = SnowstormConnection.getBaseUrl() + "browser/" + branch + "/" + "concepts/" + refsetId;
-        final ObjectMapper mapper = new ObjectMapper();
         ObjectNode memberBody = null;
 
         LOG.debug("updateRefsetConcept URL: " + url);
@@ -518,7 +532,7 @@ public class SnowstormConcept extends SnowstormAbstract {
 
             // create the body entity for the update call from the retrieved concept
             final String resultString = response.readEntity(String.class);
-            memberBody = (ObjectNode) mapper.readTree(resultString.toString()).deepCopy();
+            memberBody = (ObjectNode) JsonUtility.readTree(resultString.toString()).deepCopy();
         }
 
         if (active != refset.isActive()) {
@@ -647,8 +661,7 @@ public class SnowstormConcept extends SnowstormAbstract {
             }
 
             final String resultString = response.readEntity(String.class);
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode root = mapper.readTree(resultString.toString());
+            final JsonNode root = JsonUtility.readTree(resultString.toString());
 
             final JsonNode allConceptNodes = root.get("items");
             final Iterator<JsonNode> conceptIterator = allConceptNodes.iterator();
@@ -708,10 +721,12 @@ public class SnowstormConcept extends SnowstormAbstract {
         concept.setCode(conceptId);
 
         // check if the members call has been cached
-        if (branchCache.containsKey(cacheString)) {
+        final Concept cached = branchCache.get(cacheString);
+
+        if (cached != null) {
 
             LOG.debug("getConceptAncestors USING CACHE");
-            return branchCache.get(cacheString);
+            return cached;
         }
 
         // Create Snowstorm URL
@@ -730,8 +745,7 @@ public class SnowstormConcept extends SnowstormAbstract {
 
             // read the results of the call for ancestors for many concepts
             final String resultString = response.readEntity(String.class);
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode root = mapper.readTree(resultString.toString());
+            final JsonNode root = JsonUtility.readTree(resultString.toString());
             final Iterator<JsonNode> iterator = root.iterator();
 
             // loop thru each concept to get the ancestor path for it
@@ -771,7 +785,6 @@ public class SnowstormConcept extends SnowstormAbstract {
         final int limitReturnNumber) throws Exception {
 
         final ResultListConcept returnConcepts = new ResultListConcept();
-        final ObjectMapper mapper = new ObjectMapper();
         final String encodedCaret = "%5E";
         final String encodedSpace = "%20";
         // final String encodedLeftBrace = "%7B";
@@ -808,21 +821,7 @@ public class SnowstormConcept extends SnowstormAbstract {
         // if the query is not an ID then see if it passes ECL syntax
         if (!limitToNonMembers && searchParameters.getQuery() != null && !searchParameters.getQuery().matches("\\d*")) {
 
-            final String eclUrl = SnowstormConnection.getBaseUrl() + "util/ecl-string-to-model";
-            final String body = StringUtility.encodeValue(searchParameters.getQuery());
-
-            LOG.debug("searchConcepts ECL Parse URL: " + eclUrl + "; body: " + body);
-
-            try (final Response response = SnowstormConnection.postResponse(eclUrl, body)) {
-
-                // if the query parses as ECL then search by ecl
-                if (response.getStatusInfo().getFamily() == Family.SUCCESSFUL) {
-
-                    searchEcl = true;
-                }
-
-            }
-
+            searchEcl = SnowstormConnection.isEclQuery(searchParameters.getQuery());
         }
 
         final String membersEcl = encodedCaret + refset.getRefsetId();
@@ -883,7 +882,7 @@ public class SnowstormConcept extends SnowstormAbstract {
                 }
 
                 final String resultString = response.readEntity(String.class);
-                final JsonNode root = mapper.readTree(resultString.toString());
+                final JsonNode root = JsonUtility.readTree(resultString.toString());
                 final JsonNode conceptNodeBatch = root.get("items");
 
                 if (limitReturnNumber < 0 && root.get("searchAfter") != null) {
@@ -1012,10 +1011,12 @@ public class SnowstormConcept extends SnowstormAbstract {
         final Map<String, Concept> branchCache = RefsetMemberService.getCacheForConceptDetails(branchPath);
 
         // check if the members call has been cached
-        if (branchCache.containsKey(cacheString)) {
+        final Concept cached = branchCache.get(cacheString);
+
+        if (cached != null) {
 
             LOG.debug("getConceptDetails USING CACHE");
-            return branchCache.get(cacheString);
+            return cached;
         }
 
         // 3 Snowstorm calls: 1) on concept, 2) parents, and 3) children
@@ -1159,8 +1160,7 @@ public class SnowstormConcept extends SnowstormAbstract {
                 throw new Exception(Integer.toString(response.getStatus()));
             }
 
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode root = mapper.readTree(resultString.toString());
+            final JsonNode root = JsonUtility.readTree(resultString.toString());
 
             return RefsetMemberService.populateConcepts(root, refset, lookupParameters);
         }
@@ -1177,7 +1177,6 @@ public class SnowstormConcept extends SnowstormAbstract {
     public static List<String> getConceptIdsFromEcl(final String branch, final String ecl) throws Exception {
 
         final List<String> concepts = new ArrayList<>();
-        final ObjectMapper mapper = new ObjectMapper();
         final String url = SnowstormConnection.getBaseUrl() + branch + "/" + "concepts?ecl=" + StringUtility.encodeValue(ecl) + "&limit="
             + RefsetMemberService.ELASTICSEARCH_MAX_RECORD_LENGTH;
         boolean keepSearching = true;
@@ -1200,7 +1199,7 @@ public class SnowstormConcept extends SnowstormAbstract {
                 }
 
                 final String resultString = response.readEntity(String.class);
-                final JsonNode root = mapper.readTree(resultString.toString());
+                final JsonNode root = JsonUtility.readTree(resultString.toString());
                 final JsonNode items = root.get("items");
                 final Iterator<JsonNode> iterator = items.iterator();
                 totalReturned += items.size();
@@ -1290,7 +1289,6 @@ public class SnowstormConcept extends SnowstormAbstract {
         int memberTotal = 0;
         boolean memberTotalKnown = false;
         String inactiveConceptIds = "";
-        final ObjectMapper mapper = new ObjectMapper();
         final List<String> nonDefaultPreferredTerms = RefsetMemberService.identifyNonDefaultPreferredTerms(upgradeRefset.getEdition());
         @SuppressWarnings("unused")
         int replacementCount = 0;
@@ -1327,7 +1325,7 @@ public class SnowstormConcept extends SnowstormAbstract {
                     throw new Exception(Integer.toString(response.getStatus()));
                 }
 
-                final JsonNode root = mapper.readTree(resultString.toString());
+                final JsonNode root = JsonUtility.readTree(resultString.toString());
                 final JsonNode conceptNodeBatch = root.get("items");
 
                 // if the search returned results set the total
@@ -1377,9 +1375,7 @@ public class SnowstormConcept extends SnowstormAbstract {
             return status;
         }
 
-        // Change the numbers to '1's to avoid threading
-        final ExecutorService executor =
-            new ThreadPoolExecutor(30, 30, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(30), new ThreadPoolExecutor.CallerRunsPolicy());
+        final SnowstormWorkerPool.Batch batch = SnowstormWorkerPool.newBatch(branchPath, 600, TimeUnit.SECONDS);
 
         // use /browser/MAIN/concepts/bulk-load POST call to get the inactive
         // concept
@@ -1428,7 +1424,7 @@ public class SnowstormConcept extends SnowstormAbstract {
                         + response.getStatusInfo().getReasonPhrase());
                 }
 
-                final JsonNode root = mapper.readTree(resultString.toString());
+                final JsonNode root = JsonUtility.readTree(resultString.toString());
                 iterator = root.get("items").iterator();
 
                 // loop thru the returned member details and process the descriptions
@@ -1490,7 +1486,7 @@ public class SnowstormConcept extends SnowstormAbstract {
                         // process descriptions of any replacement concepts
                         if (replacementConceptsToLookup.size() > 0) {
 
-                            executor.submit(new Runnable() {
+                            batch.submit(new Runnable() {
 
                                 /* see superclass */
                                 @Override
@@ -1517,7 +1513,7 @@ public class SnowstormConcept extends SnowstormAbstract {
                                                     + response.getStatus() + " Message: " + response.getStatusInfo().getReasonPhrase());
                                             }
 
-                                            final JsonNode root = mapper.readTree(resultString.toString());
+                                            final JsonNode root = JsonUtility.readTree(resultString.toString());
                                             final Iterator<JsonNode> iterator = root.get("items").iterator();
 
                                             // loop thru the returned member details to mark
@@ -1594,8 +1590,7 @@ public class SnowstormConcept extends SnowstormAbstract {
 
         }
 
-        executor.shutdown();
-        executor.awaitTermination(600, TimeUnit.SECONDS);
+        batch.await();
 
         return status;
     }
@@ -1774,7 +1769,6 @@ public class SnowstormConcept extends SnowstormAbstract {
                                     + response.getStatusInfo().getReasonPhrase());
                             }
 
-                            final ObjectMapper mapper = new ObjectMapper();
                             final String resultString = response.readEntity(String.class);
 
                             // Only process payload if Rest call is successful
@@ -1783,7 +1777,7 @@ public class SnowstormConcept extends SnowstormAbstract {
                                 throw new Exception(Integer.toString(response.getStatus()));
                             }
 
-                            final JsonNode root = mapper.readTree(resultString.toString());
+                            final JsonNode root = JsonUtility.readTree(resultString.toString());
                             final Iterator<JsonNode> iterator = root.get("items").iterator();
 
                             if (iterator.hasNext()) {
@@ -2022,13 +2016,7 @@ public class SnowstormConcept extends SnowstormAbstract {
 
         if (exists) {
 
-            @SuppressWarnings("rawtypes")
-            final Optional<List> list = CachingUtility.getObject(SNOWSTORM_TERMINOLOGY_CACHE, terminologyCacheKey, List.class);
-            @SuppressWarnings("unchecked")
-            final List<Concept> terminologyConcepts = list.get();
-
-            return terminologyConcepts.stream().filter(concept -> concept.getCode().equals(code)).findFirst().orElse(null);
-
+            return getConceptSearchIndex(terminologyCacheKey).findByCode(code);
         }
 
         return null;
@@ -2081,43 +2069,34 @@ public class SnowstormConcept extends SnowstormAbstract {
         final long start = System.currentTimeMillis();
         final String query = searchParameters.getQuery();
 
-        @SuppressWarnings("rawtypes")
-        final Optional<List> list = CachingUtility.getObject(SNOWSTORM_TERMINOLOGY_CACHE, cacheKey, List.class);
-        @SuppressWarnings("unchecked")
-        final List<Concept> terminologyConcepts = list.get();
-        LOG.debug("findConcepts: terminologyCacheKey: {}, list size:", cacheKey, terminologyConcepts.size());
+        final ConceptSearchIndex index = getConceptSearchIndex(cacheKey);
+        LOG.debug("findConcepts: terminologyCacheKey: {}, list size: {}", cacheKey, index.getSource().size());
+
+        // a missing offset has always produced an empty page
+        final List<Concept> matchingConceptsPage = new ArrayList<>();
+        final int offset = searchParameters.getOffset() != null ? searchParameters.getOffset() : 0;
+        final int limit = searchParameters.getOffset() != null ? searchParameters.getLimit() : 0;
 
-        List<Concept> matchingConcepts = null;
+        int total = 0;
         if (query.toLowerCase().contains("code:")) {
-            final String code = query.replace("code:", "").trim();
-            matchingConcepts = terminologyConcepts.stream().filter(concept -> concept.getCode().startsWith(code)).collect(Collectors.toList());
-            matchingConcepts.sort(Comparator.comparing(Concept::getCode));
+            total = index.findByCodePrefix(query.replace("code:", "").trim(), offset, limit, matchingConceptsPage);
 
         } else if (query.toLowerCase().contains("name:")) {
-            final String name = query.replace("name:", "").trim();
-            matchingConcepts = terminologyConcepts.stream()
-                .filter(concept -> (concept.getName() != null && concept.getName().toLowerCase().contains(name.toLowerCase()))).collect(Collectors.toList());
-            matchingConcepts.sort(Comparator.comparing(Concept::getName));
+            total = index.findByName(query.replace("name:", "").trim(), offset, limit, matchingConceptsPage);
+
         } else {
-            matchingConcepts = terminologyConcepts.stream().filter(
-                concept -> (concept.getName() != null && concept.getName().toLowerCase().contains(query.toLowerCase())) || concept.getCode().startsWith(query))
-                .collect(Collectors.toList());
-            matchingConcepts.sort(Comparator.comparing(Concept::getName));
+            total = index.find(query, offset, limit, matchingConceptsPage);
         }
 
-        // apply offset and limit from search parameters
-        final List<Concept> matchingConceptsPage = new ArrayList<>();
-        if (searchParameters.getOffset() != null) {
-            for (; searchParameters.getOffset() < matchingConcepts.size() && matchingConceptsPage.size() < searchParameters.getLimit(); searchParameters
-                .setOffset(searchParameters.getOffset() + 1)) {
-                matchingConceptsPage.add(matchingConcepts.get(searchParameters.getOffset()));
-            }
+        // the offset is advanced past the returned page, as callers expect
+        if (searchParameters.getOffset() != null && offset < total) {
+            searchParameters.setOffset(offset + matchingConceptsPage.size());
         }
 
         final ResultListConcept results = new ResultListConcept();
         results.setItems(matchingConceptsPage);
         results.setParameters(searchParameters);
-        results.setTotal(matchingConcepts.size());
+        results.setTotal(total);
         results.setOffset(searchParameters.getOffset());
 
         LOG.info("findConcepts took: " + (System.currentTimeMillis() - start) + " ms for cacheKey: " + cacheKey + ", query: " + query);
@@ -2125,6 +2104,58 @@ public class SnowstormConcept extends SnowstormAbstract {
 
     }
 
+    /**
+     * Returns the search index of a cached terminology list, building it when the list is first seen or has been re-cached. The index is built
+     * outside the lock of the index map, so searches of other terminologies do not wait for it.
+     *
+     * @param cacheKey the terminology cache key
+     * @return the concept search index
+     */
+    private static ConceptSearchIndex getConceptSearchIndex(final String cacheKey) {
+
+        final List<Concept> terminologyConcepts = getCachedTerminologyConcepts(cacheKey);
+
+        final ConceptSearchIndex cached = CONCEPT_SEARCH_INDEXES.get(cacheKey);
+        if (cached != null && cached.getSource() == terminologyConcepts) {
+            return cached;
+        }
+
+        final ConceptSearchIndex index = new ConceptSearchIndex(terminologyConcepts);
+
+        // keep the index only if the list was not re-cached while it was built
+        if (getCachedTerminologyConcepts(cacheKey) != terminologyConcepts) {
+            return index;
+        }
+
+        synchronized (CONCEPT_SEARCH_INDEXES) {
+
+            // another request may have built the index meanwhile
+            final ConceptSearchIndex current = CONCEPT_SEARCH_INDEXES.get(cacheKey);
+            if (current != null && current.getSource() == terminologyConcepts) {
+                return current;
+            }
+            CONCEPT_SEARCH_INDEXES.put(cacheKey, index);
+        }
+
+        return index;
+    }
+
+    /**
+     * Returns the cached concept list of a terminology.
+     *
+     * @param cacheKey the terminology cache key
+     * @return the concepts, or null if not cached
+     */
+    private static List<Concept> getCachedTerminologyConcepts(final String cacheKey) {
+
+        @SuppressWarnings("rawtypes")
+        final Optional<List> list = CachingUtility.getObject(SNOWSTORM_TERMINOLOGY_CACHE, cacheKey, List.class);
+        @SuppressWarnings("unchecked")
+        final List<Concept> terminologyConcepts = list.orElse(null);
+
+        return terminologyConcepts;
+    }
+
     /**
      * Gets the all concepts by code system fhir api.
      *
@@ -2171,8 +2202,7 @@ public class SnowstormConcept extends SnowstormAbstract {
                 final String resultString = response.readEntity(String.class);
                 response.close();
 
-                final ObjectMapper mapper = new ObjectMapper();
-                final JsonNode root = mapper.readTree(resultString);
+                final JsonNode root = JsonUtility.readTree(resultString);
                 final JsonNode expansionNode = root.get("expansion");
 
                 final int totalConcepts = expansionNode.get("total").asInt();
@@ -2251,8 +2281,7 @@ public class SnowstormConcept extends SnowstormAbstract {
                 final String resultString = response.readEntity(String.class);
                 response.close();
 
-                final ObjectMapper mapper = new ObjectMapper();
-                final JsonNode root = mapper.readTree(resultString);
+                final JsonNode root = JsonUtility.readTree(resultString);
                 final JsonNode expansionNode = root.get("expansion");
 
                 final int totalConcepts = expansionNode.get("total").asInt();
@@ -2294,8 +2323,7 @@ public class SnowstormConcept extends SnowstormAbstract {
             return;
         }
         final String resultString = getCodeSystemsFromFhirApi();
-        final ObjectMapper mapper = new ObjectMapper();
-        final JsonNode root = mapper.readTree(resultString);
+        final JsonNode root = JsonUtility.readTree(resultString);
         final JsonNode entryNode = root.get("entry");
 
         if (entryNode.isArray()) {
@@ -22,16 +22,17 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status.Family;
 
 import org.ihtsdo.refsetservice.model.Concept;
+import org.ihtsdo.refsetservice.model.ConceptDescription;
 import org.ihtsdo.refsetservice.model.Description;
 import org.ihtsdo.refsetservice.model.Edition;
 import org.ihtsdo.refsetservice.model.Refset;
 import org.ihtsdo.refsetservice.terminologyservice.RefsetMemberService;
 import org.ihtsdo.refsetservice.terminologyservice.SnowstormConnection;
+import org.ihtsdo.refsetservice.util.JsonUtility;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * The Class SnowstormDescription.
@@ -117,8 +118,7 @@ public class SnowstormDescription extends SnowstormAbstract {
       }
 
       final String resultString = response.readEntity(String.class);
-      final ObjectMapper mapper = new ObjectMapper();
-      final JsonNode root = mapper.readTree(resultString.toString());
+      final JsonNode root = JsonUtility.readTree(resultString.toString());
 
       final JsonNode allDescriptionNodes = root.get("items");
       final Iterator<JsonNode> descriptionIterator = allDescriptionNodes.iterator();
@@ -152,9 +152,7 @@ public class SnowstormDescription extends SnowstormAbstract {
       for (final String conceptId : conceptDescriptionNodes.keySet()) {
 
         final Set<JsonNode> descriptionNodes = conceptDescriptionNodes.get(conceptId);
-        Set<Map<String, String>> descriptions = new HashSet<>();
-
-        descriptions = RefsetMemberService.processDescriptionNodes(descriptionNodes,
+        final Set<ConceptDescription> descriptions = RefsetMemberService.processDescriptionNodes(descriptionNodes,
             refset.getEdition().getDefaultLanguageRefsets(), nonDefaultPreferredTerms);
 
         final List<Map<String, String>> sortedDescriptions = RefsetMemberService
@@ -239,8 +237,7 @@ public class SnowstormDescription extends SnowstormAbstract {
       }
 
       final String resultString = response.readEntity(String.class);
-      final ObjectMapper mapper = new ObjectMapper();
-      final JsonNode root = mapper.readTree(resultString.toString());
+      final JsonNode root = JsonUtility.readTree(resultString.toString());
 
       final JsonNode allDescriptionNodes = root.get("items");
       final Iterator<JsonNode> descriptionIterator = allDescriptionNodes.iterator();
@@ -31,7 +31,6 @@ import java.util.UUID;
 import java.util.stream.Collectors;
 
 import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -53,6 +52,7 @@ import org.ihtsdo.refsetservice.terminologyservice.RefsetMemberService;
 import org.ihtsdo.refsetservice.terminologyservice.SnowstormConnection;
 import org.ihtsdo.refsetservice.util.DateUtility;
 import org.ihtsdo.refsetservice.util.FileUtility;
+import org.ihtsdo.refsetservice.util.JsonUtility;
 import org.ihtsdo.refsetservice.util.LocalException;
 import org.ihtsdo.refsetservice.util.PropertyUtility;
 import org.ihtsdo.refsetservice.util.SearchParameters;
@@ -62,7 +62,6 @@ import org.springframework.beans.BeanUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * The Class SnowstormMapping.
@@ -75,26 +74,6 @@ public class SnowstormMapping extends SnowstormAbstract {
     /** The Constant DEFAULT_ACCEPT. */
     private static final String DEFAULT_ACCEPT = MediaType.APPLICATION_JSON;
 
-    /** The client. */
-    private static ThreadLocal<Client> clients = new ThreadLocal<Client>() {
-
-        @Override
-        public Client initialValue() {
-
-            return ClientBuilder.newClient();
-        }
-    };
-
-    /**
-     * Returns the clients.
-     *
-     * @return the clients
-     */
-    private static ThreadLocal<Client> getClients() {
-
-        return clients;
-    }
-
     /**
      * Gets the map sets.
      *
@@ -107,7 +86,7 @@ public class SnowstormMapping extends SnowstormAbstract {
         final ArrayList<MapSet> mapSets = new ArrayList<>();
 
         // Connect to snowstorm
-        final Client client = getClients().get();
+        final Client client = SnowstormConnection.getClient();
 
         String searchAfter = null;
 
@@ -128,8 +107,7 @@ public class SnowstormMapping extends SnowstormAbstract {
                 "Call to URL '" + targetUri + "' wasn't successful. Status: " + response.getStatus() + " Message: " + formatErrorMessage(response));
         }
 
-        final ObjectMapper mapper = new ObjectMapper();
-        final JsonNode doc = mapper.readTree(resultString);
+        final JsonNode doc = JsonUtility.readTree(resultString);
         final JsonNode mappingsBatch = doc.get("items");
 
         final Iterator<JsonNode> itemIterator = mappingsBatch.iterator();
@@ -198,7 +176,7 @@ public class SnowstormMapping extends SnowstormAbstract {
      */
     public static MapSet getMapSet(final String branch, final String code) throws Exception {
 
-        final Client client = getClients().get();
+        final Client client = SnowstormConnection.getClient();
 
         final SearchParameters searchParameters = new SearchParameters();
         searchParameters.setLimit(50);
@@ -220,8 +198,7 @@ public class SnowstormMapping extends SnowstormAbstract {
                 "Call to URL '" + targetUri + "' wasn't successful. Status: " + response.getStatus() + " Message: " + formatErrorMessage(response));
         }
 
-        final ObjectMapper mapper = new ObjectMapper();
-        final JsonNode doc = mapper.readTree(resultString);
+        final JsonNode doc = JsonUtility.readTree(resultString);
         final JsonNode mapSetsBatch = doc.get("items");
         final Iterator<JsonNode> itemIterator = mapSetsBatch.iterator();
 
@@ -329,7 +306,6 @@ public class SnowstormMapping extends SnowstormAbstract {
         final Map<String, Set<String>> conceptsToLookup = new TreeMap<>();
         conceptsToLookup.put(mapSet.getToTerminology(), new HashSet<>());
         conceptsToLookup.put(mapSet.getFromTerminology(), new HashSet<>());
-        final ObjectMapper mapper = new ObjectMapper();
 
         boolean done = false;
         int i = 0;
@@ -352,7 +328,7 @@ public class SnowstormMapping extends SnowstormAbstract {
                         "Call to URL '" + targetUri + "' wasn't successful. Status: " + response.getStatus() + " Message: " + formatErrorMessage(response));
                 }
 
-                final JsonNode data = mapper.readTree(response.readEntity(String.class));
+                final JsonNode data = JsonUtility.readTree(response.readEntity(String.class));
                 final JsonNode mappingsBatch = data.get("items");
                 if (mappingsBatch.isArray() && mappingsBatch.isEmpty()) {
                     done = true;
@@ -580,8 +556,7 @@ public class SnowstormMapping extends SnowstormAbstract {
                         "Call to URL '" + targetUri + "' wasn't successful. Status: " + response.getStatus() + " Message: " + formatErrorMessage(response));
                 }
 
-                final ObjectMapper mapper = new ObjectMapper();
-                final JsonNode data = mapper.readTree(response.readEntity(String.class));
+                final JsonNode data = JsonUtility.readTree(response.readEntity(String.class));
 
                 final JsonNode conceptNodeBatch = data.get("items");
                 if (conceptNodeBatch.isArray() && conceptNodeBatch.isEmpty()) {
@@ -622,7 +597,7 @@ public class SnowstormMapping extends SnowstormAbstract {
         final boolean showOverriddenEntries, final boolean includeDescriptions) throws Exception {
 
         // Connect to snowstorm
-        final Client client = getClients().get();
+        final Client client = SnowstormConnection.getClient();
         String searchAfter = null;
         int limit = 50;
 
@@ -642,8 +617,7 @@ public class SnowstormMapping extends SnowstormAbstract {
                 "Call to URL '" + targetUri + "' wasn't successful. Status: " + response.getStatus() + " Message: " + formatErrorMessage(response));
         }
 
-        final ObjectMapper mapper = new ObjectMapper();
-        final JsonNode data = mapper.readTree(resultString);
+        final JsonNode data = JsonUtility.readTree(resultString);
         final JsonNode mappingsBatch = data.get("items");
 
         // Grab the specified mapSet
@@ -777,8 +751,7 @@ public class SnowstormMapping extends SnowstormAbstract {
                         "Call to URL '" + targetUri + "' wasn't successful. Status: " + response.getStatus() + " Message: " + formatErrorMessage(response));
                 }
 
-                final ObjectMapper mapper = new ObjectMapper();
-                final JsonNode data = mapper.readTree(response.readEntity(String.class));
+                final JsonNode data = JsonUtility.readTree(response.readEntity(String.class));
                 newMapping.getMapEntries().add(convertSnowstormMemberToMapEntry(data, mapSet, branch));
 
             }
@@ -1006,7 +979,6 @@ public class SnowstormMapping extends SnowstormAbstract {
 
         final MapSet mapSet = getMapSet(branch, mapSetCode);
 
-        final ObjectMapper mapper = new ObjectMapper();
         final List<MapEntry> updatedMapEntries = new ArrayList<>();
 
         // Create Map Entry (Refset member)
@@ -1021,7 +993,7 @@ public class SnowstormMapping extends SnowstormAbstract {
                     throw new Exception(
                         "Call to URL '" + targetUri + "' wasn't successful. Status: " + response.getStatus() + " Message: " + formatErrorMessage(response));
                 }
-                final JsonNode updatedMapEntryJson = mapper.readTree(response.readEntity(String.class));
+                final JsonNode updatedMapEntryJson = JsonUtility.readTree(response.readEntity(String.class));
                 final MapEntry updatedMapEntry = convertSnowstormMemberToMapEntry(updatedMapEntryJson, mapSet, branch);
                 updatedMapEntries.add(updatedMapEntry);
             }
@@ -1049,7 +1021,7 @@ public class SnowstormMapping extends SnowstormAbstract {
                     throw new Exception(
                         "Call to URL '" + targetUri + "' wasn't successful. Status: " + response.getStatus() + " Message: " + formatErrorMessage(response));
                 }
-                final JsonNode updatedMapEntryJson = mapper.readTree(response.readEntity(String.class));
+                final JsonNode updatedMapEntryJson = JsonUtility.readTree(response.readEntity(String.class));
                 final MapEntry updatedMapEntry = convertSnowstormMemberToMapEntry(updatedMapEntryJson, mapSet, branch);
                 updatedMapEntries.add(updatedMapEntry);
             }
@@ -1065,7 +1037,7 @@ public class SnowstormMapping extends SnowstormAbstract {
                     throw new Exception(
                         "Call to URL '" + targetUri + "' wasn't successful. Status: " + response.getStatus() + " Message: " + formatErrorMessage(response));
                 }
-                final JsonNode updatedMapEntryJson = mapper.readTree(response.readEntity(String.class));
+                final JsonNode updatedMapEntryJson = JsonUtility.readTree(response.readEntity(String.class));
                 final MapEntry updatedMapEntry = convertSnowstormMemberToMapEntry(updatedMapEntryJson, mapSet, branch);
                 updatedMapEntries.add(updatedMapEntry);
             }
@@ -1080,7 +1052,7 @@ public class SnowstormMapping extends SnowstormAbstract {
                     throw new Exception(
                         "Call to URL '" + targetUri + "' wasn't successful. Status: " + response.getStatus() + " Message: " + formatErrorMessage(response));
                 }
-                final JsonNode updatedMapEntryJson = mapper.readTree(response.readEntity(String.class));
+                final JsonNode updatedMapEntryJson = JsonUtility.readTree(response.readEntity(String.class));
                 final MapEntry updatedMapEntry = convertSnowstormMemberToMapEntry(updatedMapEntryJson, mapSet, branch);
                 updatedMapEntries.add(updatedMapEntry);
             }
@@ -1163,7 +1135,6 @@ public class SnowstormMapping extends SnowstormAbstract {
 
         final String targetUri = SnowstormConnection.getBaseUrl() + branch + "/concepts/search";
         final String requestBodyTempate = "{ \"conceptIds\": [\"CONCEPT_CODES\"], \"searchAfter\": \"SEARCH_AFTER\", \"limit\": " + fetchLimit + "}";
-        final ObjectMapper mapper = new ObjectMapper();
 
         final int maxIterations = Math.floorDiv(codes.size(), fetchLimit) + 1;
 
@@ -1182,7 +1153,7 @@ public class SnowstormMapping extends SnowstormAbstract {
                         "Call to URL '" + targetUri + "' wasn't successful. Status: " + response.getStatus() + " Message: " + formatErrorMessage(response));
                 }
 
-                final JsonNode doc = mapper.readTree(response.readEntity(String.class));
+                final JsonNode doc = JsonUtility.readTree(response.readEntity(String.class));
                 final JsonNode conceptNodeBatch = doc.get("items");
                 final Iterator<JsonNode> itemIterator = conceptNodeBatch.iterator();
 
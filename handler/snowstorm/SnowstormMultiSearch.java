@@ -11,13 +11,13 @@ import javax.ws.rs.core.Response.Status.Family;
 
 import org.apache.commons.lang3.StringUtils;
 import org.ihtsdo.refsetservice.terminologyservice.SnowstormConnection;
+import org.ihtsdo.refsetservice.util.JsonUtility;
 import org.ihtsdo.refsetservice.util.SearchParameters;
 import org.ihtsdo.refsetservice.util.StringUtility;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
@@ -60,8 +60,7 @@ public class SnowstormMultiSearch extends SnowstormAbstract {
 
       final String resultString = response.readEntity(String.class);
 
-      final ObjectMapper mapper = new ObjectMapper();
-      final JsonNode root = mapper.readTree(resultString.toString());
+      final JsonNode root = JsonUtility.readTree(resultString.toString());
 
       if (root.get("buckets") != null) {
 
@@ -102,9 +101,8 @@ public class SnowstormMultiSearch extends SnowstormAbstract {
         "organizationName", "versionStatus", "versionDate", "modified", "privateRefset");
     String snowstormQuery = "";
     final String[] queryParts = query.split(" AND ");
-    final ObjectMapper mapper = new ObjectMapper();
-    final ObjectNode body = mapper.createObjectNode();
-    final ArrayNode bodyPaths = mapper.createArrayNode();
+    final ObjectNode body = JsonUtility.createObjectNode();
+    final ArrayNode bodyPaths = JsonUtility.createArrayNode();
 
     for (final String queryPart : queryParts) {
 
@@ -141,7 +139,7 @@ public class SnowstormMultiSearch extends SnowstormAbstract {
       }
 
       final String resultString = response.readEntity(String.class);
-      final JsonNode root = mapper.readTree(resultString.toString());
+      final JsonNode root = JsonUtility.readTree(resultString.toString());
 
       final Set<String> conceptIds = new HashSet<>();
 
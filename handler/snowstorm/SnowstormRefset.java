@@ -29,12 +29,12 @@ import org.ihtsdo.refsetservice.terminologyservice.RefsetService;
 import org.ihtsdo.refsetservice.terminologyservice.SnowstormConnection;
 import org.ihtsdo.refsetservice.terminologyservice.WorkflowService;
 import org.ihtsdo.refsetservice.util.ConceptLookupParameters;
+import org.ihtsdo.refsetservice.util.JsonUtility;
 import org.ihtsdo.refsetservice.util.ModelUtility;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 /**
@@ -102,43 +102,41 @@ public class SnowstormRefset extends SnowstormAbstract {
         parentConceptId = RefsetService.SIMPLE_TYPE_REFERENCE_SET;
       }
 
-      final ObjectMapper mapper = new ObjectMapper();
-
-      final ObjectNode descriptions = mapper.createObjectNode().set("descriptions",
-          mapper.createArrayNode().add(mapper.createObjectNode().put("moduleId", moduleId)
+      final ObjectNode descriptions = JsonUtility.createObjectNode().set("descriptions",
+          JsonUtility.createArrayNode().add(JsonUtility.createObjectNode().put("moduleId", moduleId)
               .put("term", refsetEditParameters.getName()).put("typeId", "900000000000013009")
               .put("caseSignificance", "CASE_INSENSITIVE").put("lang", "en").set("acceptabilityMap",
-                  mapper.createObjectNode().put("900000000000509007", "PREFERRED")
+                  JsonUtility.createObjectNode().put("900000000000509007", "PREFERRED")
                       .put("900000000000508004", "PREFERRED")))
-              .add(mapper.createObjectNode().put("moduleId", moduleId)
+              .add(JsonUtility.createObjectNode().put("moduleId", moduleId)
                   .put("term", refsetEditParameters.getName() + " (foundation metadata concept)")
                   .put("typeId", "900000000000003001").put("caseSignificance", "CASE_INSENSITIVE")
                   .put("lang", "en").set("acceptabilityMap",
-                      mapper.createObjectNode().put("900000000000509007", "PREFERRED")
+                      JsonUtility.createObjectNode().put("900000000000509007", "PREFERRED")
                           .put("900000000000508004", "PREFERRED"))));
 
-      final ObjectNode relationships = mapper.createObjectNode().set("relationships",
-          mapper.createArrayNode()
-              .add(mapper.createObjectNode().put("moduleId", moduleId)
+      final ObjectNode relationships = JsonUtility.createObjectNode().set("relationships",
+          JsonUtility.createArrayNode()
+              .add(JsonUtility.createObjectNode().put("moduleId", moduleId)
                   .put("destinationId", parentConceptId).put("typeId", "116680003")
                   .put("groupId", 0).put("lang", "en").set("acceptabilityMap",
-                      mapper.createObjectNode().put("900000000000509007", "PREFERRED")
+                      JsonUtility.createObjectNode().put("900000000000509007", "PREFERRED")
                           .put("900000000000508004", "PREFERRED")))
-              .add(mapper.createObjectNode().put("destinationId", "446609009")
+              .add(JsonUtility.createObjectNode().put("destinationId", "446609009")
                   .put("typeId", "116680003").put("groupId", 0)));
 
-      final ObjectNode classAxioms = mapper.createObjectNode().set("classAxioms",
-          mapper.createArrayNode()
-              .add(mapper.createObjectNode().put("moduleId", moduleId)
+      final ObjectNode classAxioms = JsonUtility.createObjectNode().set("classAxioms",
+          JsonUtility.createArrayNode()
+              .add(JsonUtility.createObjectNode().put("moduleId", moduleId)
                   .put("definitionStatusId", "900000000000074008").set("relationships",
-                      mapper.createArrayNode()
-                          .add(mapper.createObjectNode().put("moduleId", moduleId)
+                      JsonUtility.createArrayNode()
+                          .add(JsonUtility.createObjectNode().put("moduleId", moduleId)
                               .put("destinationId", "446609009").put("typeId", "116680003")
                               .put("groupId", 0)))));
 
       final long start = System.currentTimeMillis();
       final ObjectNode body =
-          mapper.createObjectNode().put("conceptId", refsetConceptId).put("moduleId", moduleId);
+          JsonUtility.createObjectNode().put("conceptId", refsetConceptId).put("moduleId", moduleId);
       body.setAll(relationships);
       body.setAll(classAxioms);
       body.setAll(descriptions);
@@ -165,7 +163,7 @@ public class SnowstormRefset extends SnowstormAbstract {
 
         final String resultString = response.readEntity(String.class);
 
-        final JsonNode root = mapper.readTree(resultString.toString());
+        final JsonNode root = JsonUtility.readTree(resultString.toString());
         final JsonNode conceptNode = root;
 
         if (conceptNode.has("conceptId")) {
@@ -277,8 +275,7 @@ public class SnowstormRefset extends SnowstormAbstract {
   public static String getNewRefsetId(final String editionBranchPath) throws Exception {
 
     String refsetConceptId = null;
-    final ObjectMapper mapper = new ObjectMapper();
-    final ObjectNode body = mapper.createObjectNode();
+    final ObjectNode body = JsonUtility.createObjectNode();
     final String projectBranchPath = WorkflowService.getProjectBranchPath(editionBranchPath);
     String tempBranchPath = null;
 
@@ -315,7 +312,7 @@ public class SnowstormRefset extends SnowstormAbstract {
       }
 
       final String resultString = response.readEntity(String.class);
-      final JsonNode root = mapper.readTree(resultString.toString());
+      final JsonNode root = JsonUtility.readTree(resultString.toString());
       final JsonNode conceptNode = root;
 
       if (conceptNode.has("conceptId")) {
@@ -381,8 +378,7 @@ public class SnowstormRefset extends SnowstormAbstract {
           throw new Exception(Integer.toString(response.getStatus()));
         }
 
-        final ObjectMapper mapper = new ObjectMapper();
-        final JsonNode root = mapper.readTree(resultString.toString());
+        final JsonNode root = JsonUtility.readTree(resultString.toString());
         final JsonNode conceptNodeBatch = root.get("items");
 
         searchAfter = (root.get("searchAfter") != null
@@ -500,8 +496,7 @@ public class SnowstormRefset extends SnowstormAbstract {
         throw new Exception(Integer.toString(response.getStatus()));
       }
 
-      final ObjectMapper mapper = new ObjectMapper();
-      final JsonNode conceptNode = mapper.readTree(resultString.toString());
+      final JsonNode conceptNode = JsonUtility.readTree(resultString.toString());
 
       if (conceptNode.has("releasedEffectiveTime")) {
 
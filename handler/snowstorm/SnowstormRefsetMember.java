@@ -9,18 +9,15 @@
  */
 package org.ihtsdo.refsetservice.handler.snowstorm;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -36,15 +33,18 @@ import org.ihtsdo.refsetservice.service.TerminologyService;
 import org.ihtsdo.refsetservice.terminologyservice.RefsetMemberService;
 import org.ihtsdo.refsetservice.terminologyservice.RefsetService;
 import org.ihtsdo.refsetservice.terminologyservice.SnowstormConnection;
+import org.ihtsdo.refsetservice.terminologyservice.SnowstormWorkerPool;
 import org.ihtsdo.refsetservice.util.ConceptLookupParameters;
+import org.ihtsdo.refsetservice.util.JsonUtility;
+import org.ihtsdo.refsetservice.util.SctidSet;
 import org.ihtsdo.refsetservice.util.SearchParameters;
+import org.ihtsdo.refsetservice.util.SortFieldAccessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
@@ -56,6 +56,15 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
   /** The Constant LOG. */
   private static final Logger LOG = LoggerFactory.getLogger(SnowstormRefsetMember.class);
 
+  /** The number of ancestors fetched per call when caching member ancestors. */
+  private static final int ANCESTORS_PER_CALL = 1000;
+
+  /** The number of streamed page items handed over at once. */
+  private static final int ITEMS_PER_CHUNK = 1000;
+
+  /** The cache key suffix of the member index of a refset. */
+  private static final String MEMBER_INDEX_KEY = ";memberIndex";
+
   /**
    * Gets all refset members.
    *
@@ -94,14 +103,16 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
             + response.getStatus() + " Message: " + response.getStatusInfo().getReasonPhrase());
       }
 
-      final String resultString = response.readEntity(String.class);
+      // stream the items rather than holding the whole page as a string and a tree
+      final JsonNode root;
 
-      final ObjectMapper mapper = new ObjectMapper();
-      final JsonNode root = mapper.readTree(resultString.toString());
+      try (final InputStream in = response.readEntity(InputStream.class)) {
 
-      final ResultListConcept conceptList =
-          RefsetMemberService.populateConcepts(root, refset, lookupParameters);
-      concepts.addAll(conceptList.getItems());
+        root = JsonUtility.readPage(in, "items", ITEMS_PER_CHUNK,
+            items -> concepts.addAll(RefsetMemberService.populateConcepts(
+                JsonUtility.createObjectNode().set("items", items), refset, lookupParameters)
+                .getItems()));
+      }
 
       final String newSearchAfter =
           (root.get("searchAfter") != null ? root.get("searchAfter").asText() : "");
@@ -139,18 +150,17 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
     final String refsetId = refset.getRefsetId();
 
     // check if the members call has been cached
-    if (branchCache.containsKey(cacheString)) {
+    final ResultListConcept cached = branchCache.get(cacheString);
+
+    if (cached != null) {
 
       LOG.debug("getMemberList USING CACHE");
-      return branchCache.get(cacheString);
+      return cached;
     }
 
     try {
 
       boolean notSearching = true;
-      final ConceptLookupParameters lookupParameters = new ConceptLookupParameters();
-      lookupParameters.setGetMembershipInformation(true);
-
       final List<Concept> conceptsToProcess = new ArrayList<>();
 
       if (searchParameters.getQuery() == null) {
@@ -167,85 +177,29 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
         currentList = SnowstormConcept.searchConcepts(refset, searchParameters, "members", -1);
       } else {
 
-        String searchAfter = "";
-        final long start = System.currentTimeMillis();
-        boolean hasMorePages = true;
-        final String acceptLanguage = SnowstormConnection.DEFAULT_ACCECPT_LANGUAGES;
-
-        // when searching for members we only want concepts whose membership is
-        // active
-        // (though the concept itself can be inactive)
-        final String url = SnowstormConnection.getBaseUrl()
-            + RefsetMemberService.getBranchPath(refset) + "/members?referenceSet=" + refsetId
-            + "&active=true&offset=0&limit=" + RefsetMemberService.ELASTICSEARCH_MAX_RECORD_LENGTH;
-
-        while (hasMorePages) {
-
-          final String fullSnowstormUrl = url + searchAfter;
-          LOG.debug("Get Member List URL: " + fullSnowstormUrl);
-
-          try (final Response response =
-              SnowstormConnection.getResponse(fullSnowstormUrl, acceptLanguage)) {
-
-            if (response.getStatusInfo().getFamily() != Family.SUCCESSFUL) {
-
-              hasMorePages = false;
-              throw new Exception("call to url '" + fullSnowstormUrl
-                  + "' wasn't successful. Status: " + response.getStatus() + " Message: "
-                  + response.getStatusInfo().getReasonPhrase());
-            }
-
-            final String resultString = response.readEntity(String.class);
-
-            // Only process payload if Rest call is successful
-            if (response.getStatus() != Response.Status.OK.getStatusCode()) {
-
-              throw new Exception(Integer.toString(response.getStatus()));
-            }
-
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode root = mapper.readTree(resultString.toString());
-            final JsonNode conceptNodeBatch = root.get("items");
-
-            // if the search returned results set the total
-            if (!currentList.isTotalKnown()) {
-
-              currentList.setTotal(root.get("total").asInt());
-              currentList.setTotalKnown(true);
-            }
+        // serve the requested page from the member index, populating only that page below
+        final List<Concept> memberIndex =
+            getMemberIndex(refset, branchCache, searchParameters.getSort(),
+                searchParameters.getSortAscending() == null || searchParameters.getSortAscending());
+        final int offset =
+            searchParameters.getOffset() == null ? 0 : Math.max(0, searchParameters.getOffset());
+        final int end = searchParameters.getLimit() == null ? memberIndex.size()
+            : (int) Math.min(memberIndex.size(), (long) offset + searchParameters.getLimit());
 
-            if (root.get("searchAfter") != null) {
-
-              searchAfter = "&searchAfter=" + root.get("searchAfter").asText();
-            }
-
-            if (conceptNodeBatch.size() == 0 || conceptNodeBatch.size()
-                + currentList.getItems().size() >= currentList.getTotal()) {
-
-              hasMorePages = false;
-            }
-
-            if (System.currentTimeMillis()
-                - start > RefsetMemberService.TIMEOUT_MILLISECOND_THRESHOLD) {
-
-              hasMorePages = false;
-            }
-
-            final ResultListConcept currentMemberBatch =
-                RefsetMemberService.populateConcepts(root, refset, lookupParameters);
-            currentList.getItems().addAll(currentMemberBatch.getItems());
-          }
+        for (int i = offset; i < end; i++) {
 
+          currentList.getItems().add(new Concept(memberIndex.get(i)));
         }
 
+        currentList.setTotal(memberIndex.size());
+        currentList.setTotalKnown(true);
       }
 
       int snowstormCallCount = 0;
       final boolean doNotSearch = notSearching;
 
-      // Change the numbers to '1's to avoid threading
-      final ExecutorService executor = new ThreadPoolExecutor(30, 30, 0L, TimeUnit.MILLISECONDS,
-          new ArrayBlockingQueue<>(30), new ThreadPoolExecutor.CallerRunsPolicy());
+      final SnowstormWorkerPool.Batch batch =
+          SnowstormWorkerPool.newBatch(branchPath, 600, TimeUnit.SECONDS);
 
       // add the descriptions to the children concepts in batches
       for (int i = 0; i < currentList.getItems().size(); i++) {
@@ -260,7 +214,7 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
           final List<Concept> threadConcepts = new ArrayList<Concept>();
           threadConcepts.addAll(conceptsToProcess);
 
-          executor.submit(new Runnable() {
+          batch.submit(new Runnable() {
 
             /* see superclass */
             @Override
@@ -293,8 +247,7 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
 
       }
 
-      executor.shutdown();
-      executor.awaitTermination(600, TimeUnit.SECONDS);
+      batch.await();
 
       LOG.debug("getMemberList snowstormCallCount: " + snowstormCallCount);
 
@@ -314,6 +267,160 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
     return members;
   }
 
+  /**
+   * Returns the active members of a refset, without descriptions, in the requested order. The
+   * members are loaded once per refset branch and each sort order is built from them once; both are
+   * cached with the other member calls of the branch.
+   *
+   * @param refset the refset
+   * @param branchCache the member call cache collection of the refset branch
+   * @param sort the sort field, or null for the terminology server order
+   * @param ascending the ascending flag
+   * @return the members
+   * @throws Exception the exception
+   */
+  private static List<Concept> getMemberIndex(final Refset refset,
+    final Map<String, ResultListConcept> branchCache, final String sort, final boolean ascending)
+    throws Exception {
+
+    final String indexKey = refset.getRefsetId() + MEMBER_INDEX_KEY;
+    ResultListConcept memberIndex = branchCache.get(indexKey);
+
+    if (memberIndex == null) {
+
+      memberIndex = loadMemberIndex(refset);
+
+      // a load cut short by the timeout is not kept
+      if (memberIndex.getItems().size() >= memberIndex.getTotal()) {
+
+        final String branchPath = RefsetMemberService.getBranchPath(refset);
+        branchCache.put(indexKey, memberIndex);
+        RefsetMemberService.CONCEPTS_CALL_CACHE.put(branchPath, branchCache);
+
+        // keep the member IDs too, for membership checks
+        final SctidSet.Builder memberIds = new SctidSet.Builder();
+        memberIndex.getItems().forEach(member -> memberIds.add(member.getCode()));
+        final Map<String, SctidSet> membershipCache =
+            RefsetMemberService.getCacheForMembership(branchPath);
+        membershipCache.put(refset.getRefsetId(), memberIds.build());
+        RefsetMemberService.MEMBERSHIP_CACHE.put(branchPath, membershipCache);
+      }
+    }
+
+    if (StringUtils.isBlank(sort)) {
+
+      return memberIndex.getItems();
+    }
+
+    final String sortedKey = indexKey + ";sort=" + sort + ";ascending=" + ascending;
+    ResultListConcept sortedIndex = branchCache.get(sortedKey);
+
+    if (sortedIndex == null) {
+
+      sortedIndex = new ResultListConcept();
+      sortedIndex.getItems().addAll(memberIndex.getItems());
+      sortedIndex.getItems()
+          .sort(SortFieldAccessor.getComparator(Collections.singletonList(sort), ascending));
+      sortedIndex.setTotal(memberIndex.getTotal());
+      sortedIndex.setTotalKnown(true);
+
+      if (branchCache.containsKey(indexKey)) {
+
+        branchCache.put(sortedKey, sortedIndex);
+      }
+    }
+
+    return sortedIndex.getItems();
+  }
+
+  /**
+   * Loads the active members of a refset, without descriptions.
+   *
+   * @param refset the refset
+   * @return the members, whose total is the member count reported by the terminology server
+   * @throws Exception the exception
+   */
+  private static ResultListConcept loadMemberIndex(final Refset refset) throws Exception {
+
+    final ResultListConcept currentList = new ResultListConcept();
+    final ConceptLookupParameters lookupParameters = new ConceptLookupParameters();
+    lookupParameters.setGetMembershipInformation(true);
+
+    String searchAfter = "";
+    final long start = System.currentTimeMillis();
+    boolean hasMorePages = true;
+    final String acceptLanguage = SnowstormConnection.DEFAULT_ACCECPT_LANGUAGES;
+
+    // when searching for members we only want concepts whose membership is
+    // active
+    // (though the concept itself can be inactive)
+    final String url = SnowstormConnection.getBaseUrl()
+        + RefsetMemberService.getBranchPath(refset) + "/members?referenceSet=" + refset.getRefsetId()
+        + "&active=true&offset=0&limit=" + RefsetMemberService.ELASTICSEARCH_MAX_RECORD_LENGTH;
+
+    while (hasMorePages) {
+
+      final String fullSnowstormUrl = url + searchAfter;
+      LOG.debug("Get Member List URL: " + fullSnowstormUrl);
+
+      try (final Response response =
+          SnowstormConnection.getResponse(fullSnowstormUrl, acceptLanguage)) {
+
+        if (response.getStatusInfo().getFamily() != Family.SUCCESSFUL) {
+
+          hasMorePages = false;
+          throw new Exception("call to url '" + fullSnowstormUrl + "' wasn't successful. Status: "
+              + response.getStatus() + " Message: " + response.getStatusInfo().getReasonPhrase());
+        }
+
+        // Only process payload if Rest call is successful
+        if (response.getStatus() != Response.Status.OK.getStatusCode()) {
+
+          throw new Exception(Integer.toString(response.getStatus()));
+        }
+
+        // stream the items rather than holding the whole page as a string and a tree
+        final int previousCount = currentList.getItems().size();
+        final JsonNode root;
+
+        try (final InputStream in = response.readEntity(InputStream.class)) {
+
+          root = JsonUtility.readPage(in, "items", ITEMS_PER_CHUNK,
+              items -> currentList.getItems().addAll(RefsetMemberService.populateConcepts(
+                  JsonUtility.createObjectNode().set("items", items), refset, lookupParameters)
+                  .getItems()));
+        }
+
+        final int batchCount = currentList.getItems().size() - previousCount;
+
+        // if the search returned results set the total
+        if (!currentList.isTotalKnown()) {
+
+          currentList.setTotal(root.get("total").asInt());
+          currentList.setTotalKnown(true);
+        }
+
+        if (root.get("searchAfter") != null) {
+
+          searchAfter = "&searchAfter=" + root.get("searchAfter").asText();
+        }
+
+        if (batchCount == 0 || currentList.getItems().size() >= currentList.getTotal()) {
+
+          hasMorePages = false;
+        }
+
+        if (System.currentTimeMillis() - start > RefsetMemberService.TIMEOUT_MILLISECOND_THRESHOLD) {
+
+          hasMorePages = false;
+        }
+      }
+
+    }
+
+    return currentList;
+  }
+
   /**
    * Populate membership information.
    *
@@ -324,6 +431,14 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
   public static void populateMembershipInformation(final Refset refset,
     final List<Concept> concepts) throws Exception {
 
+    // with the member IDs of the refset cached, only members need their details looked up
+    final SctidSet memberIds =
+        RefsetMemberService.getCacheForMembership(RefsetMemberService.getBranchPath(refset))
+            .get(refset.getRefsetId());
+    final List<Concept> conceptsToLookup = memberIds == null ? concepts
+        : concepts.stream().filter(concept -> memberIds.contains(concept.getCode()))
+            .collect(Collectors.toList());
+
     final String baseUrl = SnowstormConnection.getBaseUrl()
         + RefsetMemberService.getBranchPath(refset) + "/members?referenceSet="
         + refset.getRefsetId() + "&active=true&limit="
@@ -332,19 +447,18 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
     String conceptIds = "";
     int snowstormCallCount = 0;
 
-    // Change the '30's to '1's to avoid threading
-    final ExecutorService executor = new ThreadPoolExecutor(30, 30, 0L, TimeUnit.MILLISECONDS,
-        new ArrayBlockingQueue<>(30), new ThreadPoolExecutor.CallerRunsPolicy());
+    final SnowstormWorkerPool.Batch batch =
+        SnowstormWorkerPool.newBatch(RefsetMemberService.getBranchPath(refset), 600, TimeUnit.SECONDS);
 
     // add the descriptions to the children concepts in batches
-    for (int i = 0; i < concepts.size(); i++) {
+    for (int i = 0; i < conceptsToLookup.size(); i++) {
 
-      final Concept concept = concepts.get(i);
+      final Concept concept = conceptsToLookup.get(i);
       conceptsToProcess.add(concept);
       conceptIds += concept.getCode() + ",";
 
       if (conceptsToProcess.size() == RefsetMemberService.CONCEPT_DESCRIPTIONS_PER_CALL
-          || i == concepts.size() - 1) {
+          || i == conceptsToLookup.size() - 1) {
 
         final String memberUrl = baseUrl + conceptIds;
         conceptIds = "";
@@ -352,7 +466,7 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
         final List<Concept> threadConcepts = new ArrayList<Concept>();
         threadConcepts.addAll(conceptsToProcess);
 
-        executor.submit(new Runnable() {
+        batch.submit(new Runnable() {
 
           /* see superclass */
           @Override
@@ -399,8 +513,7 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
 
     }
 
-    executor.shutdown();
-    executor.awaitTermination(600, TimeUnit.SECONDS);
+    batch.await();
 
     LOG.debug("populateMembershipInformation snowstormCallCount: " + snowstormCallCount);
   }
@@ -454,8 +567,7 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
         }
 
         final String resultString = response.readEntity(String.class);
-        final ObjectMapper mapper = new ObjectMapper();
-        final JsonNode root = mapper.readTree(resultString.toString());
+        final JsonNode root = JsonUtility.readTree(resultString.toString());
         final JsonNode node = root.get("items");
         String currentVersionDate = null;
         final Iterator<JsonNode> iterator = node.iterator();
@@ -557,130 +669,130 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
     final long start = System.currentTimeMillis();
     final String branchPath = refset.getBranchPath();
     final String cacheString = refset.getRefsetId();
-    final Map<String, Set<String>> branchCache =
+    final Map<String, SctidSet> branchCache =
         RefsetMemberService.getCacheForMemberAncestors(branchPath);
 
     // check if the members call has been cached
-    if (branchCache.containsKey(cacheString)) {
+    if (branchCache.get(cacheString) != null) {
 
       LOG.debug("cacheMemberAncestors USING CACHE");
       return true;
     }
 
-    final String memberCountUrl =
-        SnowstormConnection.getBaseUrl() + RefsetMemberService.getBranchPath(refset)
-            + "/members?referenceSet=" + refset.getRefsetId() + "&active=true&limit=1";
+    // Get ancestors of all members via ecl e.g. >(^723264001)
+    final String url = SnowstormConnection.getBaseUrl() + RefsetMemberService.getBranchPath(refset)
+        + "/concepts?ecl=%3E(%5E" + refset.getRefsetId() + ")&limit=" + ANCESTORS_PER_CALL;
+    final SctidSet.Builder ancestors = new SctidSet.Builder();
 
-    // See how many members the refset has - if it is more than 100k we can not
-    // cache the ancestors
-    try (final Response response = SnowstormConnection.getResponse(memberCountUrl)) {
+    try {
 
-      if (response.getStatusInfo().getFamily() != Family.SUCCESSFUL) {
+      final int[] pageCt = new int[1];
+      JsonNode root = getAncestorPage(url + "&offset=0", ancestors, pageCt);
+      final int total = root.get("total").asInt();
 
-        throw new Exception("Call to url '" + memberCountUrl + "' wasn't successful. "
-            + response.getStatus() + ": " + response.getStatusInfo().getReasonPhrase());
-      }
+      if (total <= RefsetMemberService.ELASTICSEARCH_MAX_RECORD_LENGTH) {
 
-      final String resultString = response.readEntity(String.class);
+        // the remaining pages are within reach of an offset, so fetch them concurrently
+        final SnowstormWorkerPool.Batch batch = SnowstormWorkerPool
+            .newBatch(RefsetMemberService.getBranchPath(refset), 120, TimeUnit.SECONDS);
 
-      final ObjectMapper mapper = new ObjectMapper();
-      final JsonNode root = mapper.readTree(resultString.toString());
-      final int memberTotal = root.get("total").asInt();
+        for (int offset = ANCESTORS_PER_CALL; offset < total; offset += ANCESTORS_PER_CALL) {
 
-      if (memberTotal > 100000) {
+          final String pageUrl = url + "&offset=" + offset;
 
-        LOG.warn("Could not cache the ancestors of Reference Set " + refset.getRefsetId()
-            + " because it has too many members: " + memberTotal);
-        branchCache.put(cacheString, new HashSet<String>());
-        RefsetMemberService.ANCESTORS_CACHE.put(branchPath, branchCache);
-        return true;
-      }
+          batch.submit(new Runnable() {
 
-    } catch (final Exception e) {
+            /* see superclass */
+            @Override
+            public void run() {
 
-      LOG.error("Could not cache the ancestors of Reference Set " + refset.getRefsetId()
-          + " from snowstorm: " + e.getMessage(), e);
-    }
+              try {
 
-    // Get ancestors of all members via ecl e.g. >(^723264001)
-    final String url = SnowstormConnection.getBaseUrl() + RefsetMemberService.getBranchPath(refset)
-        + "/concepts?ecl=%3E(%5E" + refset.getRefsetId() + ")&limit=1000&offset=";
-    final List<Set<String>> ancestorsSetBatches =
-        new ArrayList<>(Collections.nCopies(10, new HashSet<>()));
+                getAncestorPage(pageUrl, ancestors, new int[1]);
 
-    // Change the '10's to '1's to avoid threading
-    final ExecutorService executor = new ThreadPoolExecutor(10, 10, 0L, TimeUnit.MILLISECONDS,
-        new ArrayBlockingQueue<>(10), new ThreadPoolExecutor.CallerRunsPolicy());
+              } catch (final Exception e) {
 
-    // add the descriptions to the children concepts in batches
-    for (int i = 0; i < ancestorsSetBatches.size(); i++) {
+                throw new RuntimeException(e);
+              }
 
-      final Set<String> ancestorsSet = ancestorsSetBatches.get(i);
-      final int offset = 1000 * i;
-      LOG.debug("cacheMemberAncestors URL: " + url + offset);
+            }
 
-      executor.submit(new Runnable() {
+          });
+        }
 
-        /* see superclass */
-        @Override
-        public void run() {
+        batch.await();
 
-          final String fullSnowstormUrl = url + offset;
-          try (final Response response = SnowstormConnection.getResponse(fullSnowstormUrl)) {
+      } else {
 
-            if (response.getStatusInfo().getFamily() != Family.SUCCESSFUL) {
+        // beyond the offset limit, page sequentially
+        while (root.get("searchAfter") != null && pageCt[0] > 0) {
 
-              throw new Exception("Call to url '" + fullSnowstormUrl + "' wasn't successful. "
-                  + response.getStatus() + ": " + response.getStatusInfo().getReasonPhrase());
-            }
+          root = getAncestorPage(url + "&searchAfter=" + root.get("searchAfter").asText(),
+              ancestors, pageCt);
+        }
 
-            final String resultString = response.readEntity(String.class);
+      }
 
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode root = mapper.readTree(resultString.toString());
-            final JsonNode allResultNodes = root.get("items");
-            final Iterator<JsonNode> resultsIterator = allResultNodes.iterator();
+    } catch (final Exception e) {
 
-            while (resultsIterator.hasNext()) {
+      LOG.error("Could not cache the ancestors of Reference Set " + refset.getRefsetId()
+          + " from snowstorm: " + e.getMessage(), e);
+      return false;
+    }
 
-              final JsonNode resultNode = resultsIterator.next();
+    final SctidSet ancestorsSet = ancestors.build();
+    branchCache.put(cacheString, ancestorsSet);
+    RefsetMemberService.ANCESTORS_CACHE.put(branchPath, branchCache);
 
-              if (!resultNode.has("conceptId")) {
+    LOG.debug("cacheMemberAncestors Time Taken: " + (System.currentTimeMillis() - start));
+    LOG.debug("cacheMemberAncestors Number of Ancestors: " + ancestorsSet.size());
 
-                throw new Exception("Result wasn't as expected with resultNode: " + resultNode);
-              }
+    return true;
+  }
 
-              ancestorsSet.add(resultNode.get("conceptId").asText());
-            }
+  /**
+   * Gets a page of the ancestors of the members of a refset.
+   *
+   * @param url the url of the page
+   * @param ancestors the builder to add the ancestor IDs to
+   * @param pageCt the holder of the number of items on the page
+   * @return the page, without its items
+   * @throws Exception the exception
+   */
+  private static JsonNode getAncestorPage(final String url, final SctidSet.Builder ancestors,
+    final int[] pageCt) throws Exception {
 
-          } catch (final Exception e) {
+    LOG.debug("cacheMemberAncestors URL: " + url);
 
-            LOG.error("Could not cache the ancestors of Reference Set " + refset.getRefsetId()
-                + " from snowstorm: " + e.getMessage(), e);
-          }
+    try (final Response response = SnowstormConnection.getResponse(url)) {
 
-        }
+      if (response.getStatusInfo().getFamily() != Family.SUCCESSFUL) {
 
-      });
-    }
+        throw new Exception("Call to url '" + url + "' wasn't successful. " + response.getStatus()
+            + ": " + response.getStatusInfo().getReasonPhrase());
+      }
 
-    executor.shutdown();
-    executor.awaitTermination(120, TimeUnit.SECONDS);
+      pageCt[0] = 0;
 
-    final Set<String> ancestorsSet = new HashSet<>();
+      // only the concept IDs are kept, so stream the items rather than reading the whole page
+      try (final InputStream in = response.readEntity(InputStream.class)) {
 
-    for (final Set<String> ancestorsBatch : ancestorsSetBatches) {
+        return JsonUtility.readPage(in, "items", ITEMS_PER_CHUNK, items -> {
 
-      ancestorsSet.addAll(ancestorsBatch);
-    }
+          for (final JsonNode resultNode : items) {
 
-    branchCache.put(cacheString, ancestorsSet);
-    RefsetMemberService.ANCESTORS_CACHE.put(branchPath, branchCache);
+            if (!resultNode.has("conceptId")) {
 
-    LOG.debug("cacheMemberAncestors Time Taken: " + (System.currentTimeMillis() - start));
-    LOG.debug("cacheMemberAncestors Number of Ancestors: " + ancestorsSet.size());
+              throw new Exception("Result wasn't as expected with resultNode: " + resultNode);
+            }
 
-    return true;
+            ancestors.add(resultNode.get("conceptId").asText());
+          }
+
+          pageCt[0] += items.size();
+        });
+      }
+    }
   }
 
   /**
@@ -701,7 +813,6 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
     }
 
     final List<String> unaddedConcepts = new ArrayList<>();
-    final ObjectMapper mapper = new ObjectMapper();
 
     final String branchPath = RefsetService.getBranchPath(refset);
     final String url = SnowstormConnection.getBaseUrl() + branchPath + "/" + "members";
@@ -728,7 +839,7 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
     final Map<String, Map<String, String>> conceptsStatus =
         RefsetMemberService.REFSETS_UPDATED_MEMBERS.get(refset.getId());
     final List<String> validatedConcepts = new ArrayList<>();
-    final ArrayNode memberUpdateArray = mapper.createArrayNode();
+    final ArrayNode memberUpdateArray = JsonUtility.createArrayNode();
     boolean searchAgain = true;
     int searchIndex = 0;
     int loopNumber = 1;
@@ -791,7 +902,7 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
                 + " Message: " + response.getStatusInfo().getReasonPhrase());
           }
 
-          final JsonNode root = mapper.readTree(resultString.toString());
+          final JsonNode root = JsonUtility.readTree(resultString.toString());
           iterator = root.get("items").iterator();
 
           while (iterator != null && iterator.hasNext()) {
@@ -869,7 +980,7 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
                 + " Message: " + response.getStatusInfo().getReasonPhrase());
           }
 
-          final JsonNode root = mapper.readTree(resultString.toString());
+          final JsonNode root = JsonUtility.readTree(resultString.toString());
           iterator = root.get("items").iterator();
 
           // loop thru the returned member details
@@ -896,7 +1007,7 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
 
               conceptIds.remove(conceptId);
 
-              final ObjectNode memberBody = mapper.createObjectNode().put("active", true)
+              final ObjectNode memberBody = JsonUtility.createObjectNode().put("active", true)
                   .put("memberId", conceptNode.get("memberId").asText())
                   .put("moduleId", conceptNode.get("moduleId").asText())
                   .put("referencedComponentId", conceptNode.get("referencedComponentId").asText())
@@ -938,14 +1049,14 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
     // clear the caches for this refset
     RefsetMemberService.clearAllMemberCaches(branchPath);
 
-    // update the member count and save the refset
-    if (refset.getMemberCount() == -1) {
+    // estimate the member count for the edit, and have the refresher correct it
+    if (refset.getMemberCount() != -1) {
 
-      refset.setMemberCount(0);
+      refset.setMemberCount(refset.getMemberCount() + conceptIds.size() + memberUpdateArray.size());
+      service.update(refset);
     }
 
-    refset.setMemberCount(refset.getMemberCount() + conceptIds.size() + memberUpdateArray.size());
-    service.update(refset);
+    RefsetService.refreshRefsetMemberCount(refset, true);
 
     for (final String conceptId : unaddedConcepts) {
 
@@ -973,8 +1084,7 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
 
     final List<String> unaddedConcepts = new ArrayList<>();
 
-    final ObjectMapper mapper = new ObjectMapper();
-    final ObjectNode body = mapper.createObjectNode().put("refsetId", refsetId)
+    final ObjectNode body = JsonUtility.createObjectNode().put("refsetId", refsetId)
         .put("moduleId", moduleId).put("referencedComponentId", conceptId);
 
     LOG.debug("callAddMemberSingle URL: " + url);
@@ -1011,12 +1121,11 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
 
     final List<String> unaddedConcepts = new ArrayList<>();
     final String bulkUrl = url + "/bulk";
-    final ObjectMapper mapper = new ObjectMapper();
-    final ArrayNode body = mapper.createArrayNode();
+    final ArrayNode body = JsonUtility.createArrayNode();
 
     for (final String conceptId : conceptIds) {
 
-      final ObjectNode memberBody = mapper.createObjectNode().put("refsetId", refsetId)
+      final ObjectNode memberBody = JsonUtility.createObjectNode().put("refsetId", refsetId)
           .put("moduleId", moduleId).put("referencedComponentId", conceptId);
 
       body.add(memberBody);
@@ -1074,7 +1183,7 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
           }
 
           final String resultString = response.readEntity(String.class);
-          final JsonNode root = mapper.readTree(resultString.toString());
+          final JsonNode root = JsonUtility.readTree(resultString.toString());
 
           // LOG.debug("addRefsetMembers job status response: " + root);
           final String status = root.get("status").asText();
@@ -1127,7 +1236,6 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
     final Refset refset, final String conceptIds) throws Exception {
 
     List<String> unremovedConcepts = new ArrayList<>();
-    final ObjectMapper mapper = new ObjectMapper();
     final Map<String, Map<String, String>> conceptsStatus =
         RefsetMemberService.REFSETS_UPDATED_MEMBERS.get(refset.getId());
 
@@ -1146,8 +1254,8 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
     final String memberSearchUrlBase = SnowstormConnection.getBaseUrl() + branchPath
         + "/members?referenceSet=" + refset.getRefsetId() + "&offset=0&active=true" + "&limit="
         + RefsetMemberService.URL_MAX_CHAR_LENGTH + "&referencedComponentId=";
-    final ArrayNode memberDeleteArray = mapper.createArrayNode();
-    final ArrayNode memberUpdateArray = mapper.createArrayNode();
+    final ArrayNode memberDeleteArray = JsonUtility.createArrayNode();
+    final ArrayNode memberUpdateArray = JsonUtility.createArrayNode();
     final List<String> permanentFullConceptList = Arrays.asList(conceptIds.split(","));
     final List<String> members = new ArrayList<>();
     boolean searchAgain = true;
@@ -1195,7 +1303,7 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
               + response.getStatus() + " Message: " + response.getStatusInfo().getReasonPhrase());
         }
 
-        final JsonNode root = mapper.readTree(resultString.toString());
+        final JsonNode root = JsonUtility.readTree(resultString.toString());
         iterator = root.get("items").iterator();
       }
 
@@ -1218,7 +1326,7 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
         // array
         else {
 
-          final ObjectNode memberBody = mapper.createObjectNode().put("active", false)
+          final ObjectNode memberBody = JsonUtility.createObjectNode().put("active", false)
               .put("effectiveTime", conceptNode.get("effectiveTime").asText())
               .put("memberId", membershipId).put("moduleId", conceptNode.get("moduleId").asText())
               .put("referencedComponentId", conceptNode.get("referencedComponentId").asText())
@@ -1270,7 +1378,7 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
       if (memberDeleteArray.size() > 0) {
 
         final String deleteBody =
-            mapper.createObjectNode().set("memberIds", memberDeleteArray).toString();
+            JsonUtility.createObjectNode().set("memberIds", memberDeleteArray).toString();
         final String deleteUrl = url + "?force";
         final String errorMessage = "Remove Reference Set Member bulk call to url '" + deleteUrl
             + "' for Reference Set '" + refsetId + " wasn't successful. ";
@@ -1311,9 +1419,8 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
       RefsetMemberService.clearAllMemberCaches(branchPath);
     }
 
-    // update the member count and save the refset
-    refset.setMemberCount(getMemberCount(refset));
-    service.update(refset);
+    // have the refresher recount the members
+    RefsetService.refreshRefsetMemberCount(refset, true);
 
     for (final String conceptId : unremovedConcepts) {
 
@@ -1376,7 +1483,6 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
     final ArrayNode memberBodies) throws Exception {
 
     final List<String> unchangedConcepts = new ArrayList<>();
-    final ObjectMapper mapper = new ObjectMapper();
 
     LOG.debug("callUpdateMembersBulk URL: " + url);
     LOG.debug("callUpdateMembersBulk URL body: " + memberBodies.toString());
@@ -1430,7 +1536,7 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
           }
 
           final String resultString = response.readEntity(String.class);
-          final JsonNode root = mapper.readTree(resultString.toString());
+          final JsonNode root = JsonUtility.readTree(resultString.toString());
 
           // LOG.debug("addRefsetMembers job status response: " + root);
           final String status = root.get("status").asText();
@@ -1504,8 +1610,7 @@ public class SnowstormRefsetMember extends SnowstormAbstract {
         throw new Exception(Integer.toString(response.getStatus()));
       }
 
-      final ObjectMapper mapper = new ObjectMapper();
-      final JsonNode root = mapper.readTree(resultString.toString());
+      final JsonNode root = JsonUtility.readTree(resultString.toString());
       count = root.get("total").asInt();
     }
 
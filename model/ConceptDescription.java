@@ -0,0 +1,297 @@
+/*
+ * Copyright 2024 West Coast Informatics - All Rights Reserved.
+ *
+ * NOTICE:  All information contained herein is, and remains the property of West Coast Informatics
+ * The intellectual and technical concepts contained herein are proprietary to
+ * West Coast Informatics and may be covered by U.S. and Foreign Patents, patents in process,
+ * and are protected by trade secret or copyright law.  Dissemination of this information
+ * or reproduction of this material is strictly forbidden.
+ */
+package org.ihtsdo.refsetservice.model;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact, immutable description of a concept in a language.
+ *
+ * Concepts hold their descriptions as maps of string attributes, which is also how they are serialized to JSON. This map keeps only the term,
+ * description ID, language, language refset and type; those and the combined attributes (languageId, languageName) are interned, so a
+ * description costs one small object instead of a hash map with its entries and strings.
+ */
+public final class ConceptDescription extends AbstractMap<String, String> implements Serializable {
+
+  /** The serial version UID. */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The description types.
+   */
+  public enum Type {
+
+    /** The fully specified name. */
+    FSN,
+
+    /** The preferred term. */
+    PT,
+
+    /** An acceptable synonym. */
+    AC,
+
+    /** A text definition. */
+    DEF
+  }
+
+  /** The term attribute. */
+  public static final String TERM = "term";
+
+  /** The type attribute. */
+  public static final String TYPE = "type";
+
+  /** The language attribute. */
+  public static final String LANGUAGE = "language";
+
+  /** The description ID attribute. */
+  public static final String DESCRIPTION_ID = "descriptionId";
+
+  /** The language code attribute, the language refset ID. */
+  public static final String LANGUAGE_CODE = "languageCode";
+
+  /** The language ID attribute, the language refset ID and type combined. */
+  public static final String LANGUAGE_ID = "languageId";
+
+  /** The language name attribute. */
+  public static final String LANGUAGE_NAME = "languageName";
+
+  /** The attribute names, in serialization order. */
+  private static final Set<String> KEYS = Collections.unmodifiableSet(
+      new LinkedHashSet<>(Arrays.asList(TERM, TYPE, DESCRIPTION_ID, LANGUAGE_CODE, LANGUAGE_ID, LANGUAGE_NAME, LANGUAGE)));
+
+  /** The interned language codes, language refset IDs and derived attributes. */
+  private static final Map<String, String> INTERNED = new ConcurrentHashMap<>();
+
+  /** The term. */
+  private final String term;
+
+  /** The description ID. */
+  private final String descriptionId;
+
+  /** The language, e.g. "en". */
+  private final String language;
+
+  /** The language refset ID. */
+  private final String languageRefsetId;
+
+  /** The type. */
+  private final Type type;
+
+  /** The language refset ID and type combined. */
+  private final String languageId;
+
+  /** The language name. */
+  private final String languageName;
+
+  /** The hash code, computed when first needed. */
+  private transient int hashCode;
+
+  /**
+   * Instantiates a {@link ConceptDescription} from the specified parameters.
+   *
+   * @param term the term
+   * @param descriptionId the description ID
+   * @param language the language, e.g. "en"
+   * @param languageRefsetId the language refset ID
+   * @param type the type
+   */
+  public ConceptDescription(final String term, final String descriptionId, final String language,
+      final String languageRefsetId, final Type type) {
+
+    this.term = term;
+    this.descriptionId = descriptionId;
+    this.language = intern(language);
+    this.languageRefsetId = intern(languageRefsetId);
+    this.type = type;
+    this.languageId = intern(languageRefsetId + type);
+    this.languageName = intern(language.toUpperCase() + " (" + type + ")");
+  }
+
+  /**
+   * Returns the interned copy of a value.
+   *
+   * @param value the value
+   * @return the interned value
+   */
+  private static String intern(final String value) {
+
+    if (value == null) {
+      return null;
+    }
+
+    final String interned = INTERNED.putIfAbsent(value, value);
+    return interned == null ? value : interned;
+  }
+
+  /**
+   * Returns the term.
+   *
+   * @return the term
+   */
+  public String getTerm() {
+
+    return term;
+  }
+
+  /**
+   * Returns the description ID.
+   *
+   * @return the description ID
+   */
+  public String getDescriptionId() {
+
+    return descriptionId;
+  }
+
+  /**
+   * Returns the language.
+   *
+   * @return the language
+   */
+  public String getLanguage() {
+
+    return language;
+  }
+
+  /**
+   * Returns the language refset ID.
+   *
+   * @return the language refset ID
+   */
+  public String getLanguageRefsetId() {
+
+    return languageRefsetId;
+  }
+
+  /**
+   * Returns the description type.
+   *
+   * @return the description type
+   */
+  public Type getDescriptionType() {
+
+    return type;
+  }
+
+  /**
+   * Returns the language ID, the language refset ID and type combined.
+   *
+   * @return the language ID
+   */
+  public String getLanguageId() {
+
+    return languageId;
+  }
+
+  /**
+   * Returns the language name, e.g. "EN (PT)".
+   *
+   * @return the language name
+   */
+  public String getLanguageName() {
+
+    return languageName;
+  }
+
+  /* see superclass */
+  @Override
+  public String get(final Object key) {
+
+    if (!(key instanceof String)) {
+      return null;
+    }
+
+    switch ((String) key) {
+      case TERM:
+        return term;
+      case TYPE:
+        return type.name();
+      case DESCRIPTION_ID:
+        return descriptionId;
+      case LANGUAGE_CODE:
+        return languageRefsetId;
+      case LANGUAGE_ID:
+        return languageId;
+      case LANGUAGE_NAME:
+        return languageName;
+      case LANGUAGE:
+        return language;
+      default:
+        return null;
+    }
+  }
+
+  /* see superclass */
+  @Override
+  public boolean containsKey(final Object key) {
+
+    return KEYS.contains(key);
+  }
+
+  /* see superclass */
+  @Override
+  public int size() {
+
+    return KEYS.size();
+  }
+
+  /* see superclass */
+  @Override
+  public Set<Map.Entry<String, String>> entrySet() {
+
+    // created on each call rather than kept, to keep descriptions small
+    final Set<Map.Entry<String, String>> entries = new LinkedHashSet<>();
+
+    for (final String key : KEYS) {
+      entries.add(new AbstractMap.SimpleImmutableEntry<>(key, get(key)));
+    }
+
+    return Collections.unmodifiableSet(entries);
+  }
+
+  /* see superclass */
+  @Override
+  public int hashCode() {
+
+    if (hashCode == 0) {
+      hashCode = super.hashCode();
+    }
+
+    return hashCode;
+  }
+
+  /* see superclass */
+  @Override
+  public boolean equals(final Object other) {
+
+    if (this == other) {
+      return true;
+    }
+
+    if (other instanceof ConceptDescription) {
+
+      final ConceptDescription description = (ConceptDescription) other;
+      return type == description.type && Objects.equals(term, description.term)
+          && Objects.equals(descriptionId, description.descriptionId)
+          && Objects.equals(language, description.language)
+          && Objects.equals(languageRefsetId, description.languageRefsetId);
+    }
+
+    return super.equals(other);
+  }
+}
@@ -0,0 +1,453 @@
+/*
+ * Copyright 2023 SNOMED International - All Rights Reserved.
+ *
+ * NOTICE:  All information contained herein is, and remains the property of SNOMED International
+ * The intellectual and technical concepts contained herein are proprietary to
+ * SNOMED International and may be covered by U.S. and Foreign Patents, patents in process,
+ * and are protected by trade secret or copyright law.  Dissemination of this information
+ * or reproduction of this material is strictly forbidden.
+ */
+package org.ihtsdo.refsetservice.model;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Represents an export running in the background and its progress.
+ */
+@Schema(description = "Represents an export running in the background and its progress.")
+@JsonInclude(Include.NON_EMPTY)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ExportJob {
+
+    /**
+     * The status of an export job.
+     */
+    public enum Status {
+
+        /** Waiting for a worker. */
+        QUEUED,
+
+        /** Being exported. */
+        RUNNING,
+
+        /** Finished, the url is available. */
+        COMPLETED,
+
+        /** Finished with an error. */
+        FAILED
+    }
+
+    /** The id. */
+    private String id;
+
+    /** The key identifying identical exports. */
+    private String key;
+
+    /** The names of the users who requested the export. */
+    private Set<String> userNames = new HashSet<>();
+
+    /** The internal ID of the exported refset, null for project exports. */
+    private String refsetInternalId;
+
+    /** The description. */
+    private String description;
+
+    /** The status. */
+    private Status status;
+
+    /** The progress message. */
+    private String progress;
+
+    /** The percent complete. */
+    private Integer percentComplete;
+
+    /** The url to download the export file from. */
+    private String url;
+
+    /** The error message. */
+    private String error;
+
+    /** The number of requests served by this job. */
+    private int requestCount;
+
+    /** The submitted date. */
+    private Date submitted;
+
+    /** The started date. */
+    private Date started;
+
+    /** The finished date. */
+    private Date finished;
+
+    /**
+     * Instantiates an empty {@link ExportJob}.
+     */
+    public ExportJob() {
+
+        // n/a
+    }
+
+    /**
+     * Instantiates a {@link ExportJob} from the specified parameters.
+     *
+     * @param id the id
+     * @param key the key identifying identical exports
+     * @param userName the name of the user who submitted the job
+     * @param refsetInternalId the internal ID of the exported refset, null for project exports
+     * @param description the description
+     */
+    public ExportJob(final String id, final String key, final String userName, final String refsetInternalId, final String description) {
+
+        this.id = id;
+        this.key = key;
+        this.userNames.add(userName);
+        this.refsetInternalId = refsetInternalId;
+        this.description = description;
+        this.status = Status.QUEUED;
+        this.requestCount = 1;
+        this.submitted = new Date();
+    }
+
+    /**
+     * Instantiates a {@link ExportJob} from the specified parameters.
+     *
+     * @param other the other
+     */
+    public ExportJob(final ExportJob other) {
+
+        populateFrom(other);
+    }
+
+    /**
+     * Populate from.
+     *
+     * @param other the other
+     */
+    public void populateFrom(final ExportJob other) {
+
+        id = other.getId();
+        key = other.getKey();
+        userNames = new HashSet<>(other.getUserNames());
+        refsetInternalId = other.getRefsetInternalId();
+        description = other.getDescription();
+        status = other.getStatus();
+        progress = other.getProgress();
+        percentComplete = other.getPercentComplete();
+        url = other.getUrl();
+        error = other.getError();
+        requestCount = other.getRequestCount();
+        submitted = other.getSubmitted();
+        started = other.getStarted();
+        finished = other.getFinished();
+    }
+
+    /**
+     * Indicates whether the job has finished, successfully or not.
+     *
+     * @return true, if finished
+     */
+    @JsonIgnore
+    public boolean isFinished() {
+
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    /**
+     * Returns the id.
+     *
+     * @return the id
+     */
+    public String getId() {
+
+        return id;
+    }
+
+    /**
+     * Sets the id.
+     *
+     * @param id the id
+     */
+    public void setId(final String id) {
+
+        this.id = id;
+    }
+
+    /**
+     * Returns the key identifying identical exports.
+     *
+     * @return the key
+     */
+    @JsonIgnore
+    public String getKey() {
+
+        return key;
+    }
+
+    /**
+     * Sets the key identifying identical exports.
+     *
+     * @param key the key
+     */
+    public void setKey(final String key) {
+
+        this.key = key;
+    }
+
+    /**
+     * Returns the names of the users who requested the export.
+     *
+     * @return the user names
+     */
+    @JsonIgnore
+    public Set<String> getUserNames() {
+
+        return userNames;
+    }
+
+    /**
+     * Sets the names of the users who requested the export.
+     *
+     * @param userNames the user names
+     */
+    public void setUserNames(final Set<String> userNames) {
+
+        this.userNames = userNames;
+    }
+
+    /**
+     * Returns the internal ID of the exported refset, null for project exports.
+     *
+     * @return the refset internal ID
+     */
+    public String getRefsetInternalId() {
+
+        return refsetInternalId;
+    }
+
+    /**
+     * Sets the internal ID of the exported refset.
+     *
+     * @param refsetInternalId the refset internal ID
+     */
+    public void setRefsetInternalId(final String refsetInternalId) {
+
+        this.refsetInternalId = refsetInternalId;
+    }
+
+    /**
+     * Returns the description.
+     *
+     * @return the description
+     */
+    public String getDescription() {
+
+        return description;
+    }
+
+    /**
+     * Sets the description.
+     *
+     * @param description the description
+     */
+    public void setDescription(final String description) {
+
+        this.description = description;
+    }
+
+    /**
+     * Returns the status.
+     *
+     * @return the status
+     */
+    public Status getStatus() {
+
+        return status;
+    }
+
+    /**
+     * Sets the status.
+     *
+     * @param status the status
+     */
+    public void setStatus(final Status status) {
+
+        this.status = status;
+    }
+
+    /**
+     * Returns the progress message.
+     *
+     * @return the progress
+     */
+    public String getProgress() {
+
+        return progress;
+    }
+
+    /**
+     * Sets the progress message.
+     *
+     * @param progress the progress
+     */
+    public void setProgress(final String progress) {
+
+        this.progress = progress;
+    }
+
+    /**
+     * Returns the percent complete.
+     *
+     * @return the percent complete
+     */
+    public Integer getPercentComplete() {
+
+        return percentComplete;
+    }
+
+    /**
+     * Sets the percent complete.
+     *
+     * @param percentComplete the percent complete
+     */
+    public void setPercentComplete(final Integer percentComplete) {
+
+        this.percentComplete = percentComplete;
+    }
+
+    /**
+     * Returns the url to download the export file from.
+     *
+     * @return the url
+     */
+    public String getUrl() {
+
+        return url;
+    }
+
+    /**
+     * Sets the url to download the export file from.
+     *
+     * @param url the url
+     */
+    public void setUrl(final String url) {
+
+        this.url = url;
+    }
+
+    /**
+     * Returns the error message.
+     *
+     * @return the error
+     */
+    public String getError() {
+
+        return error;
+    }
+
+    /**
+     * Sets the error message.
+     *
+     * @param error the error
+     */
+    public void setError(final String error) {
+
+        this.error = error;
+    }
+
+    /**
+     * Returns the number of requests served by this job.
+     *
+     * @return the request count
+     */
+    public int getRequestCount() {
+
+        return requestCount;
+    }
+
+    /**
+     * Sets the number of requests served by this job.
+     *
+     * @param requestCount the request count
+     */
+    public void setRequestCount(final int requestCount) {
+
+        this.requestCount = requestCount;
+    }
+
+    /**
+     * Returns the submitted date.
+     *
+     * @return the submitted
+     */
+    public Date getSubmitted() {
+
+        return submitted;
+    }
+
+    /**
+     * Sets the submitted date.
+     *
+     * @param submitted the submitted
+     */
+    public void setSubmitted(final Date submitted) {
+
+        this.submitted = submitted;
+    }
+
+    /**
+     * Returns the started date.
+     *
+     * @return the started
+     */
+    public Date getStarted() {
+
+        return started;
+    }
+
+    /**
+     * Sets the started date.
+     *
+     * @param started the started
+     */
+    public void setStarted(final Date started) {
+
+        this.started = started;
+    }
+
+    /**
+     * Returns the finished date.
+     *
+     * @return the finished
+     */
+    public Date getFinished() {
+
+        return finished;
+    }
+
+    /**
+     * Sets the finished date.
+     *
+     * @param finished the finished
+     */
+    public void setFinished(final Date finished) {
+
+        this.finished = finished;
+    }
+
+    /* see superclass */
+    @Override
+    public String toString() {
+
+        return "ExportJob [id=" + id + ", key=" + key + ", userNames=" + userNames + ", refsetInternalId=" + refsetInternalId + ", status=" + status
+            + ", progress=" + progress + ", url=" + url + ", error=" + error + "]";
+    }
+}
@@ -24,6 +24,9 @@ public class PfsParameter {
   /** The ascending flag. */
   private boolean ascending = true;
 
+  /** The search after cursor, empty for the first page, or null to page by offset. */
+  private String searchAfter = null;
+
   /**
    * The default constructor.
    */
@@ -44,6 +47,7 @@ public class PfsParameter {
     sort = pfs.getSort();
     sortFields = new ArrayList<>(pfs.getSortFields());
     ascending = pfs.isAscending();
+    searchAfter = pfs.getSearchAfter();
   }
 
   /**
@@ -207,6 +211,26 @@ public class PfsParameter {
     return this.sortFields;
   }
 
+  /**
+   * Returns the search after cursor. After a search it is the cursor of the next page, or null if there is none.
+   *
+   * @return the search after cursor
+   */
+  public String getSearchAfter() {
+
+    return searchAfter;
+  }
+
+  /**
+   * Sets the search after cursor. Set it to empty to page by cursor from the first page.
+   *
+   * @param searchAfter the search after cursor
+   */
+  public void setSearchAfter(final String searchAfter) {
+
+    this.searchAfter = searchAfter;
+  }
+
   /* see superclass */
 
   @Override
@@ -219,6 +243,7 @@ public class PfsParameter {
     result = prime * result + offset;
     result = prime * result + ((sort == null) ? 0 : sort.hashCode());
     result = prime * result + ((sortFields == null) ? 0 : sortFields.hashCode());
+    result = prime * result + ((searchAfter == null) ? 0 : searchAfter.hashCode());
     return result;
   }
 
@@ -259,6 +284,13 @@ public class PfsParameter {
     } else if (!sortFields.equals(other.sortFields)) {
       return false;
     }
+    if (searchAfter == null) {
+      if (other.searchAfter != null) {
+        return false;
+      }
+    } else if (!searchAfter.equals(other.searchAfter)) {
+      return false;
+    }
     return true;
   }
 
@@ -279,7 +311,8 @@ public class PfsParameter {
   public String toString() {
 
     return "PfsParameterJpa [limit=" + limit + ", startIndex=" + offset + ", sort=" + sort
-        + ", sortFields=" + sortFields + ", ascending=" + ascending + "]";
+        + ", sortFields=" + sortFields + ", ascending=" + ascending + ", searchAfter=" + searchAfter
+        + "]";
   }
 
 }
@@ -11,15 +11,62 @@
 package org.ihtsdo.refsetservice.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 /**
  * Represents a comparison between two refsets.
  * 
+ * The compared members are held as columns of rows ordered by concept ID; the
+ * items are the rows of the page being returned, with their names resolved.
  */
 public class RefsetMemberComparison extends AbstractHasModified {
 
+  /**
+   * The membership of a compared member.
+   */
+  public enum Membership {
+
+    /** A member of both refsets. */
+    BOTH("Both"),
+
+    /** A member of only the active refset. */
+    ACTIVE_REFSET("Active Reference Set"),
+
+    /** A member of only the comparison refset. */
+    COMPARISON_REFSET("Comparison Reference Set");
+
+    /** The label. */
+    private final String label;
+
+    /**
+     * Instantiates a {@link Membership} from the specified parameters.
+     *
+     * @param label the label
+     */
+    Membership(final String label) {
+
+      this.label = label;
+    }
+
+    /**
+     * Returns the label.
+     *
+     * @return the label
+     */
+    public String getLabel() {
+
+      return label;
+    }
+  }
+
+  /** The memberships, by ordinal. */
+  private static final Membership[] MEMBERSHIPS = Membership.values();
+
   /** The internal ID of the active refset. */
   private String activeRefsetInternalId;
 
@@ -62,6 +109,24 @@ public class RefsetMemberComparison extends AbstractHasModified {
   /** The number of member unique to the comparison refset. */
   private int comparisonRefsetDistinctMembersCount;
 
+  /** The number of compared members, the rows of the comparison. */
+  private int total;
+
+  /** The row of the first item. */
+  private int offset;
+
+  /** The concept ID of each row, ascending. */
+  @JsonIgnore
+  private long[] conceptIds = new long[0];
+
+  /** The membership ordinal of each row. */
+  @JsonIgnore
+  private byte[] memberships = new byte[0];
+
+  /** The rows whose concept is inactive. */
+  @JsonIgnore
+  private BitSet inactiveConcepts = new BitSet();
+
   /**
    * Instantiates an empty {@link RefsetMemberComparison}.
    */
@@ -102,6 +167,11 @@ public class RefsetMemberComparison extends AbstractHasModified {
     activeRefsetDistinctMembersCount = other.getActiveRefsetDistinctMembersCount();
     comparisonRefsetMemberTotal = other.getComparisonRefsetMemberTotal();
     comparisonRefsetDistinctMembersCount = other.getComparisonRefsetDistinctMembersCount();
+    total = other.getTotal();
+    offset = other.getOffset();
+    conceptIds = other.conceptIds;
+    memberships = other.memberships;
+    inactiveConcepts = other.inactiveConcepts;
   }
 
   /**
@@ -384,6 +454,95 @@ public class RefsetMemberComparison extends AbstractHasModified {
     this.comparisonRefsetDistinctMembersCount = comparisonRefsetDistinctMembersCount;
   }
 
+  /**
+   * Returns the number of compared members, the rows of the comparison.
+   *
+   * @return the total
+   */
+  public int getTotal() {
+
+    return total;
+  }
+
+  /**
+   * Sets the number of compared members, the rows of the comparison.
+   *
+   * @param total the total
+   */
+  public void setTotal(final int total) {
+
+    this.total = total;
+  }
+
+  /**
+   * Returns the row of the first item.
+   *
+   * @return the offset
+   */
+  public int getOffset() {
+
+    return offset;
+  }
+
+  /**
+   * Sets the row of the first item.
+   *
+   * @param offset the offset
+   */
+  public void setOffset(final int offset) {
+
+    this.offset = offset;
+  }
+
+  /**
+   * Sets the rows of the comparison, which also sets the total.
+   *
+   * @param conceptIds the concept ID of each row, ascending
+   * @param memberships the membership ordinal of each row
+   * @param inactiveConcepts the rows whose concept is inactive
+   */
+  public void setRows(final long[] conceptIds, final byte[] memberships,
+    final BitSet inactiveConcepts) {
+
+    this.conceptIds = conceptIds;
+    this.memberships = memberships;
+    this.inactiveConcepts = inactiveConcepts;
+    this.total = conceptIds.length;
+  }
+
+  /**
+   * Returns the concept ID of a row.
+   *
+   * @param row the row
+   * @return the concept ID
+   */
+  public String getConceptId(final int row) {
+
+    return Long.toString(conceptIds[row]);
+  }
+
+  /**
+   * Returns the membership of a row.
+   *
+   * @param row the row
+   * @return the membership
+   */
+  public Membership getMembership(final int row) {
+
+    return MEMBERSHIPS[memberships[row]];
+  }
+
+  /**
+   * Indicates whether the concept of a row is active.
+   *
+   * @param row the row
+   * @return true, if the concept is active
+   */
+  public boolean isConceptActive(final int row) {
+
+    return !inactiveConcepts.get(row);
+  }
+
   /**
    * 
    * 
@@ -414,6 +573,9 @@ public class RefsetMemberComparison extends AbstractHasModified {
     result = prime * result + activeRefsetDistinctMembersCount;
     result = prime * result + comparisonRefsetMemberTotal;
     result = prime * result + comparisonRefsetDistinctMembersCount;
+    result = prime * result + total;
+    result = prime * result + offset;
+    result = prime * result + Arrays.hashCode(conceptIds);
     return result;
   }
 
@@ -528,6 +690,15 @@ public class RefsetMemberComparison extends AbstractHasModified {
       return false;
     }
 
+    if (total != other.total || offset != other.offset) {
+      return false;
+    }
+
+    if (!Arrays.equals(conceptIds, other.conceptIds)
+        || !Arrays.equals(memberships, other.memberships)) {
+      return false;
+    }
+
     return true;
   }
 
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2023 SNOMED International - All Rights Reserved.
+ *
+ * NOTICE:  All information contained herein is, and remains the property of SNOMED International
+ * The intellectual and technical concepts contained herein are proprietary to
+ * SNOMED International and may be covered by U.S. and Foreign Patents, patents in process,
+ * and are protected by trade secret or copyright law.  Dissemination of this information
+ * or reproduction of this material is strictly forbidden.
+ */
+package org.ihtsdo.refsetservice.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * The state of an edition branch as last seen by a sync, used to skip editions whose branch has not moved since.
+ */
+@Entity
+@Table(name = "sync_branch_states")
+@Schema(description = "Represents the state of an edition branch as last seen by a sync")
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SyncBranchState extends AbstractHasModified {
+
+  /** The Constant serialVersionUID. */
+  private static final long serialVersionUID = 1L;
+
+  /** The edition branch. */
+  @Column(nullable = false, length = 255)
+  private String branch;
+
+  /** The latest head timestamp across the version branches of the edition. */
+  @Column(nullable = false)
+  private Long headTimestamp;
+
+  /** The number of version branches of the edition. */
+  @Column(nullable = false)
+  private Integer versionCount;
+
+  /**
+   * Instantiates an empty {@link SyncBranchState}.
+   */
+  public SyncBranchState() {
+
+    // n/a
+  }
+
+  /**
+   * Instantiates a {@link SyncBranchState} from the specified parameters.
+   *
+   * @param branch the edition branch
+   * @param headTimestamp the latest head timestamp across the version branches
+   * @param versionCount the number of version branches
+   */
+  public SyncBranchState(final String branch, final Long headTimestamp, final Integer versionCount) {
+
+    this.branch = branch;
+    this.headTimestamp = headTimestamp;
+    this.versionCount = versionCount;
+  }
+
+  /**
+   * Instantiates a {@link SyncBranchState} from the specified parameters.
+   *
+   * @param other the other
+   */
+  public SyncBranchState(final SyncBranchState other) {
+
+    populateFrom(other);
+  }
+
+  /**
+   * Populate from.
+   *
+   * @param other the other
+   */
+  public void populateFrom(final SyncBranchState other) {
+
+    super.populateFrom(other);
+    this.branch = other.getBranch();
+    this.headTimestamp = other.getHeadTimestamp();
+    this.versionCount = other.getVersionCount();
+  }
+
+  /**
+   * Indicates whether the branch has moved from this state.
+   *
+   * @param otherHeadTimestamp the current latest head timestamp across the version branches
+   * @param otherVersionCount the current number of version branches
+   * @return <code>true</code> if so, <code>false</code> otherwise
+   */
+  public boolean hasMoved(final long otherHeadTimestamp, final int otherVersionCount) {
+
+    return headTimestamp == null || versionCount == null || headTimestamp.longValue() != otherHeadTimestamp
+        || versionCount.intValue() != otherVersionCount;
+  }
+
+  /**
+   * Returns the branch.
+   *
+   * @return the branch
+   */
+  public String getBranch() {
+
+    return branch;
+  }
+
+  /**
+   * Sets the branch.
+   *
+   * @param branch the branch to set
+   */
+  public void setBranch(final String branch) {
+
+    this.branch = branch;
+  }
+
+  /**
+   * Returns the head timestamp.
+   *
+   * @return the headTimestamp
+   */
+  public Long getHeadTimestamp() {
+
+    return headTimestamp;
+  }
+
+  /**
+   * Sets the head timestamp.
+   *
+   * @param headTimestamp the headTimestamp to set
+   */
+  public void setHeadTimestamp(final Long headTimestamp) {
+
+    this.headTimestamp = headTimestamp;
+  }
+
+  /**
+   * Returns the version count.
+   *
+   * @return the versionCount
+   */
+  public Integer getVersionCount() {
+
+    return versionCount;
+  }
+
+  /**
+   * Sets the version count.
+   *
+   * @param versionCount the versionCount to set
+   */
+  public void setVersionCount(final Integer versionCount) {
+
+    this.versionCount = versionCount;
+  }
+
+  /* see superclass */
+  @Override
+  public int hashCode() {
+
+    final int prime = 31;
+    int result = 1;
+    result = prime * result + ((branch == null) ? 0 : branch.hashCode());
+    result = prime * result + ((headTimestamp == null) ? 0 : headTimestamp.hashCode());
+    result = prime * result + ((versionCount == null) ? 0 : versionCount.hashCode());
+    return result;
+  }
+
+  /* see superclass */
+  @Override
+  public boolean equals(final Object obj) {
+
+    if (this == obj) {
+      return true;
+    }
+    if (!super.equals(obj)) {
+      return false;
+    }
+    if (!(obj instanceof SyncBranchState)) {
+      return false;
+    }
+    final SyncBranchState other = (SyncBranchState) obj;
+    if (branch == null) {
+      if (other.branch != null) {
+        return false;
+      }
+    } else if (!branch.equals(other.branch)) {
+      return false;
+    }
+    if (headTimestamp == null) {
+      if (other.headTimestamp != null) {
+        return false;
+      }
+    } else if (!headTimestamp.equals(other.headTimestamp)) {
+      return false;
+    }
+    if (versionCount == null) {
+      if (other.versionCount != null) {
+        return false;
+      }
+    } else if (!versionCount.equals(other.versionCount)) {
+      return false;
+    }
+    return true;
+  }
+
+  /* see superclass */
+  @Override
+  public String toString() {
+
+    return "SyncBranchState [branch=" + branch + ", headTimestamp=" + headTimestamp + ", versionCount="
+        + versionCount + "]";
+  }
+
+  /* see superclass */
+  @Override
+  public void lazyInit() {
+
+    // n/a
+  }
+}
@@ -0,0 +1,14 @@
+drop table ${pre_if_exists} sync_branch_states ${post_if_exists};
+
+CREATE TABLE `sync_branch_states` (
+  `id` varchar(64) NOT NULL,
+  `active` bit(1) NOT NULL,
+  `created` datetime(6) NOT NULL,
+  `modified` datetime(6) NOT NULL,
+  `modifiedBy` varchar(256) NOT NULL,
+  `branch` varchar(255) NOT NULL,
+  `headTimestamp` bigint NOT NULL,
+  `versionCount` int NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `sync_branch_states_branch` (`branch`)
+);
@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeoutException;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.MediaType;
@@ -30,6 +31,7 @@ import org.ihtsdo.refsetservice.app.RecordMetric;
 import org.ihtsdo.refsetservice.model.Concept;
 import org.ihtsdo.refsetservice.model.ResultListConcept;
 import org.ihtsdo.refsetservice.model.Edition;
+import org.ihtsdo.refsetservice.model.ExportJob;
 import org.ihtsdo.refsetservice.model.Organization;
 import org.ihtsdo.refsetservice.model.PfsParameter;
 import org.ihtsdo.refsetservice.model.QueryParameter;
@@ -48,6 +50,7 @@ import org.ihtsdo.refsetservice.service.TerminologyService;
 import org.ihtsdo.refsetservice.sync.SyncAgent;
 import org.ihtsdo.refsetservice.sync.util.SyncTestingInitializer;
 import org.ihtsdo.refsetservice.terminologyservice.DiscussionService;
+import org.ihtsdo.refsetservice.terminologyservice.ExportJobService;
 import org.ihtsdo.refsetservice.terminologyservice.OrganizationService;
 import org.ihtsdo.refsetservice.terminologyservice.ProjectService;
 import org.ihtsdo.refsetservice.terminologyservice.RefsetMemberService;
@@ -58,6 +61,7 @@ import org.ihtsdo.refsetservice.util.DateUtility;
 import org.ihtsdo.refsetservice.util.ModelUtility;
 import org.ihtsdo.refsetservice.util.PropertyUtility;
 import org.ihtsdo.refsetservice.util.ResultList;
+import org.ihtsdo.refsetservice.util.SctidSet;
 import org.ihtsdo.refsetservice.util.SearchParameters;
 import org.ihtsdo.refsetservice.util.StringUtility;
 import org.ihtsdo.refsetservice.util.TaxonomyParameters;
@@ -208,7 +212,7 @@ public class RefsetController extends BaseController {
     public @ResponseBody ResponseEntity<String> getRefsetMemberCount(@PathVariable(value = "refsetInternalId") final String refsetInternalId,
         final HttpServletRequest request) throws Exception {
 
-        final User authUser = authorizeUser(request);
+        authorizeUser(request);
         try (final TerminologyService service = new TerminologyService()) {
 
             final Refset refset = service.findSingle("id:" + QueryParserBase.escape(refsetInternalId) + "", Refset.class, null);
@@ -217,9 +221,10 @@ public class RefsetController extends BaseController {
                 throw new Exception("Unable to retrieve reference set " + refsetInternalId);
             }
 
-            service.setModifiedBy(authUser.getUserName());
-            service.setModifiedFlag(true);
-            RefsetService.setRefsetMemberCount(service, refset, false);
+            // count live when no count is stored yet, and let the refresher save it
+            if (RefsetService.refreshRefsetMemberCount(refset, false)) {
+                refset.setMemberCount(RefsetMemberService.getMemberCount(refset));
+            }
 
             LOG.debug("getRefsetMemberCount: refset: " + refset.getRefsetId() + " ; member count: " + refset.getMemberCount());
 
@@ -1838,6 +1843,7 @@ public class RefsetController extends BaseController {
      * @param startEffectiveTime the start effective time
      * @param transientEffectiveTime the transient effective time
      * @param exportMetadata the export metadata
+     * @param async return the export job instead of waiting longer than the configured time
      * @return the uri
      * @throws Exception the exception
      */
@@ -1848,6 +1854,8 @@ public class RefsetController extends BaseController {
     }, responses = {
         @ApiResponse(responseCode = "200",
             description = "Successfully retrieved the requested information. Payload contains the URL to download the export file"),
+        @ApiResponse(responseCode = "202",
+            description = "Only when async is true: the export is still running. Payload contains the ID of the export job to poll"),
         @ApiResponse(responseCode = "400", description = "Bad request"), @ApiResponse(responseCode = "401", description = "Unauthorized"),
         @ApiResponse(responseCode = "403", description = "Forbidden"), @ApiResponse(responseCode = "404", description = "Resource not found")
     })
@@ -1863,11 +1871,13 @@ public class RefsetController extends BaseController {
         @Parameter(name = "transientEffectiveTime",
             description = "Format: yyyymmdd. Add a transient effectiveTime to rows of content which are not yet versioned.", required = false),
         @Parameter(name = "exportMetadata", description = "e.g.  true or false", required = true),
+        @Parameter(name = "async", description = "If true, returns 202 with the ID of the export job when the export does not finish in time, "
+            + "otherwise waits for the export. Defaults to false.", required = false)
     })
     @RecordMetric
     public @ResponseBody ResponseEntity<String> exportRefset(@PathVariable(value = "refsetInternalId") final String refsetInternalId, final String format,
         final String exportType, final String languageId, final String fileNameDate, final String startEffectiveTime, final String transientEffectiveTime,
-        final boolean exportMetadata) throws Exception {
+        final boolean exportMetadata, final boolean async) throws Exception {
 
         final User authUser = authorizeUser(request);
         try (final TerminologyService service = new TerminologyService()) {
@@ -1876,39 +1886,21 @@ public class RefsetController extends BaseController {
                 + fileNameDate + " ; startEffectiveTime: " + startEffectiveTime + " ; transientEffectiveTime: " + transientEffectiveTime + " ; exportMetadata: "
                 + exportMetadata);
 
-            String responseMessage = null;
-
-            if ("rf2".equalsIgnoreCase(format) || "rf2_with_names".equalsIgnoreCase(format)) {
-
-                final boolean withNames = ("rf2_with_names".equalsIgnoreCase(format));
-
-                String downloadUri = "";
-
-                if (exportType.contentEquals("SNAPSHOT")) {
-
-                    downloadUri = RefsetMemberService.exportRefsetRf2(service, refsetInternalId, exportType, languageId, fileNameDate, startEffectiveTime,
-                        transientEffectiveTime, exportMetadata, withNames);
-
-                } else {
-
-                    downloadUri = RefsetMemberService.exportRefsetRf2Delta(service, authUser, refsetInternalId, exportType, languageId, fileNameDate,
-                        startEffectiveTime, transientEffectiveTime, exportMetadata, withNames);
-                }
-
-                LOG.debug("results: " + downloadUri);
-                responseMessage = "{\"url\": \"" + downloadUri + "\"}";
-
-            } else if (format.equals("sctids")) {
+            // identical exports requested at the same time share one job
+            final ExportJob job = RefsetMemberService.submitRefsetExport(service, authUser, refsetInternalId, format, exportType, languageId, fileNameDate,
+                startEffectiveTime, transientEffectiveTime, exportMetadata);
+            final String downloadUri;
 
-                final String downloadUri = RefsetMemberService.exportRefsetSctidList(service, refsetInternalId, exportMetadata);
-                responseMessage = "{\"url\": \"" + downloadUri + "\"}";
-
-            } else if ("freeset".equals(format)) {
-
-                final String downloadUri = RefsetMemberService.exportFreeset(service, refsetInternalId, languageId);
-                responseMessage = "{\"url\": \"" + downloadUri + "\"}";
+            try {
+                downloadUri = ExportJobService.getResult(job.getId(), async);
+            } catch (final TimeoutException e) {
+                // the export keeps running, the client polls the job instead of holding this request
+                return new ResponseEntity<>("{\"jobId\": \"" + job.getId() + "\"}", HttpStatus.ACCEPTED);
             }
 
+            LOG.debug("results: " + downloadUri);
+            final String responseMessage = "{\"url\": \"" + downloadUri + "\"}";
+
             return new ResponseEntity<>(responseMessage, HttpStatus.OK);
 
         } catch (final Exception e) {
@@ -1926,6 +1918,7 @@ public class RefsetController extends BaseController {
      * @param languageId the language to display names in
      * @param fileNameDate the file name date
      * @param exportMetadata the export metadata
+     * @param async return the export job instead of waiting longer than the configured time
      * @return the uri
      * @throws Exception the exception
      */
@@ -1936,6 +1929,8 @@ public class RefsetController extends BaseController {
     }, responses = {
         @ApiResponse(responseCode = "200",
             description = "Successfully retrieved the requested information. Payload contains the URL to download the export file"),
+        @ApiResponse(responseCode = "202",
+            description = "Only when async is true: the export is still running. Payload contains the ID of the export job to poll"),
         @ApiResponse(responseCode = "400", description = "Bad request"), @ApiResponse(responseCode = "401", description = "Unauthorized"),
         @ApiResponse(responseCode = "403", description = "Forbidden"), @ApiResponse(responseCode = "404", description = "Resource not found")
     })
@@ -1944,20 +1939,29 @@ public class RefsetController extends BaseController {
         @Parameter(name = "languageId", description = "For formats with names which language to display the name in.", required = false),
         @Parameter(name = "fileNameDate", description = "Format: yyyymmdd. Date to be embedded in the RF2 file names.", required = true),
         @Parameter(name = "format", description = "The type of export: 'rf2', 'rf2_with_names'", required = true),
-        @Parameter(name = "exportMetadata", description = "e.g.  true or false", required = true)
+        @Parameter(name = "exportMetadata", description = "e.g.  true or false", required = true),
+        @Parameter(name = "async", description = "If true, returns 202 with the ID of the export job when the export does not finish in time, "
+            + "otherwise waits for the export. Defaults to false.", required = false)
     })
     @RecordMetric
     public @ResponseBody ResponseEntity<String> exportAllRefsetsForProject(@PathVariable(value = "projectId") final String projectId, final String format,
-        final String languageId, final String fileNameDate, final boolean exportMetadata) throws Exception {
+        final String languageId, final String fileNameDate, final boolean exportMetadata, final boolean async) throws Exception {
 
         final User authUser = authorizeUser(request);
-        try (final TerminologyService service = new TerminologyService()) {
+        try {
 
             LOG.debug("exportAllRefsetsForProject: projectId: " + projectId + " ; fileNameDate: " + fileNameDate);
             final boolean withNames = ("rf2_with_names".equalsIgnoreCase(format));
 
-            final String downloadUri = RefsetMemberService.exportAllRefsetsRf2ForProject(service, authUser, projectId, "snapshot", languageId, fileNameDate,
-                exportMetadata, withNames);
+            final ExportJob job = RefsetMemberService.submitProjectExport(authUser, projectId, languageId, fileNameDate, exportMetadata, withNames);
+            final String downloadUri;
+
+            try {
+                downloadUri = ExportJobService.getResult(job.getId(), async);
+            } catch (final TimeoutException e) {
+                // the export keeps running, the client polls the job instead of holding this request
+                return new ResponseEntity<>("{\"jobId\": \"" + job.getId() + "\"}", HttpStatus.ACCEPTED);
+            }
             final String responseMessage = "{\"url\": \"" + downloadUri + "\"}";
 
             return new ResponseEntity<>(responseMessage, HttpStatus.OK);
@@ -1969,6 +1973,219 @@ public class RefsetController extends BaseController {
 
     }
 
+    /**
+     * Submit a refset export job.
+     *
+     * @param refsetInternalId the internal refset id
+     * @param format the format
+     * @param exportType the export type
+     * @param languageId the language to display names in
+     * @param fileNameDate the file name date
+     * @param startEffectiveTime the start effective time
+     * @param transientEffectiveTime the transient effective time
+     * @param exportMetadata the export metadata
+     * @return the export job
+     * @throws Exception the exception
+     */
+    @RequestMapping(method = RequestMethod.POST, value = "/export/job/{refsetInternalId}", produces = MediaType.APPLICATION_JSON)
+    @Operation(summary = "Start exporting the refset for the specified ID in the background. Payload contains the export job to poll for progress. "
+        + "An identical export already in progress is joined rather than started again. "
+        + "To see certain results this call requires authentication with the correct role.", tags = {
+            "refset"
+    }, responses = {
+        @ApiResponse(responseCode = "200", description = "Successfully submitted the export. Payload contains the export job"),
+        @ApiResponse(responseCode = "400", description = "Bad request"), @ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @ApiResponse(responseCode = "403", description = "Forbidden"), @ApiResponse(responseCode = "404", description = "Resource not found")
+    })
+    @Parameters({
+        @Parameter(name = "refsetInternalId", description = "The internal ID of the refset to export.", required = true),
+        @Parameter(name = "exportType", description = "The RF2 type SNAPSHOT or DELTA", required = false),
+        @Parameter(name = "languageId", description = "For formats with names which language to display the name in.", required = false),
+        @Parameter(name = "format", description = "The type of export: 'rf2', 'rf2_with_names', 'sctids' or 'freeset'.", required = true),
+        @Parameter(name = "fileNameDate", description = "Format: yyyymmdd. Date to be embedded in the RF2 file names.", required = true),
+        @Parameter(name = "startEffectiveTime",
+            description = "Format: yyyymmdd. Can be used to produce a delta after content is versioned by filtering a SNAPSHOT export by effectiveTime.",
+            required = false),
+        @Parameter(name = "transientEffectiveTime",
+            description = "Format: yyyymmdd. Add a transient effectiveTime to rows of content which are not yet versioned.", required = false),
+        @Parameter(name = "exportMetadata", description = "e.g.  true or false", required = true),
+    })
+    @RecordMetric
+    public @ResponseBody ResponseEntity<ExportJob> submitRefsetExportJob(@PathVariable(value = "refsetInternalId") final String refsetInternalId,
+        final String format, final String exportType, final String languageId, final String fileNameDate, final String startEffectiveTime,
+        final String transientEffectiveTime, final boolean exportMetadata) throws Exception {
+
+        final User authUser = authorizeUser(request);
+        try (final TerminologyService service = new TerminologyService()) {
+
+            LOG.debug("submitRefsetExportJob: refsetInternalId: " + refsetInternalId + " ; format: " + format + " ; type: " + exportType);
+
+            final ExportJob job = RefsetMemberService.submitRefsetExport(service, authUser, refsetInternalId, format, exportType, languageId, fileNameDate,
+                startEffectiveTime, transientEffectiveTime, exportMetadata);
+
+            return new ResponseEntity<>(job, HttpStatus.OK);
+
+        } catch (final Exception e) {
+            handleException(e);
+            return null;
+        }
+
+    }
+
+    /**
+     * Submit a job to export all published refsets for a project.
+     *
+     * @param projectId the project id
+     * @param format the format
+     * @param languageId the language to display names in
+     * @param fileNameDate the file name date
+     * @param exportMetadata the export metadata
+     * @return the export job
+     * @throws Exception the exception
+     */
+    @RequestMapping(method = RequestMethod.POST, value = "/export/job/project/{projectId}", produces = MediaType.APPLICATION_JSON)
+    @Operation(summary = "Start exporting the latest version of all published refsets for the project in the background. "
+        + "Payload contains the export job to poll for progress. To see certain results this call requires authentication with the correct role.",
+        tags = {
+            "refset"
+        }, responses = {
+            @ApiResponse(responseCode = "200", description = "Successfully submitted the export. Payload contains the export job"),
+            @ApiResponse(responseCode = "400", description = "Bad request"), @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden"), @ApiResponse(responseCode = "404", description = "Resource not found")
+        })
+    @Parameters({
+        @Parameter(name = "projectId", description = "The id of the project to export refsets.", required = true),
+        @Parameter(name = "languageId", description = "For formats with names which language to display the name in.", required = false),
+        @Parameter(name = "fileNameDate", description = "Format: yyyymmdd. Date to be embedded in the RF2 file names.", required = true),
+        @Parameter(name = "format", description = "The type of export: 'rf2', 'rf2_with_names'", required = true),
+        @Parameter(name = "exportMetadata", description = "e.g.  true or false", required = true)
+    })
+    @RecordMetric
+    public @ResponseBody ResponseEntity<ExportJob> submitProjectExportJob(@PathVariable(value = "projectId") final String projectId, final String format,
+        final String languageId, final String fileNameDate, final boolean exportMetadata) throws Exception {
+
+        final User authUser = authorizeUser(request);
+        try {
+
+            LOG.debug("submitProjectExportJob: projectId: " + projectId + " ; fileNameDate: " + fileNameDate);
+            final boolean withNames = ("rf2_with_names".equalsIgnoreCase(format));
+
+            final ExportJob job = RefsetMemberService.submitProjectExport(authUser, projectId, languageId, fileNameDate, exportMetadata, withNames);
+
+            return new ResponseEntity<>(job, HttpStatus.OK);
+
+        } catch (final Exception e) {
+            handleException(e);
+            return null;
+        }
+
+    }
+
+    /**
+     * Returns an export job.
+     *
+     * @param jobId the job id
+     * @return the export job
+     * @throws Exception the exception
+     */
+    @RequestMapping(method = RequestMethod.GET, value = "/export/job/{jobId}", produces = MediaType.APPLICATION_JSON)
+    @Operation(summary = "Get the status and progress of the specified export job. Payload contains the URL to download the export file once completed.",
+        tags = {
+            "refset"
+        }, responses = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the requested information"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"), @ApiResponse(responseCode = "403", description = "Forbidden"),
+            @ApiResponse(responseCode = "404", description = "Resource not found")
+        })
+    @Parameters({
+        @Parameter(name = "jobId", description = "The id of the export job.", required = true)
+    })
+    public @ResponseBody ResponseEntity<ExportJob> getExportJob(@PathVariable(value = "jobId") final String jobId) throws Exception {
+
+        final User authUser = authorizeUser(request);
+        try {
+
+            final ExportJob job = getAuthorizedExportJob(authUser, jobId);
+
+            return new ResponseEntity<>(job, HttpStatus.OK);
+
+        } catch (final Exception e) {
+            handleException(e);
+            return null;
+        }
+
+    }
+
+    /**
+     * Download the file of a completed export job.
+     *
+     * @param jobId the job id
+     * @return the file
+     * @throws Exception the exception
+     */
+    @RequestMapping(method = RequestMethod.GET, value = "/export/job/{jobId}/download", produces = MediaType.APPLICATION_JSON)
+    @Operation(summary = "Download the file of the specified completed export job", tags = {
+        "refset"
+    }, responses = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the requested information"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized"), @ApiResponse(responseCode = "403", description = "Forbidden"),
+        @ApiResponse(responseCode = "404", description = "Resource not found"), @ApiResponse(responseCode = "417", description = "Export job not completed")
+    })
+    @Parameters({
+        @Parameter(name = "jobId", description = "The id of the export job.", required = true)
+    })
+    public @ResponseBody ResponseEntity<Resource> downloadExportJob(@PathVariable(value = "jobId") final String jobId) throws Exception {
+
+        final User authUser = authorizeUser(request);
+        try {
+
+            final ExportJob job = getAuthorizedExportJob(authUser, jobId);
+
+            if (job.getStatus() != ExportJob.Status.COMPLETED) {
+                throw new RestException(false, 417, "Expectation failed", "Export job " + jobId + " is " + job.getStatus());
+            }
+
+            return downloadExport(job.getUrl().substring(job.getUrl().lastIndexOf('/') + 1));
+
+        } catch (final Exception e) {
+            handleException(e);
+            return null;
+        }
+
+    }
+
+    /**
+     * Returns an export job the user requested and can still see the refset of.
+     *
+     * @param authUser the auth user
+     * @param jobId the job id
+     * @return the export job
+     * @throws Exception the exception
+     */
+    private ExportJob getAuthorizedExportJob(final User authUser, final String jobId) throws Exception {
+
+        final ExportJob job = ExportJobService.getJob(jobId);
+
+        // jobs of other users are reported as missing so their ids cannot be probed
+        if (job == null || !job.getUserNames().contains(authUser.getUserName())) {
+            throw new RestException(false, 404, "Not found", "Unable to find export job by id = " + jobId);
+        }
+
+        if (job.getRefsetInternalId() != null) {
+
+            try (final TerminologyService service = new TerminologyService()) {
+
+                final Refset refset = RefsetService.getRefset(service, authUser, job.getRefsetInternalId());
+
+                if (refset.isPrivateRefset() && !refset.getRoles().contains(User.ROLE_VIEWER)) {
+                    throw new RestException(false, 403, "Forbidden", "User does not have permission to perform this action");
+                }
+            }
+        }
+
+        return job;
+    }
+
     /**
      * Download an exported refset.
      *
@@ -2133,7 +2350,7 @@ public class RefsetController extends BaseController {
     public @ResponseBody ResponseEntity<String> syncRttData(@RequestParam(required = false) final Boolean perVersionCreation,
         @RequestParam(required = false) final Boolean forProduction, @RequestParam(required = false) final Boolean ignoreCoreRefsets) throws Exception {
 
-        return syncSnowstorm(perVersionCreation, forProduction, ignoreCoreRefsets);
+        return syncSnowstorm(perVersionCreation, forProduction, ignoreCoreRefsets, false);
     }
 
     /**
@@ -2145,13 +2362,15 @@ public class RefsetController extends BaseController {
      * @param perVersionCreation If true, create a refset for every version created. If false, only when changes are observed.
      * @param forProduction Should the sync add projects, teams, and other testing data, which it should NOT do for Production. Default is true
      * @param ignoreCoreRefsets the ignore core refsets
+     * @param incremental If true, skip the refsets of editions whose branches have not moved since the last sync.
      * @return the status of the sync
      * @throws Exception the exception
      */
     @Hidden
     @RequestMapping(method = RequestMethod.GET, value = "/admin/sync/snowstorm", produces = MediaType.APPLICATION_JSON)
     public @ResponseBody ResponseEntity<String> syncSnowstorm(@RequestParam(required = false) final Boolean perVersionCreation,
-        @RequestParam(required = false) final Boolean forProduction, @RequestParam(required = false) final Boolean ignoreCoreRefsets) throws Exception {
+        @RequestParam(required = false) final Boolean forProduction, @RequestParam(required = false) final Boolean ignoreCoreRefsets,
+        @RequestParam(required = false) final Boolean incremental) throws Exception {
 
         final User authUser = authorizeUser(request);
 
@@ -2166,6 +2385,7 @@ public class RefsetController extends BaseController {
             boolean refsetPerVersionSync = false;
             boolean runForProduction = false;
             boolean isIgnoreCoreRefsets = false;
+            boolean incrementalSync = false;
 
             if (perVersionCreation != null && perVersionCreation.booleanValue()) {
 
@@ -2185,12 +2405,18 @@ public class RefsetController extends BaseController {
                 isIgnoreCoreRefsets = true;
             }
 
+            if (incremental != null && incremental.booleanValue()) {
+
+                LOG.info("!!!!! syncSnowstorm RUNNING INCREMENTAL SYNC - SKIPPING EDITIONS WHOSE BRANCHES HAVE NOT MOVED");
+                incrementalSync = true;
+            }
+
             try (final TerminologyService service = new TerminologyService()) {
 
                 service.setModifiedBy("Sync");
                 service.setModifiedFlag(true);
 
-                SyncAgent.sync(service, refsetPerVersionSync, runForProduction, isIgnoreCoreRefsets);
+                SyncAgent.sync(service, refsetPerVersionSync, runForProduction, isIgnoreCoreRefsets, incrementalSync);
 
                 return new ResponseEntity<>(message + "RT2 synced with Snowstorm successfully", HttpStatus.OK);
             }
@@ -2662,11 +2888,13 @@ public class RefsetController extends BaseController {
             LOG.debug("getRefsetAncestorCache: refsetInternalId: " + refsetInternalId);
 
             final Refset refset = RefsetMemberService.getRefset(authUser, service, refsetInternalId);
-            final Map<String, Set<String>> ancestorsCache = RefsetMemberService.getCacheForMemberAncestors(RefsetMemberService.getBranchPath(refset));
+            final Map<String, SctidSet> ancestorsCache = RefsetMemberService.getCacheForMemberAncestors(RefsetMemberService.getBranchPath(refset));
+
+            final SctidSet ancestors = ancestorsCache.get(refsetInternalId);
 
-            if (ancestorsCache.containsKey(refsetInternalId)) {
+            if (ancestors != null) {
 
-                return new ResponseEntity<>(ModelUtility.toJson(ancestorsCache.get(refsetInternalId)), HttpStatus.OK);
+                return new ResponseEntity<>(ModelUtility.toJson(ancestors.toStrings()), HttpStatus.OK);
             } else {
 
                 return new ResponseEntity<>("Not Cached", HttpStatus.OK);
@@ -3177,9 +3405,12 @@ public class RefsetController extends BaseController {
     }
 
     /**
-     * Get the data to compare two refsets.
+     * Get the data to compare two refsets, a page of rows at a time. The compiled comparison is released by the in memory storage once it has not
+     * been read for a while, or when it is replaced by a newer comparison.
      *
      * @param activeRefsetInternalId the internal ID of the active refset
+     * @param offset the row of the first item
+     * @param limit the number of items
      * @param request the request
      * @return The comparison data
      * @throws Exception the exception
@@ -3193,11 +3424,14 @@ public class RefsetController extends BaseController {
         @ApiResponse(responseCode = "404", description = "Resource not found")
     })
     @Parameters({
-        @Parameter(name = "activeRefsetInternalId", description = "The internal ID of the active refset.", required = true)
+        @Parameter(name = "activeRefsetInternalId", description = "The internal ID of the active refset.", required = true),
+        @Parameter(name = "offset", description = "The row of the first item, e.g. 0", required = false),
+        @Parameter(name = "limit", description = "The number of items, e.g. 100. Without a limit all remaining rows are returned.", required = false)
     })
     @RecordMetric
     public @ResponseBody ResponseEntity<RefsetMemberComparison> getComparisonData(
-        @PathVariable(value = "activeRefsetInternalId") final String activeRefsetInternalId, final HttpServletRequest request) throws Exception {
+        @PathVariable(value = "activeRefsetInternalId") final String activeRefsetInternalId, @RequestParam(required = false) final Integer offset,
+        @RequestParam(required = false) final Integer limit, final HttpServletRequest request) throws Exception {
 
         authorizeUser(request);
 
@@ -3205,17 +3439,17 @@ public class RefsetController extends BaseController {
 
             LOG.debug("getComparisonData: activeRefsetInternalId: " + activeRefsetInternalId);
 
-            // add the list of concepts as members to the refset
             final String uuid = (String) request.getSession().getAttribute("refsetMemberComparison_" + activeRefsetInternalId);
-            final RefsetMemberComparison results = (RefsetMemberComparison) SecurityService.getFromInMemoryStorage(uuid);
-            SecurityService.removeFromInMemoryStorage(uuid);
-            request.getSession().removeAttribute("refsetMemberComparison_" + activeRefsetInternalId);
+            final RefsetMemberComparison comparison = (RefsetMemberComparison) SecurityService.getFromInMemoryStorage(uuid);
 
-            if (results == null) {
+            if (comparison == null) {
 
                 throw new Exception("There were no comparison results to retrieve for this reference set.");
             }
 
+            // the compiled comparison is kept so pages can be read in any order, and released by the in memory storage once idle
+            final RefsetMemberComparison results = RefsetMemberService.getComparisonData(service, comparison, offset, limit);
+
             LOG.debug("getComparisonData: results " + results);
 
             return new ResponseEntity<>(results, HttpStatus.OK);
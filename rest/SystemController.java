@@ -9,11 +9,17 @@
  */
 package org.ihtsdo.refsetservice.rest;
 
+import java.util.Map;
+
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.MediaType;
 
 import org.apache.commons.io.IOUtils;
 import org.ihtsdo.refsetservice.model.ApplicationMetadata;
+import org.ihtsdo.refsetservice.model.RestException;
+import org.ihtsdo.refsetservice.model.User;
+import org.ihtsdo.refsetservice.terminologyservice.RefsetMemberService;
+import org.ihtsdo.refsetservice.terminologyservice.SnowstormConnection;
 import org.ihtsdo.refsetservice.util.ModelUtility;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -67,4 +73,68 @@ public class SystemController extends BaseController {
 
     }
 
+    /**
+     * Gets the Snowstorm connection pool statistics.
+     *
+     * @param request the request
+     * @return the connection pool statistics
+     * @throws Exception the exception
+     */
+    @RequestMapping(method = RequestMethod.GET, value = "/system/snowstorm/pool", produces = MediaType.APPLICATION_JSON)
+    @Operation(summary = "Get Snowstorm connection pool statistics.", tags = {
+        "application metadata"
+    }, responses = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the requested information"),
+        @ApiResponse(responseCode = "403", description = "Forbidden")
+    })
+    public @ResponseBody ResponseEntity<Map<String, Object>> getSnowstormPoolStatistics(final HttpServletRequest request) throws Exception {
+
+        try {
+            final User authUser = authorizeUser(request);
+
+            if (!authUser.checkPermission(User.ROLE_ADMIN, "all", null, null)) {
+                throw new RestException(false, 403, "Forbidden", "User does not have permission to perform this action");
+            }
+
+            return ResponseEntity.ok(SnowstormConnection.getConnectionPoolStatistics());
+
+        } catch (final Exception e) {
+
+            handleException(e);
+            return null;
+        }
+    }
+
+    /**
+     * Gets the refset member cache statistics.
+     *
+     * @param request the request
+     * @return the cache statistics, by cache name
+     * @throws Exception the exception
+     */
+    @RequestMapping(method = RequestMethod.GET, value = "/system/member/cache", produces = MediaType.APPLICATION_JSON)
+    @Operation(summary = "Get refset member cache statistics.", tags = {
+        "application metadata"
+    }, responses = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the requested information"),
+        @ApiResponse(responseCode = "403", description = "Forbidden")
+    })
+    public @ResponseBody ResponseEntity<Map<String, Map<String, Object>>> getMemberCacheStatistics(final HttpServletRequest request) throws Exception {
+
+        try {
+            final User authUser = authorizeUser(request);
+
+            if (!authUser.checkPermission(User.ROLE_ADMIN, "all", null, null)) {
+                throw new RestException(false, 403, "Forbidden", "User does not have permission to perform this action");
+            }
+
+            return ResponseEntity.ok(RefsetMemberService.getMemberCacheStatistics());
+
+        } catch (final Exception e) {
+
+            handleException(e);
+            return null;
+        }
+    }
+
 }
@@ -111,7 +111,9 @@ public final class AuditService {
 
         try (final TerminologyService service = new TerminologyService()) {
 
+            // audit entries are not read back by the request that writes them
             service.setModifiedBy(user.getId());
+            service.setSynchronousIndexing(false);
             service.setTransactionPerOperation(false);
             service.beginTransaction();
 
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2023 SNOMED International - All Rights Reserved.
+ *
+ * NOTICE:  All information contained herein is, and remains the property of SNOMED International
+ * The intellectual and technical concepts contained herein are proprietary to
+ * SNOMED International and may be covered by U.S. and Foreign Patents, patents in process,
+ * and are protected by trade secret or copyright law.  Dissemination of this information
+ * or reproduction of this material is strictly forbidden.
+ */
+package org.ihtsdo.refsetservice.service;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.ihtsdo.refsetservice.util.PropertyUtility;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reindexes entities whose index changes failed in the background.
+ *
+ * Commits that do not wait for the index hand their changes to the indexing backend after the transaction, so a failure to write them is
+ * reported to the failure handler instead of the caller. The failed entities are queued here and reindexed from their stored state by a single
+ * worker after a delay, so a burst of failures during an index outage is reindexed in one batch. Requests for an entity are coalesced
+ * while it is queued, and an entity is given up on after a number of attempts.
+ */
+public final class ReindexQueue {
+
+    /** The Constant LOG. */
+    private static final Logger LOG = LoggerFactory.getLogger(ReindexQueue.class);
+
+    /** The default delay in milliseconds before queued entities are reindexed. */
+    private static final int DEFAULT_DELAY = 30000;
+
+    /** The default number of times an entity is reindexed before it is given up on. */
+    private static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+    /** The worker. */
+    private static final ScheduledExecutorService EXECUTOR;
+
+    /** The delay in milliseconds before queued entities are reindexed. */
+    private static final long DELAY;
+
+    /** The number of times an entity is reindexed before it is given up on. */
+    private static final int MAX_ATTEMPTS;
+
+    /** The queued entities by type and ID, with the number of attempts made. */
+    private static final Map<Map.Entry<Class<?>, Object>, Integer> QUEUED = new ConcurrentHashMap<>();
+
+    /** Whether a run of the worker is scheduled. */
+    private static final AtomicBoolean SCHEDULED = new AtomicBoolean();
+
+    static {
+
+        DELAY = Math.max(0, NumberUtils.toInt(PropertyUtility.getProperty("index.retry.delay"), DEFAULT_DELAY));
+        MAX_ATTEMPTS = Math.max(1, NumberUtils.toInt(PropertyUtility.getProperty("index.retry.maxAttempts"), DEFAULT_MAX_ATTEMPTS));
+
+        EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+
+            final Thread thread = new Thread(runnable, "reindex-queue");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Instantiates an empty {@link ReindexQueue}.
+     */
+    private ReindexQueue() {
+
+        // n/a
+    }
+
+    /**
+     * Queues an entity to be reindexed. Does nothing if the entity is already queued.
+     *
+     * @param type the entity type
+     * @param id the entity ID
+     */
+    public static void reindex(final Class<?> type, final Object id) {
+
+        queue(new SimpleImmutableEntry<>(type, id), 0);
+    }
+
+    /**
+     * Queues an entity and schedules the worker if it is not already scheduled.
+     *
+     * @param entity the entity type and ID
+     * @param attempts the number of attempts made
+     */
+    private static void queue(final Map.Entry<Class<?>, Object> entity, final int attempts) {
+
+        if (attempts >= MAX_ATTEMPTS) {
+
+            LOG.error("Giving up reindexing {} {} after {} attempts", entity.getKey().getSimpleName(), entity.getValue(), attempts);
+            return;
+        }
+
+        QUEUED.putIfAbsent(entity, attempts);
+
+        if (SCHEDULED.compareAndSet(false, true)) {
+            EXECUTOR.schedule(ReindexQueue::run, DELAY, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Reindexes the queued entities from their stored state, purging those no longer stored, and queues them again if that fails.
+     */
+    private static void run() {
+
+        // entities failing while this runs schedule another run
+        SCHEDULED.set(false);
+
+        final List<Map.Entry<Map.Entry<Class<?>, Object>, Integer>> batch = new ArrayList<>();
+        for (final Map.Entry<Class<?>, Object> entity : new ArrayList<>(QUEUED.keySet())) {
+
+            final Integer attempts = QUEUED.remove(entity);
+            if (attempts != null) {
+                batch.add(new SimpleImmutableEntry<>(entity, attempts));
+            }
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        LOG.info("Reindexing {} entities after indexing failures", batch.size());
+
+        try (final TerminologyService service = new TerminologyService()) {
+
+            final SearchSession searchSession = Search.session(service.getEntityManager());
+
+            for (final Map.Entry<Map.Entry<Class<?>, Object>, Integer> entry : batch) {
+
+                final Class<?> type = entry.getKey().getKey();
+                final Object id = entry.getKey().getValue();
+                final Object entity = service.getEntityManager().find(type, id);
+
+                if (entity != null) {
+                    searchSession.indexingPlan().addOrUpdate(entity);
+                } else {
+                    searchSession.indexingPlan().purge(type, id, null);
+                }
+            }
+
+            searchSession.indexingPlan().execute();
+
+        } catch (final Exception e) {
+
+            LOG.warn("Unable to reindex {} entities, retrying: {}", batch.size(), e.getMessage());
+
+            for (final Map.Entry<Map.Entry<Class<?>, Object>, Integer> entry : batch) {
+                queue(entry.getKey(), entry.getValue() + 1);
+            }
+        }
+    }
+}
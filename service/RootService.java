@@ -10,6 +10,7 @@ import org.ihtsdo.refsetservice.model.HasId;
 import org.ihtsdo.refsetservice.model.HasModified;
 import org.ihtsdo.refsetservice.model.PfsParameter;
 import org.ihtsdo.refsetservice.model.QueryParameter;
+import org.ihtsdo.refsetservice.util.IndexUtility;
 import org.ihtsdo.refsetservice.util.ResultList;
 
 /**
@@ -259,6 +260,22 @@ public interface RootService extends AutoCloseable {
      */
     public <T extends HasId> int findTotal(String query, PfsParameter pfs, Class<T> clazz, String handler) throws Exception;
 
+    /**
+     * Streams every object matching a query in chunks, without loading them all at once.
+     *
+     * @param <T> the
+     * @param query the query
+     * @param pfs the pfs, for the sort
+     * @param clazz the clazz
+     * @param handler the handler
+     * @param chunkSize the maximum number of objects per chunk
+     * @param chunkHandler the handler of each chunk of objects
+     * @return the number of objects streamed
+     * @throws Exception the exception
+     */
+    public <T extends HasId> long scroll(String query, PfsParameter pfs, Class<T> clazz, String handler, int chunkSize,
+        IndexUtility.HitsHandler<T> chunkHandler) throws Exception;
+
     /**
      * Find single.
      *
@@ -438,6 +455,31 @@ public interface RootService extends AutoCloseable {
      */
     public void setTransactionPerOperation(boolean transactionPerOperation) throws Exception;
 
+    /**
+     * Indicates whether commits wait until index changes are searchable.
+     *
+     * @return true, if commits wait until index changes are searchable
+     */
+    public boolean isSynchronousIndexing();
+
+    /**
+     * Sets whether commits wait until index changes are searchable. When false, commits use the bulk indexing strategy and changes become
+     * searchable on the next index refresh, which suits bulk operations that do not read their own writes.
+     * Entities whose index changes fail after the commit are reindexed from their stored state by {@link ReindexQueue}.
+     *
+     * @param synchronousIndexing the synchronous indexing flag
+     * @throws Exception the exception
+     */
+    public void setSynchronousIndexing(boolean synchronousIndexing) throws Exception;
+
+    /**
+     * Makes all index changes of the given types searchable, e.g. once at the end of a bulk operation that did not index synchronously.
+     *
+     * @param classes the indexed classes
+     * @throws Exception the exception
+     */
+    public void refreshIndexes(Class<?>... classes) throws Exception;
+
     /**
      * Commit.
      *
@@ -14,8 +14,11 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletResponse;
@@ -52,8 +55,14 @@ public class SecurityService implements AutoCloseable {
     /** The token login time . */
     private static Map<String, Date> tokenTimeoutMap = Collections.synchronizedMap(new HashMap<String, Date>());
 
-    /** a place to store temporary user data in memory . */
-    private static Map<String, Map<String, Object>> userInMemoryStorage = Collections.synchronizedMap(new HashMap<String, Map<String, Object>>());
+    /** a place to store temporary user data in memory, with the time each entry was last used, least recently used first . */
+    private static Map<String, LinkedHashMap<String, StoredValue>> userInMemoryStorage = new HashMap<>();
+
+    /** The time in milliseconds an entry of the in memory storage is kept after it was last used. */
+    private static final long IN_MEMORY_STORAGE_TIME_TO_IDLE = TimeUnit.MINUTES.toMillis(60);
+
+    /** The maximum number of entries kept in the in memory storage of a user. */
+    private static final int IN_MEMORY_STORAGE_MAX_ENTRIES = 10;
 
     /** The handler. */
     private static SecurityServiceHandler handler = null;
@@ -339,24 +348,26 @@ public class SecurityService implements AutoCloseable {
     public static Object getFromInMemoryStorage(final String attributeName) throws Exception {
 
         final User user = getUserFromSession();
-        Object returnObject = null;
 
-        if (userInMemoryStorage.containsKey(user.getUserName())) {
+        synchronized (userInMemoryStorage) {
 
-            final Map<String, Object> storageMap = userInMemoryStorage.get(user.getUserName());
+            expireInMemoryStorage();
 
-            if (storageMap.containsKey(attributeName)) {
+            final Map<String, StoredValue> storageMap = userInMemoryStorage.get(user.getUserName());
+            final StoredValue entry = (storageMap == null) ? null : storageMap.get(attributeName);
 
-                returnObject = storageMap.get(attributeName);
+            if (entry == null) {
+                return null;
             }
 
+            entry.lastUsed = System.currentTimeMillis();
+            return entry.value;
         }
-
-        return returnObject;
     }
 
     /**
-     * Set something in the user specific in memory storage.
+     * Set something in the user specific in memory storage. Entries are removed once unused for a while, and the least recently used entries of
+     * the user are removed to make room.
      *
      * @param attributeName the storage attribute name
      * @param value the value to store in the storage
@@ -367,16 +378,21 @@ public class SecurityService implements AutoCloseable {
 
         final User user = getUserFromSession();
 
-        if (userInMemoryStorage.containsKey(user.getUserName())) {
+        synchronized (userInMemoryStorage) {
 
-            final Map<String, Object> storageMap = userInMemoryStorage.get(user.getUserName());
-            storageMap.put(attributeName, value);
+            expireInMemoryStorage();
 
-        } else {
+            final LinkedHashMap<String, StoredValue> storageMap =
+                userInMemoryStorage.computeIfAbsent(user.getUserName(), k -> new LinkedHashMap<String, StoredValue>(16, 0.75f, true));
+            storageMap.put(attributeName, new StoredValue(value));
 
-            final Map<String, Object> storageMap = new HashMap<>();
-            storageMap.put(attributeName, value);
-            userInMemoryStorage.put(user.getUserName(), storageMap);
+            final Iterator<String> iterator = storageMap.keySet().iterator();
+
+            while (storageMap.size() > IN_MEMORY_STORAGE_MAX_ENTRIES) {
+
+                iterator.next();
+                iterator.remove();
+            }
         }
 
         return true;
@@ -392,14 +408,41 @@ public class SecurityService implements AutoCloseable {
 
         final User user = getUserFromSession();
 
-        if (userInMemoryStorage.containsKey(user.getUserName())) {
+        synchronized (userInMemoryStorage) {
+
+            final Map<String, StoredValue> storageMap = userInMemoryStorage.get(user.getUserName());
 
-            final Map<String, Object> storageMap = userInMemoryStorage.get(user.getUserName());
-            storageMap.remove(attributeName);
+            if (storageMap != null) {
+
+                storageMap.remove(attributeName);
+
+                if (storageMap.isEmpty()) {
+                    userInMemoryStorage.remove(user.getUserName());
+                }
+            }
         }
 
     }
 
+    /**
+     * Removes the entries of the in memory storage unused for longer than the time to idle. Called holding the storage lock.
+     */
+    private static void expireInMemoryStorage() {
+
+        final long cutoff = System.currentTimeMillis() - IN_MEMORY_STORAGE_TIME_TO_IDLE;
+        final Iterator<LinkedHashMap<String, StoredValue>> users = userInMemoryStorage.values().iterator();
+
+        while (users.hasNext()) {
+
+            final LinkedHashMap<String, StoredValue> storageMap = users.next();
+            storageMap.values().removeIf(entry -> entry.lastUsed < cutoff);
+
+            if (storageMap.isEmpty()) {
+                users.remove();
+            }
+        }
+    }
+
     /**
      * Authenticate.
      *
@@ -678,4 +721,27 @@ public class SecurityService implements AutoCloseable {
         return null;
     }
 
+    /**
+     * A value of the in memory storage and the time it was last used.
+     */
+    private static final class StoredValue {
+
+        /** The value. */
+        private final Object value;
+
+        /** The time the value was last used. */
+        private long lastUsed;
+
+        /**
+         * Instantiates a {@link StoredValue} last used now.
+         *
+         * @param value the value
+         */
+        private StoredValue(final Object value) {
+
+            this.value = value;
+            this.lastUsed = System.currentTimeMillis();
+        }
+    }
+
 }
@@ -35,19 +35,31 @@ import javax.persistence.Query;
 
 import org.hibernate.CacheMode;
 import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.automaticindexing.session.AutomaticIndexingSynchronizationStrategy;
 import org.hibernate.search.mapper.orm.schema.management.SearchSchemaManager;
 import org.hibernate.search.mapper.orm.session.SearchSession;
 import org.hibernate.search.mapper.pojo.mapping.definition.annotation.Indexed;
 import org.ihtsdo.refsetservice.handler.SearchHandler;
+import org.ihtsdo.refsetservice.model.DefinitionClause;
+import org.ihtsdo.refsetservice.model.DiscussionThread;
+import org.ihtsdo.refsetservice.model.Edition;
 import org.ihtsdo.refsetservice.model.HasId;
 import org.ihtsdo.refsetservice.model.HasModified;
+import org.ihtsdo.refsetservice.model.Organization;
 import org.ihtsdo.refsetservice.model.PfsParameter;
+import org.ihtsdo.refsetservice.model.Project;
 import org.ihtsdo.refsetservice.model.QueryParameter;
+import org.ihtsdo.refsetservice.model.Refset;
+import org.ihtsdo.refsetservice.util.DefinitionClauseIndex;
+import org.ihtsdo.refsetservice.util.DiscussionCountIndex;
 import org.ihtsdo.refsetservice.util.HandlerUtility;
 import org.ihtsdo.refsetservice.util.IndexUtility;
 import org.ihtsdo.refsetservice.util.ModelUtility;
+import org.ihtsdo.refsetservice.util.ProjectVisibilityFilter;
 import org.ihtsdo.refsetservice.util.PropertyUtility;
+import org.ihtsdo.refsetservice.util.RefsetVersionIndex;
 import org.ihtsdo.refsetservice.util.ResultList;
+import org.ihtsdo.refsetservice.util.SortFieldAccessor;
 import org.ihtsdo.refsetservice.util.StringUtility;
 import org.reflections.Reflections;
 import org.slf4j.Logger;
@@ -91,6 +103,30 @@ public class TerminologyService implements RootService {
 	/** The transaction entity. */
 	private EntityTransaction transaction;
 
+	/** Whether commits wait until index changes are searchable. */
+	private boolean synchronousIndexing = true;
+
+	/** The refset IDs changed in the current transaction. */
+	private final Set<String> changedRefsetIds = new HashSet<>();
+
+	/** Whether a project visibility change is pending in the current transaction. */
+	private boolean projectVisibilityChanged = false;
+
+	/** The refset internal IDs changed in the current transaction. */
+	private final Set<String> changedRefsetInternalIds = new HashSet<>();
+
+	/** Whether a definition clause change is pending in the current transaction. */
+	private boolean definitionClausesChanged = false;
+
+	/** The internal IDs of the refsets whose discussions changed in the current transaction. */
+	private final Set<String> discussedRefsetInternalIds = new HashSet<>();
+
+	/**
+	 * The cache invalidations made while not indexing synchronously, repeated once the index is refreshed because a read in between can
+	 * cache data the index does not reflect yet.
+	 */
+	private final List<Runnable> invalidationsAwaitingRefresh = new ArrayList<>();
+
 	/** The model package. */
 	private static String modelPackage = "org.ihtsdo.refsetservice.model";
 
@@ -257,6 +293,62 @@ public class TerminologyService implements RootService {
 		this.transactionPerOperation = transactionPerOperation;
 	}
 
+	/* see superclass */
+	@Override
+	public boolean isSynchronousIndexing() {
+
+		return synchronousIndexing;
+	}
+
+	/* see superclass */
+	@Override
+	public void setSynchronousIndexing(final boolean synchronousIndexing) throws Exception {
+
+		this.synchronousIndexing = synchronousIndexing;
+		Search.session(manager).automaticIndexingSynchronizationStrategy(
+				synchronousIndexing ? AutomaticIndexingSynchronizationStrategy.readSync() : getBulkIndexingStrategy());
+	}
+
+	/* see superclass */
+	@Override
+	public void refreshIndexes(final Class<?>... classes) throws Exception {
+
+		Search.session(manager).workspace(classes).refresh();
+
+		final List<Runnable> invalidations = new ArrayList<>(invalidationsAwaitingRefresh);
+		invalidationsAwaitingRefresh.clear();
+		invalidations.forEach(Runnable::run);
+	}
+
+	/**
+	 * Invalidates a cache, and again on the next index refresh when not indexing synchronously.
+	 *
+	 * @param invalidation the invalidation
+	 */
+	private void invalidate(final Runnable invalidation) {
+
+		invalidation.run();
+
+		if (!synchronousIndexing) {
+			invalidationsAwaitingRefresh.add(invalidation);
+		}
+	}
+
+	/**
+	 * Returns the indexing strategy used when not indexing synchronously, configured by "index.bulk.synchronization.strategy". "write-sync"
+	 * (the default) waits until changes are written to the index, "async" does not wait for the index at all.
+	 *
+	 * @return the bulk indexing strategy
+	 */
+	private static AutomaticIndexingSynchronizationStrategy getBulkIndexingStrategy() {
+
+		if ("async".equals(PropertyUtility.getProperty("index.bulk.synchronization.strategy"))) {
+			return AutomaticIndexingSynchronizationStrategy.async();
+		}
+
+		return AutomaticIndexingSynchronizationStrategy.writeSync();
+	}
+
 	/**
 	 * Begin transaction.
 	 *
@@ -301,6 +393,24 @@ public class TerminologyService implements RootService {
 
 			transaction.commit();
 			manager.clear();
+			changedRefsetIds.forEach(refsetId -> invalidate(() -> RefsetVersionIndex.invalidate(refsetId)));
+			changedRefsetIds.clear();
+			changedRefsetInternalIds.forEach(refsetInternalId -> invalidate(() -> DefinitionClauseIndex.invalidate(refsetInternalId)));
+			changedRefsetInternalIds.clear();
+			discussedRefsetInternalIds.forEach(refsetInternalId -> invalidate(() -> DiscussionCountIndex.invalidate(refsetInternalId)));
+			discussedRefsetInternalIds.clear();
+
+			if (definitionClausesChanged) {
+
+				definitionClausesChanged = false;
+				invalidate(DefinitionClauseIndex::clear);
+			}
+
+			if (projectVisibilityChanged) {
+
+				projectVisibilityChanged = false;
+				invalidate(ProjectVisibilityFilter::clear);
+			}
 
 			if (transactionPerOperationIntenallyChanged) {
 
@@ -327,6 +437,11 @@ public class TerminologyService implements RootService {
 		} else if (transaction != null) {
 			transaction.rollback();
 			manager.clear();
+			changedRefsetIds.clear();
+			projectVisibilityChanged = false;
+			changedRefsetInternalIds.clear();
+			definitionClausesChanged = false;
+			discussedRefsetInternalIds.clear();
 		}
 	}
 
@@ -412,34 +527,7 @@ public class TerminologyService implements RootService {
 	 */
 	public Object getSortFieldValue(final Object o, final String sortField) throws Exception {
 
-		// split the fields for method retrieval, e.g. a.b.c. =
-		// o.getA().getB().getC()
-		final String[] splitFields = sortField.split("\\.");
-
-		int i = 0;
-		Method finalMethod = null;
-		Object finalObject = o;
-
-		while (i < splitFields.length) {
-			finalMethod = finalObject.getClass().getMethod("get" + StringUtility.capitalize(splitFields[i]),
-					new Class<?>[] {});
-			finalMethod.setAccessible(true);
-			finalObject = finalMethod.invoke(finalObject, new Object[] {});
-			i++;
-		}
-
-		if (finalMethod == null) {
-			throw new Exception("Missing get method for sort field " + sortField);
-		}
-
-		// verify that final object is actually a string, enum, or date
-		if (!finalMethod.getReturnType().equals(String.class) && !finalMethod.getReturnType().isEnum()
-				&& !finalMethod.getReturnType().equals(Long.class) && !finalMethod.getReturnType().equals(Date.class)) {
-			throw new Exception("Requested sort field value is not string, enum, or date value "
-					+ finalMethod.getReturnType().getName());
-		}
-		return finalObject;
-
+		return SortFieldAccessor.get(o.getClass(), sortField).getValue(o);
 	}
 
 	/**
@@ -529,95 +617,8 @@ public class TerminologyService implements RootService {
 			final boolean ascending = pfs.isAscending();
 			final List<String> sortFields = pfsSortFields;
 
-			// sort the list
-			Collections.sort(result, new Comparator<T>() {
-
-				@Override
-				public int compare(final T t1, final T t2) {
-
-					// if an exception is returned, simply pass equality
-					try {
-
-						for (final String sortField : sortFields) {
-							final Object s1 = getSortFieldValue(t1, sortField);
-							final Object s2 = getSortFieldValue(t2, sortField);
-
-							final boolean isDate = s1 instanceof Date;
-							final boolean isLong = s1 instanceof Long;
-
-							// if both values null, skip to next sort field
-							if (s1 != null || s2 != null) {
-
-								// handle date comparison by long value
-								if (isDate || isLong) {
-									final Long l1 = s1 == null ? null : (isDate ? ((Date) s1).getTime() : ((Long) s1));
-									final Long l2 = s2 == null ? null : (isDate ? ((Date) s2).getTime() : ((Long) s2));
-
-									if (ascending) {
-										if (l1 == null && s2 != null) {
-											return -1;
-										}
-										if (l1 != null && l1.compareTo(l2) != 0) {
-											return l1.compareTo(l2);
-										} else {
-											return 0;
-										}
-									} else {
-										if (l2 == null && l1 != null) {
-											return -1;
-										}
-										if (l2 != null && l2.compareTo(l1) != 0) {
-											return l2.compareTo(l1);
-										} else {
-											return 0;
-										}
-									}
-								}
-
-								// otherwise handle via string comparison
-								else if (ascending) {
-									if (s2 == null) {
-										if (s1 == null) {
-											return 0;
-										}
-										return -1;
-									}
-									if (s1 == null) {
-										return 1;
-									}
-
-									if (s1.toString().compareTo(s2.toString()) != 0) {
-										return s1.toString().compareTo(s2.toString());
-									} else {
-										return 0;
-									}
-								} else {
-									if (s2 == null) {
-										if (s1 == null) {
-											return 0;
-										}
-										return 1;
-									}
-									if (s1 == null) {
-										return -1;
-									}
-									if ((s2.toString()).compareTo(s1.toString()) != 0) {
-										return (s2.toString()).compareTo(s1.toString());
-									} else {
-										return 0;
-									}
-								}
-							}
-						}
-						// if no return after checking all sort fields, return
-						// equality
-						return 0;
-					} catch (final Exception e) {
-						e.printStackTrace();
-						return 0;
-					}
-				}
-			});
+			// sort the list with accessors compiled once per class and sort field
+			Collections.sort(result, SortFieldAccessor.getComparator(sortFields, ascending));
 		}
 
 		// support RANDOM
@@ -771,6 +772,7 @@ public class TerminologyService implements RootService {
 			} else {
 				manager.persist(object);
 			}
+			refsetChanged(object);
 			return object;
 		} catch (final Exception e) {
 			if (transaction.isActive()) {
@@ -831,6 +833,7 @@ public class TerminologyService implements RootService {
 			} else {
 				manager.merge(object);
 			}
+			refsetChanged(object);
 		} catch (final Exception e) {
 			if (transaction.isActive()) {
 				transaction.rollback();
@@ -883,6 +886,7 @@ public class TerminologyService implements RootService {
 					manager.remove(manager.merge(hasLastModified));
 				}
 			}
+			refsetChanged(hasLastModified);
 			return hasLastModified;
 		} catch (final Exception e) {
 			if (transaction.isActive()) {
@@ -924,6 +928,7 @@ public class TerminologyService implements RootService {
 					manager.remove(manager.merge(object));
 				}
 			}
+			refsetChanged(object);
 		} catch (final Exception e) {
 			if (transaction.isActive()) {
 				transaction.rollback();
@@ -931,6 +936,64 @@ public class TerminologyService implements RootService {
 		}
 	}
 
+	/**
+	 * Invalidates the indexed versions of a changed refset, the discussion counts
+	 * of the refset of a changed discussion thread, or the project visibility
+	 * filters for a changed project, edition or organization, now if the change is
+	 * committed or else when the transaction commits.
+	 *
+	 * @param object the changed object
+	 */
+	private void refsetChanged(final Object object) {
+
+		if (object instanceof Project || object instanceof Edition || object instanceof Organization) {
+
+			if (getTransactionPerOperation()) {
+				invalidate(ProjectVisibilityFilter::clear);
+			} else {
+				projectVisibilityChanged = true;
+			}
+			return;
+		}
+
+		// posts are always saved with their thread, so thread changes cover them
+		if (object instanceof DiscussionThread) {
+
+			if (getTransactionPerOperation()) {
+				final String refsetInternalId = ((DiscussionThread) object).getRefsetInternalId();
+				invalidate(() -> DiscussionCountIndex.invalidate(refsetInternalId));
+			} else {
+				discussedRefsetInternalIds.add(((DiscussionThread) object).getRefsetInternalId());
+			}
+			return;
+		}
+
+		// the refset owning a clause is not known, so drop all clause indexes
+		if (object instanceof DefinitionClause) {
+
+			if (getTransactionPerOperation()) {
+				invalidate(DefinitionClauseIndex::clear);
+			} else {
+				definitionClausesChanged = true;
+			}
+			return;
+		}
+
+		if (!(object instanceof Refset)) {
+			return;
+		}
+
+		if (getTransactionPerOperation()) {
+			final String refsetId = ((Refset) object).getRefsetId();
+			final String refsetInternalId = ((Refset) object).getId();
+			invalidate(() -> RefsetVersionIndex.invalidate(refsetId));
+			invalidate(() -> DefinitionClauseIndex.invalidate(refsetInternalId));
+		} else {
+			changedRefsetIds.add(((Refset) object).getRefsetId());
+			changedRefsetInternalIds.add(((Refset) object).getId());
+		}
+	}
+
 	/**
 	 * Returns the checks for object.
 	 *
@@ -1111,6 +1174,30 @@ public class TerminologyService implements RootService {
 		return findIds(new QueryParameter(query), pfs, clazz, handler);
 	}
 
+	/**
+	 * Scroll.
+	 *
+	 * @param <T>          the generic type
+	 * @param query        the query
+	 * @param pfs          the pfs
+	 * @param clazz        the clazz
+	 * @param handler      the handler
+	 * @param chunkSize    the chunk size
+	 * @param chunkHandler the chunk handler
+	 * @return the number of objects streamed
+	 * @throws Exception the exception
+	 */
+	/* see superclass */
+	@Override
+	public <T extends HasId> long scroll(final String query, final PfsParameter pfs, final Class<T> clazz,
+			final String handler, final int chunkSize, final IndexUtility.HitsHandler<T> chunkHandler)
+			throws Exception {
+
+		return getHandlerByName(StringUtility.isEmpty(handler) ? "DEFAULT" : handler, SearchHandler.class)
+				.scrollQueryResults(StringUtility.isEmpty(query) ? "*:*" : query, null, null, clazz, pfs, chunkSize,
+						chunkHandler, getEntityManager());
+	}
+
 	/**
 	 * Find total.
 	 *
@@ -1159,6 +1246,7 @@ public class TerminologyService implements RootService {
 		list.setTotal(totalCt[0]);
 		list.setLimit(pfs == null ? new PfsParameter().getLimit() : pfs.getLimit());
 		list.setOffset(pfs == null ? new PfsParameter().getOffset() : pfs.getOffset());
+		list.setSearchAfter(pfs == null ? null : pfs.getSearchAfter());
 		// NO need to do this because of @PostLoad umarshall handler
 		// list.getItems().stream().peek(x -> {
 		// try {
@@ -1201,6 +1289,7 @@ public class TerminologyService implements RootService {
 		list.setTotal(totalCt[0]);
 		list.setLimit(pfs == null ? new PfsParameter().getLimit() : pfs.getLimit());
 		list.setOffset(pfs == null ? new PfsParameter().getOffset() : pfs.getOffset());
+		list.setSearchAfter(pfs == null ? null : pfs.getSearchAfter());
 		return list;
 	}
 
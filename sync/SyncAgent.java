@@ -9,13 +9,21 @@
  */
 package org.ihtsdo.refsetservice.sync;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
+import org.apache.commons.lang3.math.NumberUtils;
 import org.ihtsdo.refsetservice.model.Edition;
 import org.ihtsdo.refsetservice.model.Organization;
 import org.ihtsdo.refsetservice.service.TerminologyService;
@@ -25,6 +33,7 @@ import org.ihtsdo.refsetservice.sync.util.SyncStatistics;
 import org.ihtsdo.refsetservice.sync.util.SyncUtilities;
 import org.ihtsdo.refsetservice.terminologyservice.RefsetMemberService;
 import org.ihtsdo.refsetservice.util.AuditEntryHelper;
+import org.ihtsdo.refsetservice.util.PropertyUtility;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,6 +59,12 @@ public abstract class SyncAgent {
 	/** The Constant STATISTICS. */
 	protected static final SyncStatistics STATISTICS = new SyncStatistics();
 
+	/** The Constant DEFAULT_TERMSERVER_CONCURRENCY. */
+	private static final int DEFAULT_TERMSERVER_CONCURRENCY = 8;
+
+	/** The worker pool for termserver calls, available while a sync runs. */
+	private static ExecutorService workerPool;
+
 	/**
 	 * Sync component.
 	 *
@@ -67,6 +82,9 @@ public abstract class SyncAgent {
 	/** The is ignore core refsets. */
 	private static Boolean isIgnoreCoreRefsets = null;
 
+	/** The is incremental sync. */
+	private static Boolean isIncrementalSync = null;
+
 	/** Testing options. */
 	private static boolean testing = false;
 
@@ -110,6 +128,26 @@ public abstract class SyncAgent {
 	public static void sync(final TerminologyService service, final boolean refsetPerVersionSync,
 			final boolean runForProduction, final boolean ignoreCoreRefsets) throws Exception {
 
+		sync(service, refsetPerVersionSync, runForProduction, ignoreCoreRefsets, false);
+
+	}
+
+	/**
+	 * Sync.
+	 *
+	 * @param service              the service
+	 * @param refsetPerVersionSync the refset per version sync
+	 * @param runForProduction     the run for production
+	 * @param ignoreCoreRefsets    the ignore core refsets
+	 * @param incrementalSync      skip the refsets of editions whose branches have
+	 *                             not moved since the last sync
+	 * @throws Exception the exception
+	 */
+	// Call when launching sync
+	public static void sync(final TerminologyService service, final boolean refsetPerVersionSync,
+			final boolean runForProduction, final boolean ignoreCoreRefsets, final boolean incrementalSync)
+			throws Exception {
+
 		if (isProductionSystem == null || !isProductionSystem) {
 
 			isPerVersionSync = refsetPerVersionSync;
@@ -117,6 +155,8 @@ public abstract class SyncAgent {
 			isIgnoreCoreRefsets = ignoreCoreRefsets;
 		}
 
+		isIncrementalSync = incrementalSync;
+
 		sync(service);
 
 	}
@@ -131,6 +171,27 @@ public abstract class SyncAgent {
 	// resetRefset
 	public static void sync(final TerminologyService service) throws Exception {
 
+		startWorkerPool();
+
+		try {
+
+			runAgents(service);
+		} finally {
+
+			stopWorkerPool();
+		}
+	}
+
+	/**
+	 * Runs the agents. The agents run one after the other as each relies on what
+	 * the previous one synced, while each agent fans its termserver calls out over
+	 * the worker pool.
+	 *
+	 * @param service the service
+	 * @throws Exception the exception
+	 */
+	private static void runAgents(final TerminologyService service) throws Exception {
+
 		final Date startOperationStartTime = new Date();
 
 		initialize(service);
@@ -176,6 +237,98 @@ public abstract class SyncAgent {
 		LOG.info("Completed Syncing with Termserver");
 	}
 
+	/**
+	 * Starts the worker pool. The pool size bounds the number of concurrent calls
+	 * made to the termserver.
+	 */
+	private static synchronized void startWorkerPool() {
+
+		if (workerPool != null) {
+
+			return;
+		}
+
+		final int concurrency = Math.max(1, NumberUtils.toInt(
+				PropertyUtility.getProperty("sync.termserver.concurrency"), DEFAULT_TERMSERVER_CONCURRENCY));
+		final AtomicInteger threadCount = new AtomicInteger();
+
+		workerPool = Executors.newFixedThreadPool(concurrency, runnable -> {
+
+			final Thread thread = new Thread(runnable, "sync-worker-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		LOG.info("Sync worker pool started with {} threads", concurrency);
+	}
+
+	/**
+	 * Stops the worker pool.
+	 */
+	private static synchronized void stopWorkerPool() {
+
+		if (workerPool != null) {
+
+			workerPool.shutdownNow();
+			workerPool = null;
+		}
+	}
+
+	/**
+	 * Runs the tasks on the worker pool and returns their results in task order.
+	 * Runs them on the calling thread when no sync is running. The first failure
+	 * cancels the remaining tasks and is rethrown.
+	 *
+	 * @param <T>   the result type
+	 * @param tasks the tasks
+	 * @return the results, in task order
+	 * @throws Exception the exception
+	 */
+	protected static <T> List<T> invokeAll(final List<Callable<T>> tasks) throws Exception {
+
+		final List<T> results = new ArrayList<>(tasks.size());
+		final ExecutorService pool = workerPool;
+
+		if (pool == null || tasks.size() < 2) {
+
+			for (final Callable<T> task : tasks) {
+
+				results.add(task.call());
+			}
+
+			return results;
+		}
+
+		final List<Future<T>> futures = new ArrayList<>(tasks.size());
+
+		try {
+
+			for (final Callable<T> task : tasks) {
+
+				futures.add(pool.submit(task));
+			}
+
+			for (final Future<T> future : futures) {
+
+				results.add(future.get());
+			}
+
+		} catch (final ExecutionException e) {
+
+			if (e.getCause() instanceof Exception) {
+
+				throw (Exception) e.getCause();
+			}
+
+			throw e;
+		} finally {
+
+			futures.forEach(future -> future.cancel(true));
+		}
+
+		return results;
+	}
+
 	/**
 	 * Returns the utilities.
 	 *
@@ -401,6 +554,16 @@ public abstract class SyncAgent {
 		return isProductionSystem == null ? false : isProductionSystem;
 	}
 
+	/**
+	 * Returns the is incremental sync.
+	 *
+	 * @return the is incremental sync
+	 */
+	public static Boolean getIsIncrementalSync() {
+
+		return isIncrementalSync == null ? false : isIncrementalSync;
+	}
+
 	/**
 	 * Returns the is per version sync.
 	 *
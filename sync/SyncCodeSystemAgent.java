@@ -617,29 +617,30 @@ public class SyncCodeSystemAgent extends SyncAgent {
      */
     private void addOrganizationToAffiliateEdition(final TerminologyService service, final Organization organization) throws Exception {
 
-        final ResultList<Organization> affiliateOrganizations = service.find("active: true AND affiliate:true", null, Organization.class, null);
-
         // when adding a new edition, add for affiliates too.
-        // create the affiliated editions for the organization
-        for (final Organization affiliateOrg : affiliateOrganizations.getItems()) {
+        // create the affiliated editions for the organization, streaming the affiliates rather than loading them in one window
+        service.scroll("active: true AND affiliate:true", null, Organization.class, null, 100, affiliateOrganizations -> {
+
+            for (final Organization affiliateOrg : affiliateOrganizations) {
 
-            final List<Edition> editionList = EditionService.getAffiliateEditionList();
-            final SearchParameters sp = new SearchParameters();
-            sp.setQuery("organizationId: " + affiliateOrg.getId());
-            final ResultList<Edition> existingEditions = EditionService.searchEditions(sp);
+                final List<Edition> editionList = EditionService.getAffiliateEditionList();
+                final SearchParameters sp = new SearchParameters();
+                sp.setQuery("organizationId: " + affiliateOrg.getId());
+                final ResultList<Edition> existingEditions = EditionService.searchEditions(sp);
 
-            for (final Edition edition : editionList) {
+                for (final Edition edition : editionList) {
 
-                boolean found = existingEditions.getItems().stream().anyMatch(e -> edition.getBranch().equals(e.getBranch()));
+                    boolean found = existingEditions.getItems().stream().anyMatch(e -> edition.getBranch().equals(e.getBranch()));
 
-                if (!found) {
-                    LOG.info("ADD new organization to affiliate edition name:{} organization name: {}", edition.getName(), affiliateOrg.getName());
-                    edition.setOrganization(affiliateOrg);
-                    service.add(edition);
-                    service.add(AuditEntryHelper.addEditionEntry(edition));
+                    if (!found) {
+                        LOG.info("ADD new organization to affiliate edition name:{} organization name: {}", edition.getName(), affiliateOrg.getName());
+                        edition.setOrganization(affiliateOrg);
+                        service.add(edition);
+                        service.add(AuditEntryHelper.addEditionEntry(edition));
+                    }
                 }
             }
-        }
+        });
     }
 
 }
@@ -16,6 +16,8 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -23,6 +25,8 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -32,6 +36,7 @@ import javax.ws.rs.core.Response.Status.Family;
 import org.ihtsdo.refsetservice.model.Edition;
 import org.ihtsdo.refsetservice.model.Project;
 import org.ihtsdo.refsetservice.model.Refset;
+import org.ihtsdo.refsetservice.model.SyncBranchState;
 import org.ihtsdo.refsetservice.model.VersionStatus;
 import org.ihtsdo.refsetservice.service.TerminologyService;
 import org.ihtsdo.refsetservice.sync.util.SyncRefsetMetadata;
@@ -42,11 +47,11 @@ import org.ihtsdo.refsetservice.terminologyservice.RefsetService;
 import org.ihtsdo.refsetservice.terminologyservice.SnowstormConnection;
 import org.ihtsdo.refsetservice.terminologyservice.WorkflowService;
 import org.ihtsdo.refsetservice.util.CrowdGroupNameAlgorithm;
+import org.ihtsdo.refsetservice.util.JsonUtility;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * The Class SyncRefsetAgent.
@@ -85,6 +90,18 @@ public class SyncRefsetAgent extends SyncAgent {
 	/** The filtered code systems. */
 	private final Set<JsonNode> filteredCodeSystems;
 
+	/** The head timestamp of each version branch. */
+	private final Map<String, Long> versionBranchHeadTimestamps = new ConcurrentHashMap<>();
+
+	/** The editions whose refsets are processed. */
+	private final List<Edition> processedEditions = new ArrayList<>();
+
+	/** The short names of the editions skipped as their branch has not moved. */
+	private final Set<String> skippedEditionShortNames = new HashSet<>();
+
+	/** The version branches of each edition. */
+	private Map<String, SortedMap<Long, String>> editionToVersionBranchMap = new HashMap<>();
+
 	/**
 	 * Instantiates a {@link SyncRefsetAgent} from the specified parameters.
 	 *
@@ -117,6 +134,8 @@ public class SyncRefsetAgent extends SyncAgent {
 
 		}
 
+		recordBranchStates(service);
+
 	}
 
 	/**
@@ -284,7 +303,9 @@ public class SyncRefsetAgent extends SyncAgent {
 
 					}
 
-					if (!matchFound) {
+					// Versions of skipped editions were not read from the termserver
+					if (!matchFound && !skippedEditionShortNames.contains(
+							dbActiveRefsetIdToVersionRefsetMap.get(refsetId).get(dbVersion).getEditionShortName())) {
 
 						inactivatedVersions.add(dbVersion);
 
@@ -458,6 +479,9 @@ public class SyncRefsetAgent extends SyncAgent {
 		LOG.info("Gather refset data for each refset available with each edition's version for: "
 				+ filteredTermserverShortNameToVersionBranchMap.keySet());
 
+		final List<Edition> editions = new ArrayList<>();
+		editionToVersionBranchMap = filteredTermserverShortNameToVersionBranchMap;
+
 		for (final String editionShortName : filteredTermserverShortNameToVersionBranchMap.keySet()) {
 
 			final Edition edition = isEditionToProcess(service, editionShortName);
@@ -465,14 +489,33 @@ public class SyncRefsetAgent extends SyncAgent {
 			// Have valid edition. Filter refsets to process
 			if (edition != null) {
 
-				final Set<SyncRefsetMetadata> refsetVersions = filterEditionRefsetVersions(edition,
-						filteredTermserverShortNameToVersionBranchMap.get(editionShortName));
-				filteredRefsets.addAll(refsetVersions);
+				editions.add(edition);
 
 			}
 
 		}
 
+		processedEditions.addAll(filterMovedEditions(service, editions));
+
+		// Fetch the refsets of every edition version, and their modules, across all
+		// editions at once
+		final Map<String, JsonNode> branchToRefsetsMap = prefetchRefsetVersionMembers(processedEditions,
+				filteredTermserverShortNameToVersionBranchMap);
+		final Map<String, Map<String, String>> branchToRefsetModuleMap = prefetchRefsetModuleIds(branchToRefsetsMap);
+		final List<SyncRefsetMetadata> refsetVersionsToCheck = new ArrayList<>();
+
+		for (final Edition edition : processedEditions) {
+
+			final Set<SyncRefsetMetadata> refsetVersions = filterEditionRefsetVersions(edition,
+					filteredTermserverShortNameToVersionBranchMap.get(edition.getShortName()), branchToRefsetsMap,
+					branchToRefsetModuleMap, refsetVersionsToCheck);
+			filteredRefsets.addAll(refsetVersions);
+
+		}
+
+		filteredRefsets.addAll(filterChangedRefsetVersions(refsetVersionsToCheck,
+				filteredTermserverShortNameToVersionBranchMap));
+
 		if (filteredRefsets.isEmpty()) {
 
 			LOG.info("No refsets to process. This may be odd, but will happen based on certain criteria "
@@ -554,6 +597,128 @@ public class SyncRefsetAgent extends SyncAgent {
 		return edition;
 	}
 
+	/**
+	 * Filter the editions whose branch has moved since the last sync. Every edition
+	 * is returned unless running incrementally. An edition also counts as moved
+	 * when it was modified after its branch state was recorded.
+	 *
+	 * @param service  the service
+	 * @param editions the editions
+	 * @return the editions whose refsets are to be processed
+	 * @throws Exception the exception
+	 */
+	private List<Edition> filterMovedEditions(final TerminologyService service, final List<Edition> editions)
+			throws Exception {
+
+		if (!getIsIncrementalSync() || isTesting()) {
+
+			editions.forEach(edition -> STATISTICS.incrementEditionsProcessed());
+			return editions;
+		}
+
+		final Map<String, SyncBranchState> branchStates = readBranchStates(service);
+		final List<Edition> movedEditions = new ArrayList<>();
+		List<Refset> dbRefsets = null;
+
+		for (final Edition edition : editions) {
+
+			final SortedMap<Long, String> termserverVersionBranchMap = editionToVersionBranchMap
+					.get(edition.getShortName());
+			final SyncBranchState state = branchStates.get(edition.getBranch());
+
+			if (state == null || (edition.getModified() != null && edition.getModified().after(state.getModified()))
+					|| state.hasMoved(getHeadTimestamp(termserverVersionBranchMap),
+							termserverVersionBranchMap.size())) {
+
+				movedEditions.add(edition);
+				STATISTICS.incrementEditionsProcessed();
+				continue;
+			}
+
+			if (dbRefsets == null) {
+
+				dbRefsets = getAllPublishedRefsets(service);
+			}
+
+			final long skippedRefsetIds = dbRefsets.stream()
+					.filter(r -> edition.getShortName().equals(r.getEditionShortName())).map(Refset::getRefsetId)
+					.distinct().count();
+
+			skippedEditionShortNames.add(edition.getShortName());
+			STATISTICS.incrementEditionsSkipped((int) skippedRefsetIds);
+
+			LOG.info("Skipping refsets of edition " + edition.getShortName() + " as its branch has not moved since "
+					+ state.getModified());
+		}
+
+		return movedEditions;
+	}
+
+	/**
+	 * Record the branch state of each processed edition, so an incremental sync can
+	 * skip them until their branch moves. Not recorded when testing, as only part
+	 * of an edition is processed then.
+	 *
+	 * @param service the service
+	 * @throws Exception the exception
+	 */
+	private void recordBranchStates(final TerminologyService service) throws Exception {
+
+		if (isTesting() || processedEditions.isEmpty()) {
+
+			return;
+		}
+
+		final Map<String, SyncBranchState> branchStates = readBranchStates(service);
+
+		for (final Edition edition : processedEditions) {
+
+			final SortedMap<Long, String> termserverVersionBranchMap = editionToVersionBranchMap
+					.get(edition.getShortName());
+
+			getDbHandler().updateBranchState(service, branchStates.get(edition.getBranch()), edition.getBranch(),
+					getHeadTimestamp(termserverVersionBranchMap), termserverVersionBranchMap.size());
+		}
+
+	}
+
+	/**
+	 * Read the recorded branch states.
+	 *
+	 * @param service the service
+	 * @return the branch states by branch
+	 * @throws Exception the exception
+	 */
+	private Map<String, SyncBranchState> readBranchStates(final TerminologyService service) throws Exception {
+
+		final Map<String, SyncBranchState> branchStates = new HashMap<>();
+
+		for (final SyncBranchState state : service.getAll(SyncBranchState.class)) {
+
+			branchStates.put(state.getBranch(), state);
+		}
+
+		return branchStates;
+	}
+
+	/**
+	 * Returns the latest head timestamp across version branches.
+	 *
+	 * @param termserverVersionBranchMap the termserver version branch map
+	 * @return the head timestamp
+	 */
+	private long getHeadTimestamp(final SortedMap<Long, String> termserverVersionBranchMap) {
+
+		long headTimestamp = 0;
+
+		for (final String branch : termserverVersionBranchMap.values()) {
+
+			headTimestamp = Math.max(headTimestamp, versionBranchHeadTimestamps.getOrDefault(branch, 0L));
+		}
+
+		return headTimestamp;
+	}
+
 	/**
 	 * Initialize sync.
 	 *
@@ -563,6 +728,9 @@ public class SyncRefsetAgent extends SyncAgent {
 
 		refsetToModuleMap.clear();
 		newlyCreatedAndUnchangedRefsetToVersionsMap.clear();
+		versionBranchHeadTimestamps.clear();
+		processedEditions.clear();
+		skippedEditionShortNames.clear();
 
 		RefsetMemberService.clearVersionsWithChanges();
 	}
@@ -612,6 +780,7 @@ public class SyncRefsetAgent extends SyncAgent {
 			final Map<Long, SyncRefsetMetadata> termserverPairDataMap) throws Exception {
 
 		final List<Long> modifiedVersions = new ArrayList<>();
+		final Set<Refset> modifiedRefsets = new LinkedHashSet<>();
 
 		final List<Refset> dbVersions = dbRefsets.stream().filter(r -> r.getRefsetId().equals(refsetId))
 				.collect(Collectors.toList());
@@ -675,13 +844,30 @@ public class SyncRefsetAgent extends SyncAgent {
 
 			if (modificationMade) {
 
-				final Refset updatedRefset = getDbHandler().updateRefset(service, modifyingVersion);
-
-				modifiedVersions.add(updatedRefset.getVersionDate().getTime());
+				modifiedRefsets.add(modifyingVersion);
 			}
 
 		}
 
+		if (modifiedRefsets.isEmpty()) {
+
+			return modifiedVersions;
+		}
+
+		// Commit all modified versions of the refset together, auditing each version
+		final Set<Refset> updatedRefsets = getDbHandler().updateMultipleRefsets(service, modifiedRefsets, true);
+
+		if (updatedRefsets == null) {
+
+			throw new Exception("Compare Refset Version - Failed to update the modified versions of refsetId: " + refsetId);
+		}
+
+		for (final Refset updatedRefset : updatedRefsets) {
+
+			STATISTICS.incrementRefsetVersionsModified();
+			modifiedVersions.add(updatedRefset.getVersionDate().getTime());
+		}
+
 		return modifiedVersions;
 	}
 
@@ -709,24 +895,30 @@ public class SyncRefsetAgent extends SyncAgent {
 	}
 
 	/**
-	 * Filter edition refset versions.
+	 * Filter edition refset versions. Refset versions that only need their members
+	 * checked for changes are added to the versions to check rather than returned.
 	 *
 	 * @param edition                    the edition
 	 * @param termserverVersionBranchMap the termserver version branch map
+	 * @param branchToRefsetsMap         the refsets of each version branch
+	 * @param branchToRefsetModuleMap    the refset module ids of each version
+	 *                                   branch
+	 * @param refsetVersionsToCheck      the refset versions to check for changes
 	 * @return the sets the
 	 * @throws Exception the exception
 	 */
 	private Set<SyncRefsetMetadata> filterEditionRefsetVersions(final Edition edition,
-			final SortedMap<Long, String> termserverVersionBranchMap) throws Exception {
+			final SortedMap<Long, String> termserverVersionBranchMap, final Map<String, JsonNode> branchToRefsetsMap,
+			final Map<String, Map<String, String>> branchToRefsetModuleMap,
+			final List<SyncRefsetMetadata> refsetVersionsToCheck) throws Exception {
 
 		final Set<SyncRefsetMetadata> filteredRefsets = new HashSet<>();
 
-		Map<String, Integer> refsetCountMap = determineRefsetCounts(edition, termserverVersionBranchMap);
+		Map<String, Integer> refsetCountMap = determineRefsetCounts(termserverVersionBranchMap, branchToRefsetsMap);
 
 		for (final long versionDate : termserverVersionBranchMap.keySet()) {
 
-			final JsonNode root = getTermserverRefsetVersionMembers(edition.getName(), edition.getBranch(),
-					termserverVersionBranchMap, versionDate);
+			final JsonNode root = branchToRefsetsMap.get(termserverVersionBranchMap.get(versionDate));
 			final Iterator<JsonNode> refsetIterator = root.get("referenceSets").iterator();
 
 			while (refsetIterator != null && refsetIterator.hasNext()) {
@@ -741,8 +933,8 @@ public class SyncRefsetAgent extends SyncAgent {
 					boolean updatedModule = false;
 
 					final String refsetId = refsetNode.get("conceptId").asText();
-					final String moduleId = determineConceptModuleId(refsetId,
-							termserverVersionBranchMap.get(versionDate));
+					final String moduleId = branchToRefsetModuleMap.get(termserverVersionBranchMap.get(versionDate))
+							.get(refsetId);
 
 					if (!refsetToModuleMap.containsKey(refsetId)) {
 
@@ -759,21 +951,20 @@ public class SyncRefsetAgent extends SyncAgent {
 					if (isRefsetToProcess(refsetId, moduleId, edition, refsetCountMap)) {
 
 						final String termserverRefsetBranchPath = termserverVersionBranchMap.get(versionDate);
-						final Set<Long> termserverEditionBranchDates = termserverVersionBranchMap.keySet();
+						final SyncRefsetMetadata refsetMetadata = new SyncRefsetMetadata(refsetNode, edition,
+								termserverVersionBranchMap.keySet(), versionDate, termserverRefsetBranchPath);
 
 						// If perVersionSync, then create version per branch and return. Otherwise,
 						// determine if changes exist in this version
 						// TODO: Handle refset moving to different module?
-						if (firstTime || updatedModule || getIsPerVersionSync()
-								|| versionHasChanges(refsetId, versionDate, termserverRefsetBranchPath,
-										edition.getName(), termserverEditionBranchDates)) {
-
-							final SyncRefsetMetadata refsetMetadata = new SyncRefsetMetadata(refsetNode, edition,
-									termserverVersionBranchMap.keySet(), versionDate, termserverRefsetBranchPath);
+						if (firstTime || updatedModule || getIsPerVersionSync()) {
 
 							// Found a refset to process later on
 							filteredRefsets.add(refsetMetadata);
 
+						} else {
+
+							refsetVersionsToCheck.add(refsetMetadata);
 						}
 
 					}
@@ -788,16 +979,154 @@ public class SyncRefsetAgent extends SyncAgent {
 
 	}
 
+	/**
+	 * Filter the refset versions whose members changed. The versions of one refset
+	 * are checked in order as each check records the version it found, while
+	 * different refsets are checked concurrently.
+	 *
+	 * @param refsetVersionsToCheck     the refset versions to check, in edition and
+	 *                                  version order
+	 * @param editionToVersionBranchMap the version branches of each edition
+	 * @return the refset versions with changes
+	 * @throws Exception the exception
+	 */
+	private Set<SyncRefsetMetadata> filterChangedRefsetVersions(final List<SyncRefsetMetadata> refsetVersionsToCheck,
+			final Map<String, SortedMap<Long, String>> editionToVersionBranchMap) throws Exception {
+
+		final Map<String, List<SyncRefsetMetadata>> refsetToVersionsMap = new LinkedHashMap<>();
+
+		for (final SyncRefsetMetadata refsetVersion : refsetVersionsToCheck) {
+
+			refsetToVersionsMap.computeIfAbsent(refsetVersion.getRefsetId(), k -> new ArrayList<>()).add(refsetVersion);
+		}
+
+		final List<Callable<List<SyncRefsetMetadata>>> tasks = new ArrayList<>();
+
+		for (final List<SyncRefsetMetadata> refsetVersions : refsetToVersionsMap.values()) {
+
+			tasks.add(() -> {
+
+				final List<SyncRefsetMetadata> changedVersions = new ArrayList<>();
+
+				for (final SyncRefsetMetadata refsetVersion : refsetVersions) {
+
+					if (versionHasChanges(refsetVersion.getRefsetId(), refsetVersion.getVersion(),
+							refsetVersion.getBranchPath(), refsetVersion.getEdition().getName(),
+							editionToVersionBranchMap.get(refsetVersion.getEdition().getShortName()).keySet())) {
+
+						changedVersions.add(refsetVersion);
+					}
+
+				}
+
+				return changedVersions;
+			});
+		}
+
+		final Set<SyncRefsetMetadata> changedRefsets = new HashSet<>();
+		invokeAll(tasks).forEach(changedRefsets::addAll);
+
+		return changedRefsets;
+	}
+
+	/**
+	 * Prefetch the refsets of every version branch of the editions.
+	 *
+	 * @param editions                  the editions
+	 * @param editionToVersionBranchMap the version branches of each edition
+	 * @return the refsets of each version branch
+	 * @throws Exception the exception
+	 */
+	private Map<String, JsonNode> prefetchRefsetVersionMembers(final List<Edition> editions,
+			final Map<String, SortedMap<Long, String>> editionToVersionBranchMap) throws Exception {
+
+		final List<String> branches = new ArrayList<>();
+		final List<Callable<JsonNode>> tasks = new ArrayList<>();
+
+		for (final Edition edition : editions) {
+
+			final SortedMap<Long, String> termserverVersionBranchMap = editionToVersionBranchMap
+					.get(edition.getShortName());
+
+			for (final long versionDate : termserverVersionBranchMap.keySet()) {
+
+				branches.add(termserverVersionBranchMap.get(versionDate));
+				tasks.add(() -> getTermserverRefsetVersionMembers(edition.getName(), edition.getBranch(),
+						termserverVersionBranchMap, versionDate));
+			}
+
+		}
+
+		final List<JsonNode> results = invokeAll(tasks);
+		final Map<String, JsonNode> branchToRefsetsMap = new HashMap<>();
+
+		for (int i = 0; i < branches.size(); i++) {
+
+			branchToRefsetsMap.put(branches.get(i), results.get(i));
+		}
+
+		return branchToRefsetsMap;
+	}
+
+	/**
+	 * Prefetch the module id of every refset of every version branch.
+	 *
+	 * @param branchToRefsetsMap the refsets of each version branch
+	 * @return the refset module ids of each version branch
+	 * @throws Exception the exception
+	 */
+	private Map<String, Map<String, String>> prefetchRefsetModuleIds(final Map<String, JsonNode> branchToRefsetsMap)
+			throws Exception {
+
+		final List<String> branches = new ArrayList<>();
+		final List<String> refsetIds = new ArrayList<>();
+		final List<Callable<String>> tasks = new ArrayList<>();
+
+		for (final Entry<String, JsonNode> entry : branchToRefsetsMap.entrySet()) {
+
+			if (entry.getValue() == null || !entry.getValue().has("referenceSets")) {
+
+				continue;
+			}
+
+			final String branch = entry.getKey();
+
+			for (final JsonNode refsetNode : entry.getValue().get("referenceSets")) {
+
+				if (refsetNode != null) {
+
+					final String refsetId = refsetNode.get("conceptId").asText();
+					branches.add(branch);
+					refsetIds.add(refsetId);
+					tasks.add(() -> determineConceptModuleId(refsetId, branch));
+				}
+
+			}
+
+		}
+
+		final List<String> results = invokeAll(tasks);
+		final Map<String, Map<String, String>> branchToRefsetModuleMap = new HashMap<>();
+
+		for (int i = 0; i < branches.size(); i++) {
+
+			branchToRefsetModuleMap.computeIfAbsent(branches.get(i), k -> new HashMap<>()).put(refsetIds.get(i),
+					results.get(i));
+		}
+
+		return branchToRefsetModuleMap;
+	}
+
 	/**
 	 * Determine refset counts.
 	 *
-	 * @param edition                    the edition
 	 * @param termserverVersionBranchMap the termserver version branch map
+	 * @param branchToRefsetsMap         the refsets of each version branch
 	 * @return the map
 	 * @throws Exception the exception
 	 */
-	private Map<String, Integer> determineRefsetCounts(final Edition edition,
-			final SortedMap<Long, String> termserverVersionBranchMap) throws Exception {
+	private Map<String, Integer> determineRefsetCounts(final SortedMap<Long, String> termserverVersionBranchMap,
+			final Map<String, JsonNode> branchToRefsetsMap) throws Exception {
 
 		if (termserverVersionBranchMap.isEmpty()) {
 
@@ -808,8 +1137,7 @@ public class SyncRefsetAgent extends SyncAgent {
 
 		final Long latestEditionVersion = termserverVersionBranchMap.lastKey();
 
-		final JsonNode refsetCountsRoot = getTermserverRefsetVersionMembers(edition.getName(), edition.getBranch(),
-				termserverVersionBranchMap, latestEditionVersion);
+		final JsonNode refsetCountsRoot = branchToRefsetsMap.get(termserverVersionBranchMap.get(latestEditionVersion));
 		final JsonNode refsetCountsMap = refsetCountsRoot.get("memberCountsByReferenceSet");
 		final Iterator<Entry<String, JsonNode>> refsetCountsIterator = refsetCountsMap.fields();
 
@@ -864,8 +1192,7 @@ public class SyncRefsetAgent extends SyncAgent {
 
 			// get RefSets from edition as long as a) active & b) not a core refset
 			final String resultString = response.readEntity(String.class);
-			final ObjectMapper mapper = new ObjectMapper();
-			final JsonNode root = mapper.readTree(resultString.toString());
+			final JsonNode root = JsonUtility.readTree(resultString.toString());
 
 			return root;
 		}
@@ -895,8 +1222,7 @@ public class SyncRefsetAgent extends SyncAgent {
 			}
 
 			final String resultString = response.readEntity(String.class);
-			final ObjectMapper mapper = new ObjectMapper();
-			final JsonNode root = mapper.readTree(resultString.toString());
+			final JsonNode root = JsonUtility.readTree(resultString.toString());
 
 			// get RefSets from edition as long as a) active & b)
 			// within edition's module
@@ -996,8 +1322,7 @@ public class SyncRefsetAgent extends SyncAgent {
 		try (final Response response = SnowstormConnection.getResponse(url)) {
 
 			final String resultString = response.readEntity(String.class);
-			final ObjectMapper mapper = new ObjectMapper();
-			final JsonNode conceptNode = mapper.readTree(resultString.toString());
+			final JsonNode conceptNode = JsonUtility.readTree(resultString.toString());
 
 			final Iterator<JsonNode> descriptionIterator = conceptNode.get("descriptions").iterator();
 
@@ -1339,8 +1664,7 @@ public class SyncRefsetAgent extends SyncAgent {
 
 				final String refsetJsonString = getUtilities().getPropertyReader().getRttIdToRefsetJsonMap().get(rttId);
 
-				final ObjectMapper mapper = new ObjectMapper();
-				final JsonNode refsetJson = mapper.readTree(refsetJsonString);
+				final JsonNode refsetJson = JsonUtility.readTree(refsetJsonString);
 
 				final long rttDataRefsetVersion = sdf.parse(refsetJson.get("version").asText()).getTime();
 
@@ -1459,9 +1783,9 @@ public class SyncRefsetAgent extends SyncAgent {
 						.collect(StringBuilder::new, (x, y) -> x.append(y.getName()), (a, b) -> a.append(",").append(b))
 						.toString());
 
-		final Map<String, Set<String>> ignoredBranches = new HashMap<>();
-
-		final SimpleDateFormat branchDateFormat = new SimpleDateFormat(BRANCH_DATE_FORMAT);
+		final Map<String, Set<String>> ignoredBranches = new ConcurrentHashMap<>();
+		final List<String> shortNames = new ArrayList<>();
+		final List<Callable<SortedMap<Long, String>>> tasks = new ArrayList<>();
 
 		for (final JsonNode codeSystem : codeSystems) {
 
@@ -1469,78 +1793,101 @@ public class SyncRefsetAgent extends SyncAgent {
 			final String shortName = codeSystem.has("shortName") ? codeSystem.get("shortName").asText() : "";
 			final String branch = codeSystem.has("branchPath") ? codeSystem.get("branchPath").asText() : "";
 
-			LOG.info("Identifying CodeSystem branches for: " + editionName);
+			shortNames.add(shortName);
+			tasks.add(() -> determineVersionBranches(editionName, branch, ignoredBranches));
+		}
 
-			final String genericUrl = SnowstormConnection.getBaseUrl() + "branches/{branch}/children";
+		final List<SortedMap<Long, String>> results = invokeAll(tasks);
 
-			final SortedMap<Long, String> children = new TreeMap<>();
-			LOG.info(" Branch children Url: " + genericUrl.replace("{branch}", branch));
+		for (int i = 0; i < shortNames.size(); i++) {
 
-			try (final Response response = SnowstormConnection.getResponse(genericUrl.replace("{branch}", branch))) {
+			editionToDateBranchMap.put(shortNames.get(i), results.get(i));
+		}
 
-				final String resultString = response.readEntity(String.class);
-				final ObjectMapper mapper = new ObjectMapper();
-				final JsonNode root = mapper.readTree(resultString.toString());
+		for (final String edition : editionToDateBranchMap.keySet()) {
 
-				// get RefSets from edition as long as a) active & b) within
-				// edition's module
-				final Iterator<JsonNode> branchIterator = root.iterator();
+			LOG.info("Processing edition {}'s branches {}", edition, editionToDateBranchMap.get(edition));
+		}
 
-				while (branchIterator.hasNext()) {
+		for (final String edition : ignoredBranches.keySet()) {
 
-					final JsonNode child = branchIterator.next();
-					final String childBranch = child.get("path").asText();
-					String childDate = childBranch.replace(branch, "");
+			LOG.info("Ignoring edition {}'s branches {}", edition, ignoredBranches.get(edition));
+		}
 
-					if (childDate.startsWith("/")) {
+		return editionToDateBranchMap;
+	}
 
-						childDate = childDate.substring(1);
-					}
+	/**
+	 * Determine the version branches of an edition.
+	 *
+	 * @param editionName     the edition name
+	 * @param branch          the edition branch
+	 * @param ignoredBranches the ignored child branches of each edition
+	 * @return the version branches by version date
+	 * @throws Exception the exception
+	 */
+	private SortedMap<Long, String> determineVersionBranches(final String editionName, final String branch,
+			final Map<String, Set<String>> ignoredBranches) throws Exception {
 
-					// Since grabbing all children branches, avoid
-					// attempting to parse extensions i.e. MAIN/SNOMEDCT-US
-					if (childDate.matches("^\\d{4}-\\d{2}-\\d{2}$")) {
+		LOG.info("Identifying CodeSystem branches for: " + editionName);
 
-						final long branchDate = branchDateFormat.parse(childDate).getTime();
+		final SimpleDateFormat branchDateFormat = new SimpleDateFormat(BRANCH_DATE_FORMAT);
+		final String genericUrl = SnowstormConnection.getBaseUrl() + "branches/{branch}/children";
 
-						if (branchDate < PRE_SNOMED_SUPPORTED_RELEASES) {
+		final SortedMap<Long, String> children = new TreeMap<>();
+		LOG.info(" Branch children Url: " + genericUrl.replace("{branch}", branch));
 
-							continue;
-						}
+		try (final Response response = SnowstormConnection.getResponse(genericUrl.replace("{branch}", branch))) {
 
-						if (branchDate < new Date().getTime()) {
+			final String resultString = response.readEntity(String.class);
+			final JsonNode root = JsonUtility.readTree(resultString.toString());
 
-							children.put(branchDate, childBranch);
-						}
+			// get RefSets from edition as long as a) active & b) within
+			// edition's module
+			final Iterator<JsonNode> branchIterator = root.iterator();
 
-					} else {
+			while (branchIterator.hasNext()) {
 
-						if (!ignoredBranches.containsKey(editionName)) {
+				final JsonNode child = branchIterator.next();
+				final String childBranch = child.get("path").asText();
+				String childDate = childBranch.replace(branch, "");
 
-							ignoredBranches.put(editionName, new HashSet<>());
-						}
+				if (childDate.startsWith("/")) {
 
-						ignoredBranches.get(editionName).add(childDate);
+					childDate = childDate.substring(1);
+				}
+
+				// Since grabbing all children branches, avoid
+				// attempting to parse extensions i.e. MAIN/SNOMEDCT-US
+				if (childDate.matches("^\\d{4}-\\d{2}-\\d{2}$")) {
+
+					final long branchDate = branchDateFormat.parse(childDate).getTime();
+
+					if (branchDate < PRE_SNOMED_SUPPORTED_RELEASES) {
+
+						continue;
 					}
 
-				}
+					if (branchDate < new Date().getTime()) {
 
-			}
+						children.put(branchDate, childBranch);
 
-			editionToDateBranchMap.put(shortName, children);
-		}
+						if (child.has("headTimestamp")) {
 
-		for (final String edition : editionToDateBranchMap.keySet()) {
+							versionBranchHeadTimestamps.put(childBranch, child.get("headTimestamp").asLong());
+						}
+					}
 
-			LOG.info("Processing edition {}'s branches {}", edition, editionToDateBranchMap.get(edition));
-		}
+				} else {
 
-		for (final String edition : ignoredBranches.keySet()) {
+					ignoredBranches.computeIfAbsent(editionName, k -> ConcurrentHashMap.newKeySet()).add(childDate);
+				}
+
+			}
 
-			LOG.info("Ignoring edition {}'s branches {}", edition, ignoredBranches.get(edition));
 		}
 
-		return editionToDateBranchMap;
+		return children;
 	}
 
 	/**
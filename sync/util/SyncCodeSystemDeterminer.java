@@ -21,11 +21,11 @@ import javax.ws.rs.core.Response;
 import org.ihtsdo.refsetservice.service.TerminologyService;
 import org.ihtsdo.refsetservice.sync.SyncCodeSystemAgent;
 import org.ihtsdo.refsetservice.terminologyservice.SnowstormConnection;
+import org.ihtsdo.refsetservice.util.JsonUtility;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * The Class SyncCodeSystemDeterminer.
@@ -333,8 +333,7 @@ public class SyncCodeSystemDeterminer {
 
             final String resultString = response.readEntity(String.class);
 
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode organizationJsonRootNode = mapper.readTree(resultString.toString());
+            final JsonNode organizationJsonRootNode = JsonUtility.readTree(resultString.toString());
 
             return organizationJsonRootNode;
         }
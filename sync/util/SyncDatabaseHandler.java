@@ -21,6 +21,7 @@ import org.ihtsdo.refsetservice.model.Edition;
 import org.ihtsdo.refsetservice.model.Organization;
 import org.ihtsdo.refsetservice.model.Project;
 import org.ihtsdo.refsetservice.model.Refset;
+import org.ihtsdo.refsetservice.model.SyncBranchState;
 import org.ihtsdo.refsetservice.model.Team;
 import org.ihtsdo.refsetservice.model.User;
 import org.ihtsdo.refsetservice.model.VersionStatus;
@@ -28,6 +29,7 @@ import org.ihtsdo.refsetservice.service.SecurityService;
 import org.ihtsdo.refsetservice.service.TerminologyService;
 import org.ihtsdo.refsetservice.terminologyservice.OrganizationService;
 import org.ihtsdo.refsetservice.terminologyservice.ProjectService;
+import org.ihtsdo.refsetservice.terminologyservice.RefsetMemberCountRefresher;
 import org.ihtsdo.refsetservice.terminologyservice.RefsetService;
 import org.ihtsdo.refsetservice.util.AuditEntryHelper;
 import org.ihtsdo.refsetservice.util.ModelUtility;
@@ -273,6 +275,7 @@ public class SyncDatabaseHandler {
 			final Refset newRefset = service.add(refset);
 
 			service.add(AuditEntryHelper.addRefsetVersionEntry(newRefset));
+			RefsetMemberCountRefresher.refresh(newRefset.getId());
 
 			statistics.incrementRefsetVersionsAdded();
 
@@ -641,6 +644,7 @@ public class SyncDatabaseHandler {
 		try {
 
 			final Refset updatedRefset = service.update(refset);
+			RefsetMemberCountRefresher.refresh(updatedRefset.getId());
 
 			statistics.incrementRefsetVersionsModified();
 
@@ -672,12 +676,31 @@ public class SyncDatabaseHandler {
 	 */
 	public Set<Refset> updateMultipleRefsets(final TerminologyService service, final Set<Refset> refsets) {
 
+		return updateMultipleRefsets(service, refsets, false);
+	}
+
+	/**
+	 * Update multiple refsets in one transaction.
+	 *
+	 * @param service          the service
+	 * @param refsets          the refsets
+	 * @param auditEachVersion whether to record an audit entry for each updated
+	 *                         refset version, as {@link #updateRefset} does,
+	 *                         rather than one for the batch
+	 * @return the updated refsets, or null if the update failed
+	 */
+	public Set<Refset> updateMultipleRefsets(final TerminologyService service, final Set<Refset> refsets,
+			final boolean auditEachVersion) {
+
 		Refset refsetToPersist = null;
+		final boolean synchronousIndexing = service.isSynchronousIndexing();
 
 		try {
 
 			final Set<Refset> updatedRefsets = new HashSet<>();
 
+			// one index refresh for the whole batch instead of waiting on the commit
+			service.setSynchronousIndexing(false);
 			service.setTransactionPerOperation(false);
 			service.beginTransaction();
 
@@ -688,19 +711,32 @@ public class SyncDatabaseHandler {
 
 				final Refset updatedRefset = service.update(refsetToPersist);
 
+				if (auditEachVersion) {
+
+					service.add(AuditEntryHelper.updateRefsetVersionEntry(updatedRefset));
+				}
+
 				updatedRefsets.add(updatedRefset);
 			}
 
 			service.commit();
 			service.setTransactionPerOperation(true);
+			service.setSynchronousIndexing(synchronousIndexing);
+			service.refreshIndexes(Refset.class);
+
+			updatedRefsets.stream().forEach(r -> RefsetMemberCountRefresher.refresh(r.getId()));
 
 			StringBuffer updatedRefsetInfo = new StringBuffer();
 			updatedRefsets.stream().forEach(r -> updatedRefsetInfo
 					.append("Pair Added: " + r.getName() + " - " + sdfPrintDate.format(r.getVersionDate()) + ", "));
 
 			LOG.info("Updated multiple refset versions: " + updatedRefsetInfo.toString());
-			service.add(AuditEntryHelper
-					.updateMultipleRefsetVersionsEntry("updated " + refsets.size() + " refset/version pairs."));
+
+			if (!auditEachVersion) {
+
+				service.add(AuditEntryHelper
+						.updateMultipleRefsetVersionsEntry("updated " + refsets.size() + " refset/version pairs."));
+			}
 
 			return updatedRefsets;
 		} catch (Exception e) {
@@ -710,7 +746,27 @@ public class SyncDatabaseHandler {
 
 			e.printStackTrace();
 
+			// the shared service must not be left in a broken transaction for the rest of
+			// the sync
+			if (!service.getTransactionPerOperation()) {
+
+				try {
+					service.rollback();
+				} catch (final Exception e1) {
+					LOG.error("Unable to roll back the refset updates", e1);
+				}
+			}
+
 			return null;
+
+		} finally {
+
+			try {
+				service.setTransactionPerOperation(true);
+				service.setSynchronousIndexing(synchronousIndexing);
+			} catch (final Exception e1) {
+				LOG.error("Unable to restore the transaction mode and indexing synchronization", e1);
+			}
 		}
 
 	}
@@ -852,6 +908,51 @@ public class SyncDatabaseHandler {
 
 	}
 
+	/**
+	 * Update branch state, adding it if not yet recorded.
+	 *
+	 * @param service       the service
+	 * @param state         the recorded state, or null if none
+	 * @param branch        the edition branch
+	 * @param headTimestamp the latest head timestamp across the version branches
+	 * @param versionCount  the number of version branches
+	 * @return the branch state
+	 */
+	public SyncBranchState updateBranchState(final TerminologyService service, final SyncBranchState state,
+			final String branch, final long headTimestamp, final int versionCount) {
+
+		try {
+
+			if (state == null) {
+
+				final SyncBranchState addedState = service
+						.add(new SyncBranchState(branch, headTimestamp, versionCount));
+
+				LOG.info("Added branch state: " + addedState);
+
+				return addedState;
+			}
+
+			state.setHeadTimestamp(headTimestamp);
+			state.setVersionCount(versionCount);
+
+			final SyncBranchState updatedState = service.update(state);
+
+			LOG.info("Updated branch state: " + updatedState);
+
+			return updatedState;
+
+		} catch (Exception e) {
+
+			LOG.error("Failed to update branch state: " + branch + " with Exception --> " + e.getMessage());
+
+			e.printStackTrace();
+
+			return null;
+		}
+
+	}
+
 	/**
 	 * Adds the definition clause.
 	 *
@@ -49,6 +49,15 @@ public class SyncStatistics {
 	/** The edition organization map changed. */
 	private int editionOrganizationMapChanged = 0;
 
+	/** The editions whose refsets were processed. */
+	private int editionsProcessed = 0;
+
+	/** The editions skipped as their branch has not moved since the last sync. */
+	private int editionsSkipped = 0;
+
+	/** The refset ids skipped along with their edition. */
+	private int refsetIdsSkipped = 0;
+
 	/** The refset ids added. */
 	// Refsets Ids
 	private int refsetIdsAdded = 0;
@@ -129,6 +138,10 @@ public class SyncStatistics {
 
 		buf.append("*** Reassignment of editions-to-organization map --> Changes: " + editionOrganizationMapChanged
 				+ System.getProperty("line.separator"));
+
+		buf.append("*** Edition refsets --> Processed: " + editionsProcessed + " / Skipped (branch unchanged): "
+				+ editionsSkipped + " with " + refsetIdsSkipped + " refset ids"
+				+ System.getProperty("line.separator"));
 		buf.append(System.getProperty("line.separator"));
 
 		// Refsets
@@ -170,6 +183,9 @@ public class SyncStatistics {
 		editionsModified = 0;
 
 		editionOrganizationMapChanged = 0;
+		editionsProcessed = 0;
+		editionsSkipped = 0;
+		refsetIdsSkipped = 0;
 
 		refsetIdsAdded = 0;
 		refsetIdsInactivated = 0;
@@ -719,4 +735,53 @@ public class SyncStatistics {
 		tagsAdded++;
 	}
 
+	/**
+	 * Returns the editions processed.
+	 *
+	 * @return the editions processed
+	 */
+	public int getEditionsProcessed() {
+
+		return editionsProcessed;
+	}
+
+	/**
+	 * Returns the editions skipped.
+	 *
+	 * @return the editions skipped
+	 */
+	public int getEditionsSkipped() {
+
+		return editionsSkipped;
+	}
+
+	/**
+	 * Returns the refset ids skipped.
+	 *
+	 * @return the refset ids skipped
+	 */
+	public int getRefsetIdsSkipped() {
+
+		return refsetIdsSkipped;
+	}
+
+	/**
+	 * Increment editions processed.
+	 */
+	public void incrementEditionsProcessed() {
+
+		editionsProcessed++;
+	}
+
+	/**
+	 * Increment editions skipped.
+	 *
+	 * @param skippedRefsetIds the number of refset ids of the edition
+	 */
+	public void incrementEditionsSkipped(final int skippedRefsetIds) {
+
+		editionsSkipped++;
+		refsetIdsSkipped += skippedRefsetIds;
+	}
+
 }
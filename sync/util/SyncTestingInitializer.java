@@ -14,6 +14,7 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.ihtsdo.refsetservice.model.DefinitionClause;
 import org.ihtsdo.refsetservice.model.DiscussionPost;
@@ -168,29 +169,28 @@ public class SyncTestingInitializer {
 
         final Project developerTestingProject = getDeveloperTestingProject(service);
 
-        final List<Refset> projectRefsets =
-            service.find("projectId:" + developerTestingProject.getId() + " AND active:true", null, Refset.class, null).getItems();
+        final AtomicInteger latestVersionSeen = new AtomicInteger();
 
-        int latestVersion = 0;
+        // stream the project refsets rather than loading them in one window
+        service.scroll("projectId:" + developerTestingProject.getId() + " AND active:true", null, Refset.class, null, 100, projectRefsets -> {
 
-        for (final Refset projectRefset : projectRefsets) {
+            for (final Refset projectRefset : projectRefsets) {
 
-            if (projectRefset.getRefsetId().startsWith(testingRefsetId) && projectRefset.getName().startsWith(testingRefsetName)) {
+                if (projectRefset.getRefsetId().startsWith(testingRefsetId) && projectRefset.getName().startsWith(testingRefsetName)) {
 
-                final int refsetVersion = Integer.parseInt(projectRefset.getName().substring(testingRefsetName.length()).trim());
+                    final int refsetVersion = Integer.parseInt(projectRefset.getName().substring(testingRefsetName.length()).trim());
 
-                if (refsetVersion > latestVersion) {
+                    latestVersionSeen.accumulateAndGet(refsetVersion, Math::max);
+                    // Iterate through the refsets, look at the refset name, and find the integer list after the default name.
+                    // if keysize = 0, this is first one. So create with RefsetId: based on the testingRefsetId and iteration.
+                    // else, if the refset integer is greater than the greatest one seen, make this the new refsetName & refsetId integer
 
-                    latestVersion = refsetVersion;
                 }
-                // Iterate through the refsets, look at the refset name, and find the integer list after the default name.
-                // if keysize = 0, this is first one. So create with RefsetId: based on the testingRefsetId and iteration.
-                // else, if the refset integer is greater than the greatest one seen, make this the new refsetName & refsetId integer
 
             }
+        });
 
-        }
-
+        int latestVersion = latestVersionSeen.get();
         Refset newTestingRefset;
 
         if (latestVersion == 0) {
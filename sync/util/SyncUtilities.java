@@ -50,6 +50,7 @@ import org.ihtsdo.refsetservice.terminologyservice.SnowstormConnection;
 import org.ihtsdo.refsetservice.terminologyservice.TeamService;
 import org.ihtsdo.refsetservice.terminologyservice.WorkflowService;
 import org.ihtsdo.refsetservice.util.EmailUtility;
+import org.ihtsdo.refsetservice.util.JsonUtility;
 import org.ihtsdo.refsetservice.util.PropertyUtility;
 import org.ihtsdo.refsetservice.util.ResultList;
 import org.slf4j.Logger;
@@ -57,7 +58,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.core.io.ClassPathResource;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * The Class SyncUtilities.
@@ -207,8 +207,7 @@ public class SyncUtilities {
 			}
 
 			final String resultString = response.readEntity(String.class);
-			final ObjectMapper mapper = new ObjectMapper();
-			final JsonNode root = mapper.readTree(resultString.toString());
+			final JsonNode root = JsonUtility.readTree(resultString.toString());
 
 			// get RefSets from CORE as long as active
 			final Iterator<JsonNode> refsetIterator = root.get("items").iterator();
@@ -263,8 +262,7 @@ public class SyncUtilities {
 			}
 
 			final String resultString = response.readEntity(String.class);
-			final ObjectMapper mapper = new ObjectMapper();
-			final JsonNode root = mapper.readTree(resultString.toString());
+			final JsonNode root = JsonUtility.readTree(resultString.toString());
 
 			// get RefSets from edition as long as a) active & b) within edition's module
 			final Iterator<JsonNode> moduleIterator = root.get("items").iterator();
@@ -432,8 +430,7 @@ public class SyncUtilities {
 			}
 
 			final String resultString = response.readEntity(String.class);
-			final ObjectMapper mapper = new ObjectMapper();
-			final JsonNode root = mapper.readTree(resultString.toString());
+			final JsonNode root = JsonUtility.readTree(resultString.toString());
 
 			// get RefSets from CORE as long as active
 			final JsonNode metadata = root.get("metadata");
@@ -536,25 +533,27 @@ public class SyncUtilities {
 	 */
 	public void printEditionValues(final TerminologyService service, final Edition edition) throws Exception {
 
-		final List<Project> orgProjects = service.find("edition.id:" + edition.getId(), null, Project.class, null)
-				.getItems();
 		final List<Team> teams = service.getAll(Team.class);
 
-		for (final Project project : orgProjects) {
+		// stream the projects rather than loading them in one window
+		service.scroll("edition.id:" + edition.getId(), null, Project.class, null, 100, orgProjects -> {
 
-			for (final String teamId : project.getTeams()) {
+			for (final Project project : orgProjects) {
 
-				final Team team = teams.stream().filter(t -> t.getId().equals(teamId)).findFirst().orElse(null);
+				for (final String teamId : project.getTeams()) {
 
-				if (team == null) {
+					final Team team = teams.stream().filter(t -> t.getId().equals(teamId)).findFirst().orElse(null);
+
+					if (team == null) {
+
+						throw new Exception(
+								"  Unable to locate team in project " + project.getName() + " for team: " + teamId);
+					}
 
-					throw new Exception(
-							"  Unable to locate team in project " + project.getName() + " for team: " + teamId);
 				}
 
 			}
-
-		}
+		});
 
 	}
 
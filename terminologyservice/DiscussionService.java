@@ -9,9 +9,12 @@
  */
 package org.ihtsdo.refsetservice.terminologyservice;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.apache.lucene.queryparser.classic.QueryParserBase;
@@ -25,6 +28,7 @@ import org.ihtsdo.refsetservice.model.RestException;
 import org.ihtsdo.refsetservice.model.User;
 import org.ihtsdo.refsetservice.service.SecurityService;
 import org.ihtsdo.refsetservice.service.TerminologyService;
+import org.ihtsdo.refsetservice.util.DiscussionCountIndex;
 import org.ihtsdo.refsetservice.util.ModelUtility;
 import org.ihtsdo.refsetservice.util.ResultList;
 import org.slf4j.Logger;
@@ -41,6 +45,12 @@ public final class DiscussionService {
 	/** The Constant LOG. */
 	private static final Logger LOG = LoggerFactory.getLogger(DiscussionService.class);
 
+	/** The number of refsets whose discussion threads are loaded by one query. */
+	private static final int REFSETS_PER_QUERY = 100;
+
+	/** The number of discussion threads loaded at a time. */
+	private static final int THREADS_PER_CHUNK = 500;
+
 	/**
 	 * Instantiates an empty {@link DiscussionService}.
 	 */
@@ -170,12 +180,18 @@ public final class DiscussionService {
 	public static List<Refset> attachRefsetDiscussionCounts(final TerminologyService service, final User user,
 			final List<Refset> refsets) throws Exception {
 
-		if (user.getUserName().equals(SecurityService.GUEST_USERNAME)) {
+		if (user.getUserName().equals(SecurityService.GUEST_USERNAME) || refsets.isEmpty()) {
 			return refsets;
 		}
 
+		final Map<String, DiscussionCountIndex> discussionCounts = getDiscussionCounts(service,
+				refsets.stream().map(Refset::getId).collect(Collectors.toList()));
+
 		for (final Refset refset : refsets) {
-			attachRefsetDiscussionCount(service, user, refset);
+
+			final DiscussionCountIndex counts = discussionCounts.get(refset.getId());
+			refset.setOpenDiscussionCount(counts.getOpenCount(null, user.getId()));
+			refset.setResolvedDiscussionCount(counts.getResolvedCount(null, user.getId()));
 		}
 
 		return refsets;
@@ -193,39 +209,7 @@ public final class DiscussionService {
 	public static Refset attachRefsetDiscussionCount(final TerminologyService service, final User user,
 			final Refset refset) throws Exception {
 
-		if (user.getUserName().equals(SecurityService.GUEST_USERNAME)) {
-			return refset;
-		}
-
-		final String query = "type:" + DiscussionType.REFSET + " AND refsetInternalId:"
-				+ QueryParserBase.escape(refset.getId());
-
-		final ResultList<DiscussionThread> results = service.find(query, null, DiscussionThread.class, null);
-
-		if (results == null || results.getItems() == null || results.getItems().size() == 0) {
-			return refset;
-		} else {
-			int openDiscussionCount = 0;
-			int resolvedDiscussionCount = 0;
-			boolean userIsThreadMember = false;
-
-			for (final DiscussionThread thread : results.getItems()) {
-				userIsThreadMember = thread.getPosts().stream()
-						.anyMatch(post -> post.getUser().getId().equals(user.getId()));
-
-				if (!thread.isPrivateThread() || (userIsThreadMember && thread.isPrivateThread())) {
-					if ("open".equalsIgnoreCase(thread.getStatus())) {
-						openDiscussionCount++;
-					}
-					if ("resolved".equalsIgnoreCase(thread.getStatus())) {
-						resolvedDiscussionCount++;
-					}
-				}
-			}
-
-			refset.setOpenDiscussionCount(openDiscussionCount);
-			refset.setResolvedDiscussionCount(resolvedDiscussionCount);
-		}
+		attachRefsetDiscussionCounts(service, user, Collections.singletonList(refset));
 
 		return refset;
 	}
@@ -247,44 +231,45 @@ public final class DiscussionService {
 			return concepts;
 		}
 
-		final String query = "type:" + DiscussionType.REFSET_MEMBER + " AND refsetInternalId:"
-				+ QueryParserBase.escape(refset.getId());
-		final PfsParameter pfs = new PfsParameter();
-		pfs.setSort("conceptId");
-
-		final ResultList<DiscussionThread> results = service.find(query, null, DiscussionThread.class, null);
+		final DiscussionCountIndex counts = getDiscussionCounts(service, Collections.singletonList(refset.getId()))
+				.get(refset.getId());
 
-		if (results == null || results.getItems() == null || results.getItems().size() == 0) {
-			return concepts;
-		} else {
-			for (final Concept concept : concepts) {
-				int openDiscussionCount = 0;
-				int resolvedDiscussionCount = 0;
-				boolean userIsThreadMember = false;
-
-				for (final DiscussionThread thread : results.getItems().stream()
-						.filter(c -> c.getConceptId().contentEquals(concept.getCode())).collect(Collectors.toList())) {
-					userIsThreadMember = thread.getPosts().stream()
-							.anyMatch(post -> post.getUser().getId().equals(user.getId()));
-
-					if (!thread.isPrivateThread() || (userIsThreadMember && thread.isPrivateThread())) {
-						if ("open".equalsIgnoreCase(thread.getStatus())) {
-							openDiscussionCount++;
-						}
-						if ("resolved".equalsIgnoreCase(thread.getStatus())) {
-							resolvedDiscussionCount++;
-						}
-					}
-				}
+		for (final Concept concept : concepts) {
 
-				concept.setOpenDiscussionCount(openDiscussionCount);
-				concept.setResolvedDiscussionCount(resolvedDiscussionCount);
-			}
+			concept.setOpenDiscussionCount(counts.getOpenCount(concept.getCode(), user.getId()));
+			concept.setResolvedDiscussionCount(counts.getResolvedCount(concept.getCode(), user.getId()));
 		}
 
 		return concepts;
 	}
 
+	/**
+	 * Returns the discussion counts of refsets and their members, loading the
+	 * threads of the refsets not cached a chunk of refsets per query.
+	 *
+	 * @param service           the Terminology Service
+	 * @param refsetInternalIds the refset internal IDs
+	 * @return the discussion counts, by refset internal ID
+	 * @throws Exception the exception
+	 */
+	private static Map<String, DiscussionCountIndex> getDiscussionCounts(final TerminologyService service,
+			final Collection<String> refsetInternalIds) throws Exception {
+
+		return DiscussionCountIndex.get(refsetInternalIds, (ids, handler) -> {
+
+			final List<String> idList = new ArrayList<>(ids);
+
+			for (int i = 0; i < idList.size(); i += REFSETS_PER_QUERY) {
+
+				final String query = idList.subList(i, Math.min(idList.size(), i + REFSETS_PER_QUERY)).stream()
+						.map(id -> "refsetInternalId:" + QueryParserBase.escape(id))
+						.collect(Collectors.joining(" OR ", "(", ")"));
+
+				service.scroll(query, null, DiscussionThread.class, null, THREADS_PER_CHUNK, handler);
+			}
+		});
+	}
+
 	/**
 	 * Check if the user can edit a discussion thread.
 	 *
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2023 SNOMED International - All Rights Reserved.
+ *
+ * NOTICE:  All information contained herein is, and remains the property of SNOMED International
+ * The intellectual and technical concepts contained herein are proprietary to
+ * SNOMED International and may be covered by U.S. and Foreign Patents, patents in process,
+ * and are protected by trade secret or copyright law.  Dissemination of this information
+ * or reproduction of this material is strictly forbidden.
+ */
+package org.ihtsdo.refsetservice.terminologyservice;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.ihtsdo.refsetservice.model.ExportJob;
+import org.ihtsdo.refsetservice.util.PropertyUtility;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs exports in the background on a bounded pool of workers.
+ *
+ * Exports are keyed by the identity of the file they produce, so a request for an export that is already queued or running joins that job
+ * instead of generating the file again. Callers check that each requester may read the file before submitting, and only the users who
+ * requested a job can see it. The pool size bounds the number of exports generated on the terminology server at once. Finished jobs
+ * are kept for the retention period so their status and result can still be fetched.
+ */
+public final class ExportJobService {
+
+    /** The Constant LOG. */
+    private static final Logger LOG = LoggerFactory.getLogger(ExportJobService.class);
+
+    /** The default number of exports run at once. */
+    private static final int DEFAULT_CONCURRENCY = 2;
+
+    /** The default time in minutes a finished job is kept. */
+    private static final int DEFAULT_RETENTION_MINUTES = 60;
+
+    /** The default time in seconds a request waits for the result of a job. */
+    private static final int DEFAULT_WAIT_SECONDS = 60;
+
+    /** The workers. */
+    private static final ExecutorService EXECUTOR;
+
+    /** The time in milliseconds a finished job is kept. */
+    private static final long RETENTION;
+
+    /** The time in milliseconds a request waits for the result of a job. */
+    private static final long WAIT;
+
+    /** The jobs by id. */
+    private static final Map<String, JobEntry> JOBS_BY_ID = new ConcurrentHashMap<>();
+
+    /** The queued and running jobs by key. */
+    private static final Map<String, JobEntry> JOBS_BY_KEY = new ConcurrentHashMap<>();
+
+    /** The job run by the current worker. */
+    private static final ThreadLocal<ExportJob> CURRENT_JOB = new ThreadLocal<>();
+
+    static {
+
+        final int concurrency = Math.max(1, NumberUtils.toInt(PropertyUtility.getProperty("export.jobs.concurrency"), DEFAULT_CONCURRENCY));
+        RETENTION = TimeUnit.MINUTES.toMillis(NumberUtils.toInt(PropertyUtility.getProperty("export.jobs.retention"), DEFAULT_RETENTION_MINUTES));
+        WAIT = TimeUnit.SECONDS.toMillis(NumberUtils.toInt(PropertyUtility.getProperty("export.jobs.wait"), DEFAULT_WAIT_SECONDS));
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        EXECUTOR = Executors.newFixedThreadPool(concurrency, runnable -> {
+
+            final Thread thread = new Thread(runnable, "export-job-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Instantiates an empty {@link ExportJobService}.
+     */
+    private ExportJobService() {
+
+        // n/a
+    }
+
+    /**
+     * Submits an export, joining the queued or running job with the same key if there is one. The caller must have checked that the user may
+     * read the exported file.
+     *
+     * @param key the key identifying identical exports
+     * @param userName the name of the user submitting the export
+     * @param refsetInternalId the internal ID of the exported refset, null for project exports
+     * @param description the description
+     * @param export the export, returning the url to download the export file from
+     * @return the job
+     */
+    public static ExportJob submit(final String key, final String userName, final String refsetInternalId, final String description,
+        final Callable<String> export) {
+
+        return copy(submitEntry(key, userName, refsetInternalId, description, export).job);
+    }
+
+    /**
+     * Returns the job with the specified id.
+     *
+     * @param jobId the job id
+     * @return the job, or null if not found or expired
+     */
+    public static ExportJob getJob(final String jobId) {
+
+        final JobEntry entry = JOBS_BY_ID.get(jobId);
+        return entry == null ? null : copy(entry.job);
+    }
+
+    /**
+     * Waits for the job with the specified id to finish and returns its result. A bounded wait gives up after the time configured by
+     * "export.jobs.wait" so large exports do not hold request threads, the job keeps running and can be polled.
+     *
+     * @param jobId the job id
+     * @param bounded whether to give up after the configured wait
+     * @return the url to download the export file from
+     * @throws TimeoutException if a bounded wait ended before the job finished
+     * @throws Exception the exception the export failed with
+     */
+    public static String getResult(final String jobId, final boolean bounded) throws Exception {
+
+        final JobEntry entry = JOBS_BY_ID.get(jobId);
+
+        if (entry == null) {
+            throw new Exception("Export job " + jobId + " does not exist or has expired");
+        }
+
+        try {
+
+            return bounded ? entry.result.get(WAIT, TimeUnit.MILLISECONDS) : entry.result.get();
+
+        } catch (final ExecutionException e) {
+
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Reports the progress of the job run by the current thread. Does nothing outside of a job.
+     *
+     * @param progress the progress message
+     * @param percentComplete the percent complete, or null if unknown
+     */
+    public static void reportProgress(final String progress, final Integer percentComplete) {
+
+        final ExportJob job = CURRENT_JOB.get();
+
+        if (job == null) {
+            return;
+        }
+
+        synchronized (job) {
+            job.setProgress(progress);
+            job.setPercentComplete(percentComplete);
+        }
+    }
+
+    /**
+     * Submits an export, joining the queued or running job with the same key if there is one.
+     *
+     * @param key the key identifying identical exports
+     * @param userName the name of the user submitting the export
+     * @param refsetInternalId the internal ID of the exported refset, null for project exports
+     * @param description the description
+     * @param export the export
+     * @return the job entry
+     */
+    private static synchronized JobEntry submitEntry(final String key, final String userName, final String refsetInternalId, final String description,
+        final Callable<String> export) {
+
+        expireJobs();
+
+        final JobEntry existing = JOBS_BY_KEY.get(key);
+
+        if (existing != null) {
+
+            synchronized (existing.job) {
+                existing.job.setRequestCount(existing.job.getRequestCount() + 1);
+                existing.job.getUserNames().add(userName);
+            }
+            LOG.info("Export job {} joined by another request for {}", existing.job.getId(), description);
+            return existing;
+        }
+
+        final JobEntry entry = new JobEntry(new ExportJob(UUID.randomUUID().toString(), key, userName, refsetInternalId, description));
+        JOBS_BY_ID.put(entry.job.getId(), entry);
+        JOBS_BY_KEY.put(key, entry);
+        LOG.info("Export job {} queued for {}", entry.job.getId(), description);
+
+        EXECUTOR.execute(() -> run(entry, export));
+        return entry;
+    }
+
+    /**
+     * Runs a job on the current worker.
+     *
+     * @param entry the job entry
+     * @param export the export
+     */
+    private static void run(final JobEntry entry, final Callable<String> export) {
+
+        final ExportJob job = entry.job;
+
+        synchronized (job) {
+            job.setStatus(ExportJob.Status.RUNNING);
+            job.setStarted(new Date());
+        }
+
+        CURRENT_JOB.set(job);
+
+        try {
+
+            final String url = export.call();
+
+            synchronized (job) {
+                job.setUrl(url);
+                job.setProgress(null);
+                job.setPercentComplete(100);
+                job.setStatus(ExportJob.Status.COMPLETED);
+                job.setFinished(new Date());
+            }
+            entry.result.complete(url);
+
+        } catch (final Exception e) {
+
+            LOG.error("Export job {} failed for {}", job.getId(), job.getDescription(), e);
+
+            synchronized (job) {
+                job.setError(e.getMessage());
+                job.setStatus(ExportJob.Status.FAILED);
+                job.setFinished(new Date());
+            }
+            entry.result.completeExceptionally(e);
+
+        } finally {
+
+            CURRENT_JOB.remove();
+            JOBS_BY_KEY.remove(job.getKey(), entry);
+        }
+    }
+
+    /**
+     * Removes finished jobs older than the retention period.
+     */
+    private static void expireJobs() {
+
+        final long cutoff = System.currentTimeMillis() - RETENTION;
+        final Iterator<JobEntry> iterator = JOBS_BY_ID.values().iterator();
+
+        while (iterator.hasNext()) {
+
+            final ExportJob job = iterator.next().job;
+
+            synchronized (job) {
+                if (job.isFinished() && job.getFinished().getTime() < cutoff) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a snapshot of a job.
+     *
+     * @param job the job
+     * @return the copy
+     */
+    private static ExportJob copy(final ExportJob job) {
+
+        synchronized (job) {
+            return new ExportJob(job);
+        }
+    }
+
+    /**
+     * A job with the future of its result.
+     */
+    private static final class JobEntry {
+
+        /** The job. */
+        private final ExportJob job;
+
+        /** The result. */
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        /**
+         * Instantiates a {@link JobEntry} from the specified parameters.
+         *
+         * @param job the job
+         */
+        JobEntry(final ExportJob job) {
+
+            this.job = job;
+        }
+    }
+}
@@ -39,6 +39,7 @@ import org.ihtsdo.refsetservice.service.TerminologyService;
 import org.ihtsdo.refsetservice.util.DateUtility;
 import org.ihtsdo.refsetservice.util.FileUtility;
 import org.ihtsdo.refsetservice.util.HandlerUtility;
+import org.ihtsdo.refsetservice.util.JsonUtility;
 import org.ihtsdo.refsetservice.util.ModelUtility;
 import org.ihtsdo.refsetservice.util.PropertyUtility;
 import org.ihtsdo.refsetservice.util.StringUtility;
@@ -46,7 +47,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Service class to handle getting and modifying internal mapset information.
@@ -504,8 +504,7 @@ public class MapSetService {
 			while (hasMorePages) {
 				final String resultString = getMemberSctids(mapset.getRefSetCode(), limit, searchAfter, branch);
 				// LOG.info("exportRefsetSctidList: resultString" + resultString);
-				final ObjectMapper mapper = new ObjectMapper();
-				final JsonNode root = mapper.readTree(resultString);
+				final JsonNode root = JsonUtility.readTree(resultString);
 				final JsonNode items = root.get("items");
 				final Iterator<JsonNode> iterator = items.iterator();
 				LOG.info("exportRefsetSctidList items.size(): " + items.size());
@@ -608,9 +607,8 @@ public class MapSetService {
 			return "";
 		}
 		if (StringUtility.isJson(snowstormErrorMessage)) {
-			final ObjectMapper mapper = new ObjectMapper();
 			try {
-				final JsonNode json = mapper.readTree(snowstormErrorMessage);
+				final JsonNode json = JsonUtility.readTree(snowstormErrorMessage);
 				snowstormErrorMessage = json.has("message") ? json.get("message").asText() : "";
 			} catch (final Exception e) {
 				LOG.error("formatErrorMessage snowstormErrorMessage:{}", snowstormErrorMessage, e);
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2023 SNOMED International - All Rights Reserved.
+ *
+ * NOTICE:  All information contained herein is, and remains the property of SNOMED International
+ * The intellectual and technical concepts contained herein are proprietary to
+ * SNOMED International and may be covered by U.S. and Foreign Patents, patents in process,
+ * and are protected by trade secret or copyright law.  Dissemination of this information
+ * or reproduction of this material is strictly forbidden.
+ */
+package org.ihtsdo.refsetservice.terminologyservice;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.ihtsdo.refsetservice.model.Refset;
+import org.ihtsdo.refsetservice.service.TerminologyService;
+import org.ihtsdo.refsetservice.util.PropertyUtility;
+import org.ihtsdo.refsetservice.util.RefsetVersionIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the stored member counts of refsets up to date in the background.
+ *
+ * A refresh is requested when the membership of a refset may have changed, or when a refset is read without a known count. Requests for a
+ * refset are coalesced while a refresh is pending, and the refresh waits a short delay so a burst of edits leads to one count call. The count
+ * is fetched from the terminology server by a single worker and only the count column is written, and only when it has changed, so changes
+ * committed to the refset while counting are never overwritten.
+ */
+public final class RefsetMemberCountRefresher {
+
+    /** The Constant LOG. */
+    private static final Logger LOG = LoggerFactory.getLogger(RefsetMemberCountRefresher.class);
+
+    /** The default delay in milliseconds before a requested refresh runs. */
+    private static final int DEFAULT_DELAY = 2000;
+
+    /** The worker. */
+    private static final ScheduledExecutorService EXECUTOR;
+
+    /** The delay in milliseconds before a requested refresh runs. */
+    private static final long DELAY;
+
+    /** The internal IDs of the refsets with a refresh pending. */
+    private static final Set<String> PENDING = ConcurrentHashMap.newKeySet();
+
+    static {
+
+        DELAY = Math.max(0, NumberUtils.toInt(PropertyUtility.getProperty("refset.memberCount.refreshDelay"), DEFAULT_DELAY));
+
+        EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+
+            final Thread thread = new Thread(runnable, "member-count-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Instantiates an empty {@link RefsetMemberCountRefresher}.
+     */
+    private RefsetMemberCountRefresher() {
+
+        // n/a
+    }
+
+    /**
+     * Requests a refresh of the member count of a refset. Does nothing if a refresh of the refset is already pending.
+     *
+     * @param refsetInternalId the internal refset ID
+     * @return true, if a refresh was queued
+     */
+    public static boolean refresh(final String refsetInternalId) {
+
+        if (refsetInternalId == null || !PENDING.add(refsetInternalId)) {
+            return false;
+        }
+
+        EXECUTOR.schedule(() -> run(refsetInternalId), DELAY, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    /**
+     * Indicates whether a refresh of the member count of a refset is pending.
+     *
+     * @param refsetInternalId the internal refset ID
+     * @return true, if a refresh is pending
+     */
+    public static boolean isPending(final String refsetInternalId) {
+
+        return PENDING.contains(refsetInternalId);
+    }
+
+    /**
+     * Counts the members of a refset and saves the count if it changed.
+     *
+     * @param refsetInternalId the internal refset ID
+     */
+    private static void run(final String refsetInternalId) {
+
+        // a change made while counting requests another refresh
+        PENDING.remove(refsetInternalId);
+
+        try (final TerminologyService service = new TerminologyService()) {
+
+            final Refset refset = service.get(refsetInternalId, Refset.class);
+
+            if (refset == null) {
+                return;
+            }
+
+            final int memberCount = RefsetMemberService.getMemberCount(refset);
+
+            if (memberCount == refset.getMemberCount()) {
+                return;
+            }
+
+            LOG.debug("Member count of refset {} changed from {} to {}", refsetInternalId, refset.getMemberCount(), memberCount);
+
+            updateMemberCount(service, refsetInternalId, refset.getRefsetId(), memberCount);
+
+        } catch (final Exception e) {
+
+            LOG.warn("Unable to refresh the member count of refset {}: {}", refsetInternalId, e.getMessage());
+        }
+    }
+
+    /**
+     * Saves the member count of a refset without writing the rest of the refset, then reindexes the refset as stored.
+     *
+     * @param service the Terminology Service
+     * @param refsetInternalId the internal refset ID
+     * @param refsetId the refset ID
+     * @param memberCount the member count
+     * @throws Exception the exception
+     */
+    private static void updateMemberCount(final TerminologyService service, final String refsetInternalId, final String refsetId,
+        final int memberCount) throws Exception {
+
+        service.setTransactionPerOperation(false);
+        service.beginTransaction();
+
+        final int updated;
+
+        try {
+
+            updated = service.getEntityManager().createQuery("UPDATE Refset r SET r.memberCount = :memberCount WHERE r.id = :id")
+                .setParameter("memberCount", memberCount).setParameter("id", refsetInternalId).executeUpdate();
+            service.commit();
+
+        } catch (final Exception e) {
+
+            service.rollback();
+            throw e;
+
+        } finally {
+
+            service.setTransactionPerOperation(true);
+        }
+
+        if (updated == 0) {
+            return;
+        }
+
+        // a bulk update bypasses automatic indexing and the cached versions of the refset
+        service.clear();
+        final Refset refset = service.get(refsetInternalId, Refset.class);
+
+        if (refset != null) {
+
+            final SearchSession searchSession = Search.session(service.getEntityManager());
+            searchSession.indexingPlan().addOrUpdate(refset);
+            searchSession.indexingPlan().execute();
+        }
+
+        RefsetVersionIndex.invalidate(refsetId);
+    }
+}
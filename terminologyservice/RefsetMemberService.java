@@ -27,6 +27,7 @@ import java.nio.file.StandardCopyOption;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
@@ -37,14 +38,9 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.UUID;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -56,35 +52,40 @@ import org.apache.commons.lang3.StringUtils;
 import org.ihtsdo.refsetservice.handler.ExportHandler;
 import org.ihtsdo.refsetservice.handler.TerminologyServerHandler;
 import org.ihtsdo.refsetservice.model.Concept;
+import org.ihtsdo.refsetservice.model.ConceptDescription;
 import org.ihtsdo.refsetservice.model.ResultListConcept;
 import org.ihtsdo.refsetservice.model.ResultListMapping;
 import org.ihtsdo.refsetservice.model.DefinitionClause;
 import org.ihtsdo.refsetservice.model.Edition;
+import org.ihtsdo.refsetservice.model.ExportJob;
 import org.ihtsdo.refsetservice.model.MapEntry;
 import org.ihtsdo.refsetservice.model.Mapping;
 import org.ihtsdo.refsetservice.model.PfsParameter;
 import org.ihtsdo.refsetservice.model.Refset;
 import org.ihtsdo.refsetservice.model.RefsetMemberComparison;
+import org.ihtsdo.refsetservice.model.RestException;
 import org.ihtsdo.refsetservice.model.UpgradeInactiveConcept;
 import org.ihtsdo.refsetservice.model.UpgradeReplacementConcept;
 import org.ihtsdo.refsetservice.model.User;
 import org.ihtsdo.refsetservice.service.SecurityService;
 import org.ihtsdo.refsetservice.service.TerminologyService;
+import org.ihtsdo.refsetservice.util.BranchCache;
 import org.ihtsdo.refsetservice.util.ConceptLookupParameters;
 import org.ihtsdo.refsetservice.util.DateUtility;
+import org.ihtsdo.refsetservice.util.DefinitionClauseIndex;
 import org.ihtsdo.refsetservice.util.FileUtility;
 import org.ihtsdo.refsetservice.util.HandlerUtility;
+import org.ihtsdo.refsetservice.util.JsonUtility;
 import org.ihtsdo.refsetservice.util.ModelUtility;
 import org.ihtsdo.refsetservice.util.PropertyUtility;
 import org.ihtsdo.refsetservice.util.ResultList;
+import org.ihtsdo.refsetservice.util.SctidSet;
 import org.ihtsdo.refsetservice.util.SearchParameters;
 import org.ihtsdo.refsetservice.util.TaxonomyParameters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Service class to get refset member concept information from a terminology
@@ -109,25 +110,19 @@ public final class RefsetMemberService {
 	private static final Map<String, String> REFSET_TO_LANGUAGES_MAP = new HashMap<>();
 
 	/** The description term. */
-	public static final String DESCRIPTION_TERM = "term";
+	public static final String DESCRIPTION_TERM = ConceptDescription.TERM;
 
 	/** The description type. */
-	private static final String DESCRIPTION_TYPE = "type";
+	private static final String DESCRIPTION_TYPE = ConceptDescription.TYPE;
 
 	/** The description language. */
-	private static final String DESCRIPTION_LANGUAGE = "language";
-
-	/** The description language. */
-	private static final String DESCRIPTION_ID = "descriptionId";
+	private static final String DESCRIPTION_LANGUAGE = ConceptDescription.LANGUAGE;
 
 	/** The description language code. */
-	private static final String LANGUAGE_CODE = "languageCode";
+	private static final String LANGUAGE_CODE = ConceptDescription.LANGUAGE_CODE;
 
 	/** The description language code and type combined. */
-	public static final String LANGUAGE_ID = "languageId";
-
-	/** The description language. */
-	private static final String LANGUAGE_NAME = "languageName";
+	public static final String LANGUAGE_ID = ConceptDescription.LANGUAGE_ID;
 
 	/** The upgrade changed status for REPLACEMENT_REMOVED. */
 	public static final String REPLACEMENT_REMOVED = "REPLACEMENT_REMOVED";
@@ -159,20 +154,39 @@ public final class RefsetMemberService {
 	/** A list of refset actively being updated. */
 	public static final Map<String, Map<String, Map<String, String>>> REFSETS_UPDATED_MEMBERS = new HashMap<>();
 
-	/** A cache of the members returned for a specific URL. */
-	public static final Map<String, Map<String, ResultListConcept>> CONCEPTS_CALL_CACHE = new HashMap<>();
+	/** The maximum number of branches held by each member cache. */
+	private static final int MEMBER_CACHE_MAX_BRANCHES = 200;
+
+	/** The time to live of a member cache entry, in milliseconds. */
+	private static final long MEMBER_CACHE_TIME_TO_LIVE = TimeUnit.HOURS.toMillis(12);
+
+	/**
+	 * A cache of the members returned for a specific URL, weighed by concept count.
+	 * Values are shared with the edit branch until either branch reads them.
+	 */
+	public static final BranchCache<ResultListConcept> CONCEPTS_CALL_CACHE = new BranchCache<>("conceptsCall", MEMBER_CACHE_MAX_BRANCHES, 200000,
+			MEMBER_CACHE_TIME_TO_LIVE, results -> results.getItems() == null ? 1 : results.getItems().size(),
+			RefsetMemberService::copyResultList);
 
 	/** A cache of the details for any concept. */
-	public static final Map<String, Map<String, Concept>> CONCEPT_DETAILS_CACHE = new HashMap<>();
+	public static final BranchCache<Concept> CONCEPT_DETAILS_CACHE = new BranchCache<>("conceptDetails", MEMBER_CACHE_MAX_BRANCHES, 50000,
+			MEMBER_CACHE_TIME_TO_LIVE, null);
 
 	/** A cache of the taxonomy ancestor path for concepts. */
-	public static final Map<String, Map<String, Concept>> TAXONOMY_SEARCH_ANCESTORS_CACHE = new HashMap<>();
+	public static final BranchCache<Concept> TAXONOMY_SEARCH_ANCESTORS_CACHE = new BranchCache<>("taxonomySearchAncestors", MEMBER_CACHE_MAX_BRANCHES,
+			50000, MEMBER_CACHE_TIME_TO_LIVE, null);
+
+	/** A cache of the children for each tree node, weighed by concept count. */
+	private static final BranchCache<ResultListConcept> TREE_CACHE = new BranchCache<>("tree", MEMBER_CACHE_MAX_BRANCHES, 200000,
+			MEMBER_CACHE_TIME_TO_LIVE, results -> results.getItems() == null ? 1 : results.getItems().size());
 
-	/** A cache of the children for each tree node. */
-	private static final Map<String, Map<String, ResultListConcept>> TREE_CACHE = new HashMap<>();
+	/** A cache of the ancestors of the members of each refset, weighed by ancestor count. */
+	public static final BranchCache<SctidSet> ANCESTORS_CACHE = new BranchCache<>("ancestors", MEMBER_CACHE_MAX_BRANCHES, 2000000,
+			MEMBER_CACHE_TIME_TO_LIVE, SctidSet::size);
 
-	/** A cache of the children for each tree node. */
-	public static final Map<String, Map<String, Set<String>>> ANCESTORS_CACHE = new HashMap<>();
+	/** A cache of the active member IDs of each refset, weighed by member count. */
+	public static final BranchCache<SctidSet> MEMBERSHIP_CACHE = new BranchCache<>("membership", MEMBER_CACHE_MAX_BRANCHES, 2000000,
+			MEMBER_CACHE_TIME_TO_LIVE, SctidSet::size);
 
 	/** The Constant CONCEPT_DESCRIPTIONS_PER_CALL. */
 	public static final int CONCEPT_DESCRIPTIONS_PER_CALL = 250;
@@ -196,7 +210,7 @@ public final class RefsetMemberService {
 	public static final String PREFERRED_TERM_EN = "900000000000509007PT";
 
 	/** The Constant REFSET_TO_PUBLISHED_VERSION_MAP. */
-	public static final Map<String, List<Long>> REFSET_TO_PUBLISHED_VERSION_MAP = new HashMap<>();
+	public static final Map<String, List<Long>> REFSET_TO_PUBLISHED_VERSION_MAP = new ConcurrentHashMap<>();
 
 	static {
 
@@ -371,7 +385,7 @@ public final class RefsetMemberService {
 	 * @throws Exception the exception
 	 */
 	public static List<Map<String, String>> sortConceptDescriptions(final String conceptId,
-			final Set<Map<String, String>> descriptions, final Refset refset,
+			final Set<ConceptDescription> descriptions, final Refset refset,
 			final List<String> nonDefaultPreferredTerms) throws Exception {
 
 		// Sort descriptions in the order defined below.
@@ -383,77 +397,39 @@ public final class RefsetMemberService {
 		// -- b. If no translation, will be null
 
 		// do this for each concept
-		final List<Map<String, String>> sortedDescriptionList = new ArrayList<>();
-		final Map<String, Set<Map<String, String>>> sortingMap = new HashMap<>();
+		final ArrayList<Map<String, String>> sortedDescriptionList = new ArrayList<>();
+		final Map<String, Set<ConceptDescription>> sortingMap = new HashMap<>();
+		final String defaultLanguageCode = refset.getEdition().getDefaultLanguageCode();
 
 		// Actual code
-		for (final Map<String, String> descriptionMap : descriptions) {
-
-			final String languageId = descriptionMap.get(LANGUAGE_ID);
-
-			if (!sortingMap.containsKey(languageId)) {
+		for (final ConceptDescription description : descriptions) {
 
-				sortingMap.put(languageId, new HashSet<Map<String, String>>());
-			}
-
-			// Handle the default language
-			if (descriptionMap.get(DESCRIPTION_LANGUAGE).equals(refset.getEdition().getDefaultLanguageCode())) {
-
-				if (descriptionMap.get(DESCRIPTION_TYPE).equalsIgnoreCase("fsn")) {
+			final String languageId = description.getLanguageId();
+			final Set<ConceptDescription> languageDescriptions = sortingMap.computeIfAbsent(languageId,
+					k -> new HashSet<>());
+			final boolean defaultLanguage = description.getLanguage().equals(defaultLanguageCode);
 
-					if (sortingMap.containsKey(languageId) && !sortingMap.get(languageId).isEmpty()) {
-
-						displayDuplicateWarning("A FSN in the default language", conceptId,
-								descriptionMap.get(DESCRIPTION_LANGUAGE), sortingMap.get(languageId), descriptionMap);
-						continue;
-					}
+			// only one FSN or PT per language
+			if (!languageDescriptions.isEmpty()) {
 
-					sortingMap.get(languageId).add(descriptionMap);
+				if (description.getDescriptionType() == ConceptDescription.Type.FSN) {
 
-				} else {
-
-					if ("pt".equalsIgnoreCase(descriptionMap.get(DESCRIPTION_TYPE))
-							&& sortingMap.containsKey(languageId) && !sortingMap.get(languageId).isEmpty()) {
-
-						displayDuplicateWarning("A PT in the default language", conceptId,
-								descriptionMap.get(DESCRIPTION_LANGUAGE), sortingMap.get(languageId), descriptionMap);
-						continue;
-					}
-
-					sortingMap.get(languageId).add(descriptionMap);
-				}
-
-			}
-
-			// Handle the non-default languages
-			else {
-
-				if (descriptionMap.get(DESCRIPTION_TYPE).equalsIgnoreCase("fsn")) {
-
-					if (sortingMap.containsKey(languageId) && !sortingMap.get(languageId).isEmpty()) {
-
-						displayDuplicateWarning("A FSN in a non-default language", conceptId,
-								descriptionMap.get(DESCRIPTION_LANGUAGE), sortingMap.get(languageId), descriptionMap);
-						continue;
-					}
-
-					sortingMap.get(languageId).add(descriptionMap);
-
-				} else {
-
-					if ("pt".equalsIgnoreCase(descriptionMap.get(DESCRIPTION_TYPE))
-							&& sortingMap.containsKey(languageId) && !sortingMap.get(languageId).isEmpty()) {
+					displayDuplicateWarning(
+							defaultLanguage ? "A FSN in the default language" : "A FSN in a non-default language",
+							conceptId, description.getLanguage(), languageDescriptions, description);
+					continue;
 
-						displayDuplicateWarning("A PT in a non-default language", conceptId,
-								descriptionMap.get(DESCRIPTION_LANGUAGE), sortingMap.get(languageId), descriptionMap);
-						continue;
-					}
+				} else if (description.getDescriptionType() == ConceptDescription.Type.PT) {
 
-					sortingMap.get(languageId).add(descriptionMap);
+					displayDuplicateWarning(
+							defaultLanguage ? "A PT in the default language" : "A PT in a non-default language",
+							conceptId, description.getLanguage(), languageDescriptions, description);
+					continue;
 				}
 
 			}
 
+			languageDescriptions.add(description);
 		}
 
 		final List<Map<String, String>> languageRefsets = refset.getEdition().getFullyQualifiedLanguageRefsets();
@@ -501,6 +477,8 @@ public final class RefsetMemberService {
 			sortedDescriptionList.addAll(sortingMap.get(languageId));
 		}
 
+		// concepts keep their descriptions for as long as they are cached
+		sortedDescriptionList.trimToSize();
 		return sortedDescriptionList;
 	}
 
@@ -514,7 +492,7 @@ public final class RefsetMemberService {
 	 * @param descriptionMap       the desc map
 	 */
 	private static void displayDuplicateWarning(final String errorMessage, final String conceptId,
-			final String language, final Set<Map<String, String>> existingDescriptions,
+			final String language, final Set<? extends Map<String, String>> existingDescriptions,
 			final Map<String, String> descriptionMap) {
 
 		LOG.warn(errorMessage + "(" + language + ") has already been identified for conceptId: " + conceptId);
@@ -613,6 +591,125 @@ public final class RefsetMemberService {
 
 	}
 
+	/**
+	 * Submits a refset export to run in the background. Requests for the same
+	 * export file join the job already queued or running for it, so the user is
+	 * checked for permission to read the refset first.
+	 *
+	 * @param service                the service
+	 * @param user                   the user
+	 * @param refsetInternalId       the internal refset ID
+	 * @param format                 the format: rf2, rf2_with_names, sctids or
+	 *                               freeset
+	 * @param type                   the RF2 type SNAPSHOT or DELTA
+	 * @param languageId             the language to display names in
+	 * @param fileNameDate           the file name date
+	 * @param startEffectiveTime     the start effective time
+	 * @param transientEffectiveTime the transient effective time
+	 * @param exportMetadata         should refset metadata be included in the
+	 *                               export
+	 * @return the export job
+	 * @throws Exception the exception
+	 */
+	public static ExportJob submitRefsetExport(final TerminologyService service, final User user,
+			final String refsetInternalId, final String format, final String type, final String languageId,
+			final String fileNameDate, final String startEffectiveTime, final String transientEffectiveTime,
+			final boolean exportMetadata) throws Exception {
+
+		final Refset refset = RefsetService.getRefset(service, user, refsetInternalId);
+
+		if (refset.isPrivateRefset() && !refset.getRoles().contains(User.ROLE_VIEWER)) {
+
+			throw new RestException(false, 403, "Forbidden", "User does not have permission to perform this action");
+		}
+
+		if ("rf2".equalsIgnoreCase(format) || "rf2_with_names".equalsIgnoreCase(format)) {
+
+			final boolean withNames = "rf2_with_names".equalsIgnoreCase(format);
+			final boolean snapshot = "SNAPSHOT".equals(type);
+
+			final Set<String> dates = new HashSet<>();
+			dates.add(transientEffectiveTime);
+
+			if (startEffectiveTime != null) {
+
+				dates.add(startEffectiveTime);
+			}
+
+			// the same identity the exported file is cached under in S3
+			final ExportHandler exporter = new ExportHandler();
+			final String key = exporter.generateAwsBaseVersionPath(refset, type, dates) + "/"
+					+ exporter.generateRt2VersionFileName(refset, type, languageId, dates, exportMetadata, withNames);
+
+			return ExportJobService.submit(key, user.getUserName(), refsetInternalId,
+					format + " " + type + " export of refset " + refset.getRefsetId(), () -> {
+
+				try (final TerminologyService jobService = new TerminologyService()) {
+
+					return snapshot
+							? exportRefsetRf2(jobService, refsetInternalId, type, languageId, fileNameDate,
+									startEffectiveTime, transientEffectiveTime, exportMetadata, withNames)
+							: exportRefsetRf2Delta(jobService, user, refsetInternalId, type, languageId, fileNameDate,
+									startEffectiveTime, transientEffectiveTime, exportMetadata, withNames);
+				}
+			});
+
+		} else if ("sctids".equals(format)) {
+
+			return ExportJobService.submit("sctids/" + refsetInternalId + "/" + exportMetadata, user.getUserName(),
+					refsetInternalId, "sctids export of refset " + refsetInternalId, () -> {
+
+						try (final TerminologyService jobService = new TerminologyService()) {
+
+							return exportRefsetSctidList(jobService, refsetInternalId, exportMetadata);
+						}
+					});
+
+		} else if ("freeset".equals(format)) {
+
+			return ExportJobService.submit("freeset/" + refsetInternalId + "/" + languageId, user.getUserName(),
+					refsetInternalId, "freeset export of refset " + refsetInternalId, () -> {
+
+						try (final TerminologyService jobService = new TerminologyService()) {
+
+							return exportFreeset(jobService, refsetInternalId, languageId);
+						}
+					});
+		}
+
+		throw new RestException(false, 400, "Bad request", "Unsupported export format " + format);
+	}
+
+	/**
+	 * Submits an export of the latest version of all published refsets for a
+	 * project to run in the background. The refsets exported depend on what the
+	 * user can see, so only requests for the same export by the same user join the
+	 * job already queued or running for it.
+	 *
+	 * @param user           the user
+	 * @param projectId      the project id
+	 * @param languageId     the language id
+	 * @param fileNameDate   the file name date
+	 * @param exportMetadata the export metadata
+	 * @param withNames      the with names
+	 * @return the export job
+	 */
+	public static ExportJob submitProjectExport(final User user, final String projectId, final String languageId,
+			final String fileNameDate, final boolean exportMetadata, final boolean withNames) {
+
+		final String key = "project/" + projectId + "/" + user.getUserName() + "/" + languageId + "/" + fileNameDate
+				+ "/" + exportMetadata + "/" + withNames;
+
+		return ExportJobService.submit(key, user.getUserName(), null, "export of project " + projectId, () -> {
+
+			try (final TerminologyService jobService = new TerminologyService()) {
+
+				return exportAllRefsetsRf2ForProject(jobService, user, projectId, "snapshot", languageId, fileNameDate,
+						exportMetadata, withNames);
+			}
+		});
+	}
+
 	/**
 	 * Export latest version of published all refsets for a project.
 	 *
@@ -647,8 +744,15 @@ public final class RefsetMemberService {
 
 		try {
 
+			int versionsExported = 0;
+
 			for (final Object[] o : queryResults) {
 
+				ExportJobService.reportProgress(
+						"Exporting refset " + (versionsExported + 1) + " of " + queryResults.size(),
+						versionsExported * 100 / queryResults.size());
+				versionsExported++;
+
 				final SearchParameters searchParameters = new SearchParameters();
 				final String versionDate = simpleDateFormat.format(o[1]);
 				searchParameters.setQuery("refsetId:" + o[0].toString() + " AND versionDate:" + versionDate
@@ -672,6 +776,7 @@ public final class RefsetMemberService {
 			}
 
 			// add all files into a zip file
+			ExportJobService.reportProgress("Packaging " + refsetFiles.size() + " refset files", 99);
 			final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyymmdd-hhmmss");
 			final String zipFileName = String.format("RT2-Downloaded-refsets-%s.zip", dateFormat.format(new Date()));
 			zipFiles(refsetFiles, exportFileDir + zipFileName);
@@ -789,6 +894,7 @@ public final class RefsetMemberService {
 							+ "}";
 
 					LOG.debug("generating file from snowstorm");
+					ExportJobService.reportProgress("Generating the export on the terminology server", null);
 					// Generate on SnowS
 					final String snowGeneratedFileUrl = exporter.generateSnowVersionFile(entityString);
 
@@ -808,6 +914,7 @@ public final class RefsetMemberService {
 				}
 
 				LOG.debug("converting snowstorm genned file to RT2 format");
+				ExportJobService.reportProgress("Converting the export to RT2 format", null);
 				// Have access to localSnowGeneratedFilePath from which rt2 will
 				// generate the
 				// export file
@@ -1283,138 +1390,222 @@ public final class RefsetMemberService {
 	private static void appendNamesToRf2(final Refset refset, final String origFilePath,
 			final String newFileWithNamesPath, final String languageId) throws Exception {
 
-		// Move rf2 file to a tmp (as we create new one below). Update sourceFiles
-		// accordingly
 		LOG.debug("Appending descriptions to RF2 file");
 
-		// Get member cache
-		final List<Concept> conceptsNotInCache = new ArrayList<>();
-		final Map<String, Concept> members = new HashMap<>();
-
-		// Read through file and identify those concepts not in cache or don't have all
-		// requisite languages populated
-		try (BufferedReader br = new BufferedReader(new FileReader(new File(origFilePath)))) {
+		// Stream the file in windows of members: descriptions for the next window are
+		// fetched while the current one is written, so only two windows are in memory
+		final String branchPath = getBranchPath(refset);
 
-			String extractedLine = br.readLine();
-			extractedLine = br.readLine();
+		try (final BufferedReader br = Files.newBufferedReader(Path.of(origFilePath), StandardCharsets.UTF_8);
+				final BufferedWriter writer = Files.newBufferedWriter(Path.of(newFileWithNamesPath),
+						StandardCharsets.UTF_8)) {
 
-			while (extractedLine != null && !extractedLine.trim().isEmpty()) {
+			// get the header line so we can add the new description header
+			final String headerLine = br.readLine();
 
-				final String conceptId = extractedLine.split("\t")[REFEST_RF2_CONCEPTID_COLUMN];
+			for (final Map<String, String> defaultLanguages : refset.getEdition().getFullyQualifiedLanguageRefsets()) {
 
-				// TODO: Also check doesn't have all needed languages
-				if (!members.containsKey(conceptId) || members.get(conceptId).getDescriptions().isEmpty()) {
+				if (languageId.equals(defaultLanguages.get("qualifiedLanguageRefset"))) {
 
-					final Concept concept = new Concept();
-					concept.setCode(conceptId);
-					conceptsNotInCache.add(concept);
+					writer.write(headerLine);
+					writer.write('\t');
+					writer.write(defaultLanguages.get("qualifiedLanguageCode"));
+					writer.write('\n');
 				}
 
-				extractedLine = br.readLine();
+			}
 
-				if (conceptsNotInCache.size() == CONCEPT_DESCRIPTIONS_PER_CALL || extractedLine == null) {
+			List<String> lines = readRf2Window(br);
+			Map<String, Concept> members = getRf2WindowMembers(lines);
+			SnowstormWorkerPool.Batch descriptions = lines.isEmpty() ? null
+					: populateRf2WindowDescriptions(refset, branchPath, members);
 
-					populateAllLanguageDescriptions(refset, conceptsNotInCache);
+			while (descriptions != null) {
 
-					// Populate Members cache with data
-					for (final Concept concept : conceptsNotInCache) {
+				final List<String> currentLines = lines;
+				final Map<String, Concept> currentMembers = members;
+				final SnowstormWorkerPool.Batch currentDescriptions = descriptions;
 
-						if (!members.containsKey(concept.getCode())) {
+				lines = readRf2Window(br);
+				members = getRf2WindowMembers(lines);
+				descriptions = lines.isEmpty() ? null : populateRf2WindowDescriptions(refset, branchPath, members);
 
-							members.put(concept.getCode(), concept);
-						} else {
+				currentDescriptions.await();
+				writeRf2WindowWithNames(writer, currentLines, currentMembers, languageId);
+			}
+		}
 
-							members.get(concept.getCode()).setDescriptions(concept.getDescriptions());
-						}
+	}
 
-					}
+	/**
+	 * Reads the next window of member lines from an RF2 file, stopping at the end of
+	 * the members.
+	 *
+	 * @param br the reader
+	 * @return the member lines, empty when there are none left
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static List<String> readRf2Window(final BufferedReader br) throws IOException {
 
-					conceptsNotInCache.clear();
-				}
+		final List<String> lines = new ArrayList<>(CONCEPT_DESCRIPTIONS_PER_CALL);
+		String extractedLine = null;
 
-			}
+		while (lines.size() < CONCEPT_DESCRIPTIONS_PER_CALL && (extractedLine = br.readLine()) != null
+				&& !extractedLine.trim().isEmpty()) {
 
-			br.close();
+			lines.add(extractedLine);
 		}
 
-		// Get descriptions for those not cached or not cached with all languages. Read
-		// through file 2nd time and write each line to new file while appending
-		// selected name
-		try (final FileWriter fw = new FileWriter(new File(newFileWithNamesPath));
-				final BufferedReader br = new BufferedReader(new FileReader(new File(origFilePath)))) {
+		return lines;
+	}
 
-			// get the header line so we can add the new description header
-			String extractedLine = br.readLine();
+	/**
+	 * Returns the member concepts of a window of RF2 lines, without descriptions.
+	 *
+	 * @param lines the member lines
+	 * @return the member concepts by concept id
+	 */
+	private static Map<String, Concept> getRf2WindowMembers(final List<String> lines) {
 
-			for (final Map<String, String> defaultLanguages : refset.getEdition().getFullyQualifiedLanguageRefsets()) {
+		final Map<String, Concept> members = new HashMap<>();
 
-				if (languageId.equals(defaultLanguages.get("qualifiedLanguageRefset"))) {
+		for (final String line : lines) {
 
-					fw.write(extractedLine + "\t" + defaultLanguages.get("qualifiedLanguageCode") + "\n");
-				}
+			final String conceptId = getRf2Column(line, REFEST_RF2_CONCEPTID_COLUMN);
+
+			if (!members.containsKey(conceptId)) {
 
+				final Concept concept = new Concept();
+				concept.setCode(conceptId);
+				members.put(conceptId, concept);
 			}
 
-			// get the first line of concepts
-			extractedLine = br.readLine();
+		}
+
+		return members;
+	}
+
+	/**
+	 * Starts populating the member concepts of a window with their descriptions on
+	 * the Snowstorm workers.
+	 *
+	 * @param refset     the refset
+	 * @param branchPath the branch path of the refset
+	 * @param members    the member concepts by concept id
+	 * @return the batch to await before the members are read
+	 */
+	private static SnowstormWorkerPool.Batch populateRf2WindowDescriptions(final Refset refset,
+			final String branchPath, final Map<String, Concept> members) {
+
+		final SnowstormWorkerPool.Batch batch = SnowstormWorkerPool.newBatch(branchPath, 10, TimeUnit.MINUTES);
 
-			while (extractedLine != null) {
+		batch.submit(new Runnable() {
 
-				final String conceptId = extractedLine.split("\t")[REFEST_RF2_CONCEPTID_COLUMN];
+			/* see superclass */
+			@Override
+			public void run() {
 
-				// TODO: How to determine which language
-				if (!members.containsKey(conceptId)) {
+				try {
 
-					throw new Exception("Didn't have concept populated with descriptions yet");
+					populateAllLanguageDescriptions(refset, new ArrayList<>(members.values()));
+				} catch (final Exception e) {
+
+					throw new RuntimeException(e);
 				}
 
-				boolean written = false;
-				int i = 0;
-				String fallbackDescription = null;
+			}
+		});
 
-				while (i < members.get(conceptId).getDescriptions().size()) {
+		return batch;
+	}
 
-					final Map<String, String> description = members.get(conceptId).getDescriptions().get(i);
+	/**
+	 * Writes a window of member lines, appending the name of each member in the
+	 * language, or the English preferred term when the member has no name in the
+	 * language.
+	 *
+	 * @param writer     the writer
+	 * @param lines      the member lines
+	 * @param members    the member concepts by concept id
+	 * @param languageId the language id
+	 * @throws Exception the exception
+	 */
+	private static void writeRf2WindowWithNames(final BufferedWriter writer, final List<String> lines,
+			final Map<String, Concept> members, final String languageId) throws Exception {
 
-					// if this isn't the description we want
-					if (description == null || !languageId.equals(description.get(LANGUAGE_ID))) {
+		for (final String line : lines) {
 
-						// If this is the English PT add it as a fallback to use if the language we want
-						// isn't on this concept
-						if (description != null && description.get(LANGUAGE_ID).equals(PREFERRED_TERM_EN)) {
+			final String conceptId = getRf2Column(line, REFEST_RF2_CONCEPTID_COLUMN);
+			final Concept member = members.get(conceptId);
 
-							fallbackDescription = extractedLine + "\t" + description.get(DESCRIPTION_TERM);
-						}
+			// TODO: How to determine which language
+			if (member == null) {
 
-						i++;
-						continue;
-					}
+				throw new Exception("Didn't have concept populated with descriptions yet");
+			}
 
-					fw.write(extractedLine + "\t" + description.get(DESCRIPTION_TERM));
-					written = true;
+			String name = null;
+			String fallbackName = null;
+
+			for (final Map<String, String> description : member.getDescriptions()) {
+
+				if (description != null && languageId.equals(description.get(LANGUAGE_ID))) {
+
+					name = description.get(DESCRIPTION_TERM);
 					break;
 				}
 
-				// If the language we want isn't on this concept try to use the English fallback
-				if (!written && fallbackDescription != null) {
+				// If this is the English PT add it as a fallback to use if the language we want
+				// isn't on this concept
+				if (description != null && PREFERRED_TERM_EN.equals(description.get(LANGUAGE_ID))) {
 
-					fw.write(fallbackDescription);
-					written = true;
+					fallbackName = description.get(DESCRIPTION_TERM);
+				}
 
-				} else if (!written) {
+			}
 
-					throw new Exception("Not seeing the expected descriptions for member: " + conceptId
-							+ " as have these descriptions: " + members.get(conceptId).getDescriptions());
-				}
+			if (name == null && fallbackName == null) {
 
-				fw.write("\n");
-				extractedLine = br.readLine();
+				throw new Exception("Not seeing the expected descriptions for member: " + conceptId
+						+ " as have these descriptions: " + member.getDescriptions());
 			}
 
+			writer.write(line);
+			writer.write('\t');
+			writer.write(name != null ? name : fallbackName);
+			writer.write('\n');
 		}
 
 	}
 
+	/**
+	 * Returns a tab separated column of an RF2 line without splitting the whole
+	 * line.
+	 *
+	 * @param line   the line
+	 * @param column the zero based column
+	 * @return the column value
+	 */
+	private static String getRf2Column(final String line, final int column) {
+
+		int start = 0;
+
+		for (int i = 0; i < column; i++) {
+
+			start = line.indexOf('\t', start) + 1;
+
+			if (start == 0) {
+
+				throw new ArrayIndexOutOfBoundsException("RF2 line has no column " + column + ": " + line);
+			}
+
+		}
+
+		final int end = line.indexOf('\t', start);
+
+		return end < 0 ? line.substring(start) : line.substring(start, end);
+	}
+
 	/**
 	 * Get the refset member basic information.
 	 *
@@ -1485,8 +1676,7 @@ public final class RefsetMemberService {
 				final String resultString = getMemberSctids(refset.getRefsetId(), limit, searchAfter,
 						getBranchPath(refset));
 				// LOG.debug("exportRefsetSctidList: resultString" + resultString);
-				final ObjectMapper mapper = new ObjectMapper();
-				final JsonNode root = mapper.readTree(resultString);
+				final JsonNode root = JsonUtility.readTree(resultString);
 				final JsonNode items = root.get("items");
 				final Iterator<JsonNode> iterator = items.iterator();
 				LOG.debug("exportRefsetSctidList items.size(): " + items.size());
@@ -2116,10 +2306,12 @@ public final class RefsetMemberService {
 		String searchMembersMode = "all";
 
 		// check if the concept call has been cached
-		if (branchCache.containsKey(cacheString)) {
+		final ResultListConcept cached = branchCache.get(cacheString);
+
+		if (cached != null) {
 
 			LOG.debug("prepareConceptSearch USING CACHE");
-			return branchCache.get(cacheString);
+			return cached;
 		}
 
 		if (searchRefsetMembers) {
@@ -2199,18 +2391,17 @@ public final class RefsetMemberService {
 	 * @param nonDefaultPreferredTerms the non default preferred terms
 	 * @return the sets the
 	 */
-	public static Set<Map<String, String>> processDescriptionNodes(final Set<JsonNode> descriptionNodes,
+	public static Set<ConceptDescription> processDescriptionNodes(final Set<JsonNode> descriptionNodes,
 			final Set<String> defaultLanguageRefsets, final List<String> nonDefaultPreferredTerms) {
 
-		final Set<Map<String, String>> descriptions = new HashSet<>();
+		final Set<ConceptDescription> descriptions = new HashSet<>();
 
 		for (final JsonNode descriptionNode : descriptionNodes) {
 
-			final Map<String, String> descriptionAttributesMap = new HashMap<>();
 			final JsonNode acceptabilityMap = descriptionNode.get("acceptabilityMap");
 			String acceptability = null;
 			String languageId = null;
-			String typeName = null;
+			ConceptDescription.Type type = null;
 
 			for (final String langRefsetId : defaultLanguageRefsets) {
 
@@ -2227,32 +2418,25 @@ public final class RefsetMemberService {
 
 				if ("900000000000003001".equals(descriptionNode.get("typeId").asText())) {
 
-					typeName = "FSN";
+					type = ConceptDescription.Type.FSN;
 				} else if ("900000000000550004".equals(descriptionNode.get("typeId").asText())) {
 
-					typeName = "DEF";
+					type = ConceptDescription.Type.DEF;
 				} else {
 
 					if ("PREFERRED".equals(acceptability)) {
 
-						typeName = "PT";
+						type = ConceptDescription.Type.PT;
 					} else {
 
-						typeName = "AC";
+						type = ConceptDescription.Type.AC;
 					}
 
 				}
 
-				descriptionAttributesMap.put(DESCRIPTION_TERM, descriptionNode.get("term").asText());
-				descriptionAttributesMap.put(DESCRIPTION_TYPE, typeName);
-				descriptionAttributesMap.put(DESCRIPTION_ID, descriptionNode.get("descriptionId").asText());
-				descriptionAttributesMap.put(LANGUAGE_CODE, languageId);
-				descriptionAttributesMap.put(LANGUAGE_ID, languageId + typeName);
-				descriptionAttributesMap.put(LANGUAGE_NAME,
-						descriptionNode.get("lang").asText().toUpperCase() + " (" + typeName + ")");
-				descriptionAttributesMap.put(DESCRIPTION_LANGUAGE, descriptionNode.get("lang").asText());
-
-				descriptions.add(descriptionAttributesMap);
+				descriptions.add(new ConceptDescription(descriptionNode.get("term").asText(),
+						descriptionNode.get("descriptionId").asText(), descriptionNode.get("lang").asText(), languageId,
+						type));
 			}
 
 		}
@@ -2269,14 +2453,7 @@ public final class RefsetMemberService {
 	 */
 	public static Map<String, ResultListConcept> getCacheForTree(final String branchPath) throws Exception {
 
-		if (TREE_CACHE.containsKey(branchPath)) {
-
-			return TREE_CACHE.get(branchPath);
-		} else {
-
-			return new HashMap<>();
-		}
-
+		return TREE_CACHE.getBranch(branchPath);
 	}
 
 	/**
@@ -2286,16 +2463,21 @@ public final class RefsetMemberService {
 	 * @return the cache collection
 	 * @throws Exception the exception
 	 */
-	public static Map<String, Set<String>> getCacheForMemberAncestors(final String branchPath) throws Exception {
-
-		if (ANCESTORS_CACHE.containsKey(branchPath)) {
+	public static Map<String, SctidSet> getCacheForMemberAncestors(final String branchPath) throws Exception {
 
-			return ANCESTORS_CACHE.get(branchPath);
-		} else {
+		return ANCESTORS_CACHE.getBranch(branchPath);
+	}
 
-			return new HashMap<>();
-		}
+	/**
+	 * Get a member ID cache collection for a branch path.
+	 *
+	 * @param branchPath the branch path of cache collection to return
+	 * @return the cache collection
+	 * @throws Exception the exception
+	 */
+	public static Map<String, SctidSet> getCacheForMembership(final String branchPath) throws Exception {
 
+		return MEMBERSHIP_CACHE.getBranch(branchPath);
 	}
 
 	/**
@@ -2307,14 +2489,7 @@ public final class RefsetMemberService {
 	 */
 	public static Map<String, Concept> getCacheForTaxonomySearchAncestors(final String branchPath) throws Exception {
 
-		if (TAXONOMY_SEARCH_ANCESTORS_CACHE.containsKey(branchPath)) {
-
-			return TAXONOMY_SEARCH_ANCESTORS_CACHE.get(branchPath);
-		} else {
-
-			return new HashMap<>();
-		}
-
+		return TAXONOMY_SEARCH_ANCESTORS_CACHE.getBranch(branchPath);
 	}
 
 	/**
@@ -2326,14 +2501,7 @@ public final class RefsetMemberService {
 	 */
 	public static Map<String, Concept> getCacheForConceptDetails(final String branchPath) throws Exception {
 
-		if (CONCEPT_DETAILS_CACHE.containsKey(branchPath)) {
-
-			return CONCEPT_DETAILS_CACHE.get(branchPath);
-		} else {
-
-			return new HashMap<>();
-		}
-
+		return CONCEPT_DETAILS_CACHE.getBranch(branchPath);
 	}
 
 	/**
@@ -2345,14 +2513,7 @@ public final class RefsetMemberService {
 	 */
 	public static Map<String, ResultListConcept> getCacheForConceptsCall(final String branchPath) throws Exception {
 
-		if (CONCEPTS_CALL_CACHE.containsKey(branchPath)) {
-
-			return CONCEPTS_CALL_CACHE.get(branchPath);
-		} else {
-
-			return new HashMap<>();
-		}
-
+		return CONCEPTS_CALL_CACHE.getBranch(branchPath);
 	}
 
 	/**
@@ -2372,6 +2533,7 @@ public final class RefsetMemberService {
 			TAXONOMY_SEARCH_ANCESTORS_CACHE.remove(branchPath);
 			TREE_CACHE.remove(branchPath);
 			ANCESTORS_CACHE.remove(branchPath);
+			MEMBERSHIP_CACHE.remove(branchPath);
 
 			// we also need to clear the refset export cache on S3
 			final ExportHandler exportHandler = new ExportHandler();
@@ -2386,10 +2548,29 @@ public final class RefsetMemberService {
 			TAXONOMY_SEARCH_ANCESTORS_CACHE.clear();
 			TREE_CACHE.clear();
 			ANCESTORS_CACHE.clear();
+			MEMBERSHIP_CACHE.clear();
 		}
 
 	}
 
+	/**
+	 * Returns the statistics of the caches related to refset members.
+	 *
+	 * @return the statistics, by cache name
+	 */
+	public static Map<String, Map<String, Object>> getMemberCacheStatistics() {
+
+		final Map<String, Map<String, Object>> statistics = new LinkedHashMap<>();
+
+		for (final BranchCache<?> cache : Arrays.asList(CONCEPTS_CALL_CACHE, CONCEPT_DETAILS_CACHE, TAXONOMY_SEARCH_ANCESTORS_CACHE, TREE_CACHE,
+				ANCESTORS_CACHE, MEMBERSHIP_CACHE)) {
+
+			statistics.put(cache.getName(), cache.getStatistics());
+		}
+
+		return statistics;
+	}
+
 	/**
 	 * Copy all branch cache collections to another branch.
 	 *
@@ -2425,59 +2606,72 @@ public final class RefsetMemberService {
 		LOG.debug("BRANCH CACHE copying from: " + fromBranchPath);
 		LOG.debug("BRANCH CACHE copying to: " + toBranchPath);
 
-		if (CONCEPTS_CALL_CACHE.containsKey(fromBranchPath)) {
+		if (changeEditProperty) {
+
+			// the editing flag is part of the search parameters in the cache keys, so
+			// share the source entries under keys with the flag flipped
+			final String fromKeyPart = "\"editing\":" + changeEditPropertyFrom;
+			final String toKeyPart = "\"editing\":" + changeEditPropertyTo;
+			CONCEPTS_CALL_CACHE.putShared(toBranchPath, fromBranchPath, key -> key.replace(fromKeyPart, toKeyPart));
 
-			Map<String, ResultListConcept> tempCache = CONCEPTS_CALL_CACHE.get(fromBranchPath);
+		} else {
 
-			if (changeEditProperty) {
+			copyBranch(CONCEPTS_CALL_CACHE, fromBranchPath, toBranchPath);
+		}
 
-				String cacheString = ModelUtility.toJson(tempCache);
-				cacheString = cacheString.replace("\\\"editing\\\":" + changeEditPropertyFrom,
-						"\\\"editing\\\":" + changeEditPropertyTo);
-				tempCache = ModelUtility.fromJson(cacheString, new TypeReference<Map<String, ResultListConcept>>() {
-					/**/
-				});
-			}
+		copyBranch(CONCEPT_DETAILS_CACHE, fromBranchPath, toBranchPath);
 
-			CONCEPTS_CALL_CACHE.put(toBranchPath, tempCache);
+		copyBranch(TAXONOMY_SEARCH_ANCESTORS_CACHE, fromBranchPath, toBranchPath);
 
-		} else {
+		copyBranch(TREE_CACHE, fromBranchPath, toBranchPath);
 
-			CONCEPTS_CALL_CACHE.remove(toBranchPath);
-		}
+		copyBranch(ANCESTORS_CACHE, fromBranchPath, toBranchPath);
 
-		if (CONCEPT_DETAILS_CACHE.containsKey(fromBranchPath)) {
+		copyBranch(MEMBERSHIP_CACHE, fromBranchPath, toBranchPath);
 
-			CONCEPT_DETAILS_CACHE.put(toBranchPath, CONCEPT_DETAILS_CACHE.get(fromBranchPath));
-		} else {
+	}
 
-			CONCEPT_DETAILS_CACHE.remove(toBranchPath);
-		}
+	/**
+	 * Returns a copy of a cached result list with copies of its concepts, so
+	 * changes to the concepts of one branch do not reach another.
+	 *
+	 * @param results the result list
+	 * @return the copy
+	 */
+	private static ResultListConcept copyResultList(final ResultListConcept results) {
 
-		if (TAXONOMY_SEARCH_ANCESTORS_CACHE.containsKey(fromBranchPath)) {
+		final ResultListConcept copy = new ResultListConcept(results);
 
-			TAXONOMY_SEARCH_ANCESTORS_CACHE.put(toBranchPath, TAXONOMY_SEARCH_ANCESTORS_CACHE.get(fromBranchPath));
-		} else {
+		if (results.getItems() != null) {
 
-			TAXONOMY_SEARCH_ANCESTORS_CACHE.remove(toBranchPath);
+			copy.setItems(results.getItems().stream().map(Concept::new).collect(Collectors.toList()));
 		}
 
-		if (TREE_CACHE.containsKey(fromBranchPath)) {
+		return copy;
+	}
 
-			TREE_CACHE.put(toBranchPath, TREE_CACHE.get(fromBranchPath));
-		} else {
+	/**
+	 * Registers the cache collection of a branch for another branch, or removes
+	 * the collection of the other branch if the branch is not cached.
+	 *
+	 * @param <V>            the cached value type
+	 * @param cache          the cache
+	 * @param fromBranchPath the branch path to copy from
+	 * @param toBranchPath   the branch path to copy to
+	 */
+	private static <V> void copyBranch(final BranchCache<V> cache, final String fromBranchPath,
+			final String toBranchPath) {
 
-			TREE_CACHE.remove(toBranchPath);
-		}
+		// a single lookup, as the branch can be evicted between two
+		final Map<String, V> branch = cache.get(fromBranchPath);
 
-		if (ANCESTORS_CACHE.containsKey(fromBranchPath)) {
+		if (branch != null) {
 
-			ANCESTORS_CACHE.put(toBranchPath, ANCESTORS_CACHE.get(fromBranchPath));
+			cache.put(toBranchPath, branch);
 		} else {
 
-			ANCESTORS_CACHE.remove(toBranchPath);
+			cache.remove(toBranchPath);
 		}
-
 	}
 
 	/**
@@ -2529,10 +2723,12 @@ public final class RefsetMemberService {
 		final Map<String, ResultListConcept> branchCache = getCacheForTree(branchPath);
 
 		// check if the members call has been cached
-		if (branchCache.containsKey(cacheString)) {
+		final ResultListConcept cached = branchCache.get(cacheString);
+
+		if (cached != null) {
 
 			LOG.debug("getMemberTaxonomy USING CACHE");
-			return branchCache.get(cacheString);
+			return cached;
 		}
 
 		// If parent concept is inactive, getChildren() will return a 400 error.
@@ -2710,8 +2906,7 @@ public final class RefsetMemberService {
 
 		final ResultListConcept conceptList = new ResultListConcept();
 		final String branchPath = getBranchPath(refset);
-		final String cacheString = refset.getRefsetId();
-		final Map<String, Set<String>> branchCache = getCacheForMemberAncestors(branchPath);
+		final SctidSet memberAncestors = getCacheForMemberAncestors(branchPath).get(refset.getRefsetId());
 		final SimpleDateFormat simpleDateFormat = new SimpleDateFormat(DATE_FORMAT);
 
 		JsonNode conceptNode = root;
@@ -2850,8 +3045,7 @@ public final class RefsetMemberService {
 					defined = true;
 				}
 
-				if (branchCache.containsKey(cacheString)
-						&& branchCache.get(cacheString).contains(conceptNode.get("conceptId").asText())) {
+				if (memberAncestors != null && memberAncestors.contains(conceptNode.get("conceptId").asText())) {
 
 					concept.setHasDescendantRefsetMembers(true);
 				}
@@ -3092,7 +3286,7 @@ public final class RefsetMemberService {
 			descriptionNodes.add(description);
 		}
 
-		final Set<Map<String, String>> populatedDescriptions = processDescriptionNodes(descriptionNodes,
+		final Set<ConceptDescription> populatedDescriptions = processDescriptionNodes(descriptionNodes,
 				refset.getEdition().getDefaultLanguageRefsets(), nonDefaultPreferredTerms);
 
 		return sortConceptDescriptions(conceptId, populatedDescriptions, refset, nonDefaultPreferredTerms);
@@ -3129,29 +3323,22 @@ public final class RefsetMemberService {
 			return conceptExceptionType;
 		}
 
-		final List<DefinitionClause> definitionClauses = refset.getDefinitionClauses();
-		final Pattern pattern = Pattern.compile("\\b" + concept.getCode() + "\\b");
-
-		for (int i = 1; i < definitionClauses.size(); i++) {
+		// the exception clauses are tokenized once per refset rather than searched per
+		// concept
+		final DefinitionClause clause = DefinitionClauseIndex.get(refset).getClause(concept.getCode());
 
-			final DefinitionClause clause = definitionClauses.get(i);
-			final Matcher matcher = pattern.matcher(clause.getValue());
+		if (clause != null) {
 
-			if (matcher.find()) {
+			if (clause.getNegated()) {
 
-				if (clause.getNegated()) {
-
-					conceptExceptionType = Refset.EXCLUSION;
-				} else {
-
-					conceptExceptionType = Refset.INCLUSION;
-				}
+				conceptExceptionType = Refset.EXCLUSION;
+			} else {
 
-				concept.setDefinitionExceptionType(conceptExceptionType);
-				concept.setDefinitionExceptionId(clause.getId());
-				return conceptExceptionType;
+				conceptExceptionType = Refset.INCLUSION;
 			}
 
+			concept.setDefinitionExceptionType(conceptExceptionType);
+			concept.setDefinitionExceptionId(clause.getId());
 		}
 
 		return conceptExceptionType;
@@ -3207,18 +3394,21 @@ public final class RefsetMemberService {
 
 		try {
 
-			final PfsParameter pfs = new PfsParameter();
-			pfs.setAscending(false);
-			pfs.setSort("latestVersion");
+			LOG.info("Starting to cache member ancestors for all Reference Sets");
 
-			final ResultList<Refset> refsets = service.find("", null, Refset.class, null);
-			LOG.info("Starting to cache member ancestors for all " + refsets.getItems().size() + " Reference Sets");
+			// stream the refsets so they are never all loaded at once
+			final long refsetCount = service.scroll("", null, Refset.class, null, 100, refsets -> {
 
-			for (final Refset refset : refsets.getItems()) {
+				for (final Refset refset : refsets) {
 
-				refset.setBranchPath(RefsetService.getBranchPath(refset));
-				cacheMemberAncestors(refset);
-			}
+					refset.setBranchPath(RefsetService.getBranchPath(refset));
+					cacheMemberAncestors(refset);
+				}
+
+				service.clear();
+			});
+
+			LOG.info("Finished caching member ancestors for " + refsetCount + " Reference Sets");
 
 		} catch (final Exception e) {
 
@@ -3709,7 +3899,9 @@ public final class RefsetMemberService {
 	}
 
 	/**
-	 * Compile and store the data to upgrade a refset.
+	 * Compile and store the data to compare two refsets. The active member IDs of
+	 * both refsets are streamed page by page and merge-joined into the rows of the
+	 * comparison; names are resolved per page by {@link #getComparisonData}.
 	 *
 	 * @param service                    the Terminology Service
 	 * @param user                       the user
@@ -3732,161 +3924,299 @@ public final class RefsetMemberService {
 		refsetMemberComparison.setComparisonRefsetId(comparisonRefset.getRefsetId());
 		refsetMemberComparison.setActiveRefsetName(activeRefset.getName());
 		refsetMemberComparison.setComparisonRefsetName(comparisonRefset.getName());
-		final boolean editing = activeRefset.getWorkflowStatus().equals(WorkflowService.IN_EDIT);
-		final TreeMap<String, Concept> comparisonRefsetMembers = new TreeMap<>();
-		final TreeMap<String, Concept> activeRefsetMembers = new TreeMap<>();
-		final SearchParameters searchParameters = new SearchParameters();
-		searchParameters.setLimit(10);
-		searchParameters.setEditing(editing);
+		final SctidSet.Builder activeRefsetMembers = new SctidSet.Builder();
+		final SctidSet.Builder activeRefsetInactiveConcepts = new SctidSet.Builder();
+		final SctidSet.Builder comparisonRefsetMembers = new SctidSet.Builder();
+		final SctidSet.Builder comparisonRefsetInactiveConcepts = new SctidSet.Builder();
 
 		// remove any existing comparison data for this refset
+		final Object previousUuid = SecurityService.getFromSession("refsetMemberComparison_" + activeRefsetInternalId);
+
+		if (previousUuid != null) {
+
+			SecurityService.removeFromInMemoryStorage(previousUuid.toString());
+		}
+
 		SecurityService.removeFromSession("refsetMemberComparison_" + activeRefsetInternalId);
 
-		// Change the numbers to '1's to avoid threading
-		final ExecutorService executor = new ThreadPoolExecutor(30, 30, 0L, TimeUnit.MILLISECONDS,
-				new ArrayBlockingQueue<>(30), new ThreadPoolExecutor.CallerRunsPolicy());
+		final SnowstormWorkerPool.Batch batch = SnowstormWorkerPool.newBatch(getBranchPath(activeRefset), 10, TimeUnit.MINUTES);
 
-		for (final String refsetType : Arrays.asList("active", "comparison")) {
+		batch.submit(new Runnable() {
 
-			executor.submit(new Runnable() {
+			/* see superclass */
+			@Override
+			public void run() {
 
-				/* see superclass */
-				@Override
-				public void run() {
+				try {
 
-					try {
+					streamActiveMemberSctids(activeRefset, activeRefsetMembers, activeRefsetInactiveConcepts);
+				} catch (final Exception e) {
 
-						final Refset refset;
+					throw new RuntimeException(e);
+				}
 
-						if (refsetType.equals("active")) {
+			}
+		});
 
-							refset = activeRefset;
-						} else {
+		batch.submit(new Runnable() {
 
-							refset = comparisonRefset;
-						}
+			/* see superclass */
+			@Override
+			public void run() {
 
-						final List<String> nonDefaultPreferredTerms = identifyNonDefaultPreferredTerms(
-								refset.getEdition());
-						final ResultList<Concept> concepts = getMemberList(refset, nonDefaultPreferredTerms,
-								searchParameters);
-						final TreeMap<String, Concept> members;
+				try {
 
-						if (refsetType.equals("active")) {
+					streamActiveMemberSctids(comparisonRefset, comparisonRefsetMembers, comparisonRefsetInactiveConcepts);
+				} catch (final Exception e) {
 
-							members = activeRefsetMembers;
-						} else {
+					throw new RuntimeException(e);
+				}
 
-							members = comparisonRefsetMembers;
-						}
+			}
+		});
 
-						for (final Concept concept : concepts.getItems()) {
+		batch.await();
 
-							members.put(concept.getCode(), concept);
-						}
+		final long[] activeIds = activeRefsetMembers.build().toLongArray();
+		final long[] comparisonIds = comparisonRefsetMembers.build().toLongArray();
+		final SctidSet activeInactiveConcepts = activeRefsetInactiveConcepts.build();
+		final SctidSet comparisonInactiveConcepts = comparisonRefsetInactiveConcepts.build();
 
-					} catch (final Exception e) {
+		// merge-join the sorted member IDs into the rows of the comparison
+		final long[] conceptIds = new long[activeIds.length + comparisonIds.length];
+		final byte[] memberships = new byte[conceptIds.length];
+		final BitSet inactiveConcepts = new BitSet();
+		int activeIndex = 0;
+		int comparisonIndex = 0;
+		int row = 0;
+		int activeDistinctCount = 0;
+		int comparisonDistinctCount = 0;
 
-						throw new RuntimeException(e);
-					}
+		while (activeIndex < activeIds.length || comparisonIndex < comparisonIds.length) {
 
-				}
-			});
+			final RefsetMemberComparison.Membership membership;
+			final long conceptId;
+
+			if (comparisonIndex == comparisonIds.length
+					|| (activeIndex < activeIds.length && activeIds[activeIndex] < comparisonIds[comparisonIndex])) {
+
+				membership = RefsetMemberComparison.Membership.ACTIVE_REFSET;
+				conceptId = activeIds[activeIndex++];
+				activeDistinctCount++;
+			} else if (activeIndex == activeIds.length || comparisonIds[comparisonIndex] < activeIds[activeIndex]) {
+
+				membership = RefsetMemberComparison.Membership.COMPARISON_REFSET;
+				conceptId = comparisonIds[comparisonIndex++];
+				comparisonDistinctCount++;
+			} else {
+
+				membership = RefsetMemberComparison.Membership.BOTH;
+				conceptId = activeIds[activeIndex++];
+				comparisonIndex++;
+			}
+
+			// the concept status is the one on the branch the row is named from
+			final SctidSet rowInactiveConcepts = (membership == RefsetMemberComparison.Membership.COMPARISON_REFSET)
+					? comparisonInactiveConcepts
+					: activeInactiveConcepts;
+
+			if (rowInactiveConcepts.contains(conceptId)) {
+
+				inactiveConcepts.set(row);
+			}
+
+			conceptIds[row] = conceptId;
+			memberships[row] = (byte) membership.ordinal();
+			row++;
 		}
 
-		executor.shutdown();
-		executor.awaitTermination(10, TimeUnit.MINUTES);
+		refsetMemberComparison.setRows(Arrays.copyOf(conceptIds, row), Arrays.copyOf(memberships, row),
+				inactiveConcepts);
+		refsetMemberComparison.setActiveRefsetMemberTotal(activeIds.length);
+		refsetMemberComparison.setComparisonRefsetMemberTotal(comparisonIds.length);
+		refsetMemberComparison.setActiveRefsetDistinctMembersCount(activeDistinctCount);
+		refsetMemberComparison.setComparisonRefsetDistinctMembersCount(comparisonDistinctCount);
 
-		refsetMemberComparison.setActiveRefsetMemberTotal(activeRefsetMembers.size());
-		refsetMemberComparison.setComparisonRefsetMemberTotal(comparisonRefsetMembers.size());
+		final String uuid = UUID.randomUUID().toString();
+		SecurityService.setInMemoryStorage(uuid, refsetMemberComparison);
+		final boolean wasSet = SecurityService.setInSession("refsetMemberComparison_" + activeRefsetInternalId, uuid);
+		LOG.debug("compileComparisonData setInSession: " + wasSet);
+		LOG.debug("compileComparisonData rows: " + row + ", active refset members: " + activeIds.length
+				+ ", comparison refset members: " + comparisonIds.length);
 
-		for (final Map.Entry<String, Concept> activeMemberEntry : activeRefsetMembers.entrySet()) {
+		return status;
+	}
 
-			final String activeConceptId = activeMemberEntry.getKey();
-			final Concept activeConcept = activeMemberEntry.getValue();
-			final Map<String, String> returnMap = new HashMap<>();
-			returnMap.put("code", activeConceptId);
-			returnMap.put("active", activeConcept.isActive() + "");
-			returnMap.put("memberOfRefset", "true");
-			returnMap.put("definitionExceptionType", activeConcept.getDefinitionExceptionType());
-			returnMap.put("hasChildren", "false"); // activeConcept.getHasChildren() + "");
-			Map<String, String> preferedTermEnglish = null; // activeConcept.getDescriptions().stream().filter(f ->
-															// f.get(LANGUAGE_ID).equals(PREFERRED_TERM_EN)).findFirst().get();
+	/**
+	 * Streams the IDs of the active members of a refset, a page at a time.
+	 *
+	 * @param refset           the refset
+	 * @param members          the builder of the member concept IDs
+	 * @param inactiveConcepts the builder of the member concept IDs whose concept
+	 *                         is inactive
+	 * @throws Exception the exception
+	 */
+	private static void streamActiveMemberSctids(final Refset refset, final SctidSet.Builder members,
+			final SctidSet.Builder inactiveConcepts) throws Exception {
 
-			boolean foundDescription = false;
+		final int limit = ELASTICSEARCH_MAX_RECORD_LENGTH;
+		final String branchPath = getBranchPath(refset);
+		boolean hasMorePages = true;
+		String searchAfter = "";
 
-			for (final Map<String, String> description : activeConcept.getDescriptions()) {
+		while (hasMorePages) {
 
-				if (description == null) {
+			final JsonNode root = JsonUtility
+					.readTree(getMemberSctids(refset.getRefsetId(), limit, searchAfter, branchPath));
+			final JsonNode items = root.get("items");
+
+			for (final JsonNode item : items) {
+
+				// only active memberships are compared, though the concept itself can be
+				// inactive
+				if (!item.path("active").asBoolean(true)) {
 					continue;
 				}
 
-				if (description.get(LANGUAGE_ID).equals(PREFERRED_TERM_EN)) {
+				final String conceptId = item.get("referencedComponentId").asText();
+				members.add(conceptId);
 
-					preferedTermEnglish = description;
-					foundDescription = true;
-					break;
+				if (!item.path("referencedComponent").path("active").asBoolean(true)) {
+
+					inactiveConcepts.add(conceptId);
 				}
 			}
 
-			if (!foundDescription) {
-				LOG.error("Could not get english description for concept ID: " + activeConceptId);
-			}
+			searchAfter = (root.get("searchAfter") != null) ? root.get("searchAfter").asText() : "";
+			hasMorePages = items.size() >= limit && !searchAfter.isEmpty();
+		}
 
-			returnMap.put("name", (preferedTermEnglish != null) ? preferedTermEnglish.get(DESCRIPTION_TERM).strip()
-					: activeConcept.getName().strip());
+	}
+
+	/**
+	 * Returns a page of the rows of a compiled refset comparison, with the names of
+	 * its members resolved. Without a limit all rows from the offset are returned.
+	 * The distinct member lists always cover the whole comparison.
+	 *
+	 * @param service                the Terminology Service
+	 * @param refsetMemberComparison the compiled comparison
+	 * @param offset                 the row of the first item, or null for the
+	 *                               first row
+	 * @param limit                  the number of items, or null for all
+	 * @return the page of the comparison
+	 * @throws Exception the exception
+	 */
+	public static RefsetMemberComparison getComparisonData(final TerminologyService service,
+			final RefsetMemberComparison refsetMemberComparison, final Integer offset, final Integer limit)
+			throws Exception {
+
+		final int total = refsetMemberComparison.getTotal();
+		final int start = (offset == null) ? 0 : Math.max(0, Math.min(offset, total));
+		final int end = (limit == null) ? total : (int) Math.min(total, (long) start + Math.max(0, limit));
+		final Refset activeRefset = service.get(refsetMemberComparison.getActiveRefsetInternalId(), Refset.class);
+		final Refset comparisonRefset = service.get(refsetMemberComparison.getComparisonRefsetInternalId(),
+				Refset.class);
 
-			// check to see if this member is also a member of the comparison refset
-			if (comparisonRefsetMembers.containsKey(activeConceptId)) {
+		// the members of the active refset are named from its branch, the others from
+		// the comparison refset branch
+		final List<Concept> activeConcepts = new ArrayList<>();
+		final List<Concept> comparisonConcepts = new ArrayList<>();
+		final List<Concept> pageConcepts = new ArrayList<>();
 
-				returnMap.put("membership", "Both");
+		for (int row = start; row < end; row++) {
+
+			final Concept concept = new Concept();
+			concept.setCode(refsetMemberComparison.getConceptId(row));
+			concept.setName("");
+			pageConcepts.add(concept);
+
+			if (refsetMemberComparison.getMembership(row) == RefsetMemberComparison.Membership.COMPARISON_REFSET) {
+
+				comparisonConcepts.add(concept);
 			} else {
 
-				returnMap.put("membership", "Active Reference Set");
-				refsetMemberComparison.getActiveRefsetDistinctMembers().add(activeConceptId);
+				activeConcepts.add(concept);
 			}
+		}
+
+		final SnowstormWorkerPool.Batch batch = SnowstormWorkerPool.newBatch(getBranchPath(activeRefset), 10,
+				TimeUnit.MINUTES);
+
+		for (final Refset refset : Arrays.asList(activeRefset, comparisonRefset)) {
+
+			final List<Concept> concepts = (refset == activeRefset) ? activeConcepts : comparisonConcepts;
+
+			for (int i = 0; i < concepts.size(); i += CONCEPT_DESCRIPTIONS_PER_CALL) {
+
+				final List<Concept> threadConcepts = concepts.subList(i,
+						Math.min(concepts.size(), i + CONCEPT_DESCRIPTIONS_PER_CALL));
+
+				batch.submit(new Runnable() {
+
+					/* see superclass */
+					@Override
+					public void run() {
+
+						try {
+
+							populateAllLanguageDescriptions(refset, threadConcepts);
+						} catch (final Exception e) {
+
+							throw new RuntimeException(e);
+						}
 
-			refsetMemberComparison.getItems().add(returnMap);
+					}
+				});
+			}
 		}
 
-		// since the members of the active or both refsets are handled, remove all but
-		// the unique comparison refset members
-		comparisonRefsetMembers.keySet().removeAll(activeRefsetMembers.keySet());
+		batch.await();
 
-		for (final Map.Entry<String, Concept> comparisonMemberEntry : comparisonRefsetMembers.entrySet()) {
+		final RefsetMemberComparison page = new RefsetMemberComparison(refsetMemberComparison);
+		page.setOffset(start);
+		page.setItems(new ArrayList<>());
+		page.setActiveRefsetDistinctMembers(new ArrayList<>());
+		page.setComparisonRefsetDistinctMembers(new ArrayList<>());
 
-			final String comparisonConceptId = comparisonMemberEntry.getKey();
-			final Concept comparisonConcept = comparisonMemberEntry.getValue();
-			final Map<String, String> returnMap = new HashMap<>();
-			returnMap.put("code", comparisonConceptId);
-			returnMap.put("active", comparisonConcept.isActive() + "");
-			returnMap.put("memberOfRefset", "false");
-			returnMap.put("definitionExceptionType", comparisonConcept.getDefinitionExceptionType());
-			returnMap.put("hasChildren", "false"); // comparisonConcept.getHasChildren() + "");
-			returnMap.put("membership", "Comparison Reference Set");
-			refsetMemberComparison.getComparisonRefsetDistinctMembers().add(comparisonConceptId);
-
-			final Map<String, String> preferedTermEnglish = comparisonConcept.getDescriptions().stream()
-					.filter(f -> f != null && PREFERRED_TERM_EN.equals(f.get(LANGUAGE_ID))).findFirst().orElse(null);
+		// the distinct members cover the whole comparison, not just the page
+		for (int row = 0; row < total; row++) {
 
-			returnMap.put("name", (preferedTermEnglish != null) ? preferedTermEnglish.get(DESCRIPTION_TERM).strip()
-					: comparisonConcept.getName().strip());
+			final RefsetMemberComparison.Membership membership = refsetMemberComparison.getMembership(row);
 
-			refsetMemberComparison.getItems().add(returnMap);
+			if (membership == RefsetMemberComparison.Membership.ACTIVE_REFSET) {
+
+				page.getActiveRefsetDistinctMembers().add(refsetMemberComparison.getConceptId(row));
+			} else if (membership == RefsetMemberComparison.Membership.COMPARISON_REFSET) {
+
+				page.getComparisonRefsetDistinctMembers().add(refsetMemberComparison.getConceptId(row));
+			}
 		}
 
-		refsetMemberComparison
-				.setActiveRefsetDistinctMembersCount(refsetMemberComparison.getActiveRefsetDistinctMembers().size());
-		refsetMemberComparison.setComparisonRefsetDistinctMembersCount(
-				refsetMemberComparison.getComparisonRefsetDistinctMembers().size());
+		for (int row = start; row < end; row++) {
 
-		final String uuid = UUID.randomUUID().toString();
-		SecurityService.setInMemoryStorage(uuid, refsetMemberComparison);
-		final boolean wasSet = SecurityService.setInSession("refsetMemberComparison_" + activeRefsetInternalId, uuid);
-		LOG.debug("compileComparisonData setInSession: " + wasSet);
-		LOG.debug("compileComparisonData refsetMemberComparison: " + refsetMemberComparison);
+			final Concept concept = pageConcepts.get(row - start);
+			final RefsetMemberComparison.Membership membership = refsetMemberComparison.getMembership(row);
+			final boolean memberOfRefset = membership != RefsetMemberComparison.Membership.COMPARISON_REFSET;
+			processIntensionalDefinitionException(memberOfRefset ? activeRefset : comparisonRefset, concept);
 
-		return status;
+			final Map<String, String> preferedTermEnglish = concept.getDescriptions().stream()
+					.filter(f -> f != null && PREFERRED_TERM_EN.equals(f.get(LANGUAGE_ID))).findFirst().orElse(null);
+
+			final Map<String, String> returnMap = new HashMap<>();
+			returnMap.put("code", concept.getCode());
+			returnMap.put("active", refsetMemberComparison.isConceptActive(row) + "");
+			returnMap.put("memberOfRefset", memberOfRefset + "");
+			returnMap.put("definitionExceptionType", concept.getDefinitionExceptionType());
+			returnMap.put("hasChildren", "false");
+			returnMap.put("membership", membership.getLabel());
+			returnMap.put("name", (preferedTermEnglish != null) ? preferedTermEnglish.get(DESCRIPTION_TERM).strip()
+					: concept.getName().strip());
+			page.getItems().add(returnMap);
+		}
+
+		LOG.debug("getComparisonData rows " + start + " to " + end + " of " + total);
+
+		return page;
 	}
 
 	/**
@@ -16,6 +16,8 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -52,12 +54,16 @@ import org.ihtsdo.refsetservice.service.TerminologyService;
 import org.ihtsdo.refsetservice.sync.SyncAgent;
 import org.ihtsdo.refsetservice.util.AuditEntryHelper;
 import org.ihtsdo.refsetservice.util.DateUtility;
+import org.ihtsdo.refsetservice.util.DefinitionClauseIndex;
+import org.ihtsdo.refsetservice.util.EclUtility;
 import org.ihtsdo.refsetservice.util.EmailUtility;
 import org.ihtsdo.refsetservice.util.FileUtility;
 import org.ihtsdo.refsetservice.util.HandlerUtility;
 import org.ihtsdo.refsetservice.util.IndexUtility;
 import org.ihtsdo.refsetservice.util.ModelUtility;
+import org.ihtsdo.refsetservice.util.ProjectVisibilityFilter;
 import org.ihtsdo.refsetservice.util.PropertyUtility;
+import org.ihtsdo.refsetservice.util.RefsetVersionIndex;
 import org.ihtsdo.refsetservice.util.ResultList;
 import org.ihtsdo.refsetservice.util.SearchParameters;
 import org.ihtsdo.refsetservice.util.StringUtility;
@@ -178,7 +184,8 @@ public class RefsetService {
     }
 
     /**
-     * Generate an ECL statement from a list of definition clauses.
+     * Generate an ECL statement from a list of definition clauses. The statement is written to exports and compared to detect definition
+     * changes, so each clause is kept as entered and parenthesized.
      *
      * @param definitionClauses the definition clauses
      * @return the generated ECL statement
@@ -224,8 +231,8 @@ public class RefsetService {
     public static Map<String, List<String>> getInclusionExclusionLists(final List<DefinitionClause> definitionClauses, final String branchPath)
         throws Exception {
 
-        String additiveEcl = "";
-        String negatedEcl = "";
+        final List<EclUtility.Expression> additiveEcl = new ArrayList<>();
+        final List<EclUtility.Expression> negatedEcl = new ArrayList<>();
         List<String> inclusionList = new ArrayList<>();
         List<String> exclusionList = new ArrayList<>();
         final Map<String, List<String>> returnMap = new HashMap<>();
@@ -237,24 +244,22 @@ public class RefsetService {
 
             if (clause.getNegated()) {
 
-                negatedEcl += "(" + clause.getValue() + ") OR ";
+                negatedEcl.add(EclUtility.parseExpression(clause.getValue()));
             } else {
 
-                additiveEcl += "(" + clause.getValue() + ") OR ";
+                additiveEcl.add(EclUtility.parseExpression(clause.getValue()));
             }
 
         }
 
-        if (!additiveEcl.equals("")) {
+        if (!additiveEcl.isEmpty()) {
 
-            additiveEcl = StringUtils.removeEnd(additiveEcl, " OR ");
-            inclusionList = RefsetMemberService.getConceptIdsFromEcl(branchPath, additiveEcl);
+            inclusionList = RefsetMemberService.getConceptIdsFromEcl(branchPath, EclUtility.Expression.disjunction(additiveEcl).toString());
         }
 
-        if (!negatedEcl.equals("")) {
+        if (!negatedEcl.isEmpty()) {
 
-            negatedEcl = StringUtils.removeEnd(negatedEcl, " OR ");
-            exclusionList = RefsetMemberService.getConceptIdsFromEcl(branchPath, negatedEcl);
+            exclusionList = RefsetMemberService.getConceptIdsFromEcl(branchPath, EclUtility.Expression.disjunction(negatedEcl).toString());
         }
 
         returnMap.put(Refset.INCLUSION, inclusionList);
@@ -706,6 +711,7 @@ public class RefsetService {
                 // add the new clauses to the refset and save the refset
                 definitionClauses.addAll(modifiedDefinitionClauses);
                 service.update(refset);
+                DefinitionClauseIndex.invalidate(refset.getId());
 
                 // Get the list of members to remove
                 final List<String> conceptsToRemove = oldMembers.stream().filter(oldMember -> !newMembers.contains(oldMember)).collect(Collectors.toList());
@@ -919,23 +925,19 @@ public class RefsetService {
     }
 
     /**
-     * Returns a specific refset by internal ID.
+     * Requests a background refresh of the member count of a refset. The refset is not written here, so reads stay side-effect free and
+     * return the last known count until the refresh has run.
      *
-     * @param service the Terminology Service
      * @param refset the refset
-     * @param force should the recount be forced
-     * @return the if the refset needed the count set
-     * @throws Exception the exception
+     * @param force should the recount be requested even if the count is known
+     * @return the if the refset needed the count refreshed
      */
-    public static boolean setRefsetMemberCount(final TerminologyService service, final Refset refset, final boolean force) throws Exception {
+    public static boolean refreshRefsetMemberCount(final Refset refset, final boolean force) {
 
         if (refset.getMemberCount() == -1 || force) {
 
-            LOG.debug("setRefsetMemberCount Setting the member count for refset: " + refset.getId());
-            refset.setMemberCount(RefsetMemberService.getMemberCount(refset));
-
-            // save the refset
-            service.update(refset);
+            LOG.debug("refreshRefsetMemberCount Requesting the member count for refset: " + refset.getId());
+            RefsetMemberCountRefresher.refresh(refset.getId());
             return true;
         }
 
@@ -1022,7 +1024,7 @@ public class RefsetService {
         setRefsetPermissions(user, refset);
         refset.setVersionList(getSortedRefsetVersionList(refset, service, false));
         refset.setBranchPath(getBranchPath(refset));
-        setRefsetMemberCount(service, refset, false);
+        refreshRefsetMemberCount(refset, false);
 
         final List<String> editionVersions = RefsetService.getBranchVersions(refset.getEditionBranch());
         String versionDate = null;
@@ -1190,6 +1192,12 @@ public class RefsetService {
             pfs.setSortFields(Arrays.asList(searchParameters.getSort(), "modified desc", "id"));
         }
 
+        // page by cursor when one is given, empty for the first page
+        if (searchParameters.getSearchAfter() != null) {
+
+            pfs.setSearchAfter(searchParameters.getSearchAfter());
+        }
+
         if (query != null && !query.equals("")) {
 
             query = URLDecoder.decode(query, StandardCharsets.UTF_8);
@@ -1291,48 +1299,7 @@ public class RefsetService {
             query = "";
         }
 
-        String projectFilter = "(";
-
-        // @SuppressWarnings("unchecked")
-        final LinkedHashMap<String, Project> userProjects = getUserProjects(service, user);
-
-        for (final Project project : userProjects.values()) {
-
-            if (!project.isPrivateProject() || project.getRoles().contains(User.ROLE_VIEWER)) {
-
-                // if only including refsets the user has specific access to make sure they have
-                // access to this project
-                if (showOnlyPermitted && !project.getRoles().contains(User.ROLE_VIEWER)) {
-                    continue;
-                }
-
-                projectFilter += "(projectId:" + project.getId();
-
-                // if the user isn't allowed to view private refsets for this project restrict
-                // them, otherwise show in development or the latest published
-                // version
-                if (!project.getRoles().contains(User.ROLE_VIEWER)) {
-
-                    projectFilter += " AND privateRefset: false AND latestPublishedVersion: true";
-                } else {
-
-                    // if this is the directory then only show the latest published version, if it
-                    // is the projects then show in development or the latest
-                    // published version
-                    if (showInDevelopment) {
-                        projectFilter +=
-                            " AND ((latestPublishedVersion: true AND hasVersionInDevelopment: false) OR versionStatus: (" + Refset.IN_DEVELOPMENT + "))";
-                    } else {
-                        projectFilter += " AND latestPublishedVersion: true";
-                    }
-                }
-
-                projectFilter += ") OR ";
-            }
-
-        }
-
-        query += StringUtils.removeEnd(projectFilter, " OR ") + ")";
+        query += getProjectVisibilityFilter(service, user, showInDevelopment, showOnlyPermitted);
 
         if (user.getUserName().equals(SecurityService.GUEST_USERNAME)) {
 
@@ -1360,11 +1327,18 @@ public class RefsetService {
                     refset = setRefsetPermissions(user, refset);
                 }
 
-                if (setVersions) {
+            }
+
+            if (setVersions) {
 
-                    refset.setVersionList(getSortedRefsetVersionList(refset, service, false));
-                }
+                // load the versions of every refset on the page at once
+                final Map<String, List<RefsetVersionIndex.Version>> versions =
+                    getRefsetVersions(service, results.getItems().stream().map(Refset::getRefsetId).collect(Collectors.toSet()));
 
+                for (final Refset refset : results.getItems()) {
+
+                    refset.setVersionList(getSortedRefsetVersionList(refset, versions.get(refset.getRefsetId()), false));
+                }
             }
 
         }
@@ -1377,6 +1351,68 @@ public class RefsetService {
         return results;
     }
 
+    /**
+     * Returns the filter restricting a refset search to the projects a user can see. Projects are grouped by how much of them the user can see,
+     * so the filter has one clause per group with the project IDs as a terms list. The filter is compiled once per set of user roles and flags.
+     *
+     * @param service the Terminology Service
+     * @param user the user
+     * @param showInDevelopment flag on whether to include IN_DEVELOPMENT refsets
+     * @param showOnlyPermitted flag on whether to only show refsets user has specific permission to and not general public refsets
+     * @return the project visibility filter
+     * @throws Exception the exception
+     */
+    public static String getProjectVisibilityFilter(final TerminologyService service, final User user, final boolean showInDevelopment,
+        final boolean showOnlyPermitted) throws Exception {
+
+        final String key = ProjectVisibilityFilter.getKey(user.getRoles(), showInDevelopment, showOnlyPermitted);
+        final String cachedFilter = ProjectVisibilityFilter.get(key);
+
+        if (cachedFilter != null) {
+            return cachedFilter;
+        }
+
+        final long generation = ProjectVisibilityFilter.getGeneration();
+        final List<String> publicProjectIds = new ArrayList<>();
+        final List<String> viewerProjectIds = new ArrayList<>();
+
+        for (final Project project : getUserProjects(service, user).values()) {
+
+            if (project.getRoles().contains(User.ROLE_VIEWER)) {
+
+                viewerProjectIds.add(project.getId());
+
+            } else if (!project.isPrivateProject() && !showOnlyPermitted) {
+
+                // if only including refsets the user has specific access to skip the public projects
+                publicProjectIds.add(project.getId());
+            }
+        }
+
+        final List<String> clauses = new ArrayList<>();
+
+        // if the user isn't allowed to view private refsets for these projects restrict them to public published refsets
+        if (!publicProjectIds.isEmpty()) {
+
+            clauses.add("(projectId:(" + String.join(" OR ", publicProjectIds) + ") AND privateRefset: false AND latestPublishedVersion: true)");
+        }
+
+        // if this is the directory then only show the latest published version, if it is the projects then show in development or the latest
+        // published version
+        if (!viewerProjectIds.isEmpty()) {
+
+            final String versionClause = showInDevelopment
+                ? "((latestPublishedVersion: true AND hasVersionInDevelopment: false) OR versionStatus: (" + Refset.IN_DEVELOPMENT + "))"
+                : "latestPublishedVersion: true";
+            clauses.add("(projectId:(" + String.join(" OR ", viewerProjectIds) + ") AND " + versionClause + ")");
+        }
+
+        final String filter = "(" + String.join(" OR ", clauses) + ")";
+        ProjectVisibilityFilter.put(key, filter, generation);
+
+        return filter;
+    }
+
     /**
      * Get the set of unique Refset IDs.
      *
@@ -1751,16 +1787,101 @@ public class RefsetService {
     public static List<Map<String, String>> getSortedRefsetVersionList(final Refset refset, final TerminologyService service, final boolean sortAscending)
         throws Exception {
 
-        final List<Map<String, String>> versionList = new ArrayList<>();
+        return getSortedRefsetVersionList(refset, getRefsetVersions(service, Collections.singleton(refset.getRefsetId())).get(refset.getRefsetId()),
+            sortAscending);
+    }
+
+    /**
+     * Returns the versions of refset IDs, ascending by version date. Versions not in the refset version index are loaded with a single query and
+     * indexed.
+     *
+     * @param service the Terminology Service
+     * @param refsetIds the refset IDs
+     * @return the versions of each refset ID
+     * @throws Exception the exception
+     */
+    public static Map<String, List<RefsetVersionIndex.Version>> getRefsetVersions(final TerminologyService service, final Collection<String> refsetIds)
+        throws Exception {
+
+        final Map<String, List<RefsetVersionIndex.Version>> versions = new HashMap<>();
+        final List<String> refsetIdsToLoad = new ArrayList<>();
+
+        for (final String refsetId : refsetIds) {
+
+            final List<RefsetVersionIndex.Version> indexedVersions = RefsetVersionIndex.get(refsetId);
+
+            if (indexedVersions != null) {
+                versions.put(refsetId, indexedVersions);
+            } else {
+                refsetIdsToLoad.add(refsetId);
+            }
+        }
+
+        if (refsetIdsToLoad.isEmpty()) {
+            return versions;
+        }
+
+        final long generation = RefsetVersionIndex.getGeneration();
         final PfsParameter pfs = new PfsParameter();
         pfs.setSort("versionDate");
-        pfs.setAscending(sortAscending);
-        Map<String, String> inDevelopmentVersion = null;
+        pfs.setAscending(true);
+
+        final String query = refsetIdsToLoad.stream().map(QueryParserBase::escape).collect(Collectors.joining(" OR ", "refsetId: (", ")"));
+        final ResultList<Refset> results = service.find(query, pfs, Refset.class, null);
 
-        final ResultList<Refset> results = service.find("refsetId: " + QueryParserBase.escape(refset.getRefsetId()), pfs, Refset.class, null);
+        final Map<String, List<RefsetVersionIndex.Version>> loadedVersions = new HashMap<>();
+        for (final String refsetId : refsetIdsToLoad) {
+            loadedVersions.put(refsetId, new ArrayList<>());
+        }
 
         for (final Refset refsetVersion : results.getItems()) {
 
+            final List<RefsetVersionIndex.Version> refsetVersions = loadedVersions.get(refsetVersion.getRefsetId());
+
+            if (refsetVersions != null) {
+                refsetVersions.add(new RefsetVersionIndex.Version(refsetVersion.getId(), refsetVersion.getVersionStatus(), refsetVersion.getVersionDate()));
+            }
+        }
+
+        for (final Map.Entry<String, List<RefsetVersionIndex.Version>> entry : loadedVersions.entrySet()) {
+
+            RefsetVersionIndex.put(entry.getKey(), entry.getValue(), generation);
+            versions.put(entry.getKey(), entry.getValue());
+        }
+
+        return versions;
+    }
+
+    /**
+     * Generate a list of version dates from the versions of a refset.
+     *
+     * @param refset the refset
+     * @param versions the versions of the refset ID, ascending by version date
+     * @param sortAscending should the versions be sorted in ascending order
+     * @return the list of version dates
+     */
+    private static List<Map<String, String>> getSortedRefsetVersionList(final Refset refset, final List<RefsetVersionIndex.Version> versions,
+        final boolean sortAscending) {
+
+        final List<Map<String, String>> versionList = new ArrayList<>();
+        Map<String, String> inDevelopmentVersion = null;
+
+        // versions without a date sort last either way
+        final List<RefsetVersionIndex.Version> sortedVersions = new ArrayList<>();
+        if (versions != null) {
+
+            sortedVersions.addAll(versions);
+
+            if (!sortAscending) {
+
+                sortedVersions.removeIf(version -> version.getVersionDate() == null);
+                Collections.reverse(sortedVersions);
+                versions.stream().filter(version -> version.getVersionDate() == null).forEach(sortedVersions::add);
+            }
+        }
+
+        for (final RefsetVersionIndex.Version refsetVersion : sortedVersions) {
+
             final Map<String, String> version = new HashMap<>();
             version.put("status", refsetVersion.getVersionStatus());
             version.put("refsetInternalId", refsetVersion.getId());
@@ -12,7 +12,10 @@ package org.ihtsdo.refsetservice.terminologyservice;
 import java.io.InputStream;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
@@ -24,14 +27,33 @@ import javax.ws.rs.core.NewCookie;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status.Family;
 
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.ihtsdo.refsetservice.util.EclUtility;
 import org.ihtsdo.refsetservice.util.LocalException;
 import org.ihtsdo.refsetservice.util.PropertyUtility;
+import org.ihtsdo.refsetservice.util.StringUtility;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpClient43Engine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Class to handle making calls to Snowstorm.
  */
 public final class SnowstormConnection {
 
+    /** The Constant LOG. */
+    private static final Logger LOG = LoggerFactory.getLogger(SnowstormConnection.class);
+
+    /** The prefix for the Snowstorm HTTP transport properties. */
+    private static final String HTTP_PROPERTY_PREFIX = "terminology.handler.SNOMED_SNOWSTORM.http.";
+
     /** The authentication url. */
     private static String authUrl;
 
@@ -56,6 +78,18 @@ public final class SnowstormConnection {
     /** The default English language acceptance strings. */
     public static final String DEFAULT_ACCECPT_LANGUAGES = "en-X-900000000000509007,en-X-900000000000508004,en";
 
+    /** The shared, pooled client used for all Snowstorm calls. */
+    private static volatile Client client;
+
+    /** The connection manager backing the shared client, null if the JAX-RS implementation does not allow one. */
+    private static PoolingHttpClientConnectionManager connectionManager;
+
+    /** The number of requests sent through the shared client. */
+    private static final AtomicLong requestCount = new AtomicLong();
+
+    /** The number of times the generic user had to be re-authenticated. */
+    private static final AtomicLong reauthenticationCount = new AtomicLong();
+
     /** Static initialization. */
     static {
 
@@ -83,6 +117,112 @@ public final class SnowstormConnection {
         return baseUrl;
     }
 
+    /**
+     * Returns the shared Snowstorm client. The client is thread safe and keeps a pool of keep-alive connections so calls do not pay for a new
+     * connection and TLS handshake each time. Responses must be closed (or their entity fully read) to return the connection to the pool.
+     *
+     * @return the client
+     */
+    public static Client getClient() {
+
+        if (client == null) {
+
+            synchronized (SnowstormConnection.class) {
+
+                if (client == null) {
+                    client = buildClient();
+                }
+            }
+        }
+
+        return client;
+    }
+
+    /**
+     * Builds the pooled client from the terminology.handler.SNOMED_SNOWSTORM.http.* properties.
+     *
+     * @return the client
+     */
+    private static Client buildClient() {
+
+        final int maxConnections = getIntProperty("maxConnections", 200);
+        final int maxConnectionsPerRoute = getIntProperty("maxConnectionsPerRoute", 50);
+        final int connectTimeout = getIntProperty("connectTimeout", 10000);
+        final int readTimeout = getIntProperty("readTimeout", 600000);
+        final int connectionRequestTimeout = getIntProperty("connectionRequestTimeout", 5000);
+        final int keepAlive = getIntProperty("keepAlive", 60000);
+
+        final ClientBuilder builder = ClientBuilder.newBuilder().connectTimeout(connectTimeout, TimeUnit.MILLISECONDS).readTimeout(readTimeout,
+            TimeUnit.MILLISECONDS);
+
+        if (builder instanceof ResteasyClientBuilder) {
+
+            connectionManager = new PoolingHttpClientConnectionManager();
+            connectionManager.setMaxTotal(maxConnections);
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+            connectionManager.setValidateAfterInactivity(2000);
+
+            // waiting for a pooled connection fails fast rather than queueing behind slow calls
+            final RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(connectTimeout).setSocketTimeout(readTimeout)
+                .setConnectionRequestTimeout(connectionRequestTimeout).build();
+
+            // the client is shared by all callers, so it must not keep cookies (the generic user cookie is sent explicitly)
+            // honor the server's keep-alive header but never hold an idle connection longer than configured
+            final CloseableHttpClient httpClient = HttpClients.custom().setConnectionManager(connectionManager).setDefaultRequestConfig(requestConfig)
+                .disableCookieManagement().setKeepAliveStrategy((response, context) -> {
+
+                    final long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAlive) : keepAlive;
+                }).evictExpiredConnections().evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS).build();
+
+            ((ResteasyClientBuilder) builder).httpEngine(new ApacheHttpClient43Engine(httpClient, true));
+        }
+
+        LOG.info(
+            "Snowstorm client created: maxConnections={}, maxConnectionsPerRoute={}, connectTimeout={}, readTimeout={}, connectionRequestTimeout={}, "
+                + "keepAlive={}",
+            maxConnections, maxConnectionsPerRoute, connectTimeout, readTimeout, connectionRequestTimeout, keepAlive);
+
+        return builder.build();
+    }
+
+    /**
+     * Returns an integer Snowstorm HTTP transport property.
+     *
+     * @param name the property name without the prefix
+     * @param defaultValue the default value
+     * @return the property value
+     */
+    private static int getIntProperty(final String name, final int defaultValue) {
+
+        return NumberUtils.toInt(PropertyUtility.getProperty(HTTP_PROPERTY_PREFIX + name), defaultValue);
+    }
+
+    /**
+     * Returns the connection pool statistics of the shared client.
+     *
+     * @return the connection pool statistics
+     */
+    public static Map<String, Object> getConnectionPoolStatistics() {
+
+        final Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("requests", requestCount.get());
+        statistics.put("reauthentications", reauthenticationCount.get());
+
+        if (connectionManager != null) {
+
+            final PoolStats totalStats = connectionManager.getTotalStats();
+            statistics.put("maxConnections", totalStats.getMax());
+            statistics.put("maxConnectionsPerRoute", connectionManager.getDefaultMaxPerRoute());
+            statistics.put("leased", totalStats.getLeased());
+            statistics.put("available", totalStats.getAvailable());
+            statistics.put("pending", totalStats.getPending());
+            statistics.put("routes", connectionManager.getRoutes().size());
+        }
+
+        return statistics;
+    }
+
     /**
      * Calls a Snowstorm URL and returns the response.
      *
@@ -93,8 +233,8 @@ public final class SnowstormConnection {
      */
     public static Response getResponse(final String url, final String language) throws Exception {
 
-        final Client client = ClientBuilder.newClient();
-        final WebTarget target = client.target(url);
+        requestCount.incrementAndGet();
+        final WebTarget target = getClient().target(url);
         String cookie = getGenericUserCookie(false);
         Response response = null;
         boolean firstRun = true;
@@ -110,6 +250,7 @@ public final class SnowstormConnection {
 
                 run = true;
                 firstRun = false;
+                reauthenticationCount.incrementAndGet();
                 cookie = getGenericUserCookie(true);
                 // close the response because we're going to make another
                 response.close();
@@ -141,8 +282,8 @@ public final class SnowstormConnection {
     @SuppressWarnings("resource")
 	public static InputStream getFileDownload(final String url) throws Exception {
 
-        final Client client = ClientBuilder.newClient();
-        final WebTarget target = client.target(url);
+        requestCount.incrementAndGet();
+        final WebTarget target = getClient().target(url);
         final Response response =
             target.request("application/zip").header("Accept-Language", DEFAULT_ACCECPT_LANGUAGES).header("Cookie", getGenericUserCookie(false)).get();
 
@@ -161,8 +302,8 @@ public final class SnowstormConnection {
      */
     public static Response postResponse(final String url, final String entity) throws Exception {
 
-        final Client client = ClientBuilder.newClient();
-        final WebTarget target = client.target(url);
+        requestCount.incrementAndGet();
+        final WebTarget target = getClient().target(url);
         final Builder builder =
             target.request(MediaType.APPLICATION_JSON).header("Accept-Language", DEFAULT_ACCECPT_LANGUAGES).header("Cookie", getGenericUserCookie(false));
 
@@ -181,8 +322,8 @@ public final class SnowstormConnection {
      */
     public static Response putResponse(final String url, final String entity) throws Exception {
 
-        final Client client = ClientBuilder.newClient();
-        final WebTarget target = client.target(url);
+        requestCount.incrementAndGet();
+        final WebTarget target = getClient().target(url);
         final Builder builder =
             target.request(MediaType.APPLICATION_JSON).header("Accept-Language", DEFAULT_ACCECPT_LANGUAGES).header("Cookie", getGenericUserCookie(false));
 
@@ -202,8 +343,8 @@ public final class SnowstormConnection {
     @SuppressWarnings("resource")
 	public static Response deleteResponse(final String url, final String entity) throws Exception {
 
-        final Client client = ClientBuilder.newClient();
-        final WebTarget target = client.target(url);
+        requestCount.incrementAndGet();
+        final WebTarget target = getClient().target(url);
         Response response;
 
         // TODO: we shouldn't return a response here and leave it open
@@ -220,6 +361,48 @@ public final class SnowstormConnection {
         return response;
     }
 
+    /**
+     * Indicates whether a search query is ECL. Queries are classified in process, and only queries using ECL syntax that is not parsed in process
+     * are sent to the terminology server to be parsed. Only a definite answer from the terminology server is cached, so a transient failure does
+     * not turn a valid ECL query into a term search for later requests.
+     *
+     * @param query the query
+     * @return true, if the query is ECL
+     * @throws Exception the exception
+     */
+    public static boolean isEclQuery(final String query) throws Exception {
+
+        final EclUtility.Classification classification = EclUtility.classify(query);
+
+        if (classification != EclUtility.Classification.UNKNOWN) {
+            return classification == EclUtility.Classification.ECL;
+        }
+
+        final String eclUrl = getBaseUrl() + "util/ecl-string-to-model";
+        final String body = StringUtility.encodeValue(query);
+
+        LOG.debug("isEclQuery ECL Parse URL: " + eclUrl + "; body: " + body);
+
+        try (final Response response = postResponse(eclUrl, body)) {
+
+            // the query is ECL if it parses and is not if it is rejected as a bad request
+            if (response.getStatusInfo().getFamily() == Family.SUCCESSFUL) {
+
+                EclUtility.setClassification(query, true);
+                return true;
+            }
+
+            if (response.getStatus() == Response.Status.BAD_REQUEST.getStatusCode()) {
+
+                EclUtility.setClassification(query, false);
+                return false;
+            }
+
+            LOG.warn("Unable to classify the query as ECL, searching it as a term. Status: " + response.getStatus());
+            return false;
+        }
+    }
+
     /**
      * Gets the generic user cookie.
      *
@@ -255,8 +438,7 @@ public final class SnowstormConnection {
         }
 
         // Login the generic user, then save and return the cookie
-        final Client client = ClientBuilder.newClient();
-        final WebTarget target = client.target(authUrl + "authenticate");
+        final WebTarget target = getClient().target(authUrl + "authenticate");
         final Builder builder = target.request(MediaType.APPLICATION_JSON);
 
         try (final Response response = builder.post(Entity.json("{ \"login\": \"" + userName + "\", \"password\": \"" + password + "\" }"))) {
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2023 SNOMED International - All Rights Reserved.
+ *
+ * NOTICE:  All information contained herein is, and remains the property of SNOMED International
+ * The intellectual and technical concepts contained herein are proprietary to
+ * SNOMED International and may be covered by U.S. and Foreign Patents, patents in process,
+ * and are protected by trade secret or copyright law.  Dissemination of this information
+ * or reproduction of this material is strictly forbidden.
+ */
+package org.ihtsdo.refsetservice.terminologyservice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.ihtsdo.refsetservice.util.PropertyUtility;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Application-wide pool of workers for fanning calls out to the terminology server.
+ *
+ * The number of tasks running on the workers is bounded overall and per branch. A task submitted when either bound is reached runs on the
+ * submitting thread instead, so a caller always makes progress and nested fan-outs cannot deadlock waiting for a worker. Tasks are grouped in
+ * batches that share a deadline: the first failure or the deadline cancels the rest of the batch and is thrown from {@link Batch#await()}.
+ */
+public final class SnowstormWorkerPool {
+
+    /** The Constant LOG. */
+    private static final Logger LOG = LoggerFactory.getLogger(SnowstormWorkerPool.class);
+
+    /** The prefix for the worker properties. */
+    private static final String PROPERTY_PREFIX = "terminology.handler.SNOMED_SNOWSTORM.workers.";
+
+    /** The default number of tasks run on the workers at once. */
+    private static final int DEFAULT_CONCURRENCY = 30;
+
+    /** The default number of tasks run on the workers at once for a single branch. */
+    private static final int DEFAULT_BRANCH_CONCURRENCY = 10;
+
+    /** The workers. */
+    private static final ExecutorService EXECUTOR;
+
+    /** The permits for running a task on the workers. */
+    private static final Semaphore PERMITS;
+
+    /** The number of tasks run on the workers at once for a single branch. */
+    private static final int BRANCH_CONCURRENCY;
+
+    /** The permits for running a task on the workers by branch. */
+    private static final Map<String, Semaphore> BRANCH_PERMITS = new ConcurrentHashMap<>();
+
+    static {
+
+        final int concurrency = Math.max(1, NumberUtils.toInt(PropertyUtility.getProperty(PROPERTY_PREFIX + "concurrency"), DEFAULT_CONCURRENCY));
+        BRANCH_CONCURRENCY =
+            Math.max(1, NumberUtils.toInt(PropertyUtility.getProperty(PROPERTY_PREFIX + "branchConcurrency"), DEFAULT_BRANCH_CONCURRENCY));
+        PERMITS = new Semaphore(concurrency);
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        EXECUTOR = Executors.newFixedThreadPool(concurrency, runnable -> {
+
+            final Thread thread = new Thread(runnable, "snowstorm-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        LOG.info("Snowstorm worker pool started with {} workers, {} per branch", concurrency, BRANCH_CONCURRENCY);
+    }
+
+    /**
+     * Instantiates an empty {@link SnowstormWorkerPool}.
+     */
+    private SnowstormWorkerPool() {
+
+        // n/a
+    }
+
+    /**
+     * Starts a batch of tasks against a branch.
+     *
+     * @param branchPath the branch path the tasks call
+     * @param timeout the time allowed for the whole batch
+     * @param unit the unit of the timeout
+     * @return the batch
+     */
+    public static Batch newBatch(final String branchPath, final long timeout, final TimeUnit unit) {
+
+        return new Batch(branchPath, System.currentTimeMillis() + unit.toMillis(timeout));
+    }
+
+    /**
+     * A batch of tasks sharing a deadline, submitted and awaited by a single thread.
+     */
+    public static final class Batch {
+
+        /** The branch path. */
+        private final String branchPath;
+
+        /** The deadline. */
+        private final long deadline;
+
+        /** The permits of the branch. */
+        private final Semaphore branchPermits;
+
+        /** The tasks. */
+        private final List<Task> tasks = new ArrayList<>();
+
+        /** Whether a task has failed or the batch was cancelled. */
+        private volatile boolean stopped;
+
+        /**
+         * Instantiates a {@link Batch} from the specified parameters.
+         *
+         * @param branchPath the branch path
+         * @param deadline the deadline
+         */
+        Batch(final String branchPath, final long deadline) {
+
+            this.branchPath = branchPath;
+            this.deadline = deadline;
+            this.branchPermits = BRANCH_PERMITS.computeIfAbsent(branchPath, k -> new Semaphore(BRANCH_CONCURRENCY));
+        }
+
+        /**
+         * Submits a task, running it on the current thread if no worker is available to the branch.
+         *
+         * @param runnable the task
+         */
+        public void submit(final Runnable runnable) {
+
+            final Task task = new Task(runnable);
+            tasks.add(task);
+
+            // a batch that has already failed or expired does not start anything new
+            if (stopped || System.currentTimeMillis() > deadline) {
+
+                task.cancel(false);
+                return;
+            }
+
+            if (branchPermits.tryAcquire()) {
+
+                if (PERMITS.tryAcquire()) {
+
+                    task.permitted = true;
+                    EXECUTOR.execute(task);
+                    return;
+                }
+
+                branchPermits.release();
+            }
+
+            task.run();
+        }
+
+        /**
+         * Waits for all tasks of the batch to finish.
+         *
+         * @throws Exception the first failure of a task, or if the deadline passed first
+         */
+        public void await() throws Exception {
+
+            try {
+
+                for (final Task task : tasks) {
+
+                    task.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                }
+
+            } catch (final TimeoutException | CancellationException e) {
+
+                cancel();
+                throw new Exception("Calls to the terminology server for branch " + branchPath + " did not finish in time");
+
+            } catch (final ExecutionException e) {
+
+                cancel();
+                final Throwable cause = e.getCause();
+
+                // tasks are runnables, so unwrap the exception they had to wrap
+                if (cause.getClass() == RuntimeException.class && cause.getCause() instanceof Exception) {
+                    throw (Exception) cause.getCause();
+                }
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw e;
+
+            } catch (final InterruptedException e) {
+
+                cancel();
+                throw e;
+            }
+        }
+
+        /**
+         * Cancels the tasks that have not finished.
+         */
+        private void cancel() {
+
+            stopped = true;
+
+            for (final Task task : tasks) {
+                task.cancel(true);
+            }
+        }
+
+        /**
+         * A task of the batch, releasing its worker permits when it ends.
+         */
+        private final class Task extends FutureTask<Void> {
+
+            /** Whether the task holds worker permits. */
+            private volatile boolean permitted;
+
+            /** Whether the task started running. */
+            private final AtomicBoolean started = new AtomicBoolean();
+
+            /** Whether the permits have been released. */
+            private final AtomicBoolean released = new AtomicBoolean();
+
+            /**
+             * Instantiates a {@link Task} from the specified parameters.
+             *
+             * @param runnable the runnable
+             */
+            Task(final Runnable runnable) {
+
+                super(runnable, null);
+            }
+
+            /* see superclass */
+            @Override
+            public void run() {
+
+                started.set(true);
+
+                try {
+                    super.run();
+                } finally {
+                    releasePermits();
+                }
+            }
+
+            /* see superclass */
+            @Override
+            protected void setException(final Throwable t) {
+
+                stopped = true;
+                super.setException(t);
+            }
+
+            /* see superclass */
+            @Override
+            protected void done() {
+
+                // a task cancelled before it started never reaches the release in run
+                if (!started.get()) {
+                    releasePermits();
+                }
+            }
+
+            /**
+             * Releases the worker permits, once.
+             */
+            private void releasePermits() {
+
+                if (permitted && released.compareAndSet(false, true)) {
+                    branchPermits.release();
+                    PERMITS.release();
+                }
+            }
+        }
+    }
+}
@@ -20,9 +20,11 @@ import java.util.Map;
 
 import org.apache.lucene.queryparser.classic.QueryParserBase;
 import org.ihtsdo.refsetservice.handler.TerminologyServerHandler;
+import org.ihtsdo.refsetservice.model.AuditEntry;
 import org.ihtsdo.refsetservice.model.PfsParameter;
 import org.ihtsdo.refsetservice.model.Project;
 import org.ihtsdo.refsetservice.model.Refset;
+import org.ihtsdo.refsetservice.model.RefsetEditHistory;
 import org.ihtsdo.refsetservice.model.User;
 import org.ihtsdo.refsetservice.model.WorkflowHistory;
 import org.ihtsdo.refsetservice.service.TerminologyService;
@@ -319,10 +321,30 @@ public final class WorkflowService {
 					+ "Reference sets in " + editionShortName + " that are ready to be published");
 		}
 
-		// see if there is an "In Development" version as that should be the latest.
-		for (final Refset refset : results.getItems()) {
+		// make the changes searchable once at the end rather than on every commit
+		final boolean synchronousIndexing = service.isSynchronousIndexing();
+		service.setSynchronousIndexing(false);
+
+		try {
+
+			// see if there is an "In Development" version as that should be the latest.
+			for (final Refset refset : results.getItems()) {
+
+				refsetsNotUpdated.addAll(completeRefsetPublication(service, refset, versionDate));
+			}
+
+		} finally {
 
-			refsetsNotUpdated.addAll(completeRefsetPublication(service, refset, versionDate));
+			// a failure here must not hide the one that ended the loop
+			try {
+
+				service.setSynchronousIndexing(synchronousIndexing);
+				service.refreshIndexes(Refset.class, AuditEntry.class);
+
+			} catch (final Exception e) {
+
+				LOG.error("Unable to refresh the indexes after updating refsets", e);
+			}
 		}
 
 		return refsetsNotUpdated;
@@ -416,27 +438,48 @@ public final class WorkflowService {
 				"refsetId:(" + refsetIds.replace(",", " OR ") + ") AND versionStatus: (" + Refset.IN_DEVELOPMENT + ")",
 				new PfsParameter(), Refset.class, null);
 
-		for (final Refset refset : results.getItems()) {
+		// each refset is independent, so make the changes searchable once at the end
+		// rather than on every commit
+		final boolean synchronousIndexing = service.isSynchronousIndexing();
+		service.setSynchronousIndexing(false);
 
-			try {
+		try {
 
-				final String currentStatus = refset.getWorkflowStatus();
+			for (final Refset refset : results.getItems()) {
 
-				setWorkflowStatusByAction(service, user, action, refset, notes);
+				try {
 
-				if (currentStatus.equals(refset.getWorkflowStatus())) {
+					final String currentStatus = refset.getWorkflowStatus();
 
-					refsetsNotUpdated.add(refset.getRefsetId());
-				} else {
+					setWorkflowStatusByAction(service, user, action, refset, notes);
+
+					if (currentStatus.equals(refset.getWorkflowStatus())) {
+
+						refsetsNotUpdated.add(refset.getRefsetId());
+					} else {
 
-					RefsetService.clearAllRefsetCaches(refset.getEditionBranch());
+						RefsetService.clearAllRefsetCaches(refset.getEditionBranch());
+					}
+
+				} catch (final Exception e) {
+
+					refsetsNotUpdated.add(refset.getRefsetId());
 				}
 
+			}
+
+		} finally {
+
+			// a failure here must not hide the one that ended the loop
+			try {
+
+				service.setSynchronousIndexing(synchronousIndexing);
+				service.refreshIndexes(Refset.class, WorkflowHistory.class, RefsetEditHistory.class, AuditEntry.class);
+
 			} catch (final Exception e) {
 
-				refsetsNotUpdated.add(refset.getRefsetId());
+				LOG.error("Unable to refresh the indexes after updating refsets", e);
 			}
-
 		}
 
 		return refsetsNotUpdated;
@@ -574,7 +617,7 @@ public final class WorkflowService {
 				mergeBranch(projectBranchPath, refsetBranchPath, "Updating branch to latest changes", true);
 			}
 
-			RefsetService.setRefsetMemberCount(service, refset, true);
+			RefsetService.refreshRefsetMemberCount(refset, true);
 
 			createEditBranch(service, user, refset, branchId);
 		}
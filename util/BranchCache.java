@@ -0,0 +1,499 @@
+/*
+ * Copyright 2024 West Coast Informatics - All Rights Reserved.
+ *
+ * NOTICE:  All information contained herein is, and remains the property of West Coast Informatics
+ * The intellectual and technical concepts contained herein are proprietary to
+ * West Coast Informatics and may be covered by U.S. and Foreign Patents, patents in process,
+ * and are protected by trade secret or copyright law.  Dissemination of this information
+ * or reproduction of this material is strictly forbidden.
+ */
+package org.ihtsdo.refsetservice.util;
+
+import java.util.AbstractMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Thread safe, bounded cache of per-branch cache collections.
+ *
+ * Branches are kept in least recently used order and the oldest branch is dropped once the branch limit is reached. Each branch collection is a
+ * thread safe map bounded by total weight, evicting its least recently used entries, and entries expire after the time to live. Hit, miss, eviction
+ * and expiration counts are kept across all branches, hits and misses counted by lookups with get. A branch can be created sharing the values of
+ * another, each branch copying a shared value the first time it reads it.
+ *
+ * @param <V> the cached value type
+ */
+public class BranchCache<V> {
+
+    /** The Constant LOG. */
+    private static final Logger LOG = LoggerFactory.getLogger(BranchCache.class);
+
+    /** The cache name, for logging and statistics. */
+    private final String name;
+
+    /** The maximum number of branches. */
+    private final int maxBranches;
+
+    /** The maximum total weight of the entries of one branch. */
+    private final long maxWeightPerBranch;
+
+    /** The time to live of an entry in milliseconds. */
+    private final long timeToLive;
+
+    /** The weigher of an entry value. */
+    private final ToIntFunction<V> weigher;
+
+    /** The copier of an entry value, or null if values cannot be shared between branches. */
+    private final UnaryOperator<V> copier;
+
+    /** The branch collections, in access order. */
+    private final Map<String, BranchMap<V>> branches;
+
+    /** The hit count. */
+    private final AtomicLong hits = new AtomicLong();
+
+    /** The miss count. */
+    private final AtomicLong misses = new AtomicLong();
+
+    /** The entry eviction count. */
+    private final AtomicLong evictions = new AtomicLong();
+
+    /** The entry expiration count. */
+    private final AtomicLong expirations = new AtomicLong();
+
+    /** The branch eviction count. */
+    private final AtomicLong branchEvictions = new AtomicLong();
+
+    /**
+     * Instantiates a {@link BranchCache} from the specified parameters.
+     *
+     * @param name the cache name
+     * @param maxBranches the maximum number of branches
+     * @param maxWeightPerBranch the maximum total weight of the entries of one branch
+     * @param timeToLive the time to live of an entry in milliseconds
+     * @param weigher the weigher of an entry value, or null to count entries
+     */
+    public BranchCache(final String name, final int maxBranches, final long maxWeightPerBranch, final long timeToLive, final ToIntFunction<V> weigher) {
+
+        this(name, maxBranches, maxWeightPerBranch, timeToLive, weigher, null);
+    }
+
+    /**
+     * Instantiates a {@link BranchCache} whose values can be shared between branches.
+     *
+     * @param name the cache name
+     * @param maxBranches the maximum number of branches
+     * @param maxWeightPerBranch the maximum total weight of the entries of one branch
+     * @param timeToLive the time to live of an entry in milliseconds
+     * @param weigher the weigher of an entry value, or null to count entries
+     * @param copier the copier of an entry value, or null if values cannot be shared
+     */
+    public BranchCache(final String name, final int maxBranches, final long maxWeightPerBranch, final long timeToLive, final ToIntFunction<V> weigher,
+        final UnaryOperator<V> copier) {
+
+        this.name = name;
+        this.maxBranches = maxBranches;
+        this.maxWeightPerBranch = maxWeightPerBranch;
+        this.timeToLive = timeToLive;
+        this.weigher = weigher != null ? weigher : value -> 1;
+        this.copier = copier;
+        this.branches = new LinkedHashMap<String, BranchMap<V>>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, BranchMap<V>> eldest) {
+
+                if (size() > BranchCache.this.maxBranches) {
+
+                    branchEvictions.incrementAndGet();
+                    LOG.debug("{}: evicting cache for branch {}", BranchCache.this.name, eldest.getKey());
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cache collection of a branch, or a new empty collection (not yet registered) if the branch is not cached.
+     *
+     * @param branchPath the branch path
+     * @return the branch cache collection
+     */
+    public synchronized Map<String, V> getBranch(final String branchPath) {
+
+        final BranchMap<V> branch = branches.get(branchPath);
+        return branch != null ? branch : new BranchMap<>(this);
+    }
+
+    /**
+     * Indicates whether a branch is cached.
+     *
+     * @param branchPath the branch path
+     * @return true, if the branch is cached
+     */
+    public synchronized boolean containsKey(final String branchPath) {
+
+        return branches.containsKey(branchPath);
+    }
+
+    /**
+     * Returns the cache collection of a branch.
+     *
+     * @param branchPath the branch path
+     * @return the branch cache collection, or null if the branch is not cached
+     */
+    public synchronized Map<String, V> get(final String branchPath) {
+
+        return branches.get(branchPath);
+    }
+
+    /**
+     * Registers the cache collection of a branch. A collection not obtained from this cache is copied into a bounded one.
+     *
+     * @param branchPath the branch path
+     * @param branchCache the branch cache collection
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void put(final String branchPath, final Map<String, V> branchCache) {
+
+        if (branchCache instanceof BranchMap && ((BranchMap<V>) branchCache).owner == this) {
+
+            branches.put(branchPath, (BranchMap<V>) branchCache);
+        } else {
+
+            final BranchMap<V> branch = new BranchMap<>(this);
+            branch.putAll(branchCache);
+            branches.put(branchPath, branch);
+        }
+    }
+
+    /**
+     * Registers a copy of the cache collection of a branch for another branch, with keys translated. Values are not copied up front: they are
+     * marked shared in both collections, and each collection copies a shared value the first time it is read, so changes made to a value read from
+     * one branch never reach the other. The copy is an independent collection, weighed and evicted like any other. Replaces any collection
+     * registered for the target branch.
+     *
+     * @param toBranchPath the branch path to register
+     * @param fromBranchPath the branch path to copy
+     * @param translateKey translates a key of the source branch to a key of the new branch
+     * @return true, if the source branch was cached
+     */
+    public synchronized boolean putShared(final String toBranchPath, final String fromBranchPath, final UnaryOperator<String> translateKey) {
+
+        if (copier == null) {
+            throw new IllegalStateException("Values of cache " + name + " cannot be shared between branches");
+        }
+
+        final BranchMap<V> source = branches.get(fromBranchPath);
+
+        if (source == null) {
+
+            branches.remove(toBranchPath);
+            return false;
+        }
+
+        final BranchMap<V> branch = new BranchMap<>(this);
+        source.shareInto(branch, translateKey);
+        branches.put(toBranchPath, branch);
+        return true;
+    }
+
+    /**
+     * Removes the cache collection of a branch.
+     *
+     * @param branchPath the branch path
+     */
+    public synchronized void remove(final String branchPath) {
+
+        branches.remove(branchPath);
+    }
+
+    /**
+     * Removes the cache collections of all branches.
+     */
+    public synchronized void clear() {
+
+        branches.clear();
+    }
+
+    /**
+     * Returns the cache statistics.
+     *
+     * @return the statistics
+     */
+    public synchronized Map<String, Object> getStatistics() {
+
+        final Map<String, Object> statistics = new LinkedHashMap<>();
+        long entries = 0;
+        long weight = 0;
+
+        for (final BranchMap<V> branch : new HashSet<>(branches.values())) {
+
+            synchronized (branch) {
+                entries += branch.entries.size();
+                weight += branch.weight;
+            }
+        }
+
+        statistics.put("branches", branches.size());
+        statistics.put("entries", entries);
+        statistics.put("weight", weight);
+        statistics.put("hits", hits.get());
+        statistics.put("misses", misses.get());
+        statistics.put("evictions", evictions.get());
+        statistics.put("expirations", expirations.get());
+        statistics.put("branchEvictions", branchEvictions.get());
+        return statistics;
+    }
+
+    /**
+     * Returns the cache name.
+     *
+     * @return the name
+     */
+    public String getName() {
+
+        return name;
+    }
+
+    /**
+     * A cached value with its weight and expiration time.
+     *
+     * @param <V> the value type
+     */
+    private static final class CachedValue<V> {
+
+        /** The value. */
+        private final V value;
+
+        /** The weight. */
+        private final int weight;
+
+        /** The expiration time. */
+        private final long expires;
+
+        /** Whether the value is shared with another branch and must be copied before it is handed out. */
+        private final boolean shared;
+
+        /**
+         * Instantiates a {@link CachedValue} from the specified parameters.
+         *
+         * @param value the value
+         * @param weight the weight
+         * @param expires the expiration time
+         * @param shared whether the value is shared with another branch
+         */
+        CachedValue(final V value, final int weight, final long expires, final boolean shared) {
+
+            this.value = value;
+            this.weight = weight;
+            this.expires = expires;
+            this.shared = shared;
+        }
+    }
+
+    /**
+     * Thread safe cache collection of one branch, bounded by weight with least recently used eviction and a time to live. Iteration works on a
+     * snapshot so readers never see a concurrent modification.
+     *
+     * @param <V> the value type
+     */
+    private static final class BranchMap<V> extends AbstractMap<String, V> {
+
+        /** The owning cache. */
+        private final BranchCache<V> owner;
+
+        /** The entries, in access order. */
+        private final LinkedHashMap<String, CachedValue<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        /** The total weight of the entries. */
+        private long weight;
+
+        /**
+         * Instantiates a {@link BranchMap} from the specified parameters.
+         *
+         * @param owner the owning cache
+         */
+        BranchMap(final BranchCache<V> owner) {
+
+            this.owner = owner;
+        }
+
+        /**
+         * Copies the live entries into an empty collection under translated keys, marking the values shared in both. Translated keys take
+         * precedence over untranslated ones they collide with.
+         *
+         * @param target the empty collection
+         * @param translateKey translates a key of this collection to a key of the target
+         */
+        synchronized void shareInto(final BranchMap<V> target, final UnaryOperator<String> translateKey) {
+
+            final Map<String, CachedValue<V>> translated = new LinkedHashMap<>();
+            final long now = System.currentTimeMillis();
+
+            // oldest first, so the target keeps the access order
+            for (final Map.Entry<String, CachedValue<V>> entry : entries.entrySet()) {
+
+                CachedValue<V> cached = entry.getValue();
+
+                if (cached.expires < now) {
+                    continue;
+                }
+
+                if (!cached.shared) {
+
+                    cached = new CachedValue<>(cached.value, cached.weight, cached.expires, true);
+                    entry.setValue(cached);
+                }
+
+                final String key = translateKey.apply(entry.getKey());
+                (key.equals(entry.getKey()) ? target.entries : translated).put(key, cached);
+            }
+
+            target.entries.putAll(translated);
+
+            for (final CachedValue<V> cached : target.entries.values()) {
+                target.weight += cached.weight;
+            }
+        }
+
+        /**
+         * Returns the live entry for a key, dropping it if expired.
+         *
+         * @param key the key
+         * @return the entry, or null
+         */
+        private CachedValue<V> live(final Object key) {
+
+            final CachedValue<V> cached = entries.get(key);
+
+            if (cached != null && cached.expires < System.currentTimeMillis()) {
+
+                entries.remove(key);
+                weight -= cached.weight;
+                owner.expirations.incrementAndGet();
+                return null;
+            }
+
+            return cached;
+        }
+
+        /* see superclass */
+        @Override
+        public synchronized boolean containsKey(final Object key) {
+
+            return live(key) != null;
+        }
+
+        /* see superclass */
+        @Override
+        public synchronized V get(final Object key) {
+
+            // counted here, as an entry can expire between a containsKey and a get
+            final CachedValue<V> cached = live(key);
+            (cached != null ? owner.hits : owner.misses).incrementAndGet();
+
+            if (cached == null) {
+                return null;
+            }
+
+            // the other branch holds the same instance, so this branch takes its own copy
+            if (cached.shared) {
+
+                final V copy = owner.copier.apply(cached.value);
+                entries.put((String) key, new CachedValue<>(copy, cached.weight, cached.expires, false));
+                return copy;
+            }
+
+            return cached.value;
+        }
+
+        /* see superclass */
+        @Override
+        public synchronized V put(final String key, final V value) {
+
+            final CachedValue<V> cached = new CachedValue<>(value, Math.max(1, owner.weigher.applyAsInt(value)), System.currentTimeMillis() + owner.timeToLive,
+                false);
+            final CachedValue<V> previous = entries.put(key, cached);
+            weight += cached.weight - (previous != null ? previous.weight : 0);
+
+            // evict least recently used entries, always keeping the newest one
+            final Iterator<Map.Entry<String, CachedValue<V>>> iterator = entries.entrySet().iterator();
+            while (weight > owner.maxWeightPerBranch && entries.size() > 1) {
+
+                final CachedValue<V> eldest = iterator.next().getValue();
+                iterator.remove();
+                weight -= eldest.weight;
+                owner.evictions.incrementAndGet();
+            }
+
+            return previous != null ? previous.value : null;
+        }
+
+        /* see superclass */
+        @Override
+        public synchronized V remove(final Object key) {
+
+            final CachedValue<V> previous = entries.remove(key);
+
+            if (previous == null) {
+                return null;
+            }
+
+            weight -= previous.weight;
+            return previous.value;
+        }
+
+        /* see superclass */
+        @Override
+        public synchronized int size() {
+
+            return entries.size();
+        }
+
+        /* see superclass */
+        @Override
+        public synchronized void clear() {
+
+            entries.clear();
+            weight = 0;
+        }
+
+        /* see superclass */
+        @Override
+        public synchronized Set<Map.Entry<String, V>> entrySet() {
+
+            final Map<String, V> snapshot = new LinkedHashMap<>();
+            final long now = System.currentTimeMillis();
+
+            for (final Map.Entry<String, CachedValue<V>> entry : entries.entrySet()) {
+
+                final CachedValue<V> cached = entry.getValue();
+
+                if (cached.expires < now) {
+                    continue;
+                }
+
+                if (cached.shared) {
+                    entry.setValue(new CachedValue<>(owner.copier.apply(cached.value), cached.weight, cached.expires, false));
+                }
+
+                snapshot.put(entry.getKey(), entry.getValue().value);
+            }
+
+            return snapshot.entrySet();
+        }
+    }
+}
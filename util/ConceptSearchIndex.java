@@ -0,0 +1,406 @@
+/*
+ * Copyright 2024 West Coast Informatics - All Rights Reserved.
+ *
+ * NOTICE:  All information contained herein is, and remains the property of West Coast Informatics
+ * The intellectual and technical concepts contained herein are proprietary to
+ * West Coast Informatics and may be covered by U.S. and Foreign Patents, patents in process,
+ * and are protected by trade secret or copyright law.  Dissemination of this information
+ * or reproduction of this material is strictly forbidden.
+ */
+package org.ihtsdo.refsetservice.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ihtsdo.refsetservice.model.Concept;
+
+/**
+ * Immutable in-memory search index over the concepts of one terminology version.
+ *
+ * Codes are held in a sorted array so prefix lookups are a binary search. Names are held in name order with a trigram inverted index so substring
+ * lookups only verify the concepts sharing the rarest trigram of the query. Matches are produced in result order, so a page is collected while
+ * counting the total and the full match set is never materialized or sorted. Counting stops once the page is filled and the total reaches
+ * {@link #MAX_COUNTED_MATCHES}, so broad queries, including those too short to use the trigram index, report that many matches at least.
+ */
+public final class ConceptSearchIndex {
+
+    /** The gram size of the name index. */
+    private static final int GRAM_SIZE = 3;
+
+    /** The number of matches counted beyond which the total is reported as this number. */
+    public static final int MAX_COUNTED_MATCHES = 10000;
+
+    /** The source list the index was built from. */
+    private final List<Concept> source;
+
+    /** The concepts sorted by code. */
+    private final Concept[] byCode;
+
+    /** The codes sorted, parallel to byCode. */
+    private final String[] codes;
+
+    /** The name ordinal of each concept in byCode. */
+    private final int[] codeToNameOrdinal;
+
+    /** The concepts sorted by name. */
+    private final Concept[] byName;
+
+    /** The lower case names, parallel to byName. */
+    private final String[] lowerNames;
+
+    /** The name ordinals containing each trigram, ascending. */
+    private final Map<Long, int[]> trigramPostings;
+
+    /**
+     * Instantiates a {@link ConceptSearchIndex} from the specified parameters.
+     *
+     * @param concepts the concepts of one terminology version
+     */
+    public ConceptSearchIndex(final List<Concept> concepts) {
+
+        source = concepts;
+
+        // stable sorts keep the order of the source list for equal keys
+        byName = concepts.toArray(new Concept[0]);
+        Arrays.sort(byName, Comparator.comparing(Concept::getName, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        final Map<Concept, Integer> nameOrdinals = new IdentityHashMap<>(byName.length * 2);
+        lowerNames = new String[byName.length];
+        final Map<Long, IntArrayBuilder> builders = new HashMap<>();
+
+        for (int i = 0; i < byName.length; i++) {
+
+            nameOrdinals.put(byName[i], i);
+            lowerNames[i] = byName[i].getName() == null ? null : byName[i].getName().toLowerCase();
+
+            if (lowerNames[i] == null) {
+                continue;
+            }
+
+            for (int j = 0; j + GRAM_SIZE <= lowerNames[i].length(); j++) {
+
+                // postings are appended in ordinal order, so skipping a repeat only needs the last entry
+                final IntArrayBuilder builder = builders.computeIfAbsent(gram(lowerNames[i], j), k -> new IntArrayBuilder());
+                if (builder.size == 0 || builder.values[builder.size - 1] != i) {
+                    builder.add(i);
+                }
+            }
+        }
+
+        trigramPostings = new HashMap<>(builders.size() * 2);
+        for (final Map.Entry<Long, IntArrayBuilder> entry : builders.entrySet()) {
+            trigramPostings.put(entry.getKey(), entry.getValue().toArray());
+        }
+
+        byCode = concepts.toArray(new Concept[0]);
+        Arrays.sort(byCode, Comparator.comparing(Concept::getCode));
+        codes = new String[byCode.length];
+        codeToNameOrdinal = new int[byCode.length];
+
+        for (int i = 0; i < byCode.length; i++) {
+
+            codes[i] = byCode[i].getCode();
+            codeToNameOrdinal[i] = nameOrdinals.get(byCode[i]);
+        }
+    }
+
+    /**
+     * Returns the source list the index was built from.
+     *
+     * @return the source
+     */
+    public List<Concept> getSource() {
+
+        return source;
+    }
+
+    /**
+     * Returns the concept with the specified code.
+     *
+     * @param code the code
+     * @return the concept, or null if not found
+     */
+    public Concept findByCode(final String code) {
+
+        final int index = Arrays.binarySearch(codes, code);
+        return index < 0 ? null : byCode[index];
+    }
+
+    /**
+     * Finds concepts whose code starts with the prefix, in code order.
+     *
+     * @param prefix the code prefix
+     * @param offset the offset of the page
+     * @param limit the size of the page
+     * @param page the list to add the page of concepts to
+     * @return the total number of matches
+     */
+    public int findByCodePrefix(final String prefix, final int offset, final int limit, final List<Concept> page) {
+
+        final int start = lowerBound(prefix);
+        final int end = upperBound(prefix, start);
+
+        for (int i = start + offset; i < end && page.size() < limit; i++) {
+            page.add(byCode[i]);
+        }
+
+        return end - start;
+    }
+
+    /**
+     * Finds concepts whose name contains the text (case insensitive), in name order.
+     *
+     * @param text the text
+     * @param offset the offset of the page
+     * @param limit the size of the page
+     * @param page the list to add the page of concepts to
+     * @return the total number of matches
+     */
+    public int findByName(final String text, final int offset, final int limit, final List<Concept> page) {
+
+        return collect(new NameMatches(text.toLowerCase()), null, offset, limit, page);
+    }
+
+    /**
+     * Finds concepts whose name contains the text (case insensitive) or whose code starts with it, in name order.
+     *
+     * @param text the text
+     * @param offset the offset of the page
+     * @param limit the size of the page
+     * @param page the list to add the page of concepts to
+     * @return the total number of matches
+     */
+    public int find(final String text, final int offset, final int limit, final List<Concept> page) {
+
+        final int start = lowerBound(text);
+        final int end = upperBound(text, start);
+        final int[] codeMatches = new int[end - start];
+
+        for (int i = start; i < end; i++) {
+            codeMatches[i - start] = codeToNameOrdinal[i];
+        }
+        Arrays.sort(codeMatches);
+
+        return collect(new NameMatches(text.toLowerCase()), codeMatches, offset, limit, page);
+    }
+
+    /**
+     * Merges the name matches with optional extra ordinals, counting matches up to {@link #MAX_COUNTED_MATCHES} and collecting only the
+     * requested page.
+     *
+     * @param nameMatches the name matches
+     * @param extra additional ascending name ordinals, or null
+     * @param offset the offset of the page
+     * @param limit the size of the page
+     * @param page the list to add the page of concepts to
+     * @return the total number of matches, capped once the page is filled
+     */
+    private int collect(final NameMatches nameMatches, final int[] extra, final int offset, final int limit, final List<Concept> page) {
+
+        int total = 0;
+        int next = nameMatches.next();
+        int extraIndex = 0;
+
+        while (next >= 0 || (extra != null && extraIndex < extra.length)) {
+
+            if (total >= MAX_COUNTED_MATCHES && total >= offset + limit) {
+                break;
+            }
+
+            final int ordinal;
+            if (extra == null || extraIndex >= extra.length || (next >= 0 && next < extra[extraIndex])) {
+
+                ordinal = next;
+                next = nameMatches.next();
+            } else {
+
+                ordinal = extra[extraIndex++];
+                if (ordinal == next) {
+                    next = nameMatches.next();
+                }
+            }
+
+            if (total >= offset && page.size() < limit) {
+                page.add(byName[ordinal]);
+            }
+            total++;
+        }
+
+        return total;
+    }
+
+    /**
+     * Returns the first index in the code array not less than the prefix.
+     *
+     * @param prefix the prefix
+     * @return the index
+     */
+    private int lowerBound(final String prefix) {
+
+        int low = 0;
+        int high = codes.length;
+
+        while (low < high) {
+
+            final int mid = (low + high) >>> 1;
+            if (codes[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Returns the first index at or after start whose code does not start with the prefix.
+     *
+     * @param prefix the prefix
+     * @param start the lower bound of the prefix
+     * @return the index
+     */
+    private int upperBound(final String prefix, final int start) {
+
+        int low = start;
+        int high = codes.length;
+
+        while (low < high) {
+
+            final int mid = (low + high) >>> 1;
+            if (codes[mid].startsWith(prefix)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Encodes the trigram at the position as a key.
+     *
+     * @param text the text
+     * @param position the position
+     * @return the key
+     */
+    private static long gram(final String text, final int position) {
+
+        return ((long) text.charAt(position) << 32) | ((long) text.charAt(position + 1) << 16) | text.charAt(position + 2);
+    }
+
+    /**
+     * Iterator over the name ordinals, ascending, whose lower case name contains a text.
+     */
+    private final class NameMatches {
+
+        /** The lower case text. */
+        private final String text;
+
+        /** The candidate ordinals, or null to scan every name. */
+        private final int[] candidates;
+
+        /** Whether every candidate contains the text, so none needs verifying. */
+        private final boolean exact;
+
+        /** The position in the candidates, or the next ordinal when scanning. */
+        private int position;
+
+        /**
+         * Instantiates a {@link NameMatches} from the specified parameters.
+         *
+         * @param text the lower case text
+         */
+        NameMatches(final String text) {
+
+            this.text = text;
+
+            // a text of one trigram is contained in every name holding that trigram
+            exact = text.length() == GRAM_SIZE;
+
+            if (text.length() < GRAM_SIZE) {
+
+                candidates = null;
+                return;
+            }
+
+            // verify only the concepts holding the rarest trigram of the text
+            int[] rarest = null;
+            for (int j = 0; j + GRAM_SIZE <= text.length(); j++) {
+
+                final int[] postings = trigramPostings.get(gram(text, j));
+                if (postings == null) {
+
+                    rarest = new int[0];
+                    break;
+                }
+                if (rarest == null || postings.length < rarest.length) {
+                    rarest = postings;
+                }
+            }
+            candidates = rarest;
+        }
+
+        /**
+         * Returns the next matching ordinal.
+         *
+         * @return the ordinal, or -1 when exhausted
+         */
+        int next() {
+
+            final int count = candidates == null ? lowerNames.length : candidates.length;
+
+            while (position < count) {
+
+                final int ordinal = candidates == null ? position : candidates[position];
+                position++;
+
+                if (exact || (lowerNames[ordinal] != null && lowerNames[ordinal].contains(text))) {
+                    return ordinal;
+                }
+            }
+
+            return -1;
+        }
+    }
+
+    /**
+     * Growable int array used while building postings.
+     */
+    private static final class IntArrayBuilder {
+
+        /** The values. */
+        private int[] values = new int[4];
+
+        /** The size. */
+        private int size;
+
+        /**
+         * Adds a value.
+         *
+         * @param value the value
+         */
+        void add(final int value) {
+
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * Returns the values trimmed to size.
+         *
+         * @return the values
+         */
+        int[] toArray() {
+
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2024 West Coast Informatics - All Rights Reserved.
+ *
+ * NOTICE:  All information contained herein is, and remains the property of West Coast Informatics
+ * The intellectual and technical concepts contained herein are proprietary to
+ * West Coast Informatics and may be covered by U.S. and Foreign Patents, patents in process,
+ * and are protected by trade secret or copyright law.  Dissemination of this information
+ * or reproduction of this material is strictly forbidden.
+ */
+package org.ihtsdo.refsetservice.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.ihtsdo.refsetservice.model.DefinitionClause;
+import org.ihtsdo.refsetservice.model.Refset;
+
+/**
+ * In-memory index of the concept IDs named by the definition exception clauses of each refset.
+ *
+ * The clauses after the first (the base definition) are tokenized once into a lookup from concept ID to the position of the first clause naming
+ * it. A cached lookup is keyed on the clause values it was built from and is only reused for a refset whose clauses still have those values, so
+ * unsaved or newer clauses on the refset passed in are never answered from an older lookup, and clauses are always resolved against that refset.
+ * Entries are invalidated when the terminology service commits a change to a refset or definition clause, and expire after the time to live to
+ * release memory. A load started before an invalidation is never stored.
+ */
+public final class DefinitionClauseIndex {
+
+    /** The time to live of an entry in milliseconds. */
+    private static final long TIME_TO_LIVE = TimeUnit.MINUTES.toMillis(10);
+
+    /** The words of a clause, matching the concept IDs a word boundary search would. */
+    private static final Pattern WORD_PATTERN = Pattern.compile("\\w+");
+
+    /** The cached lookups, by refset internal ID. */
+    private static final Map<String, Entry> INDEX = new ConcurrentHashMap<>();
+
+    /** Incremented by every invalidation. */
+    private static final AtomicLong GENERATION = new AtomicLong();
+
+    /** The position of the first exception clause naming each concept ID. */
+    private final Map<String, Integer> positions;
+
+    /** The definition clauses, the base definition first. */
+    private final List<DefinitionClause> definitionClauses;
+
+    /**
+     * Instantiates a {@link DefinitionClauseIndex} from the specified parameters.
+     *
+     * @param positions the position of the first exception clause naming each concept ID
+     * @param definitionClauses the definition clauses, the base definition first
+     */
+    private DefinitionClauseIndex(final Map<String, Integer> positions, final List<DefinitionClause> definitionClauses) {
+
+        this.positions = positions;
+        this.definitionClauses = definitionClauses;
+    }
+
+    /**
+     * Returns the index of the definition exception clauses of a refset, building it if the refset's clauses are not cached.
+     *
+     * @param refset the refset
+     * @return the index
+     */
+    public static DefinitionClauseIndex get(final Refset refset) {
+
+        final List<DefinitionClause> definitionClauses = refset.getDefinitionClauses();
+        final List<String> values = getExceptionValues(definitionClauses);
+        final Entry cached = refset.getId() == null ? null : INDEX.get(refset.getId());
+
+        if (cached != null && cached.expires >= System.currentTimeMillis() && cached.values.equals(values)) {
+            return new DefinitionClauseIndex(cached.positions, definitionClauses);
+        }
+
+        final long generation = GENERATION.get();
+        final Entry entry = new Entry(values, build(values), System.currentTimeMillis() + TIME_TO_LIVE);
+
+        if (refset.getId() != null) {
+
+            INDEX.put(refset.getId(), entry);
+
+            // invalidations bump the generation before removing, so a concurrent one is always seen here
+            if (GENERATION.get() != generation) {
+                INDEX.remove(refset.getId(), entry);
+            }
+        }
+
+        return new DefinitionClauseIndex(entry.positions, definitionClauses);
+    }
+
+    /**
+     * Invalidates the index of a refset.
+     *
+     * @param refsetInternalId the refset internal ID
+     */
+    public static void invalidate(final String refsetInternalId) {
+
+        GENERATION.incrementAndGet();
+        INDEX.remove(refsetInternalId);
+    }
+
+    /**
+     * Invalidates the indexes of all refsets.
+     */
+    public static void clear() {
+
+        GENERATION.incrementAndGet();
+        INDEX.clear();
+    }
+
+    /**
+     * Returns the values of the definition exception clauses, which key a cached lookup.
+     *
+     * @param definitionClauses the definition clauses, the base definition first
+     * @return the exception clause values, in order
+     */
+    private static List<String> getExceptionValues(final List<DefinitionClause> definitionClauses) {
+
+        final List<String> values = new ArrayList<>();
+
+        for (int i = 1; i < definitionClauses.size(); i++) {
+            values.add(definitionClauses.get(i).getValue());
+        }
+
+        return values;
+    }
+
+    /**
+     * Builds the lookup of the first exception clause naming each concept ID.
+     *
+     * @param values the exception clause values, in order
+     * @return the position in the definition clauses of the first exception clause naming each concept ID
+     */
+    private static Map<String, Integer> build(final List<String> values) {
+
+        final Map<String, Integer> positions = new HashMap<>();
+
+        for (int i = 0; i < values.size(); i++) {
+
+            final Matcher matcher = WORD_PATTERN.matcher(values.get(i));
+
+            while (matcher.find()) {
+                positions.putIfAbsent(matcher.group(), i + 1);
+            }
+        }
+
+        return positions;
+    }
+
+    /**
+     * Returns the first definition exception clause naming a concept ID.
+     *
+     * @param conceptId the concept ID
+     * @return the clause, or null if no exception clause names the concept
+     */
+    public DefinitionClause getClause(final String conceptId) {
+
+        final Integer position = positions.get(conceptId);
+
+        return position == null ? null : definitionClauses.get(position);
+    }
+
+    /**
+     * A cached lookup and the clause values it was built from.
+     */
+    private static final class Entry {
+
+        /** The exception clause values the lookup was built from. */
+        private final List<String> values;
+
+        /** The position of the first exception clause naming each concept ID. */
+        private final Map<String, Integer> positions;
+
+        /** The expiration time. */
+        private final long expires;
+
+        /**
+         * Instantiates an {@link Entry} from the specified parameters.
+         *
+         * @param values the exception clause values the lookup was built from
+         * @param positions the position of the first exception clause naming each concept ID
+         * @param expires the expiration time
+         */
+        private Entry(final List<String> values, final Map<String, Integer> positions, final long expires) {
+
+            this.values = values;
+            this.positions = positions;
+            this.expires = expires;
+        }
+    }
+}
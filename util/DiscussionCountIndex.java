@@ -0,0 +1,273 @@
+/*
+ * Copyright 2024 West Coast Informatics - All Rights Reserved.
+ *
+ * NOTICE:  All information contained herein is, and remains the property of West Coast Informatics
+ * The intellectual and technical concepts contained herein are proprietary to
+ * West Coast Informatics and may be covered by U.S. and Foreign Patents, patents in process,
+ * and are protected by trade secret or copyright law.  Dissemination of this information
+ * or reproduction of this material is strictly forbidden.
+ */
+package org.ihtsdo.refsetservice.util;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.ihtsdo.refsetservice.model.DiscussionPost;
+import org.ihtsdo.refsetservice.model.DiscussionThread;
+import org.ihtsdo.refsetservice.model.DiscussionType;
+
+/**
+ * In-memory aggregate of the open and resolved discussion thread counts of each refset and of its members.
+ *
+ * Public threads are counted once; private threads are counted for each participant, the users who posted in them. The counts of a refset are
+ * built from one pass over its threads and many refsets are loaded together. Entries are invalidated when the terminology service commits a
+ * change to a discussion thread of the refset, and expire after the time to live to pick up changes made any other way. Expired entries are
+ * evicted on every lookup. A load started before an invalidation is never stored.
+ */
+public final class DiscussionCountIndex {
+
+    /**
+     * Loads the discussion threads of refsets.
+     */
+    @FunctionalInterface
+    public interface ThreadLoader {
+
+        /**
+         * Passes the discussion threads of refsets to a handler, a chunk at a time.
+         *
+         * @param refsetInternalIds the refset internal IDs
+         * @param handler the handler
+         * @throws Exception the exception
+         */
+        void load(Collection<String> refsetInternalIds, IndexUtility.HitsHandler<DiscussionThread> handler) throws Exception;
+    }
+
+    /** The time to live of an entry in milliseconds. */
+    private static final long TIME_TO_LIVE = TimeUnit.MINUTES.toMillis(10);
+
+    /** The separator of the concept ID and user ID of a count key. */
+    private static final char KEY_SEPARATOR = '\t';
+
+    /** The indexes, by refset internal ID. */
+    private static final Map<String, DiscussionCountIndex> INDEX = new ConcurrentHashMap<>();
+
+    /** Incremented by every invalidation. */
+    private static final AtomicLong GENERATION = new AtomicLong();
+
+    /**
+     * The open and resolved counts, by concept ID (empty for the refset) and participant user ID (empty for public threads).
+     */
+    private final Map<String, int[]> counts = new HashMap<>();
+
+    /** The expiration time. */
+    private final long expires;
+
+    /**
+     * Instantiates an empty {@link DiscussionCountIndex} from the specified parameters.
+     *
+     * @param expires the expiration time
+     */
+    private DiscussionCountIndex(final long expires) {
+
+        this.expires = expires;
+    }
+
+    /**
+     * Returns the indexes of the discussion counts of refsets, loading those not cached together.
+     *
+     * @param refsetInternalIds the refset internal IDs
+     * @param loader the loader of the discussion threads of refsets
+     * @return the indexes, by refset internal ID
+     * @throws Exception the exception
+     */
+    public static Map<String, DiscussionCountIndex> get(final Collection<String> refsetInternalIds, final ThreadLoader loader) throws Exception {
+
+        final Map<String, DiscussionCountIndex> indexes = new HashMap<>();
+        final Set<String> missing = new LinkedHashSet<>();
+        final long now = System.currentTimeMillis();
+
+        // evict the expired indexes, so only refsets viewed within the time to live are held
+        INDEX.values().removeIf(index -> index.expires < now);
+
+        for (final String refsetInternalId : refsetInternalIds) {
+
+            final DiscussionCountIndex cached = INDEX.get(refsetInternalId);
+
+            if (cached != null && cached.expires >= now) {
+                indexes.put(refsetInternalId, cached);
+            } else {
+                missing.add(refsetInternalId);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return indexes;
+        }
+
+        final long generation = GENERATION.get();
+        final Map<String, DiscussionCountIndex> loaded = new HashMap<>();
+
+        for (final String refsetInternalId : missing) {
+            loaded.put(refsetInternalId, new DiscussionCountIndex(now + TIME_TO_LIVE));
+        }
+
+        loader.load(missing, threads -> {
+
+            for (final DiscussionThread thread : threads) {
+
+                final DiscussionCountIndex index = loaded.get(thread.getRefsetInternalId());
+
+                if (index != null) {
+                    index.add(thread);
+                }
+            }
+        });
+
+        for (final Map.Entry<String, DiscussionCountIndex> entry : loaded.entrySet()) {
+
+            INDEX.put(entry.getKey(), entry.getValue());
+
+            // invalidations bump the generation before removing, so a concurrent one is always seen here
+            if (GENERATION.get() != generation) {
+                INDEX.remove(entry.getKey(), entry.getValue());
+            }
+        }
+
+        indexes.putAll(loaded);
+        return indexes;
+    }
+
+    /**
+     * Invalidates the index of a refset.
+     *
+     * @param refsetInternalId the refset internal ID
+     */
+    public static void invalidate(final String refsetInternalId) {
+
+        GENERATION.incrementAndGet();
+        INDEX.remove(refsetInternalId);
+    }
+
+    /**
+     * Invalidates the indexes of all refsets.
+     */
+    public static void clear() {
+
+        GENERATION.incrementAndGet();
+        INDEX.clear();
+    }
+
+    /**
+     * Counts a discussion thread.
+     *
+     * @param thread the thread
+     */
+    private void add(final DiscussionThread thread) {
+
+        final int status;
+
+        if ("open".equalsIgnoreCase(thread.getStatus())) {
+            status = 0;
+        } else if ("resolved".equalsIgnoreCase(thread.getStatus())) {
+            status = 1;
+        } else {
+            return;
+        }
+
+        final String conceptId;
+
+        // the type is supplied by clients and was always matched regardless of case
+        if (DiscussionType.REFSET.name().equalsIgnoreCase(thread.getType())) {
+            conceptId = "";
+        } else if (DiscussionType.REFSET_MEMBER.name().equalsIgnoreCase(thread.getType()) && thread.getConceptId() != null) {
+            conceptId = thread.getConceptId();
+        } else {
+            return;
+        }
+
+        if (!thread.isPrivateThread()) {
+
+            counts.computeIfAbsent(key(conceptId, ""), k -> new int[2])[status]++;
+            return;
+        }
+
+        final Set<String> participants = new HashSet<>();
+
+        for (final DiscussionPost post : thread.getPosts()) {
+
+            if (post.getUser() != null && post.getUser().getId() != null && participants.add(post.getUser().getId())) {
+                counts.computeIfAbsent(key(conceptId, post.getUser().getId()), k -> new int[2])[status]++;
+            }
+        }
+    }
+
+    /**
+     * Returns the key of a count.
+     *
+     * @param conceptId the concept ID, or empty for the refset
+     * @param userId the participant user ID, or empty for public threads
+     * @return the key
+     */
+    private static String key(final String conceptId, final String userId) {
+
+        return conceptId + KEY_SEPARATOR + userId;
+    }
+
+    /**
+     * Returns the open and resolved counts of the threads a user can see, public threads and the private threads they posted in.
+     *
+     * @param conceptId the concept ID of a member, or null for the refset
+     * @param userId the user ID
+     * @return the open and resolved counts
+     */
+    private int[] getCounts(final String conceptId, final String userId) {
+
+        final String concept = (conceptId == null) ? "" : conceptId;
+        final int[] total = new int[2];
+        final int[] publicCounts = counts.get(key(concept, ""));
+        final int[] privateCounts = (userId == null || userId.isEmpty()) ? null : counts.get(key(concept, userId));
+
+        for (final int[] match : new int[][] {
+            publicCounts, privateCounts
+        }) {
+
+            if (match != null) {
+                total[0] += match[0];
+                total[1] += match[1];
+            }
+        }
+
+        return total;
+    }
+
+    /**
+     * Returns the number of open threads a user can see.
+     *
+     * @param conceptId the concept ID of a member, or null for the refset
+     * @param userId the user ID
+     * @return the open thread count
+     */
+    public int getOpenCount(final String conceptId, final String userId) {
+
+        return getCounts(conceptId, userId)[0];
+    }
+
+    /**
+     * Returns the number of resolved threads a user can see.
+     *
+     * @param conceptId the concept ID of a member, or null for the refset
+     * @param userId the user ID
+     * @return the resolved thread count
+     */
+    public int getResolvedCount(final String conceptId, final String userId) {
+
+        return getCounts(conceptId, userId)[1];
+    }
+}
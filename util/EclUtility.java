@@ -0,0 +1,717 @@
+/*
+ * Copyright 2024 West Coast Informatics - All Rights Reserved.
+ *
+ * NOTICE:  All information contained herein is, and remains the property of West Coast Informatics
+ * The intellectual and technical concepts contained herein are proprietary to
+ * West Coast Informatics and may be covered by U.S. and Foreign Patents, patents in process,
+ * and are protected by trade secret or copyright law.  Dissemination of this information
+ * or reproduction of this material is strictly forbidden.
+ */
+package org.ihtsdo.refsetservice.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Utility for working with ECL (expression constraint language) in process.
+ *
+ * Search queries are classified with a parser for the brief syntax of ECL: constraint and member of operators, concept references with terms,
+ * wildcards, conjunction, disjunction and exclusion, refinements with attribute groups and cardinality, and dotted attributes. Queries using
+ * syntax outside of that (filters, concrete values, long syntax, comments) are classified as unknown so the caller can ask the terminology
+ * server. Recent classifications are kept in a least recently used cache.
+ *
+ * The parser also builds an {@link Expression} so ECL can be composed from parsed operands rather than by string concatenation.
+ */
+public final class EclUtility {
+
+    /**
+     * The classification of a query.
+     */
+    public enum Classification {
+
+        /** The query is a valid ECL expression. */
+        ECL,
+
+        /** The query is not ECL. */
+        NOT_ECL,
+
+        /** The query uses ECL syntax that is not parsed in process. */
+        UNKNOWN
+    }
+
+    /** The maximum number of classifications kept. */
+    private static final int CACHE_SIZE = 1000;
+
+    /** The recent classifications, by query. */
+    private static final Map<String, Classification> CLASSIFICATIONS =
+        Collections.synchronizedMap(new LinkedHashMap<String, Classification>(16, 0.75f, true) {
+
+            /** The serial version UID. */
+            private static final long serialVersionUID = 1L;
+
+            /* see superclass */
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Classification> eldest) {
+
+                return size() > CACHE_SIZE;
+            }
+        });
+
+    /** The constraint operators and other symbols, longest first so the longest match wins. */
+    private static final List<String> SYMBOLS = Arrays.asList("<<!", ">>!", "!!<", "!!>", "<<", ">>", "<!", ">!", "!=", "..", "<", ">", "^", "*",
+        ":", "=", "{", "}", "(", ")", "[", "]", ",", ".");
+
+    /** The constraint operators. */
+    private static final Set<String> CONSTRAINT_OPERATORS = new HashSet<>(Arrays.asList("<<!", ">>!", "!!<", "!!>", "<<", ">>", "<!", ">!", "<", ">"));
+
+    /** The words of the long syntax, which is not parsed in process. */
+    private static final Set<String> LONG_SYNTAX_WORDS = new HashSet<>(Arrays.asList("descendantof", "descendantorselfof", "childof", "childorselfof",
+        "ancestorof", "ancestororselfof", "parentof", "parentorselfof", "memberof", "any", "reverseof", "r", "top", "bottom"));
+
+    /** The query being parsed. */
+    private final String query;
+
+    /** The tokens of the query being parsed. */
+    private final List<String> tokens;
+
+    /** The offset in the query of each token. */
+    private final List<Integer> offsets;
+
+    /** The position of the next token. */
+    private int position;
+
+    /**
+     * Instantiates a {@link EclUtility} parser over the tokens of a query.
+     *
+     * @param query the query
+     * @param tokens the tokens
+     * @param offsets the offset in the query of each token
+     */
+    private EclUtility(final String query, final List<String> tokens, final List<Integer> offsets) {
+
+        this.query = query;
+        this.tokens = tokens;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Classifies a search query as ECL or not.
+     *
+     * @param query the query
+     * @return the classification
+     */
+    public static Classification classify(final String query) {
+
+        if (StringUtility.isEmpty(query)) {
+            return Classification.NOT_ECL;
+        }
+
+        final Classification cached = CLASSIFICATIONS.get(query);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        final Classification classification = parse(query);
+        CLASSIFICATIONS.put(query, classification);
+        return classification;
+    }
+
+    /**
+     * Records the classification of a query, e.g. one classified as unknown and then checked by the terminology server.
+     *
+     * @param query the query
+     * @param ecl whether the query is ECL
+     */
+    public static void setClassification(final String query, final boolean ecl) {
+
+        CLASSIFICATIONS.put(query, ecl ? Classification.ECL : Classification.NOT_ECL);
+    }
+
+    /**
+     * Parses an ECL expression. Expressions the parser does not cover are kept as text.
+     *
+     * @param ecl the ECL
+     * @return the expression
+     */
+    public static Expression parseExpression(final String ecl) {
+
+        final Expression expression = parseTokens(ecl);
+        return expression != null ? expression : Expression.text(ecl.trim(), false);
+    }
+
+    /**
+     * Parses a query.
+     *
+     * @param query the query
+     * @return the classification
+     */
+    private static Classification parse(final String query) {
+
+        if (parseTokens(query) != null) {
+            return Classification.ECL;
+        }
+
+        return tokenize(query, new ArrayList<>()) == null ? unsupported(query) : Classification.NOT_ECL;
+    }
+
+    /**
+     * Parses a query into an expression.
+     *
+     * @param query the query
+     * @return the expression, or null if the query is not ECL or uses syntax that is not parsed in process
+     */
+    private static Expression parseTokens(final String query) {
+
+        final List<Integer> offsets = new ArrayList<>();
+        final List<String> tokens = tokenize(query, offsets);
+
+        if (tokens == null) {
+            return null;
+        }
+
+        final EclUtility parser = new EclUtility(query, tokens, offsets);
+
+        try {
+
+            final Expression expression = parser.expressionConstraint();
+            return parser.position == tokens.size() ? expression : null;
+
+        } catch (final IllegalArgumentException e) {
+
+            return null;
+        }
+    }
+
+    /**
+     * Classifies a query that uses syntax not parsed in process. Without a concept ID or long syntax word it can not be ECL.
+     *
+     * @param query the query
+     * @return the classification
+     */
+    private static Classification unsupported(final String query) {
+
+        if (query.matches("(?s).*(^|[^0-9])[1-9][0-9]{5,17}([^0-9]|$).*")) {
+            return Classification.UNKNOWN;
+        }
+
+        for (final String word : query.toLowerCase().split("[^a-z]+")) {
+
+            if (LONG_SYNTAX_WORDS.contains(word)) {
+                return Classification.UNKNOWN;
+            }
+        }
+
+        return Classification.NOT_ECL;
+    }
+
+    /**
+     * Splits a query into tokens: numbers, terms between pipes, the AND, OR and MINUS keywords and symbols.
+     *
+     * @param query the query
+     * @param offsets the list to add the offset in the query of each token to
+     * @return the tokens, or null if the query uses syntax that is not parsed in process
+     */
+    private static List<String> tokenize(final String query, final List<Integer> offsets) {
+
+        final List<String> tokens = new ArrayList<>();
+        int i = 0;
+
+        while (i < query.length()) {
+
+            final char c = query.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+
+            // a number
+            if (Character.isDigit(c)) {
+
+                int end = i;
+                while (end < query.length() && Character.isDigit(query.charAt(end))) {
+                    end++;
+                }
+                offsets.add(i);
+                tokens.add(query.substring(i, end));
+                i = end;
+                continue;
+            }
+
+            // a term, kept with its pipes (an unterminated term is not ECL)
+            if (c == '|') {
+
+                final int end = query.indexOf('|', i + 1);
+                if (end == -1) {
+                    offsets.add(i);
+                    tokens.add("|");
+                    return tokens;
+                }
+                offsets.add(i);
+                tokens.add(query.substring(i, end + 1));
+                i = end + 1;
+                continue;
+            }
+
+            // a keyword
+            if (Character.isLetter(c)) {
+
+                int end = i;
+                while (end < query.length() && Character.isLetterOrDigit(query.charAt(end))) {
+                    end++;
+                }
+                final String word = query.substring(i, end).toUpperCase();
+                if (!word.equals("AND") && !word.equals("OR") && !word.equals("MINUS")) {
+                    return null;
+                }
+                offsets.add(i);
+                tokens.add(word);
+                i = end;
+                continue;
+            }
+
+            // filters are not parsed in process
+            if (query.startsWith("{{", i)) {
+                return null;
+            }
+
+            String symbol = null;
+            for (final String candidate : SYMBOLS) {
+
+                if (query.startsWith(candidate, i)) {
+                    symbol = candidate;
+                    break;
+                }
+            }
+
+            if (symbol == null) {
+                return null;
+            }
+
+            offsets.add(i);
+            tokens.add(symbol);
+            i += symbol.length();
+        }
+
+        return tokens;
+    }
+
+    /**
+     * Parses an expression constraint: a refined, dotted or compound expression constraint or a sub expression constraint. Operators may not be
+     * mixed without parentheses and an exclusion has exactly two operands.
+     *
+     * @return the expression, refined and dotted expressions as text
+     */
+    private Expression expressionConstraint() {
+
+        final int start = position;
+        final Expression first = subExpressionConstraint();
+
+        if (accept(":")) {
+
+            refinement();
+            return Expression.text(text(start), false);
+        }
+
+        if (peekIs(".")) {
+
+            while (accept(".")) {
+                subExpressionConstraint();
+            }
+            return Expression.text(text(start), false);
+        }
+
+        if (peekIs("MINUS")) {
+
+            next();
+            return Expression.exclusion(first, subExpressionConstraint());
+        }
+
+        final String operator = peekIs(",") ? Expression.AND : peek();
+        final List<Expression> operands = new ArrayList<>();
+        operands.add(first);
+
+        if (Expression.AND.equals(operator)) {
+
+            while (accept("AND") || accept(",")) {
+                operands.add(subExpressionConstraint());
+            }
+            return Expression.compound(Expression.AND, operands);
+
+        } else if (Expression.OR.equals(operator)) {
+
+            while (accept("OR")) {
+                operands.add(subExpressionConstraint());
+            }
+            return Expression.compound(Expression.OR, operands);
+        }
+
+        return first;
+    }
+
+    /**
+     * Parses a sub expression constraint: an optional constraint operator, an optional member of operator and a focus concept or an expression
+     * constraint in parentheses.
+     *
+     * @return the expression, the nested expression for one in parentheses without operators
+     */
+    private Expression subExpressionConstraint() {
+
+        final int start = position;
+        boolean operators = false;
+
+        if (CONSTRAINT_OPERATORS.contains(peek())) {
+            next();
+            operators = true;
+        }
+
+        operators |= accept("^");
+
+        if (accept("(")) {
+
+            final Expression nested = expressionConstraint();
+            expect(")");
+            return operators ? Expression.text(text(start), true) : nested;
+        }
+
+        if (!accept("*")) {
+            conceptReference();
+        }
+
+        return Expression.text(text(start), true);
+    }
+
+    /**
+     * Parses a concept reference: a concept ID followed by an optional term.
+     */
+    private void conceptReference() {
+
+        final String id = next();
+
+        if (id == null || !id.matches("[1-9][0-9]{5,17}")) {
+            throw new IllegalArgumentException("Expected a concept ID");
+        }
+
+        if (peek() != null && peek().length() > 1 && peek().startsWith("|")) {
+            next();
+        }
+    }
+
+    /**
+     * Parses a refinement: attributes and attribute groups joined by conjunction or disjunction, or in parentheses.
+     */
+    private void refinement() {
+
+        subRefinement();
+
+        if ("OR".equals(peek())) {
+
+            while (accept("OR")) {
+                subRefinement();
+            }
+
+        } else {
+
+            while (accept("AND") || accept(",")) {
+                subRefinement();
+            }
+        }
+    }
+
+    /**
+     * Parses a sub refinement: an attribute, an attribute group or a refinement in parentheses.
+     */
+    private void subRefinement() {
+
+        if (accept("(")) {
+
+            refinement();
+            expect(")");
+            return;
+        }
+
+        cardinality();
+
+        if (accept("{")) {
+
+            refinement();
+            expect("}");
+            return;
+        }
+
+        // the attribute name and an expression comparison
+        subExpressionConstraint();
+
+        if (!accept("=") && !accept("!=")) {
+            throw new IllegalArgumentException("Expected a comparison operator");
+        }
+
+        subExpressionConstraint();
+    }
+
+    /**
+     * Parses an optional cardinality, e.g. [1..*].
+     *
+     * @return true, if there was a cardinality
+     */
+    private boolean cardinality() {
+
+        if (!accept("[")) {
+            return false;
+        }
+
+        final String min = next();
+
+        if (min == null || !min.matches("[0-9]+")) {
+            throw new IllegalArgumentException("Expected a minimum cardinality");
+        }
+
+        expect("..");
+
+        final String max = next();
+
+        if (max == null || !(max.equals("*") || max.matches("[0-9]+"))) {
+            throw new IllegalArgumentException("Expected a maximum cardinality");
+        }
+
+        expect("]");
+        return true;
+    }
+
+    /**
+     * Returns the text of the query from a token to the last token consumed.
+     *
+     * @param start the position of the first token
+     * @return the text
+     */
+    private String text(final int start) {
+
+        final int last = position - 1;
+        return query.substring(offsets.get(start), offsets.get(last) + tokens.get(last).length());
+    }
+
+    /**
+     * Returns the next token without consuming it.
+     *
+     * @return the token, or null at the end
+     */
+    private String peek() {
+
+        return position < tokens.size() ? tokens.get(position) : null;
+    }
+
+    /**
+     * Indicates whether the next token is the given token.
+     *
+     * @param token the token
+     * @return true, if the next token is the given token
+     */
+    private boolean peekIs(final String token) {
+
+        return token.equals(peek());
+    }
+
+    /**
+     * Consumes the next token.
+     *
+     * @return the token, or null at the end
+     */
+    private String next() {
+
+        final String token = peek();
+
+        if (token != null) {
+            position++;
+        }
+
+        return token;
+    }
+
+    /**
+     * Consumes the next token if it is the given token.
+     *
+     * @param token the token
+     * @return true, if the token was consumed
+     */
+    private boolean accept(final String token) {
+
+        if (peekIs(token)) {
+            position++;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Consumes the next token, which must be the given token.
+     *
+     * @param token the token
+     */
+    private void expect(final String token) {
+
+        if (!accept(token)) {
+            throw new IllegalArgumentException("Expected " + token);
+        }
+    }
+
+    /**
+     * A parsed ECL expression: a sub expression constraint, or the conjunction, disjunction or exclusion of expressions. Refined and dotted
+     * expressions, and those using syntax not parsed in process, are kept as text.
+     */
+    public static final class Expression {
+
+        /** The conjunction operator. */
+        public static final String AND = "AND";
+
+        /** The disjunction operator. */
+        public static final String OR = "OR";
+
+        /** The exclusion operator. */
+        public static final String MINUS = "MINUS";
+
+        /** The operator, or null for an expression kept as text. */
+        private final String operator;
+
+        /** The operands. */
+        private final List<Expression> operands;
+
+        /** The text of an expression kept as text. */
+        private final String text;
+
+        /** Whether the text can be an operand without parentheses. */
+        private final boolean simple;
+
+        /**
+         * Instantiates a {@link Expression} from the specified parameters.
+         *
+         * @param operator the operator, or null for an expression kept as text
+         * @param operands the operands
+         * @param text the text
+         * @param simple whether the text can be an operand without parentheses
+         */
+        private Expression(final String operator, final List<Expression> operands, final String text, final boolean simple) {
+
+            this.operator = operator;
+            this.operands = operands;
+            this.text = text;
+            this.simple = simple;
+        }
+
+        /**
+         * Returns an expression kept as text.
+         *
+         * @param text the text
+         * @param simple whether the text can be an operand without parentheses
+         * @return the expression
+         */
+        private static Expression text(final String text, final boolean simple) {
+
+            return new Expression(null, Collections.emptyList(), text, simple);
+        }
+
+        /**
+         * Returns the conjunction or disjunction of expressions. Operands with the same operator are merged into it.
+         *
+         * @param operator the operator, AND or OR
+         * @param expressions the expressions
+         * @return the expression, the operand itself if there is only one
+         */
+        private static Expression compound(final String operator, final List<Expression> expressions) {
+
+            if (expressions.size() == 1) {
+                return expressions.get(0);
+            }
+
+            final List<Expression> merged = new ArrayList<>();
+
+            for (final Expression expression : expressions) {
+
+                if (operator.equals(expression.operator)) {
+                    merged.addAll(expression.operands);
+                } else {
+                    merged.add(expression);
+                }
+            }
+
+            return new Expression(operator, Collections.unmodifiableList(merged), null, false);
+        }
+
+        /**
+         * Returns the disjunction of expressions.
+         *
+         * @param expressions the expressions
+         * @return the disjunction, an empty expression if there are none
+         */
+        public static Expression disjunction(final List<Expression> expressions) {
+
+            return expressions.isEmpty() ? text("", false) : compound(OR, expressions);
+        }
+
+        /**
+         * Returns an expression minus another.
+         *
+         * @param included the expression of the included concepts
+         * @param excluded the expression of the excluded concepts
+         * @return the exclusion
+         */
+        public static Expression exclusion(final Expression included, final Expression excluded) {
+
+            return new Expression(MINUS, Collections.unmodifiableList(Arrays.asList(included, excluded)), null, false);
+        }
+
+        /**
+         * Returns the operator.
+         *
+         * @return the operator, AND, OR or MINUS, or null for an expression kept as text
+         */
+        public String getOperator() {
+
+            return operator;
+        }
+
+        /**
+         * Returns the operands.
+         *
+         * @return the operands, empty for an expression kept as text
+         */
+        public List<Expression> getOperands() {
+
+            return operands;
+        }
+
+        /**
+         * Returns the expression as an operand of another, in parentheses unless it is a sub expression constraint.
+         *
+         * @return the ECL
+         */
+        private String toOperand() {
+
+            return operator == null && simple ? text : "(" + this + ")";
+        }
+
+        /* see superclass */
+        @Override
+        public String toString() {
+
+            if (operator == null) {
+                return text;
+            }
+
+            final List<String> ecl = new ArrayList<>();
+
+            for (final Expression operand : operands) {
+                ecl.add(operand.toOperand());
+            }
+
+            return String.join(" " + operator + " ", ecl);
+        }
+    }
+}
@@ -12,6 +12,7 @@ package org.ihtsdo.refsetservice.util;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -19,12 +20,16 @@ import java.time.OffsetDateTime;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -49,6 +54,7 @@ import org.apache.lucene.queryparser.classic.QueryParser;
 import org.hibernate.search.backend.elasticsearch.ElasticsearchExtension;
 import org.hibernate.search.backend.elasticsearch.index.ElasticsearchIndexManager;
 import org.hibernate.search.backend.elasticsearch.metamodel.ElasticsearchIndexDescriptor;
+import org.hibernate.search.backend.elasticsearch.search.query.ElasticsearchSearchResult;
 import org.hibernate.search.backend.lucene.LuceneExtension;
 import org.hibernate.search.backend.lucene.index.LuceneIndexManager;
 import org.hibernate.search.engine.backend.index.IndexManager;
@@ -56,6 +62,8 @@ import org.hibernate.search.engine.search.predicate.SearchPredicate;
 import org.hibernate.search.engine.search.predicate.dsl.SearchPredicateFactory;
 import org.hibernate.search.engine.search.query.SearchQuery;
 import org.hibernate.search.engine.search.query.SearchResult;
+import org.hibernate.search.engine.search.query.SearchScroll;
+import org.hibernate.search.engine.search.query.SearchScrollResult;
 import org.hibernate.search.engine.search.sort.SearchSort;
 import org.hibernate.search.mapper.orm.Search;
 import org.hibernate.search.mapper.orm.mapping.SearchMapping;
@@ -72,6 +80,12 @@ import org.reflections.util.ConfigurationBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
 /**
  * Performs utility functions relating to Lucene indexes and Hibernate Search.
  */
@@ -88,23 +102,49 @@ public final class IndexUtility {
     /** The Constant LOG. */
     private static final Logger LOG = LoggerFactory.getLogger(IndexUtility.class);
 
+    /** The page size of a search after page without a limit. */
+    private static final int DEFAULT_CURSOR_LIMIT = 1000;
+
+    /** The maximum number of compiled queries kept per backend. */
+    private static final int QUERY_CACHE_SIZE = 2000;
+
     /** The sort field analyzed map. */
-    private static Map<String, Map<String, Boolean>> sortFieldAnalyzedMap = new HashMap<>();
+    private static Map<String, Map<String, Boolean>> sortFieldAnalyzedMap = new ConcurrentHashMap<>();
 
     /** The string field names map. */
-    private static Map<Class<?>, Set<String>> stringFieldNames = new HashMap<>();
+    private static Map<Class<?>, Set<String>> stringFieldNames = new ConcurrentHashMap<>();
 
     /** The field names map. */
-    private static Map<Class<?>, Set<String>> allFieldNames = new HashMap<>();
+    private static Map<Class<?>, Set<String>> allFieldNames = new ConcurrentHashMap<>();
 
     /** The date field names map. */
-    private static Map<Class<?>, Set<String>> dateFieldNames = new HashMap<>();
+    private static Map<Class<?>, Set<String>> dateFieldNames = new ConcurrentHashMap<>();
+
+    /** The string field names that get wildcards, by class. */
+    private static Map<Class<?>, Set<String>> wildcardFieldNames = new ConcurrentHashMap<>();
 
     /** The all fields map. */
-    private static Map<Class<?>, java.lang.reflect.Field[]> allFields = new HashMap<>();
+    private static Map<Class<?>, java.lang.reflect.Field[]> allFields = new ConcurrentHashMap<>();
 
     /** The all fields map. */
-    private static Map<Class<?>, java.lang.reflect.Method[]> allMethods = new HashMap<>();
+    private static Map<Class<?>, java.lang.reflect.Method[]> allMethods = new ConcurrentHashMap<>();
+
+    /** The parsed Lucene queries, by class and query string. */
+    private static final Map<String, org.apache.lucene.search.Query> LUCENE_QUERY_CACHE = newQueryCache();
+
+    /** The elasticsearch query json, by class and query string. */
+    private static final Map<String, String> ELASTICSEARCH_QUERY_CACHE = newQueryCache();
+
+    /** The fielded values of a query that may get a wildcard. */
+    private static final Pattern WILDCARD_PATTERN =
+        Pattern.compile("[a-zA-Z0-9_]+:[\"\\s]*([" + Pattern.quote("+@$.#=&|><!{}[]^~*?\\/") + "\\-a-zA-Z0-9_\\s]*?)(?:\\)|\\sAND?|\\sOR|\"|$)");
+
+    /** The string fields that never get wildcards. */
+    private static final List<String> NON_WILDCARD_FIELD_NAMES =
+        Arrays.asList("editionShortName", "editionBranch", "id", "organizationId", "projectId", "editBranchId", "refsetBranchId", "moduleId");
+
+    /** Whether the indexes use elasticsearch, read on first use. */
+    private static volatile Boolean elasticsearchBackend;
 
     /** The all fields map. */
     private static List<Class<?>> dateClasses =
@@ -641,7 +681,8 @@ public final class IndexUtility {
     }
 
     /**
-     * Apply pfs to lucene query2.
+     * Apply pfs to lucene query2. If the pfs has a search after cursor, the page after the cursor is returned and the cursor is replaced with the
+     * cursor of the next page, or null after the last page. Otherwise the offset and limit of the pfs are used.
      *
      * @param <T> the
      * @param clazz the clazz
@@ -655,121 +696,194 @@ public final class IndexUtility {
     public static <T> SearchResult<T> applyPfsToLuceneQuery(final Class<T> clazz, final String query, final PfsParameter pfs, final EntityManager manager,
         final List<String> projections) throws Exception {
 
-        final SearchSession searchSession = Search.session(manager);
-        final SearchMapping mapping = Search.mapping(manager.getEntityManagerFactory());
+        if (pfs != null && pfs.getSearchAfter() != null) {
+            return fetchAfter(clazz, query, pfs, manager);
+        }
 
-        // Build up the query
-        final StringBuilder pfsQuery = new StringBuilder();
-        pfsQuery.append(StringUtility.isEmpty(query) ? "*:*" : query);
+        final SearchQuery<T> searchQuery = buildLuceneQuery(clazz, query, pfs, manager, null);
 
-        // Set up the "full text query"
+        // if start index and max results are set, set paging
+        if (pfs != null && pfs.getOffset() >= 0 && pfs.getLimit() >= 0) {
+            return searchQuery.fetch(pfs.getOffset(), pfs.getLimit());
+        }
 
-        // construct the query
-        String finalQuery = (pfsQuery.toString().startsWith(" AND ")) ? pfsQuery.toString().substring(5) : pfsQuery.toString();
+        return searchQuery.fetch(0, 200000);
+    }
 
-        SearchResult<T> result;
-        final SearchScope<T> scope = searchSession.scope(clazz);
-        final SearchPredicateFactory predicateFactory = scope.predicate();
-        SearchPredicate predicate;
+    /**
+     * Returns the number of hits of a query without loading them.
+     *
+     * @param <T> the
+     * @param clazz the clazz
+     * @param query the query
+     * @param pfs the pfs
+     * @param manager the manager
+     * @return the hit count
+     * @throws Exception the exception
+     */
+    public static <T> long countLuceneQuery(final Class<T> clazz, final String query, final PfsParameter pfs, final EntityManager manager)
+        throws Exception {
 
-        final Set<String> dateFieldNames = IndexUtility.getIndexedFieldNames(clazz, "date");
+        return buildLuceneQuery(clazz, query, pfs, manager, null).fetchTotalHitCount();
+    }
 
-        // Directory indexmanager
-        if (!PropertyUtility.getProperties().getProperty("spring.jpa.properties.hibernate.search.backend.type").trim().equals("elasticsearch")) {
+    /**
+     * Streams every hit of a query in chunks, without a result window and without holding more than a chunk. The offset and limit of the pfs
+     * are ignored. Hits are managed entities; a handler that does not change them can clear the entity manager after each chunk.
+     *
+     * @param <T> the
+     * @param clazz the clazz
+     * @param query the query
+     * @param pfs the pfs, for the sort
+     * @param manager the manager
+     * @param chunkSize the maximum number of hits per chunk
+     * @param handler the handler of each chunk of hits
+     * @return the number of hits streamed
+     * @throws Exception the exception
+     */
+    public static <T> long scrollLuceneQuery(final Class<T> clazz, final String query, final PfsParameter pfs, final EntityManager manager,
+        final int chunkSize, final HitsHandler<T> handler) throws Exception {
+
+        long count = 0;
 
-            @SuppressWarnings("resource")
-			final QueryParser queryParser = new MultiFieldQueryParser(IndexUtility.getIndexedFieldNames(clazz, "string").toArray(new String[] {}),
-                mapping.indexedEntity(clazz).indexManager().unwrap(LuceneIndexManager.class).searchAnalyzer());
+        try (final SearchScroll<T> scroll = buildLuceneQuery(clazz, query, pfs, manager, null).scroll(chunkSize)) {
 
-            predicate = predicateFactory.extension(LuceneExtension.get()).fromLuceneQuery(queryParser.parse(finalQuery)).toPredicate();
+            for (SearchScrollResult<T> chunk = scroll.next(); chunk.hasHits(); chunk = scroll.next()) {
+
+                handler.handle(chunk.hits());
+                count += chunk.hits().size();
+            }
         }
 
-        // elasticsearch index manager
-        else if (PropertyUtility.getProperties().getProperty("spring.jpa.properties.hibernate.search.backend.type").trim().equals("elasticsearch")) {
+        return count;
+    }
 
-            String fullQueryString = "";
+    /**
+     * Fetches the page after the search after cursor of the pfs and replaces the cursor with the cursor of the next page. Elasticsearch pages
+     * with search_after on the sort values of the last hit, so deep pages cost no more than the first; other backends page by offset.
+     *
+     * @param <T> the
+     * @param clazz the clazz
+     * @param query the query
+     * @param pfs the pfs
+     * @param manager the manager
+     * @return the page
+     * @throws Exception the exception
+     */
+    private static <T> SearchResult<T> fetchAfter(final Class<T> clazz, final String query, final PfsParameter pfs, final EntityManager manager)
+        throws Exception {
 
-            boolean hasDate = false;
-            for (final String dateFieldName : dateFieldNames) {
-                if (!hasDate && finalQuery.contains(dateFieldName + ":")) {
-                    hasDate = true;
-                    continue;
-                }
-            }
+        final int limit = pfs.getLimit() >= 0 ? pfs.getLimit() : DEFAULT_CURSOR_LIMIT;
+        final JsonElement cursor = decodeCursor(pfs.getSearchAfter());
 
-            if (hasDate) {
+        if (!isElasticsearchBackend()) {
 
-                final String booleanQueryFormat = "{ \"bool\": { \"must\": [ #QUERY_STRING#, #DATE_RANGES# ] } }";
-                final String dateQueryFormat = "{\"range\": {\"#DATE_FIELD_NAME#\": {\"gte\": \"#DATE#\",\"lte\": \"#DATE#\",\"format\": \"uuuu-MM-dd\"}}}";
+            final int offset = cursor == null ? 0 : cursor.getAsInt();
+            final SearchResult<T> result = buildLuceneQuery(clazz, query, pfs, manager, null).fetch(offset, limit);
+            pfs.setSearchAfter(result.hits().size() < limit ? null : encodeCursor(new JsonPrimitive(offset + result.hits().size())));
+            return result;
+        }
 
-                final Map<String, String> dateSegments = new HashMap<>();
-                // remove date segments from string and add to list.
-                for (final String dateFieldName : dateFieldNames) {
+        final ElasticsearchSearchResult<T> result =
+            buildLuceneQuery(clazz, query, pfs, manager, cursor == null ? new JsonArray() : cursor.getAsJsonArray())
+                .extension(ElasticsearchExtension.get()).fetch(limit);
 
-                    if (finalQuery.contains(dateFieldName + ":")) {
-                        final int startPosition = finalQuery.indexOf(dateFieldName);
-                        // 11 = : + number of characters in date (10)
-                        final int endPosition = startPosition + dateFieldName.length() + 11;
-                        final String dateSubString = finalQuery.substring(startPosition, endPosition);
-                        final String[] dateQuery = dateSubString.split(":");
+        final JsonArray hits = result.responseBody().getAsJsonObject("hits").getAsJsonArray("hits");
+        pfs.setSearchAfter(
+            result.hits().size() < limit || hits.size() == 0 ? null : encodeCursor(hits.get(hits.size() - 1).getAsJsonObject().get("sort")));
 
-                        dateSegments.put(dateSubString, dateQueryFormat.replace("#DATE_FIELD_NAME#", dateQuery[0]).replace("#DATE#", dateQuery[1]));
-                    }
-                }
+        return result;
+    }
 
-                String dateFreeQueryString = finalQuery;
-                String dateRangeQueryString = "";
+    /**
+     * Encodes the sort values of a hit as an opaque cursor.
+     *
+     * @param sortValues the sort values
+     * @return the cursor
+     */
+    private static String encodeCursor(final JsonElement sortValues) {
 
-                for (final Map.Entry<String, String> dateSegment : dateSegments.entrySet()) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sortValues.toString().getBytes(StandardCharsets.UTF_8));
+    }
 
-                    String joinString = "";
+    /**
+     * Decodes a cursor.
+     *
+     * @param cursor the cursor, empty for the first page
+     * @return the sort values, or null for the first page
+     * @throws Exception if the cursor is not valid
+     */
+    private static JsonElement decodeCursor(final String cursor) throws Exception {
 
-                    if (dateFreeQueryString.contains(" AND " + dateSegment.getKey())) {
-                        joinString = " AND ";
+        if (cursor.isEmpty()) {
+            return null;
+        }
 
-                    } else if (dateFreeQueryString.contains(" OR " + dateSegment.getKey())) {
-                        joinString = " OR ";
-                    }
+        try {
+            return JsonParser.parseString(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (final IllegalArgumentException | JsonParseException e) {
+            throw new Exception("Invalid search after cursor: " + cursor, e);
+        }
+    }
 
-                    dateFreeQueryString = dateFreeQueryString.replace(joinString + dateSegment.getKey(), "");
-                    dateRangeQueryString += dateSegment.getValue() + " , ";
-                }
+    /**
+     * Indicates whether the indexes use elasticsearch.
+     *
+     * @return true, if the indexes use elasticsearch
+     */
+    private static boolean isElasticsearchBackend() {
 
-                dateRangeQueryString = StringUtils.removeEnd(dateRangeQueryString, " , ");
+        // read once, the backend cannot change while running
+        if (elasticsearchBackend == null) {
+            elasticsearchBackend =
+                PropertyUtility.getProperties().getProperty("spring.jpa.properties.hibernate.search.backend.type").trim().equals("elasticsearch");
+        }
 
-                // Remove leading AND OR and clear out empty query_string
-                dateFreeQueryString = dateFreeQueryString.replace("() AND", "").replace("( AND", " (").replace("( OR", " (").replace("() OR", "");
-                dateFreeQueryString = StringUtils.removeStart(dateFreeQueryString, " AND ");
-                dateFreeQueryString = StringUtils.removeStart(dateFreeQueryString, " OR ");
+        return elasticsearchBackend;
+    }
 
-                final String queryString = "{\"query_string\":{\"default_operator\": \"AND\", \"analyze_wildcard\": true, \"query\":\""
-                    + StringEscapeUtils.escapeJson(dateFreeQueryString) + "\"}}";
+    /**
+     * Builds the search query for a query string and the sort of a pfs. When sorting, or when search after values are given, the id is added as
+     * the last sort field so hits with equal sort values keep a stable order across pages.
+     *
+     * @param <T> the
+     * @param clazz the clazz
+     * @param query the query
+     * @param pfs the pfs
+     * @param manager the manager
+     * @param searchAfter the elasticsearch search_after values, empty for the first page, or null when not paging by cursor
+     * @return the search query
+     * @throws Exception the exception
+     */
+    private static <T> SearchQuery<T> buildLuceneQuery(final Class<T> clazz, final String query, final PfsParameter pfs, final EntityManager manager,
+        final JsonArray searchAfter) throws Exception {
 
-                fullQueryString = booleanQueryFormat.replace("#QUERY_STRING#", queryString).replace("#DATE_RANGES#", dateRangeQueryString.toString());
+        final SearchSession searchSession = Search.session(manager);
+        final SearchMapping mapping = Search.mapping(manager.getEntityManagerFactory());
 
-            } else {
+        // construct the query
+        final String pfsQuery = StringUtility.isEmpty(query) ? "*:*" : query;
+        final String finalQuery = pfsQuery.startsWith(" AND ") ? pfsQuery.substring(5) : pfsQuery;
 
-                // Remove leading AND OR and clear out empty query_string
-                finalQuery = finalQuery.replace("() AND", "").replace("( AND", " (").replace("( OR", " (").replace("() OR", "");
-                finalQuery = StringUtils.removeStart(finalQuery, " AND ");
-                finalQuery = StringUtils.removeStart(finalQuery, " OR ");
+        final SearchScope<T> scope = searchSession.scope(clazz);
+        final SearchPredicateFactory predicateFactory = scope.predicate();
+        final SearchPredicate predicate;
 
-                fullQueryString = "{\"query_string\":{\"default_operator\": \"AND\", \"analyze_wildcard\": true, \"query\":\""
-                    + StringEscapeUtils.escapeJson(finalQuery) + "\"}}";
-            }
+        // Directory indexmanager
+        if (!isElasticsearchBackend()) {
 
-            // Need to escape double-quotes for the json
-            predicate = predicateFactory.extension(ElasticsearchExtension.get()).fromJson(fullQueryString).toPredicate();
+            predicate = predicateFactory.extension(LuceneExtension.get()).fromLuceneQuery(toLuceneQuery(clazz, finalQuery, mapping)).toPredicate();
         }
 
-        // Unknown indexmanager type
+        // elasticsearch index manager
         else {
-            throw new Exception("Unsupported spring.jpa.properties.hibernate.search.backend.type = "
-                + PropertyUtility.getProperties().getProperty("spring.jpa.properties.hibernate.search.backend.type"));
+
+            predicate = predicateFactory.extension(ElasticsearchExtension.get()).fromJson(toElasticsearchQuery(clazz, finalQuery)).toPredicate();
         }
 
         // the constructed sort fields to sort on
         final List<SearchSort> sortFields = new ArrayList<>();
+        boolean sortedById = false;
 
         // Handle sort and paging parameters
         if (pfs != null) {
@@ -858,10 +972,24 @@ public final class IndexUtility {
 
                     // add the field
                     sortFields.add(searchSort);
+
+                    if ("id".equals(sortFieldStr)) {
+                        sortedById = true;
+                    }
                 }
             }
         }
 
+        // order ties by id so pages are stable, keeping relevance first when there is no sort
+        if ((!sortFields.isEmpty() || searchAfter != null) && !sortedById && isIdSortable(clazz)) {
+
+            if (sortFields.isEmpty()) {
+                sortFields.add(scope.sort().score().toSort());
+            }
+
+            sortFields.add(scope.sort().field("id").asc().toSort());
+        }
+
         // the constructed projections
         // SearchProjection<T> projectionSelect = (SearchProjection<T>) scope.projection().score().toProjection();
         //
@@ -875,6 +1003,19 @@ public final class IndexUtility {
         // projectionSelect = (SearchProjection<T>) scope.projection().entityReference().toProjection();
         // }
 
+        if (searchAfter != null) {
+
+            return searchSession.search(scope).extension(ElasticsearchExtension.get()).where(predicate).sort(f -> f.composite(sortBuilder -> {
+                for (final SearchSort sortField : sortFields) {
+                    sortBuilder.add(sortField);
+                }
+            })).requestTransformer(context -> {
+                if (searchAfter.size() > 0) {
+                    context.body().add("search_after", searchAfter);
+                }
+            }).toQuery();
+        }
+
         final SearchQuery<T> searchQuery = searchSession.search(scope)
             // .select(projectionSelect)
             .where(predicate).sort(f -> f.composite(sortBuilder -> {
@@ -885,14 +1026,168 @@ public final class IndexUtility {
 
         // LOG.debug("###*********### ElasticSearch QueryString: " + searchQuery.queryString());
 
-        // if start index and max results are set, set paging
-        if (pfs != null && pfs.getOffset() >= 0 && pfs.getLimit() >= 0) {
-            result = searchQuery.fetch(pfs.getOffset(), pfs.getLimit());
+        return searchQuery;
+    }
+
+    /**
+     * Returns the parsed Lucene query for a query string, compiled once per class and query string.
+     *
+     * @param clazz the clazz
+     * @param finalQuery the query string
+     * @param mapping the search mapping
+     * @return the Lucene query
+     * @throws Exception the exception
+     */
+    private static org.apache.lucene.search.Query toLuceneQuery(final Class<?> clazz, final String finalQuery, final SearchMapping mapping)
+        throws Exception {
+
+        final String key = clazz.getName() + ":" + finalQuery;
+        final org.apache.lucene.search.Query cachedQuery = LUCENE_QUERY_CACHE.get(key);
+
+        if (cachedQuery != null) {
+            return cachedQuery;
+        }
+
+        @SuppressWarnings("resource")
+        final QueryParser queryParser = new MultiFieldQueryParser(IndexUtility.getIndexedFieldNames(clazz, "string").toArray(new String[] {}),
+            mapping.indexedEntity(clazz).indexManager().unwrap(LuceneIndexManager.class).searchAnalyzer());
+
+        // queries are immutable, so a parsed query can be shared
+        final org.apache.lucene.search.Query luceneQuery = queryParser.parse(finalQuery);
+        LUCENE_QUERY_CACHE.put(key, luceneQuery);
+
+        return luceneQuery;
+    }
+
+    /**
+     * Returns the elasticsearch query json for a query string, compiled once per class and query string. Date fields in the query become range
+     * clauses next to the query_string clause.
+     *
+     * @param clazz the clazz
+     * @param query the query string
+     * @return the elasticsearch query json
+     * @throws Exception the exception
+     */
+    private static String toElasticsearchQuery(final Class<?> clazz, final String query) throws Exception {
+
+        final String key = clazz.getName() + ":" + query;
+        final String cachedQuery = ELASTICSEARCH_QUERY_CACHE.get(key);
+
+        if (cachedQuery != null) {
+            return cachedQuery;
+        }
+
+        final Set<String> dateFieldNames = IndexUtility.getIndexedFieldNames(clazz, "date");
+        String finalQuery = query;
+
+        String fullQueryString = "";
+
+        boolean hasDate = false;
+        for (final String dateFieldName : dateFieldNames) {
+            if (!hasDate && finalQuery.contains(dateFieldName + ":")) {
+                hasDate = true;
+                continue;
+            }
+        }
+
+        if (hasDate) {
+
+            final String booleanQueryFormat = "{ \"bool\": { \"must\": [ #QUERY_STRING#, #DATE_RANGES# ] } }";
+            final String dateQueryFormat = "{\"range\": {\"#DATE_FIELD_NAME#\": {\"gte\": \"#DATE#\",\"lte\": \"#DATE#\",\"format\": \"uuuu-MM-dd\"}}}";
+
+            final Map<String, String> dateSegments = new HashMap<>();
+            // remove date segments from string and add to list.
+            for (final String dateFieldName : dateFieldNames) {
+
+                if (finalQuery.contains(dateFieldName + ":")) {
+                    final int startPosition = finalQuery.indexOf(dateFieldName);
+                    // 11 = : + number of characters in date (10)
+                    final int endPosition = startPosition + dateFieldName.length() + 11;
+                    final String dateSubString = finalQuery.substring(startPosition, endPosition);
+                    final String[] dateQuery = dateSubString.split(":");
+
+                    dateSegments.put(dateSubString, dateQueryFormat.replace("#DATE_FIELD_NAME#", dateQuery[0]).replace("#DATE#", dateQuery[1]));
+                }
+            }
+
+            String dateFreeQueryString = finalQuery;
+            String dateRangeQueryString = "";
+
+            for (final Map.Entry<String, String> dateSegment : dateSegments.entrySet()) {
+
+                String joinString = "";
+
+                if (dateFreeQueryString.contains(" AND " + dateSegment.getKey())) {
+                    joinString = " AND ";
+
+                } else if (dateFreeQueryString.contains(" OR " + dateSegment.getKey())) {
+                    joinString = " OR ";
+                }
+
+                dateFreeQueryString = dateFreeQueryString.replace(joinString + dateSegment.getKey(), "");
+                dateRangeQueryString += dateSegment.getValue() + " , ";
+            }
+
+            dateRangeQueryString = StringUtils.removeEnd(dateRangeQueryString, " , ");
+
+            // Remove leading AND OR and clear out empty query_string
+            dateFreeQueryString = dateFreeQueryString.replace("() AND", "").replace("( AND", " (").replace("( OR", " (").replace("() OR", "");
+            dateFreeQueryString = StringUtils.removeStart(dateFreeQueryString, " AND ");
+            dateFreeQueryString = StringUtils.removeStart(dateFreeQueryString, " OR ");
+
+            final String queryString = "{\"query_string\":{\"default_operator\": \"AND\", \"analyze_wildcard\": true, \"query\":\""
+                + StringEscapeUtils.escapeJson(dateFreeQueryString) + "\"}}";
+
+            fullQueryString = booleanQueryFormat.replace("#QUERY_STRING#", queryString).replace("#DATE_RANGES#", dateRangeQueryString.toString());
+
         } else {
-            result = searchQuery.fetch(0, 200000);
+
+            // Remove leading AND OR and clear out empty query_string
+            finalQuery = finalQuery.replace("() AND", "").replace("( AND", " (").replace("( OR", " (").replace("() OR", "");
+            finalQuery = StringUtils.removeStart(finalQuery, " AND ");
+            finalQuery = StringUtils.removeStart(finalQuery, " OR ");
+
+            fullQueryString = "{\"query_string\":{\"default_operator\": \"AND\", \"analyze_wildcard\": true, \"query\":\""
+                + StringEscapeUtils.escapeJson(finalQuery) + "\"}}";
         }
 
-        return result;
+        ELASTICSEARCH_QUERY_CACHE.put(key, fullQueryString);
+
+        return fullQueryString;
+    }
+
+    /**
+     * Indicates whether a class has a sortable id field.
+     *
+     * @param clazz the clazz
+     * @return true, if the id can be sorted on
+     */
+    private static boolean isIdSortable(final Class<?> clazz) {
+
+        try {
+
+            return Boolean.FALSE.equals(getNameAnalyzedPairsFromAnnotation(clazz, "id").get(""));
+
+        } catch (final NoSuchMethodException | SecurityException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Handler of a chunk of scrolled hits.
+     *
+     * @param <T> the hit type
+     */
+    @FunctionalInterface
+    public interface HitsHandler<T> {
+
+        /**
+         * Handles a chunk of hits.
+         *
+         * @param hits the hits
+         * @throws Exception the exception
+         */
+        void handle(List<T> hits) throws Exception;
     }
 
     /**
@@ -911,16 +1206,10 @@ public final class IndexUtility {
         }
 
         String wildcardQuery = query;
-        final Pattern regex =
-            Pattern.compile("[a-zA-Z0-9_]+:[\"\\s]*([" + Pattern.quote("+@$.#=&|><!{}[]^~*?\\/") + "\\-a-zA-Z0-9_\\s]*?)(?:\\)|\\sAND?|\\sOR|\"|$)");
-        final Matcher regexMatcher = regex.matcher(wildcardQuery);
-        final Set<String> stringFieldNames = IndexUtility.getIndexedFieldNames(clazz, "string");
+        final Matcher regexMatcher = WILDCARD_PATTERN.matcher(wildcardQuery);
+        final Set<String> stringFieldNames = getWildcardFieldNames(clazz);
         int matchIndexCounter = 0;
 
-        // remove specific fields that should not have wildcards applied
-        stringFieldNames
-            .removeAll(Arrays.asList("editionShortName", "editionBranch", "id", "organizationId", "projectId", "editBranchId", "refsetBranchId", "moduleId"));
-
         while (regexMatcher.find()) {
 
             // only add wildcards to String fields
@@ -946,6 +1235,50 @@ public final class IndexUtility {
         return wildcardQuery;
     }
 
+    /**
+     * Returns the string field names of a class that get wildcards, a copy of the indexed string field names without the specific fields that
+     * should not have wildcards applied.
+     *
+     * @param clazz the clazz
+     * @return the field names
+     * @throws Exception the exception
+     */
+    private static Set<String> getWildcardFieldNames(final Class<?> clazz) throws Exception {
+
+        Set<String> fieldNames = wildcardFieldNames.get(clazz);
+
+        if (fieldNames == null) {
+
+            fieldNames = new HashSet<>(IndexUtility.getIndexedFieldNames(clazz, "string"));
+            fieldNames.removeAll(NON_WILDCARD_FIELD_NAMES);
+            wildcardFieldNames.put(clazz, fieldNames);
+        }
+
+        return fieldNames;
+    }
+
+    /**
+     * Returns a thread safe, least recently used cache of compiled queries.
+     *
+     * @param <V> the compiled query type
+     * @return the cache
+     */
+    private static <V> Map<String, V> newQueryCache() {
+
+        return Collections.synchronizedMap(new LinkedHashMap<String, V>(16, 0.75f, true) {
+
+            /** The serial version UID. */
+            private static final long serialVersionUID = 1L;
+
+            /* see superclass */
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, V> eldest) {
+
+                return size() > QUERY_CACHE_SIZE;
+            }
+        });
+    }
+
     /**
      * Sets the max window size on an index for returning large elasticsearch queries.
      *
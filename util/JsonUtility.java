@@ -0,0 +1,247 @@
+/*
+ * Copyright 2024 West Coast Informatics - All Rights Reserved.
+ *
+ * NOTICE:  All information contained herein is, and remains the property of West Coast Informatics
+ * The intellectual and technical concepts contained herein are proprietary to
+ * West Coast Informatics and may be covered by U.S. and Foreign Patents, patents in process,
+ * and are protected by trade secret or copyright law.  Dissemination of this information
+ * or reproduction of this material is strictly forbidden.
+ */
+package org.ihtsdo.refsetservice.util;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Registry of the shared, pre-configured Jackson readers and writers.
+ *
+ * Readers and writers are immutable and thread safe, so they are built once and shared instead of creating an object mapper, and warming its
+ * serializer caches, on every call. The mapper itself stays private so no caller can reconfigure it for everyone else.
+ */
+public final class JsonUtility {
+
+    /** The mapper the readers and writers are built from. */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** The untyped reader. */
+    private static final ObjectReader READER = MAPPER.reader();
+
+    /** The writer. */
+    private static final ObjectWriter WRITER = MAPPER.writer();
+
+    /** The pretty printing writer. */
+    private static final ObjectWriter PRETTY_WRITER = MAPPER.writerWithDefaultPrettyPrinter();
+
+    /** The typed readers by type. */
+    private static final Map<Type, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+    /**
+     * Instantiates an empty {@link JsonUtility}.
+     */
+    private JsonUtility() {
+
+        // n/a
+    }
+
+    /**
+     * Returns the untyped reader.
+     *
+     * @return the reader
+     */
+    public static ObjectReader getReader() {
+
+        return READER;
+    }
+
+    /**
+     * Returns the reader for a class.
+     *
+     * @param clazz the class
+     * @return the reader
+     */
+    public static ObjectReader getReader(final Class<?> clazz) {
+
+        return READERS.computeIfAbsent(clazz, k -> MAPPER.readerFor(clazz));
+    }
+
+    /**
+     * Returns the reader for a type reference.
+     *
+     * @param typeRef the type reference
+     * @return the reader
+     */
+    public static ObjectReader getReader(final TypeReference<?> typeRef) {
+
+        return READERS.computeIfAbsent(typeRef.getType(), k -> MAPPER.readerFor(typeRef));
+    }
+
+    /**
+     * Returns the writer.
+     *
+     * @return the writer
+     */
+    public static ObjectWriter getWriter() {
+
+        return WRITER;
+    }
+
+    /**
+     * Returns the pretty printing writer.
+     *
+     * @return the writer
+     */
+    public static ObjectWriter getPrettyWriter() {
+
+        return PRETTY_WRITER;
+    }
+
+    /**
+     * Reads a tree.
+     *
+     * @param json the json
+     * @return the tree
+     * @throws Exception the exception
+     */
+    public static JsonNode readTree(final String json) throws Exception {
+
+        return MAPPER.readTree(json);
+    }
+
+    /**
+     * Reads a tree.
+     *
+     * @param in the json stream, closed once read
+     * @return the tree
+     * @throws Exception the exception
+     */
+    public static JsonNode readTree(final InputStream in) throws Exception {
+
+        return MAPPER.readTree(in);
+    }
+
+    /**
+     * Reads a tree.
+     *
+     * @param file the json file
+     * @return the tree
+     * @throws Exception the exception
+     */
+    public static JsonNode readTree(final File file) throws Exception {
+
+        return MAPPER.readTree(file);
+    }
+
+    /**
+     * Converts a value to a tree.
+     *
+     * @param value the value
+     * @return the tree
+     */
+    public static JsonNode valueToTree(final Object value) {
+
+        return MAPPER.valueToTree(value);
+    }
+
+    /**
+     * Creates an object node.
+     *
+     * @return the object node
+     */
+    public static ObjectNode createObjectNode() {
+
+        return MAPPER.createObjectNode();
+    }
+
+    /**
+     * Creates an array node.
+     *
+     * @return the array node
+     */
+    public static ArrayNode createArrayNode() {
+
+        return MAPPER.createArrayNode();
+    }
+
+    /**
+     * Streams a page of results, e.g. a Snowstorm page of items, without holding the whole page. The elements of the items array are handed over
+     * in chunks as soon as they are parsed, and every other top level field is returned.
+     *
+     * @param in the json stream, closed once read
+     * @param itemsField the name of the items array field
+     * @param chunkSize the maximum number of items per chunk
+     * @param handler the handler of each chunk of items
+     * @return the page without its items
+     * @throws Exception the exception
+     */
+    public static ObjectNode readPage(final InputStream in, final String itemsField, final int chunkSize, final ItemsHandler handler)
+        throws Exception {
+
+        final ObjectNode page = createObjectNode();
+
+        try (final JsonParser parser = MAPPER.getFactory().createParser(in)) {
+
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new Exception("Expected a JSON object, found " + parser.currentToken());
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+                final String field = parser.getCurrentName();
+                final JsonToken token = parser.nextToken();
+
+                if (!itemsField.equals(field) || token != JsonToken.START_ARRAY) {
+
+                    page.set(field, READER.readTree(parser));
+                    continue;
+                }
+
+                ArrayNode chunk = createArrayNode();
+
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+
+                    chunk.add((JsonNode) READER.readTree(parser));
+
+                    if (chunk.size() == chunkSize) {
+
+                        handler.handle(chunk);
+                        chunk = createArrayNode();
+                    }
+                }
+
+                if (chunk.size() > 0) {
+                    handler.handle(chunk);
+                }
+            }
+        }
+
+        return page;
+    }
+
+    /**
+     * Handler of a chunk of streamed items.
+     */
+    @FunctionalInterface
+    public interface ItemsHandler {
+
+        /**
+         * Handles a chunk of items.
+         *
+         * @param items the items
+         * @throws Exception the exception
+         */
+        void handle(ArrayNode items) throws Exception;
+    }
+}
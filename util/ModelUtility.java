@@ -23,7 +23,6 @@ import org.slf4j.LoggerFactory;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 /**
@@ -189,8 +188,7 @@ public final class ModelUtility {
         if (StringUtility.isEmpty(json)) {
             return null;
         }
-        final ObjectMapper mapper = new ObjectMapper();
-        return mapper.readValue(json, graphClass);
+        return JsonUtility.getReader(graphClass).readValue(json);
 
     }
 
@@ -208,8 +206,7 @@ public final class ModelUtility {
         if (json == null) {
             return null;
         }
-        final ObjectMapper mapper = new ObjectMapper();
-        return mapper.treeToValue(mapper.readTree(json), graphClass);
+        return JsonUtility.getReader(graphClass).readValue(JsonUtility.readTree(json));
     }
 
     /**
@@ -227,8 +224,7 @@ public final class ModelUtility {
             return null;
         }
         final InputStream in = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
-        final ObjectMapper mapper = new ObjectMapper();
-        return mapper.readValue(in, typeRef);
+        return JsonUtility.getReader(typeRef).readValue(in);
     }
 
     /**
@@ -240,8 +236,7 @@ public final class ModelUtility {
      */
     public static String toJson(final Object object) throws Exception {
 
-        final ObjectMapper mapper = new ObjectMapper();
-        return mapper.writeValueAsString(object);
+        return JsonUtility.getWriter().writeValueAsString(object);
     }
 
     /**
@@ -253,8 +248,7 @@ public final class ModelUtility {
      */
     public static String logJson(final Object object) throws Exception {
 
-        final ObjectMapper mapper = new ObjectMapper();
-        final JsonNode jsonNode = mapper.valueToTree(object);
+        final JsonNode jsonNode = JsonUtility.valueToTree(object);
 
         if (jsonNode.has("authToken")) {
             ((ObjectNode) jsonNode).put("authToken", "******");
@@ -262,7 +256,7 @@ public final class ModelUtility {
         if (jsonNode.has("password")) {
             ((ObjectNode) jsonNode).put("password", "******");
         }
-        return mapper.writeValueAsString(jsonNode);
+        return JsonUtility.getWriter().writeValueAsString(jsonNode);
     }
 
     /**
@@ -274,7 +268,7 @@ public final class ModelUtility {
      */
     public static JsonNode toJsonNode(final String string) throws Exception {
 
-        return new ObjectMapper().readTree(string);
+        return JsonUtility.readTree(string);
     }
 
     /**
@@ -286,8 +280,7 @@ public final class ModelUtility {
      */
     public static String prettyFormatJson(final Object input) throws JsonProcessingException {
 
-        final ObjectMapper mapper = new ObjectMapper();
-        return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(input);
+        return JsonUtility.getPrettyWriter().writeValueAsString(input);
     }
 
     /**
@@ -299,8 +292,7 @@ public final class ModelUtility {
      */
     public static String prettyFormatJson(final String input) throws Exception {
 
-        final ObjectMapper mapper = new ObjectMapper();
-        return prettyFormatJson(mapper.readTree(input));
+        return prettyFormatJson(JsonUtility.readTree(input));
     }
 
     /**
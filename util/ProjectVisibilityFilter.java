@@ -0,0 +1,152 @@
+/*
+ * Copyright 2024 West Coast Informatics - All Rights Reserved.
+ *
+ * NOTICE:  All information contained herein is, and remains the property of West Coast Informatics
+ * The intellectual and technical concepts contained herein are proprietary to
+ * West Coast Informatics and may be covered by U.S. and Foreign Patents, patents in process,
+ * and are protected by trade secret or copyright law.  Dissemination of this information
+ * or reproduction of this material is strictly forbidden.
+ */
+package org.ihtsdo.refsetservice.util;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the compiled project visibility filters of refset searches.
+ *
+ * The projects a user can see, and how much of each, depend only on the roles of the user, so a filter is compiled once per set of roles and
+ * search flags and shared by every user with those roles. Filters are invalidated when the terminology service commits a change to a project,
+ * edition or organization, and expire after the time to live to pick up changes made any other way. A filter compiled before an invalidation
+ * is never stored.
+ */
+public final class ProjectVisibilityFilter {
+
+    /** The time to live of an entry in milliseconds. */
+    private static final long TIME_TO_LIVE = TimeUnit.MINUTES.toMillis(10);
+
+    /** The filters by key. */
+    private static final Map<String, Entry> FILTERS = new ConcurrentHashMap<>();
+
+    /** Incremented by every invalidation. */
+    private static final AtomicLong GENERATION = new AtomicLong();
+
+    /**
+     * Instantiates an empty {@link ProjectVisibilityFilter}.
+     */
+    private ProjectVisibilityFilter() {
+
+        // n/a
+    }
+
+    /**
+     * Returns the generation to pass to {@link #put} for a filter about to be compiled.
+     *
+     * @return the generation
+     */
+    public static long getGeneration() {
+
+        return GENERATION.get();
+    }
+
+    /**
+     * Returns the key of a filter.
+     *
+     * @param roles the roles of the user
+     * @param showInDevelopment whether in development refsets are included
+     * @param showOnlyPermitted whether only refsets the user has specific permission to are included
+     * @return the key
+     */
+    public static String getKey(final Collection<String> roles, final boolean showInDevelopment, final boolean showOnlyPermitted) {
+
+        final StringBuilder key = new StringBuilder();
+        key.append(showInDevelopment).append('|').append(showOnlyPermitted);
+
+        if (roles != null) {
+
+            for (final String role : new TreeSet<>(roles)) {
+                key.append('|').append(role);
+            }
+        }
+
+        return key.toString();
+    }
+
+    /**
+     * Returns a filter.
+     *
+     * @param key the key
+     * @return the filter, or null if not cached
+     */
+    public static String get(final String key) {
+
+        final Entry entry = FILTERS.get(key);
+
+        if (entry == null) {
+            return null;
+        }
+
+        if (entry.expires < System.currentTimeMillis()) {
+
+            FILTERS.remove(key, entry);
+            return null;
+        }
+
+        return entry.filter;
+    }
+
+    /**
+     * Caches a filter, unless an invalidation happened since it was compiled.
+     *
+     * @param key the key
+     * @param filter the filter
+     * @param generation the generation read before the filter was compiled
+     */
+    public static void put(final String key, final String filter, final long generation) {
+
+        final Entry entry = new Entry(filter, System.currentTimeMillis() + TIME_TO_LIVE);
+        FILTERS.put(key, entry);
+
+        // invalidations bump the generation before clearing, so a concurrent one is always seen here
+        if (GENERATION.get() != generation) {
+            FILTERS.remove(key, entry);
+        }
+    }
+
+    /**
+     * Invalidates all filters.
+     */
+    public static void clear() {
+
+        GENERATION.incrementAndGet();
+        FILTERS.clear();
+    }
+
+    /**
+     * A cached entry.
+     */
+    private static final class Entry {
+
+        /** The filter. */
+        private final String filter;
+
+        /** The expiration time. */
+        private final long expires;
+
+        /**
+         * Instantiates a {@link Entry} from the specified parameters.
+         *
+         * @param filter the filter
+         * @param expires the expiration time
+         */
+        Entry(final String filter, final long expires) {
+
+            this.filter = filter;
+            this.expires = expires;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2024 West Coast Informatics - All Rights Reserved.
+ *
+ * NOTICE:  All information contained herein is, and remains the property of West Coast Informatics
+ * The intellectual and technical concepts contained herein are proprietary to
+ * West Coast Informatics and may be covered by U.S. and Foreign Patents, patents in process,
+ * and are protected by trade secret or copyright law.  Dissemination of this information
+ * or reproduction of this material is strictly forbidden.
+ */
+package org.ihtsdo.refsetservice.util;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory index of the versions of each refset ID.
+ *
+ * Entries are invalidated when the terminology service commits a change to a refset, and expire after the time to live to pick up changes made
+ * any other way. A load started before an invalidation is never stored, so a slow reader cannot put back versions a writer has just replaced.
+ */
+public final class RefsetVersionIndex {
+
+    /** The time to live of an entry in milliseconds. */
+    private static final long TIME_TO_LIVE = TimeUnit.MINUTES.toMillis(10);
+
+    /** The versions of each refset ID. */
+    private static final Map<String, Entry> INDEX = new ConcurrentHashMap<>();
+
+    /** Incremented by every invalidation. */
+    private static final AtomicLong GENERATION = new AtomicLong();
+
+    /**
+     * Instantiates an empty {@link RefsetVersionIndex}.
+     */
+    private RefsetVersionIndex() {
+
+        // n/a
+    }
+
+    /**
+     * Returns the generation to pass to {@link #put} for versions about to be loaded.
+     *
+     * @return the generation
+     */
+    public static long getGeneration() {
+
+        return GENERATION.get();
+    }
+
+    /**
+     * Returns the versions of a refset ID.
+     *
+     * @param refsetId the refset ID
+     * @return the versions ascending by version date, or null if not indexed
+     */
+    public static List<Version> get(final String refsetId) {
+
+        final Entry entry = INDEX.get(refsetId);
+
+        if (entry == null) {
+            return null;
+        }
+
+        if (entry.expires < System.currentTimeMillis()) {
+
+            INDEX.remove(refsetId, entry);
+            return null;
+        }
+
+        return entry.versions;
+    }
+
+    /**
+     * Indexes the versions of a refset ID, unless an invalidation happened since they were loaded.
+     *
+     * @param refsetId the refset ID
+     * @param versions the versions ascending by version date
+     * @param generation the generation read before the versions were loaded
+     */
+    public static void put(final String refsetId, final List<Version> versions, final long generation) {
+
+        final Entry entry = new Entry(Collections.unmodifiableList(versions), System.currentTimeMillis() + TIME_TO_LIVE);
+        INDEX.put(refsetId, entry);
+
+        // invalidations bump the generation before removing, so a concurrent one is always seen here
+        if (GENERATION.get() != generation) {
+            INDEX.remove(refsetId, entry);
+        }
+    }
+
+    /**
+     * Invalidates the versions of a refset ID.
+     *
+     * @param refsetId the refset ID
+     */
+    public static void invalidate(final String refsetId) {
+
+        GENERATION.incrementAndGet();
+        INDEX.remove(refsetId);
+    }
+
+    /**
+     * Invalidates the versions of all refset IDs.
+     */
+    public static void clear() {
+
+        GENERATION.incrementAndGet();
+        INDEX.clear();
+    }
+
+    /**
+     * An indexed entry.
+     */
+    private static final class Entry {
+
+        /** The versions. */
+        private final List<Version> versions;
+
+        /** The expiration time. */
+        private final long expires;
+
+        /**
+         * Instantiates a {@link Entry} from the specified parameters.
+         *
+         * @param versions the versions
+         * @param expires the expiration time
+         */
+        Entry(final List<Version> versions, final long expires) {
+
+            this.versions = versions;
+            this.expires = expires;
+        }
+    }
+
+    /**
+     * A version of a refset.
+     */
+    public static final class Version {
+
+        /** The refset internal id. */
+        private final String id;
+
+        /** The version status. */
+        private final String versionStatus;
+
+        /** The version date. */
+        private final Date versionDate;
+
+        /**
+         * Instantiates a {@link Version} from the specified parameters.
+         *
+         * @param id the refset internal id
+         * @param versionStatus the version status
+         * @param versionDate the version date
+         */
+        public Version(final String id, final String versionStatus, final Date versionDate) {
+
+            this.id = id;
+            this.versionStatus = versionStatus;
+            this.versionDate = versionDate;
+        }
+
+        /**
+         * Returns the refset internal id.
+         *
+         * @return the id
+         */
+        public String getId() {
+
+            return id;
+        }
+
+        /**
+         * Returns the version status.
+         *
+         * @return the version status
+         */
+        public String getVersionStatus() {
+
+            return versionStatus;
+        }
+
+        /**
+         * Returns the version date.
+         *
+         * @return the version date
+         */
+        public Date getVersionDate() {
+
+            return versionDate;
+        }
+    }
+}
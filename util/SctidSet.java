@@ -0,0 +1,721 @@
+/*
+ * Copyright 2024 West Coast Informatics - All Rights Reserved.
+ *
+ * NOTICE:  All information contained herein is, and remains the property of West Coast Informatics
+ * The intellectual and technical concepts contained herein are proprietary to
+ * West Coast Informatics and may be covered by U.S. and Foreign Patents, patents in process,
+ * and are protected by trade secret or copyright law.  Dissemination of this information
+ * or reproduction of this material is strictly forbidden.
+ */
+package org.ihtsdo.refsetservice.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Immutable, compressed set of SCTIDs.
+ *
+ * An SCTID ends in a two digit partition identifier and a check digit, and long format IDs have a seven digit namespace before the partition.
+ * Consecutive items of a namespace are therefore 1000 or 10^10 apart as numbers, so IDs are first encoded as their partition and namespace
+ * followed by their item identifier and check digit, where consecutive items are 10 apart. Encoded IDs are grouped by their high bits into
+ * containers of their low 16 bits, held as a sorted char array while a group is sparse and as a 65536 bit bitmap once it is dense. Items are
+ * largely allocated in runs, so a set of the concepts of an edition costs one or two bytes per ID instead of the hundred or so of a hash set of
+ * strings. Sets are built through a {@link Builder}.
+ */
+public final class SctidSet {
+
+    /** The empty set. */
+    public static final SctidSet EMPTY = new SctidSet(new long[0], new Object[0], 0);
+
+    /** The largest cardinality held in an array container; beyond it a bitmap is smaller. */
+    private static final int ARRAY_MAX = 4096;
+
+    /** The number of words in a bitmap container. */
+    private static final int BITMAP_WORDS = 1024;
+
+    /** The exclusive upper bound of an SCTID, which is at most 18 digits. */
+    private static final long MAX_ID = 1000000000000000000L;
+
+    /** The number of namespaces of long format IDs. */
+    private static final long NAMESPACES = 10000000L;
+
+    /** The position of the partition identifier in an encoded ID. */
+    private static final int PARTITION_SHIFT = 54;
+
+    /** The position of the namespace in an encoded long format ID. */
+    private static final int NAMESPACE_SHIFT = 30;
+
+    /** The mask of the item identifier and check digit in an encoded short format ID. */
+    private static final long SHORT_ITEM_MASK = (1L << PARTITION_SHIFT) - 1;
+
+    /** The mask of the item identifier and check digit in an encoded long format ID. */
+    private static final long LONG_ITEM_MASK = (1L << NAMESPACE_SHIFT) - 1;
+
+    /** The mask of the namespace in an encoded long format ID, once shifted. */
+    private static final long NAMESPACE_MASK = (1L << (PARTITION_SHIFT - NAMESPACE_SHIFT)) - 1;
+
+    /** The high bits of each container, ascending. */
+    private final long[] keys;
+
+    /** The containers, each a sorted char array or a long array bitmap. */
+    private final Object[] containers;
+
+    /** The number of IDs. */
+    private final int size;
+
+    /**
+     * Instantiates a {@link SctidSet} from the specified parameters.
+     *
+     * @param keys the high bits of each container
+     * @param containers the containers
+     * @param size the number of IDs
+     */
+    private SctidSet(final long[] keys, final Object[] containers, final int size) {
+
+        this.keys = keys;
+        this.containers = containers;
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of IDs.
+     *
+     * @return the size
+     */
+    public int size() {
+
+        return size;
+    }
+
+    /**
+     * Indicates whether the set is empty.
+     *
+     * @return true, if empty
+     */
+    public boolean isEmpty() {
+
+        return size == 0;
+    }
+
+    /**
+     * Indicates whether the set contains an ID.
+     *
+     * @param id the ID
+     * @return true, if contained
+     */
+    public boolean contains(final long id) {
+
+        if (id < 0 || id >= MAX_ID) {
+            return false;
+        }
+
+        final long encoded = encode(id);
+        final int index = Arrays.binarySearch(keys, encoded >>> 16);
+        return index >= 0 && containerContains(containers[index], (char) encoded);
+    }
+
+    /**
+     * Indicates whether the set contains an ID.
+     *
+     * @param id the ID
+     * @return true, if contained, false if not or if the ID is not numeric
+     */
+    public boolean contains(final String id) {
+
+        final long value = parse(id);
+        return value >= 0 && contains(value);
+    }
+
+    /**
+     * Indicates whether the set shares any ID with another set.
+     *
+     * @param other the other set
+     * @return true, if the sets intersect
+     */
+    public boolean intersects(final SctidSet other) {
+
+        int i = 0;
+        int j = 0;
+
+        while (i < keys.length && j < other.keys.length) {
+
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+
+                if (containersIntersect(containers[i++], other.containers[j++])) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the union of this set and another.
+     *
+     * @param other the other set
+     * @return the union
+     */
+    public SctidSet union(final SctidSet other) {
+
+        final long[] unionKeys = new long[keys.length + other.keys.length];
+        final Object[] unionContainers = new Object[unionKeys.length];
+        int count = 0;
+        int unionSize = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < keys.length || j < other.keys.length) {
+
+            final Object container;
+
+            if (j == other.keys.length || (i < keys.length && keys[i] < other.keys[j])) {
+
+                unionKeys[count] = keys[i];
+                container = containers[i++];
+            } else if (i == keys.length || keys[i] > other.keys[j]) {
+
+                unionKeys[count] = other.keys[j];
+                container = other.containers[j++];
+            } else {
+
+                unionKeys[count] = keys[i];
+                container = unionContainers(containers[i++], other.containers[j++]);
+            }
+
+            unionContainers[count++] = container;
+            unionSize += cardinality(container);
+        }
+
+        return new SctidSet(Arrays.copyOf(unionKeys, count), Arrays.copyOf(unionContainers, count), unionSize);
+    }
+
+    /**
+     * Returns the intersection of this set and another.
+     *
+     * @param other the other set
+     * @return the intersection
+     */
+    public SctidSet intersect(final SctidSet other) {
+
+        final int length = Math.min(keys.length, other.keys.length);
+        final long[] intersectionKeys = new long[length];
+        final Object[] intersectionContainers = new Object[length];
+        int count = 0;
+        int intersectionSize = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < keys.length && j < other.keys.length) {
+
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+
+                final long key = keys[i];
+                final Object container = intersectContainers(containers[i++], other.containers[j++]);
+
+                if (container != null) {
+
+                    intersectionKeys[count] = key;
+                    intersectionContainers[count++] = container;
+                    intersectionSize += cardinality(container);
+                }
+            }
+        }
+
+        return count == 0 ? EMPTY : new SctidSet(Arrays.copyOf(intersectionKeys, count), Arrays.copyOf(intersectionContainers, count), intersectionSize);
+    }
+
+    /**
+     * Passes each ID to a consumer, grouped by partition and namespace rather than in numeric order.
+     *
+     * @param consumer the consumer
+     */
+    public void forEach(final LongConsumer consumer) {
+
+        forEachEncoded(encoded -> consumer.accept(decode(encoded)));
+    }
+
+    /**
+     * Passes each encoded ID to a consumer, in ascending order.
+     *
+     * @param consumer the consumer
+     */
+    private void forEachEncoded(final LongConsumer consumer) {
+
+        for (int i = 0; i < keys.length; i++) {
+
+            final long high = keys[i] << 16;
+
+            if (containers[i] instanceof char[]) {
+
+                for (final char low : (char[]) containers[i]) {
+                    consumer.accept(high | low);
+                }
+
+            } else {
+
+                final long[] bitmap = (long[]) containers[i];
+
+                for (int word = 0; word < BITMAP_WORDS; word++) {
+
+                    long bits = bitmap[word];
+
+                    while (bits != 0) {
+
+                        consumer.accept(high | (word << 6) | Long.numberOfTrailingZeros(bits));
+                        bits &= bits - 1;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the IDs as strings, in ascending numeric order.
+     *
+     * @return the IDs
+     */
+    public List<String> toStrings() {
+
+        final List<String> ids = new ArrayList<>(size);
+        for (final long id : toLongArray()) {
+            ids.add(Long.toString(id));
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the IDs, in ascending order.
+     *
+     * @return the IDs
+     */
+    public long[] toLongArray() {
+
+        final long[] ids = new long[size];
+        final int[] count = new int[1];
+        forEach(id -> ids[count[0]++] = id);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /* see superclass */
+    @Override
+    public String toString() {
+
+        return "SctidSet [size=" + size + ", containers=" + keys.length + "]";
+    }
+
+    /**
+     * Parses an ID.
+     *
+     * @param id the ID
+     * @return the value, or -1 if the ID is not a non-negative long
+     */
+    private static long parse(final String id) {
+
+        // SCTIDs are at most 18 digits, which cannot overflow a long
+        if (id == null || id.isEmpty() || id.length() > 18) {
+            return -1;
+        }
+
+        long value = 0;
+
+        for (int i = 0; i < id.length(); i++) {
+
+            final char c = id.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+
+        return value;
+    }
+
+    /**
+     * Encodes an ID as its partition identifier, its namespace for long format IDs, then its item identifier and check digit, so consecutive
+     * items of a namespace are close together.
+     *
+     * @param id the ID, less than {@link #MAX_ID}
+     * @return the encoded ID
+     */
+    private static long encode(final long id) {
+
+        final long partition = id / 10 % 100;
+        final long item = id / 1000;
+        final long check = id % 10;
+
+        // the first digit of the partition identifier is 1 for long format IDs
+        if (partition / 10 == 1) {
+            return (partition << PARTITION_SHIFT) | (item % NAMESPACES << NAMESPACE_SHIFT) | (item / NAMESPACES * 10 + check);
+        }
+
+        return (partition << PARTITION_SHIFT) | (item * 10 + check);
+    }
+
+    /**
+     * Decodes an encoded ID.
+     *
+     * @param encoded the encoded ID
+     * @return the ID
+     */
+    private static long decode(final long encoded) {
+
+        final long partition = encoded >>> PARTITION_SHIFT;
+
+        if (partition / 10 == 1) {
+
+            final long itemAndCheck = encoded & LONG_ITEM_MASK;
+            final long namespace = (encoded >>> NAMESPACE_SHIFT) & NAMESPACE_MASK;
+            return ((itemAndCheck / 10 * NAMESPACES + namespace) * 100 + partition) * 10 + itemAndCheck % 10;
+        }
+
+        final long itemAndCheck = encoded & SHORT_ITEM_MASK;
+        return (itemAndCheck / 10 * 100 + partition) * 10 + itemAndCheck % 10;
+    }
+
+    /**
+     * Returns the number of IDs in a container.
+     *
+     * @param container the container
+     * @return the cardinality
+     */
+    private static int cardinality(final Object container) {
+
+        if (container instanceof char[]) {
+            return ((char[]) container).length;
+        }
+
+        int cardinality = 0;
+
+        for (final long word : (long[]) container) {
+            cardinality += Long.bitCount(word);
+        }
+
+        return cardinality;
+    }
+
+    /**
+     * Indicates whether a container holds a low value.
+     *
+     * @param container the container
+     * @param low the low 16 bits
+     * @return true, if held
+     */
+    private static boolean containerContains(final Object container, final char low) {
+
+        if (container instanceof char[]) {
+            return Arrays.binarySearch((char[]) container, low) >= 0;
+        }
+
+        return (((long[]) container)[low >>> 6] & (1L << low)) != 0;
+    }
+
+    /**
+     * Indicates whether two containers share a value.
+     *
+     * @param a the first container
+     * @param b the second container
+     * @return true, if they share a value
+     */
+    private static boolean containersIntersect(final Object a, final Object b) {
+
+        if (a instanceof char[] && b instanceof char[]) {
+
+            final char[] x = (char[]) a;
+            final char[] y = (char[]) b;
+            int i = 0;
+            int j = 0;
+
+            while (i < x.length && j < y.length) {
+
+                if (x[i] < y[j]) {
+                    i++;
+                } else if (x[i] > y[j]) {
+                    j++;
+                } else {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        if (a instanceof char[] || b instanceof char[]) {
+
+            final char[] array = (char[]) (a instanceof char[] ? a : b);
+            final Object bitmap = a instanceof char[] ? b : a;
+
+            for (final char low : array) {
+                if (containerContains(bitmap, low)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        final long[] x = (long[]) a;
+        final long[] y = (long[]) b;
+
+        for (int word = 0; word < BITMAP_WORDS; word++) {
+            if ((x[word] & y[word]) != 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the union of two containers.
+     *
+     * @param a the first container
+     * @param b the second container
+     * @return the union
+     */
+    private static Object unionContainers(final Object a, final Object b) {
+
+        if (a instanceof char[] && b instanceof char[]) {
+
+            final char[] x = (char[]) a;
+            final char[] y = (char[]) b;
+            final char[] union = new char[x.length + y.length];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+
+            while (i < x.length || j < y.length) {
+
+                if (j == y.length || (i < x.length && x[i] < y[j])) {
+                    union[count++] = x[i++];
+                } else if (i == x.length || x[i] > y[j]) {
+                    union[count++] = y[j++];
+                } else {
+                    union[count++] = x[i++];
+                    j++;
+                }
+            }
+
+            return count > ARRAY_MAX ? toBitmap(union, count) : Arrays.copyOf(union, count);
+        }
+
+        final long[] union = a instanceof long[] ? ((long[]) a).clone() : toBitmap((char[]) a, ((char[]) a).length);
+
+        if (b instanceof char[]) {
+
+            for (final char low : (char[]) b) {
+                union[low >>> 6] |= 1L << low;
+            }
+
+        } else {
+
+            final long[] y = (long[]) b;
+
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                union[word] |= y[word];
+            }
+        }
+
+        return union;
+    }
+
+    /**
+     * Returns the intersection of two containers.
+     *
+     * @param a the first container
+     * @param b the second container
+     * @return the intersection, or null if empty
+     */
+    private static Object intersectContainers(final Object a, final Object b) {
+
+        if (a instanceof char[] || b instanceof char[]) {
+
+            final char[] array = (char[]) (a instanceof char[] ? a : b);
+            final Object other = a instanceof char[] ? b : a;
+            final char[] intersection = new char[array.length];
+            int count = 0;
+
+            for (final char low : array) {
+                if (containerContains(other, low)) {
+                    intersection[count++] = low;
+                }
+            }
+
+            return count == 0 ? null : Arrays.copyOf(intersection, count);
+        }
+
+        final long[] x = (long[]) a;
+        final long[] y = (long[]) b;
+        final long[] intersection = new long[BITMAP_WORDS];
+        int cardinality = 0;
+
+        for (int word = 0; word < BITMAP_WORDS; word++) {
+
+            intersection[word] = x[word] & y[word];
+            cardinality += Long.bitCount(intersection[word]);
+        }
+
+        if (cardinality == 0) {
+            return null;
+        }
+
+        return cardinality > ARRAY_MAX ? intersection : toArray(intersection, cardinality);
+    }
+
+    /**
+     * Converts sorted low values to a bitmap.
+     *
+     * @param lows the low values
+     * @param count the number of low values
+     * @return the bitmap
+     */
+    private static long[] toBitmap(final char[] lows, final int count) {
+
+        final long[] bitmap = new long[BITMAP_WORDS];
+
+        for (int i = 0; i < count; i++) {
+            bitmap[lows[i] >>> 6] |= 1L << lows[i];
+        }
+
+        return bitmap;
+    }
+
+    /**
+     * Converts a bitmap to sorted low values.
+     *
+     * @param bitmap the bitmap
+     * @param cardinality the number of bits set
+     * @return the low values
+     */
+    private static char[] toArray(final long[] bitmap, final int cardinality) {
+
+        final char[] lows = new char[cardinality];
+        int count = 0;
+
+        for (int word = 0; word < BITMAP_WORDS; word++) {
+
+            long bits = bitmap[word];
+
+            while (bits != 0) {
+
+                lows[count++] = (char) ((word << 6) | Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+
+        return lows;
+    }
+
+    /**
+     * Thread safe builder of a {@link SctidSet}, so concurrent batches of a fan-out can add to the same set.
+     */
+    public static final class Builder {
+
+        /** The encoded IDs added, in any order and possibly repeated. */
+        private long[] ids = new long[1024];
+
+        /** The number of IDs added. */
+        private int count;
+
+        /**
+         * Adds an ID.
+         *
+         * @param id the ID
+         * @return the builder
+         */
+        public synchronized Builder add(final long id) {
+
+            if (id < 0 || id >= MAX_ID) {
+                throw new IllegalArgumentException("Invalid SCTID " + id);
+            }
+
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+
+            ids[count++] = encode(id);
+            return this;
+        }
+
+        /**
+         * Adds an ID.
+         *
+         * @param id the ID
+         * @return the builder
+         */
+        public Builder add(final String id) {
+
+            final long value = parse(id);
+
+            if (value < 0) {
+                throw new IllegalArgumentException("Invalid SCTID " + id);
+            }
+
+            return add(value);
+        }
+
+        /**
+         * Adds the IDs of a set.
+         *
+         * @param set the set
+         * @return the builder
+         */
+        public synchronized Builder addAll(final SctidSet set) {
+
+            set.forEach(this::add);
+            return this;
+        }
+
+        /**
+         * Builds the set of the IDs added so far.
+         *
+         * @return the set
+         */
+        public synchronized SctidSet build() {
+
+            if (count == 0) {
+                return EMPTY;
+            }
+
+            final long[] sorted = Arrays.copyOf(ids, count);
+            Arrays.sort(sorted);
+
+            final List<Long> setKeys = new ArrayList<>();
+            final List<Object> setContainers = new ArrayList<>();
+            final char[] lows = new char[65536];
+            int setSize = 0;
+            int i = 0;
+
+            while (i < sorted.length) {
+
+                final long key = sorted[i] >>> 16;
+                int lowCount = 0;
+
+                for (; i < sorted.length && sorted[i] >>> 16 == key; i++) {
+
+                    if (lowCount == 0 || lows[lowCount - 1] != (char) sorted[i]) {
+                        lows[lowCount++] = (char) sorted[i];
+                    }
+                }
+
+                setKeys.add(key);
+                setContainers.add(lowCount > ARRAY_MAX ? toBitmap(lows, lowCount) : Arrays.copyOf(lows, lowCount));
+                setSize += lowCount;
+            }
+
+            return new SctidSet(setKeys.stream().mapToLong(Long::longValue).toArray(), setContainers.toArray(), setSize);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2024 West Coast Informatics - All Rights Reserved.
+ *
+ * NOTICE:  All information contained herein is, and remains the property of West Coast Informatics
+ * The intellectual and technical concepts contained herein are proprietary to
+ * West Coast Informatics and may be covered by U.S. and Foreign Patents, patents in process,
+ * and are protected by trade secret or copyright law.  Dissemination of this information
+ * or reproduction of this material is strictly forbidden.
+ */
+package org.ihtsdo.refsetservice.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compiled accessor of a sort field, a period-separated list of sequential getX methods, e.g. a.b.c for o.getA().getB().getC().
+ *
+ * The getters are looked up once per class and sort field and chained into a single method handle, so reading a sort field value no longer
+ * involves a reflective lookup. Accessors are cached for the life of the application.
+ */
+public final class SortFieldAccessor {
+
+    /** The Constant LOG. */
+    private static final Logger LOG = LoggerFactory.getLogger(SortFieldAccessor.class);
+
+    /** The lookup used to unreflect getters. */
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /** The type of a compiled getter. */
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /** The accessors by class and sort field. */
+    private static final Map<Class<?>, Map<String, SortFieldAccessor>> ACCESSORS = new ConcurrentHashMap<>();
+
+    /** The sort field. */
+    private final String sortField;
+
+    /** The chained getters, or null if the sort field cannot be read. */
+    private final MethodHandle getter;
+
+    /** The reason the sort field cannot be read. */
+    private final String error;
+
+    /**
+     * Instantiates a {@link SortFieldAccessor} from the specified parameters.
+     *
+     * @param sortField the sort field
+     * @param getter the chained getters, or null
+     * @param error the reason the sort field cannot be read
+     */
+    private SortFieldAccessor(final String sortField, final MethodHandle getter, final String error) {
+
+        this.sortField = sortField;
+        this.getter = getter;
+        this.error = error;
+    }
+
+    /**
+     * Returns the accessor of a sort field of a class.
+     *
+     * @param clazz the class
+     * @param sortField the sort field
+     * @return the accessor
+     */
+    public static SortFieldAccessor get(final Class<?> clazz, final String sortField) {
+
+        return ACCESSORS.computeIfAbsent(clazz, k -> new ConcurrentHashMap<>()).computeIfAbsent(sortField, k -> compile(clazz, sortField));
+    }
+
+    /**
+     * Returns the value of the sort field of an object.
+     *
+     * @param o the object
+     * @return the value
+     * @throws Exception the exception
+     */
+    public Object getValue(final Object o) throws Exception {
+
+        if (getter == null) {
+            throw new Exception(error);
+        }
+
+        try {
+
+            return (Object) getter.invokeExact(o);
+
+        } catch (final Exception | Error e) {
+            throw e;
+        } catch (final Throwable t) {
+            throw new Exception("Unable to read sort field " + sortField, t);
+        }
+    }
+
+    /**
+     * Returns a comparator over the sort fields. Dates and longs compare by value, anything else by its string value, and a null value sorts after
+     * any other when ascending. As it always has, the comparison is decided by the first sort field where either value is not null; later fields
+     * only order objects for which all earlier fields are null.
+     *
+     * @param <T> the type compared
+     * @param sortFields the sort fields
+     * @param ascending the ascending flag
+     * @return the comparator
+     */
+    public static <T> Comparator<T> getComparator(final List<String> sortFields, final boolean ascending) {
+
+        return new SortFieldComparator<>(sortFields.toArray(new String[0]), ascending);
+    }
+
+    /**
+     * Looks up and chains the getters of a sort field.
+     *
+     * @param clazz the class
+     * @param sortField the sort field
+     * @return the accessor
+     */
+    private static SortFieldAccessor compile(final Class<?> clazz, final String sortField) {
+
+        try {
+
+            MethodHandle handle = null;
+            Class<?> type = clazz;
+            Method method = null;
+
+            for (final String field : sortField.split("\\.")) {
+
+                method = type.getMethod("get" + StringUtility.capitalize(field), new Class<?>[] {});
+                method.setAccessible(true);
+
+                final MethodHandle next = LOOKUP.unreflect(method);
+                handle = handle == null ? next.asType(next.type().changeParameterType(0, type))
+                    : MethodHandles.filterReturnValue(handle, next.asType(next.type().changeParameterType(0, type)));
+                type = method.getReturnType();
+            }
+
+            if (method == null) {
+                return new SortFieldAccessor(sortField, null, "Missing get method for sort field " + sortField);
+            }
+
+            // verify that final object is actually a string, enum, or date
+            if (!type.equals(String.class) && !type.isEnum() && !type.equals(Long.class) && !type.equals(Date.class)) {
+                return new SortFieldAccessor(sortField, null, "Requested sort field value is not string, enum, or date value " + type.getName());
+            }
+
+            return new SortFieldAccessor(sortField, handle.asType(GETTER_TYPE), null);
+
+        } catch (final Exception e) {
+
+            return new SortFieldAccessor(sortField, null, "Unable to read sort field " + sortField + " of " + clazz.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Compares two sort field values.
+     *
+     * @param s1 the first value
+     * @param s2 the second value
+     * @param ascending the ascending flag
+     * @return the comparison
+     */
+    private static int compareValues(final Object s1, final Object s2, final boolean ascending) {
+
+        if (s1 == null || s2 == null) {
+            return (s1 == null ? 1 : -1) * (ascending ? 1 : -1);
+        }
+
+        final int comparison;
+
+        // handle date comparison by long value, otherwise via string comparison
+        if (s1 instanceof Date) {
+            comparison = Long.compare(((Date) s1).getTime(), ((Date) s2).getTime());
+        } else if (s1 instanceof Long) {
+            comparison = ((Long) s1).compareTo((Long) s2);
+        } else {
+            comparison = s1.toString().compareTo(s2.toString());
+        }
+
+        return ascending ? comparison : -comparison;
+    }
+
+    /**
+     * Comparator over sort fields, holding the accessors of the last class compared so a homogeneous list resolves them once.
+     *
+     * @param <T> the type compared
+     */
+    private static final class SortFieldComparator<T> implements Comparator<T> {
+
+        /** The sort fields. */
+        private final String[] sortFields;
+
+        /** The ascending flag. */
+        private final boolean ascending;
+
+        /** The accessors of the last class compared. */
+        private volatile ClassAccessors lastAccessors;
+
+        /** Whether a failure has been logged. */
+        private volatile boolean failureLogged;
+
+        /**
+         * Instantiates a {@link SortFieldComparator} from the specified parameters.
+         *
+         * @param sortFields the sort fields
+         * @param ascending the ascending flag
+         */
+        SortFieldComparator(final String[] sortFields, final boolean ascending) {
+
+            this.sortFields = sortFields;
+            this.ascending = ascending;
+        }
+
+        /* see superclass */
+        @Override
+        public int compare(final T t1, final T t2) {
+
+            // if an exception is returned, simply pass equality
+            try {
+
+                final SortFieldAccessor[] accessors1 = getAccessors(t1.getClass());
+                final SortFieldAccessor[] accessors2 = t1.getClass() == t2.getClass() ? accessors1 : getAccessors(t2.getClass());
+
+                for (int i = 0; i < sortFields.length; i++) {
+
+                    final Object s1 = accessors1[i].getValue(t1);
+                    final Object s2 = accessors2[i].getValue(t2);
+
+                    // if both values null, skip to next sort field
+                    if (s1 != null || s2 != null) {
+                        return compareValues(s1, s2, ascending);
+                    }
+                }
+
+                // if no return after checking all sort fields, return equality
+                return 0;
+
+            } catch (final Exception e) {
+
+                if (!failureLogged) {
+                    failureLogged = true;
+                    LOG.error("Unable to compare sort fields, treating values as equal", e);
+                }
+                return 0;
+            }
+        }
+
+        /**
+         * Returns the accessors of the sort fields for a class.
+         *
+         * @param clazz the class
+         * @return the accessors
+         */
+        private SortFieldAccessor[] getAccessors(final Class<?> clazz) {
+
+            final ClassAccessors last = lastAccessors;
+
+            if (last != null && last.clazz == clazz) {
+                return last.accessors;
+            }
+
+            final SortFieldAccessor[] accessors = new SortFieldAccessor[sortFields.length];
+            for (int i = 0; i < sortFields.length; i++) {
+                accessors[i] = get(clazz, sortFields[i]);
+            }
+
+            lastAccessors = new ClassAccessors(clazz, accessors);
+            return accessors;
+        }
+    }
+
+    /**
+     * The accessors of the sort fields for a class.
+     */
+    private static final class ClassAccessors {
+
+        /** The class. */
+        private final Class<?> clazz;
+
+        /** The accessors, parallel to the sort fields. */
+        private final SortFieldAccessor[] accessors;
+
+        /**
+         * Instantiates a {@link ClassAccessors} from the specified parameters.
+         *
+         * @param clazz the class
+         * @param accessors the accessors
+         */
+        ClassAccessors(final Class<?> clazz, final SortFieldAccessor[] accessors) {
+
+            this.clazz = clazz;
+            this.accessors = accessors;
+        }
+    }
+}